@@ -0,0 +1,98 @@
+package com.waynai.demo.bulkhead;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 외부 API 묶음 1개 전용 블로킹 실행기 (격벽).
+ *
+ * <p>스레드 수와 대기열 길이가 고정돼 있어 한 상류가 느려져도 자기 몫의 스레드만 붙잡히고, 다른 격벽(예: GPS 주변 조회의
+ * 네이버 검색)은 영향을 받지 않는다. 대기열까지 차면 기다리지 않고 {@link RejectedExecutionException} 으로 즉시
+ * 거절하며, 호출 측은 이를 “이 소스는 비움”으로 흡수해 계획 생성을 계속한다(degrade).
+ */
+public class Bulkhead {
+
+    /** 상태 스냅샷. saturation = (실행 중 + 대기) / (스레드 + 대기열). */
+    public record Snapshot(String name, int threads, int queueCapacity, int active, int queued,
+                           long completed, long rejected, double saturation) {}
+
+    private final String name;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+    private final Scheduler scheduler;
+    private final AtomicLong rejected = new AtomicLong();
+
+    Bulkhead(String name, int threads, int queueCapacity) {
+        this.name = name;
+        this.queueCapacity = Math.max(0, queueCapacity);
+        int n = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS,
+                this.queueCapacity == 0 ? new SynchronousQueue<>()
+                        : new ArrayBlockingQueue<>(this.queueCapacity),
+                threadFactory(name),
+                (r, ex) -> {
+                    rejected.incrementAndGet();
+                    throw new RejectedExecutionException("격벽 '" + name + "' 포화 — 거절");
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.scheduler = Schedulers.fromExecutorService(executor, "bulkhead-" + name);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /** Reactor 체인의 {@code subscribeOn}/{@code publishOn} 용. 포화 시 구독자에게 RejectedExecutionException 이 간다. */
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    /** 블로킹 호출을 격벽에서 실행하는 Mono. */
+    public <T> Mono<T> call(Callable<T> task) {
+        return Mono.fromCallable(task).subscribeOn(scheduler);
+    }
+
+    /** 블로킹 호출을 격벽에서 실행. 포화면 RejectedExecutionException 으로 이미 실패한 future. */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public Snapshot snapshot() {
+        int threads = executor.getMaximumPoolSize();
+        int active = executor.getActiveCount();
+        int queued = executor.getQueue().size();
+        return new Snapshot(name, threads, queueCapacity, active, queued, executor.getCompletedTaskCount(),
+                rejected.get(), (double) (active + queued) / (threads + queueCapacity));
+    }
+
+    void shutdown() {
+        scheduler.dispose();
+        executor.shutdownNow();
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "bulkhead-" + name + "-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
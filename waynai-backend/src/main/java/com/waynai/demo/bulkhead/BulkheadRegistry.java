@@ -0,0 +1,90 @@
+package com.waynai.demo.bulkhead;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 격벽 레지스트리. 상류 묶음 이름({@link #TOUR}, {@link #NAVER} …)으로 {@link Bulkhead} 를 받아 쓴다.
+ *
+ * <p>크기는 {@code waynai.bulkhead.<이름>.threads}/{@code queue}, 없으면 {@code waynai.bulkhead.default.*}.
+ * 격벽마다 {@code bulkhead.active}·{@code bulkhead.queued}·{@code bulkhead.saturation} 게이지와
+ * {@code bulkhead.rejected} 카운터(태그 {@code bulkhead=<이름>})를 등록한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BulkheadRegistry {
+
+    /** 관광공사(data.go.kr) 지역·좌표 기반 조회. */
+    public static final String TOUR = "tour";
+    /** 네이버 검색(블로그·지역). */
+    public static final String NAVER = "naver";
+    /** Tavily 웹 검색. */
+    public static final String WEB = "web";
+    /** 숙소 크롤링. */
+    public static final String HOTEL = "hotel";
+    /** 항공권(Travelpayouts + IATA autocomplete). */
+    public static final String FLIGHT = "flight";
+    /** 생성 뒤 이동 보강(ORS 경로·matrix, daero 대중교통). */
+    public static final String ROUTE = "route";
+
+    private static final int DEFAULT_THREADS = 8;
+    private static final int DEFAULT_QUEUE = 64;
+
+    private final Environment environment;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /** 이름으로 격벽을 만들거나 기존 것을 돌려준다. */
+    public Bulkhead get(String name) {
+        return bulkheads.computeIfAbsent(name, n -> {
+            int threads = size(n, "threads", DEFAULT_THREADS);
+            int queue = size(n, "queue", DEFAULT_QUEUE);
+            Bulkhead b = new Bulkhead(n, threads, queue);
+            bindMetrics(b);
+            log.info("[bulkhead] '{}' — threads={}, queue={}", n, threads, queue);
+            return b;
+        });
+    }
+
+    public List<Bulkhead.Snapshot> snapshot() {
+        List<Bulkhead.Snapshot> out = new ArrayList<>();
+        bulkheads.values().forEach(b -> out.add(b.snapshot()));
+        out.sort((a, b) -> a.name().compareTo(b.name()));
+        return out;
+    }
+
+    @PreDestroy
+    public void close() {
+        bulkheads.values().forEach(Bulkhead::shutdown);
+    }
+
+    private int size(String name, String key, int fallback) {
+        Integer d = environment.getProperty("waynai.bulkhead.default." + key, Integer.class, fallback);
+        return environment.getProperty("waynai.bulkhead." + name + "." + key, Integer.class, d);
+    }
+
+    private void bindMetrics(Bulkhead b) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) return;
+        String n = b.name();
+        Gauge.builder("bulkhead.active", b, x -> x.snapshot().active()).tag("bulkhead", n).register(registry);
+        Gauge.builder("bulkhead.queued", b, x -> x.snapshot().queued()).tag("bulkhead", n).register(registry);
+        Gauge.builder("bulkhead.saturation", b, x -> x.snapshot().saturation()).tag("bulkhead", n).register(registry);
+        FunctionCounter.builder("bulkhead.rejected", b, x -> x.snapshot().rejected())
+                .tag("bulkhead", n).register(registry);
+    }
+}
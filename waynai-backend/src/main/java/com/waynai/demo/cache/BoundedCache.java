@@ -0,0 +1,368 @@
+package com.waynai.demo.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * 이름 붙은 캐시 영역 1개 (크기·TTL 상한 + W-TinyLFU 입장 + 음성 캐시).
+ *
+ * <ul>
+ *   <li>구조: 작은 윈도 LRU(전체 가중치의 1%) + 본 LRU. 새 항목은 윈도에 들어가고, 윈도에서 밀려난 후보는
+ *       본 영역의 가장 오래된 항목과 {@link FrequencySketch} 빈도를 비교해 더 자주 찾힌 쪽만 남는다.
+ *       한 번 조회되고 마는 키(일회성 좌표열 등)가 자주 쓰는 항목을 밀어내지 못한다.</li>
+ *   <li>상한: 가중치 합({@code maxWeight}). 가중치 함수가 없으면 항목 수.</li>
+ *   <li>만료: 쓰기 후 TTL. 음성 결과(“없음”)는 {@link #putNegative} 로 따로 짧은 TTL 을 준다.</li>
+ *   <li>갱신: {@code refreshAfter} 가 지난 항목은 {@link #get(Object, Function)} 에서 기존 값을 돌려주면서
+ *       백그라운드로 다시 적재한다.</li>
+ * </ul>
+ *
+ * <p>모든 연산은 영역 단위 락 하나로 보호한다(조회도 LRU 순서를 바꾸므로). 메트릭 등록은 {@link CacheRegistry}.
+ * 디스크 계층({@link PersistentTier})이 붙으면 쓰기는 디스크에도 남기고, 메모리 미스는 디스크에서 한 번 더 찾는다.
+ */
+@Slf4j
+public class BoundedCache<K, V> {
+
+    /** 영역 설정. negativeTtl/refreshAfter 는 null 이면 미사용. */
+    public record Spec(long maxWeight, Duration ttl, Duration negativeTtl, Duration refreshAfter) {
+        public static Spec of(long maxWeight, Duration ttl) {
+            return new Spec(maxWeight, ttl, null, null);
+        }
+
+        public Spec withNegativeTtl(Duration d) {
+            return new Spec(maxWeight, ttl, d, refreshAfter);
+        }
+
+        public Spec withRefreshAfter(Duration d) {
+            return new Spec(maxWeight, ttl, negativeTtl, d);
+        }
+    }
+
+    /** 통계 스냅샷. */
+    public record Stats(String name, long size, long weight, long maxWeight, long hits, long negativeHits,
+                        long misses, long puts, long evictions, long expirations, long diskHits, long diskSize,
+                        long coalesced) {
+        public double hitRate() {
+            long total = hits + negativeHits + misses;
+            return total == 0 ? 0 : (double) (hits + negativeHits) / total;
+        }
+    }
+
+    private static final class Node<V> {
+        final V value; // null 이면 음성 항목
+        final int weight;
+        final long writtenAt;
+        final long expiresAt;
+
+        Node(V value, int weight, long writtenAt, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.writtenAt = writtenAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final String name;
+    private final Spec spec;
+    private final ToIntFunction<V> weigher;
+    private final long windowMax;
+    private final long mainMax;
+
+    private final LinkedHashMap<K, Node<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Node<V>> main = new LinkedHashMap<>(64, 0.75f, true);
+    private final FrequencySketch sketch;
+    private long windowWeight;
+    private long mainWeight;
+
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+    private final SingleFlight<K, V> loads = new SingleFlight<>();
+    private volatile PersistentTier<V> tier;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+
+    public BoundedCache(String name, Spec spec) {
+        this(name, spec, null);
+    }
+
+    public BoundedCache(String name, Spec spec, ToIntFunction<V> weigher) {
+        this.name = name;
+        this.spec = spec;
+        this.weigher = weigher;
+        long max = Math.max(2, spec.maxWeight());
+        this.windowMax = Math.max(1, max / 100);
+        this.mainMax = max - windowMax;
+        this.sketch = new FrequencySketch(weigher == null ? max : Math.min(max, 100_000));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Spec spec() {
+        return spec;
+    }
+
+    /** 값. 없거나 만료됐거나 음성 항목이면 null. */
+    public V get(K key) {
+        Node<V> n = lookupOrLoadTier(key);
+        if (n == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (n.value == null) {
+            negativeHits.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return n.value;
+    }
+
+    /** “없음”으로 캐시된 키인지(만료 전). 통계에 세지 않는다. */
+    public boolean isNegative(K key) {
+        synchronized (this) {
+            Node<V> n = peek(key);
+            return n != null && n.value == null && n.expiresAt > System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 읽기 통과(read-through). 미스면 loader 를 호출해 적재(null 이면 음성 캐시).
+     * 같은 키의 동시 미스는 loader 1회로 합치고, 승자가 캐시에 넣은 뒤 대기자에게 같은 값을 준다.
+     * refreshAfter 가 지난 항목은 기존 값을 주고 백그라운드로 다시 적재한다.
+     */
+    public V get(K key, Function<K, V> loader) {
+        Node<V> n = lookupOrLoadTier(key);
+        if (n != null) {
+            if (n.value == null) {
+                negativeHits.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            if (spec.refreshAfter() != null
+                    && System.currentTimeMillis() - n.writtenAt > spec.refreshAfter().toMillis()
+                    && refreshing.add(key)) {
+                Schedulers.boundedElastic().schedule(() -> {
+                    try {
+                        V fresh = loader.apply(key);
+                        if (fresh != null) put(key, fresh);
+                    } catch (Exception e) {
+                        log.debug("[cache:{}] 갱신 실패 (기존 값 유지): {}", name, e.getMessage());
+                    } finally {
+                        refreshing.remove(key);
+                    }
+                });
+            }
+            return n.value;
+        }
+        misses.incrementAndGet();
+        return loads.execute(key, () -> {
+            V loaded = loader.apply(key);
+            if (loaded != null) put(key, loaded);
+            else putNegative(key);
+            return loaded;
+        });
+    }
+
+    public void put(K key, V value) {
+        if (value == null) {
+            putNegative(key);
+            return;
+        }
+        int w = weigher == null ? 1 : Math.max(1, weigher.applyAsInt(value));
+        if (w > mainMax) return; // 혼자서 영역을 넘는 항목은 담지 않는다
+        long now = System.currentTimeMillis();
+        Node<V> node = new Node<>(value, w, now, now + spec.ttl().toMillis());
+        insert(key, node);
+        writeThrough(key, node);
+    }
+
+    /** “없음”을 negativeTtl 동안 기억한다. negativeTtl 미설정 영역에서는 무시. */
+    public void putNegative(K key) {
+        if (spec.negativeTtl() == null) return;
+        long now = System.currentTimeMillis();
+        Node<V> node = new Node<>(null, 1, now, now + spec.negativeTtl().toMillis());
+        insert(key, node);
+        writeThrough(key, node);
+    }
+
+    public void invalidate(K key) {
+        synchronized (this) {
+            removeNode(key);
+        }
+        PersistentTier<V> t = tier;
+        if (t != null) t.remove(String.valueOf(key));
+    }
+
+    public void invalidateAll() {
+        synchronized (this) {
+            window.clear();
+            main.clear();
+            windowWeight = 0;
+            mainWeight = 0;
+        }
+        PersistentTier<V> t = tier;
+        if (t != null) t.clear();
+    }
+
+    /**
+     * 디스크 계층을 붙이고, 만료 전 항목을 오래된 것부터 메모리에 올린다(최근 항목이 LRU 앞쪽에 남도록).
+     * 키가 문자열인 영역에서만 쓴다.
+     */
+    @SuppressWarnings("unchecked")
+    void attach(PersistentTier<V> tier) {
+        int[] warmed = {0};
+        tier.forEachLive((key, stored) -> {
+            Node<V> node = fromStored(stored);
+            if (node == null) return;
+            insert((K) key, node);
+            warmed[0]++;
+        });
+        this.tier = tier;
+        log.info("[cache:{}] 디스크 계층 연결 — {}건 예열", name, warmed[0]);
+    }
+
+    PersistentTier<V> tier() {
+        return tier;
+    }
+
+    public synchronized long size() {
+        return window.size() + main.size();
+    }
+
+    public Stats stats() {
+        long size;
+        long weight;
+        synchronized (this) {
+            size = window.size() + main.size();
+            weight = windowWeight + mainWeight;
+        }
+        PersistentTier<V> t = tier;
+        return new Stats(name, size, weight, spec.maxWeight(), hits.get(), negativeHits.get(), misses.get(),
+                puts.get(), evictions.get(), expirations.get(), diskHits.get(), t != null ? t.size() : 0,
+                loads.coalesced());
+    }
+
+    /** 메모리 → 디스크 순으로 찾고, 디스크 적중은 메모리로 올린다. */
+    private Node<V> lookupOrLoadTier(K key) {
+        Node<V> n = lookup(key);
+        PersistentTier<V> t = tier;
+        if (n != null || t == null) return n;
+        n = fromStored(t.get(String.valueOf(key)));
+        if (n != null) {
+            diskHits.incrementAndGet();
+            insert(key, n);
+        }
+        return n;
+    }
+
+    private Node<V> fromStored(PersistentTier.Stored<V> s) {
+        if (s == null || s.expiresAt() <= System.currentTimeMillis()) return null;
+        int w = s.value() == null || weigher == null ? 1 : Math.max(1, weigher.applyAsInt(s.value()));
+        return new Node<>(s.value(), w, s.writtenAt(), s.expiresAt());
+    }
+
+    private void writeThrough(K key, Node<V> node) {
+        PersistentTier<V> t = tier;
+        if (t != null) t.put(String.valueOf(key), node.value, node.writtenAt, node.expiresAt);
+    }
+
+    private synchronized Node<V> lookup(K key) {
+        sketch.increment(key);
+        Node<V> n = window.get(key);
+        if (n == null) n = main.get(key);
+        if (n != null && n.expiresAt <= System.currentTimeMillis()) {
+            removeNode(key);
+            expirations.incrementAndGet();
+            return null;
+        }
+        return n;
+    }
+
+    private Node<V> peek(K key) {
+        Node<V> n = window.get(key);
+        return n != null ? n : main.get(key);
+    }
+
+    private synchronized void insert(K key, Node<V> node) {
+        removeNode(key);
+        window.put(key, node);
+        windowWeight += node.weight;
+        puts.incrementAndGet();
+        while (windowWeight > windowMax && !window.isEmpty()) {
+            Map.Entry<K, Node<V>> eldest = window.entrySet().iterator().next();
+            K candidate = eldest.getKey();
+            Node<V> cn = eldest.getValue();
+            window.remove(candidate);
+            windowWeight -= cn.weight;
+            admit(candidate, cn);
+        }
+    }
+
+    /**
+     * 윈도에서 밀려난 후보를 본 영역에 넣을지 판정(TinyLFU). 자리를 내줄 희생자를 LRU 앞에서부터 먼저 모두 고르고,
+     * 후보가 그중 (만료되지 않은) 하나라도 빈도에서 못 이기면 아무도 내보내지 않고 후보만 버린다 — 낮은 빈도 희생자만
+     * 내보낸 뒤 후보도 탈락해 자리만 비는 일이 없다. 만료된 희생자는 판정과 무관하게 치운다.
+     */
+    private void admit(K candidate, Node<V> cn) {
+        long now = System.currentTimeMillis();
+        int candidateFreq = sketch.frequency(candidate);
+        List<K> victims = new ArrayList<>();
+        List<K> expired = new ArrayList<>();
+        long freed = 0;
+        long victimWeight = 0;
+        boolean admitted = true;
+        for (Map.Entry<K, Node<V>> victim : main.entrySet()) { // 순회는 접근 순서를 바꾸지 않는다
+            if (mainWeight - freed + cn.weight <= mainMax) break;
+            if (victim.getValue().expiresAt <= now) {
+                expired.add(victim.getKey());
+            } else if (candidateFreq <= sketch.frequency(victim.getKey())) {
+                admitted = false;
+                break;
+            } else {
+                victims.add(victim.getKey());
+                victimWeight += victim.getValue().weight;
+            }
+            freed += victim.getValue().weight;
+        }
+        for (K k : expired) {
+            mainWeight -= main.remove(k).weight;
+            expirations.incrementAndGet();
+        }
+        if (!admitted || mainWeight - victimWeight + cn.weight > mainMax) {
+            evictions.incrementAndGet(); // 후보 탈락
+            return;
+        }
+        for (K k : victims) {
+            mainWeight -= main.remove(k).weight;
+            evictions.incrementAndGet();
+        }
+        main.put(candidate, cn);
+        mainWeight += cn.weight;
+    }
+
+    private void removeNode(K key) {
+        Node<V> n = window.remove(key);
+        if (n != null) {
+            windowWeight -= n.weight;
+            return;
+        }
+        n = main.remove(key);
+        if (n != null) mainWeight -= n.weight;
+    }
+}
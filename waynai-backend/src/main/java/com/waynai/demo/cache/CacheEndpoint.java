@@ -0,0 +1,45 @@
+package com.waynai.demo.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code GET /actuator/cacheregions} — 영역별 크기·적중률·축출 수,
+ * {@code DELETE /actuator/cacheregions[/{name}]} — 전체 또는 한 영역 비우기.
+ * (Spring 기본 {@code caches} 엔드포인트와 id 가 겹치지 않도록 별도 이름.)
+ */
+@Component
+@Endpoint(id = "cacheregions")
+@RequiredArgsConstructor
+public class CacheEndpoint {
+
+    private final CacheRegistry registry;
+
+    @ReadOperation
+    public List<BoundedCache.Stats> regions() {
+        return registry.stats();
+    }
+
+    @ReadOperation
+    public BoundedCache.Stats region(@Selector String name) {
+        BoundedCache<?, ?> c = registry.get(name);
+        return c != null ? c.stats() : null;
+    }
+
+    @DeleteOperation
+    public void flushAll() {
+        registry.invalidateAll();
+    }
+
+    @DeleteOperation
+    public void flush(@Selector String name) {
+        BoundedCache<?, ?> c = registry.get(name);
+        if (c != null) c.invalidateAll();
+    }
+}
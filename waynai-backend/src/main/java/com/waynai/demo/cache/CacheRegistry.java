@@ -0,0 +1,171 @@
+package com.waynai.demo.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * 캐시 영역 레지스트리.
+ *
+ * <p>클라이언트는 이름과 기본 설정으로 영역을 받아 쓰고, 운영에서는 {@code waynai.cache.<이름>.*}
+ * ({@code max-size}, {@code ttl}, {@code negative-ttl}, {@code refresh-after}) 로 덮어쓴다.
+ * 영역마다 Micrometer 표준 캐시 메트릭({@code cache.gets}·{@code cache.puts}·{@code cache.evictions}·
+ * {@code cache.size}, 태그 {@code cache=<이름>})을 등록하고, {@link CacheEndpoint} 가 조회·비우기를 제공한다.
+ *
+ * <p>{@code waynai.cache.dir} 이 있으면 코덱을 넘긴 영역에 {@link PersistentTier} 를 붙여 재시작 후에도
+ * 할당량 제한 API 의 응답을 다시 쓰고, 주기적으로 로그를 압축한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheRegistry {
+
+    private final Environment environment;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    private final Map<String, BoundedCache<?, ?>> regions = new ConcurrentHashMap<>();
+    private Disposable compaction;
+
+    /** 디스크 계층 디렉터리. 비우면 메모리만. */
+    @Value("${waynai.cache.dir:}")
+    private String dir;
+
+    @Value("${waynai.cache.compact-interval-minutes:10}")
+    private long compactIntervalMinutes;
+
+    @PostConstruct
+    public void init() {
+        if (dir == null || dir.isBlank()) return;
+        compaction = Schedulers.boundedElastic().schedulePeriodically(this::compactAll,
+                compactIntervalMinutes, compactIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (compaction != null) compaction.dispose();
+        regions.values().forEach(c -> {
+            if (c.tier() != null) c.tier().close();
+        });
+    }
+
+    public <K, V> BoundedCache<K, V> region(String name, BoundedCache.Spec defaults) {
+        return region(name, defaults, null);
+    }
+
+    /** 이름으로 영역을 만들거나 기존 영역을 돌려준다. weigher 가 있으면 max-size 는 가중치 합 상한. */
+    public <K, V> BoundedCache<K, V> region(String name, BoundedCache.Spec defaults, ToIntFunction<V> weigher) {
+        return region(name, defaults, weigher, null);
+    }
+
+    /** 코덱을 주면(문자열 키 영역) {@code waynai.cache.dir} 설정 시 디스크 계층을 붙이고 예열한다. */
+    @SuppressWarnings("unchecked")
+    public <K, V> BoundedCache<K, V> region(String name, BoundedCache.Spec defaults, ToIntFunction<V> weigher,
+                                            Codec<V> codec) {
+        return (BoundedCache<K, V>) regions.computeIfAbsent(name, n -> {
+            BoundedCache.Spec spec = resolve(n, defaults);
+            BoundedCache<K, V> cache = new BoundedCache<>(n, spec, weigher);
+            if (codec != null && dir != null && !dir.isBlank()) {
+                try {
+                    cache.attach(new PersistentTier<>(n, Paths.get(dir), codec));
+                } catch (IOException e) {
+                    log.warn("[cache] 영역 '{}' 디스크 계층 열기 실패 → 메모리만: {}", n, e.getMessage());
+                }
+            }
+            bindMetrics(cache);
+            log.info("[cache] 영역 '{}' — max={}, ttl={}, negativeTtl={}, refreshAfter={}",
+                    n, spec.maxWeight(), spec.ttl(), spec.negativeTtl(), spec.refreshAfter());
+            return cache;
+        });
+    }
+
+    public List<BoundedCache.Stats> stats() {
+        List<BoundedCache.Stats> out = new ArrayList<>();
+        regions.values().forEach(c -> out.add(c.stats()));
+        out.sort((a, b) -> a.name().compareTo(b.name()));
+        return out;
+    }
+
+    public BoundedCache<?, ?> get(String name) {
+        return regions.get(name);
+    }
+
+    public void invalidateAll() {
+        regions.values().forEach(BoundedCache::invalidateAll);
+    }
+
+    private void compactAll() {
+        regions.values().forEach(c -> {
+            if (c.tier() != null) c.tier().compactIfNeeded();
+        });
+    }
+
+    private BoundedCache.Spec resolve(String name, BoundedCache.Spec d) {
+        String p = "waynai.cache." + name + ".";
+        return new BoundedCache.Spec(
+                environment.getProperty(p + "max-size", Long.class, d.maxWeight()),
+                duration(p + "ttl", d.ttl()),
+                duration(p + "negative-ttl", d.negativeTtl()),
+                duration(p + "refresh-after", d.refreshAfter()));
+    }
+
+    private Duration duration(String key, Duration fallback) {
+        try {
+            Duration d = environment.getProperty(key, Duration.class);
+            return d != null ? d : fallback;
+        } catch (Exception e) {
+            log.warn("[cache] {} 값을 해석할 수 없어 기본값 사용: {}", key, e.getMessage());
+            return fallback;
+        }
+    }
+
+    private void bindMetrics(BoundedCache<?, ?> cache) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) return;
+        String n = cache.name();
+        counter(registry, cache, "cache.gets", "hit", s -> s.stats().hits());
+        counter(registry, cache, "cache.gets", "negative", s -> s.stats().negativeHits());
+        counter(registry, cache, "cache.gets", "miss", s -> s.stats().misses());
+        FunctionCounter.builder("cache.puts", cache, c -> c.stats().puts())
+                .tag("cache", n).register(registry);
+        FunctionCounter.builder("cache.evictions", cache, c -> c.stats().evictions())
+                .tag("cache", n).register(registry);
+        FunctionCounter.builder("cache.expirations", cache, c -> c.stats().expirations())
+                .tag("cache", n).register(registry);
+        FunctionCounter.builder("cache.loads.coalesced", cache, c -> c.stats().coalesced())
+                .tag("cache", n).register(registry);
+        Gauge.builder("cache.size", cache, c -> c.stats().size())
+                .tag("cache", n).register(registry);
+        if (cache.tier() != null) {
+            FunctionCounter.builder("cache.disk.hits", cache, c -> c.stats().diskHits())
+                    .tag("cache", n).register(registry);
+            Gauge.builder("cache.disk.size", cache, c -> c.stats().diskSize())
+                    .tag("cache", n).register(registry);
+        }
+    }
+
+    private static <C extends BoundedCache<?, ?>> void counter(MeterRegistry registry, C cache, String metric,
+                                                               String result, ToDoubleFunction<C> fn) {
+        FunctionCounter.builder(metric, cache, fn).tag("cache", cache.name()).tag("result", result).register(registry);
+    }
+}
@@ -0,0 +1,54 @@
+package com.waynai.demo.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 디스크 계층({@link PersistentTier}) 값 직렬화. 자바 직렬화 대신 필드만 이진으로 쓴다.
+ */
+public interface Codec<V> {
+
+    void write(DataOutput out, V value) throws IOException;
+
+    V read(DataInput in) throws IOException;
+
+    Codec<String> STRING = new Codec<>() {
+        @Override public void write(DataOutput out, String value) throws IOException { out.writeUTF(value); }
+        @Override public String read(DataInput in) throws IOException { return in.readUTF(); }
+    };
+
+    /** [lat, lng] 한 쌍. */
+    Codec<double[]> LAT_LNG = new Codec<>() {
+        @Override public void write(DataOutput out, double[] value) throws IOException {
+            out.writeDouble(value[0]);
+            out.writeDouble(value[1]);
+        }
+        @Override public double[] read(DataInput in) throws IOException {
+            return new double[]{in.readDouble(), in.readDouble()};
+        }
+    };
+
+    /** 부호 있는 정수를 zigzag + 7비트 가변 길이로(작은 차분값은 1~2바이트). */
+    static void writeVarLong(DataOutput out, long v) throws IOException {
+        long z = (v << 1) ^ (v >> 63);
+        while ((z & ~0x7FL) != 0) {
+            out.writeByte((int) ((z & 0x7F) | 0x80));
+            z >>>= 7;
+        }
+        out.writeByte((int) z);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long z = 0;
+        int shift = 0;
+        while (true) {
+            byte b = in.readByte();
+            z |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+            shift += 7;
+            if (shift > 63) throw new IOException("varint 길이 초과");
+        }
+        return (z >>> 1) ^ -(z & 1);
+    }
+}
@@ -0,0 +1,65 @@
+package com.waynai.demo.cache;
+
+/**
+ * TinyLFU 입장 판정용 접근 빈도 추정기 (Count-Min Sketch, 4비트 카운터).
+ *
+ * <p>행 4개 × 폭 2^n 의 카운터에 키 해시를 올리고, 빈도는 네 칸 중 최솟값으로 추정한다.
+ * 증가 횟수가 표본 크기(폭 × 10)에 닿으면 모든 카운터를 절반으로 줄여 오래된 인기도를 잊는다.
+ * 호출자({@link BoundedCache})의 락 안에서만 쓰므로 자체 동기화는 없다.
+ */
+final class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final byte[][] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(long expectedEntries) {
+        int width = Integer.highestOneBit((int) Math.max(16, Math.min(1 << 24, expectedEntries * 2)) - 1) << 1;
+        table = new byte[DEPTH][width];
+        mask = width - 1;
+        sampleSize = width * 10;
+    }
+
+    void increment(Object key) {
+        int h = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < DEPTH; i++) {
+            int idx = index(h, i);
+            if (table[i][idx] < MAX_COUNT) {
+                table[i][idx]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) reset();
+    }
+
+    int frequency(Object key) {
+        int h = spread(key.hashCode());
+        int min = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) min = Math.min(min, table[i][index(h, i)]);
+        return min;
+    }
+
+    private void reset() {
+        for (byte[] row : table) {
+            for (int j = 0; j < row.length; j++) row[j] = (byte) (row[j] >>> 1);
+        }
+        additions /= 2;
+    }
+
+    private int index(int h, int row) {
+        int x = (h ^ SEEDS[row]) * SEEDS[(row + 1) & 3];
+        return (x ^ (x >>> 16)) & mask;
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x45D9F3B;
+        return h ^ (h >>> 16);
+    }
+}
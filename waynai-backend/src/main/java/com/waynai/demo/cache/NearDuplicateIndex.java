@@ -0,0 +1,207 @@
+package com.waynai.demo.cache;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Predicate;
+
+/**
+ * 문장 근사 중복 색인 (MinHash + LSH 밴딩). 표기만 다른 질의("부산 2박 3일 여행 코스" / "부산 2박3일 여행코스 추천")를
+ * 먼저 답한 대표 질의로 묶는다.
+ *
+ * <p>공백·구두점을 지우고 소문자로 만든 뒤 글자 2-gram 집합을 만든다(한글은 음절 하나가 정보량이 커서 2-gram 이 적당).
+ * 서명은 해시 {@value #HASHES}개의 최솟값이고, {@value #BANDS}개 밴드 × {@value #ROWS}행으로 나눠 한 밴드라도 같은
+ * 항목만 후보로 본다(자카드 0.7 에서 후보 누락 약 1%). 후보는 저장해 둔 2-gram 집합으로 정확한 자카드를 다시 재서
+ * 임계값 이상인 최고 유사 항목을 고른다. 숫자는 일수·인원·날짜라 다르면 유사도와 무관하게 다른 질의로 본다.
+ * 글자 유사도만으로는 목적지 한 단어만 다른 긴 질의도 묶이므로, 호출측이 값으로 한 번 더 거를 수 있다({@link #find(String, Predicate)}).
+ *
+ * <p>항목 수 상한을 넘으면 가장 오래 안 쓴 항목부터 버린다. 후보 비교는 순서 없는 색인에서 읽어, 실제로 돌려준
+ * 항목만 최근 사용으로 올린다(매번 지는 후보가 밀려나지 않고 남는 일이 없도록). 전 메서드 동기화.
+ */
+public class NearDuplicateIndex<V> {
+
+    static final int HASHES = 64;
+    static final int BANDS = 16;
+    static final int ROWS = HASHES / BANDS;
+    private static final int SHINGLE = 2;
+
+    /** 적중 결과. canonical 은 처음 저장된 질의 원문. */
+    public record Match<V>(String canonical, V value, double similarity) {}
+
+    private record Entry<V>(String canonical, String digits, int[] shingles, long[] bands, V value) {}
+
+    private static final long[] SEEDS_A = new long[HASHES];
+    private static final long[] SEEDS_B = new long[HASHES];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EEDL);
+        for (int i = 0; i < HASHES; i++) {
+            SEEDS_A[i] = random.nextLong() | 1L;
+            SEEDS_B[i] = random.nextLong();
+        }
+    }
+
+    private final int maxEntries;
+    private final double threshold;
+    /** 접근 순서(LRU). get 은 돌려줄 항목에만 쓴다. */
+    private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    /** 순서를 건드리지 않는 조회용 색인. entries 와 항상 같은 내용. */
+    private final Map<String, Entry<V>> lookup = new HashMap<>();
+    private final Map<Long, Set<String>> buckets = new HashMap<>();
+
+    public NearDuplicateIndex(int maxEntries, double threshold) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.threshold = threshold;
+    }
+
+    /** 임계값 이상으로 닮은 저장 질의 중 가장 가까운 것. 정규형이 같으면 유사도 1. 없으면 null. */
+    public Match<V> find(String text) {
+        return find(text, v -> true);
+    }
+
+    /** {@link #find(String)} 와 같되, accept 를 통과한 값만 후보로 본다. */
+    public synchronized Match<V> find(String text, Predicate<? super V> accept) {
+        String norm = normalize(text);
+        Entry<V> exact = lookup.get(norm);
+        if (exact != null) {
+            if (!accept.test(exact.value())) return null;
+            entries.get(norm);
+            return new Match<>(exact.canonical(), exact.value(), 1.0);
+        }
+        int[] shingles = shingles(norm);
+        if (shingles.length == 0) return null;
+        String digits = digits(norm);
+        long[] bands = bands(signature(shingles));
+
+        Set<String> seen = new HashSet<>();
+        String bestKey = null;
+        Entry<V> best = null;
+        double bestSim = threshold;
+        for (long band : bands) {
+            Set<String> bucket = buckets.get(band);
+            if (bucket == null) continue;
+            for (String key : bucket) {
+                if (!seen.add(key)) continue;
+                Entry<V> e = lookup.get(key);
+                if (e == null || !e.digits().equals(digits) || !accept.test(e.value())) continue;
+                double sim = jaccard(shingles, e.shingles());
+                if (sim >= bestSim) {
+                    bestKey = key;
+                    best = e;
+                    bestSim = sim;
+                }
+            }
+        }
+        if (best == null) return null;
+        entries.get(bestKey);
+        return new Match<>(best.canonical(), best.value(), bestSim);
+    }
+
+    /** 질의를 대표로 저장(같은 정규형이 있으면 값만 바꾼다). 2-gram 을 못 만드는 한 글자 질의는 정확 일치로만 찾힌다. */
+    public synchronized void put(String text, V value) {
+        String norm = normalize(text);
+        if (norm.isEmpty()) return;
+        remove(norm);
+        int[] shingles = shingles(norm);
+        long[] bands = shingles.length == 0 ? new long[0] : bands(signature(shingles));
+        Entry<V> entry = new Entry<>(text, digits(norm), shingles, bands, value);
+        entries.put(norm, entry);
+        lookup.put(norm, entry);
+        for (long band : bands) buckets.computeIfAbsent(band, b -> new HashSet<>()).add(norm);
+        Iterator<Map.Entry<String, Entry<V>>> it = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            Map.Entry<String, Entry<V>> eldest = it.next();
+            it.remove();
+            unlink(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void remove(String norm) {
+        Entry<V> old = entries.remove(norm);
+        if (old != null) unlink(norm, old);
+    }
+
+    private void unlink(String norm, Entry<V> e) {
+        lookup.remove(norm);
+        for (long band : e.bands()) {
+            Set<String> bucket = buckets.get(band);
+            if (bucket == null) continue;
+            bucket.remove(norm);
+            if (bucket.isEmpty()) buckets.remove(band);
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) return "";
+        return text.toLowerCase(Locale.ROOT).replaceAll("[\\s\\p{Punct}·~…“”‘’「」『』]+", "");
+    }
+
+    private static String digits(String norm) {
+        return norm.replaceAll("\\D+", " ").trim();
+    }
+
+    /** 정렬·중복 제거된 글자 n-gram 해시. */
+    static int[] shingles(String norm) {
+        if (norm.length() < SHINGLE) return new int[0];
+        int[] out = new int[norm.length() - SHINGLE + 1];
+        for (int i = 0; i < out.length; i++) out[i] = norm.substring(i, i + SHINGLE).hashCode();
+        return Arrays.stream(out).sorted().distinct().toArray();
+    }
+
+    static long[] signature(int[] shingles) {
+        long[] sig = new long[HASHES];
+        Arrays.fill(sig, Long.MAX_VALUE);
+        for (int s : shingles) {
+            for (int i = 0; i < HASHES; i++) {
+                long h = mix(SEEDS_A[i] * s + SEEDS_B[i]);
+                if (h < sig[i]) sig[i] = h;
+            }
+        }
+        return sig;
+    }
+
+    /** 밴드별 해시. 밴드 번호를 섞어 서로 다른 밴드끼리는 버킷이 겹치지 않게 한다. */
+    private static long[] bands(long[] sig) {
+        long[] out = new long[BANDS];
+        for (int b = 0; b < BANDS; b++) {
+            long h = b * 0x9E3779B97F4A7C15L;
+            for (int r = 0; r < ROWS; r++) h = mix(h ^ sig[b * ROWS + r]);
+            out[b] = h;
+        }
+        return out;
+    }
+
+    /** 정렬된 두 집합의 자카드 유사도. */
+    static double jaccard(int[] a, int[] b) {
+        int i = 0, j = 0, common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        int union = a.length + b.length - common;
+        return union == 0 ? 0 : (double) common / union;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+}
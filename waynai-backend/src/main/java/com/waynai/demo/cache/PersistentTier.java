@@ -0,0 +1,254 @@
+package com.waynai.demo.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * 캐시 영역 뒤에 붙는 디스크 계층 (영역당 추가 전용 로그 파일 1개).
+ *
+ * <p>레코드 = {@code [길이 int][CRC32 int][종류 byte][작성 시각 long][만료 시각 long][키 UTF][값 바이트]}.
+ * 쓰기는 파일 끝에 이어 붙이고, 메모리에는 키 → (오프셋, 길이, 만료) 색인만 둔다. 메모리 계층에서 밀려난
+ * 항목도 만료 전까지는 여기서 다시 읽힌다. 시작 시 로그를 처음부터 훑어 색인을 만들며, 끝부분이 깨진
+ * 레코드(쓰기 중 종료)는 잘라낸다.
+ *
+ * <p>덮어쓰기·삭제·만료로 죽은 바이트가 살아 있는 바이트보다 많아지면 {@link #compactIfNeeded()} 가
+ * 살아 있는 레코드만 새 파일로 복사해 원자적으로 교체한다. 디스크 접근은 메모리 미스·쓰기 때만 일어나고
+ * 빈도가 낮아(할당량 제한 API 응답) 파일 단위 락 하나로 직렬화한다.
+ */
+@Slf4j
+public class PersistentTier<V> implements AutoCloseable {
+
+    private static final byte PUT = 0;
+    private static final byte NEGATIVE = 1;
+    private static final byte DELETE = 2;
+    private static final int HEADER = 8; // 길이 + CRC
+    private static final long MIN_COMPACT_BYTES = 1 << 20;
+
+    /** 디스크에서 읽은 항목. value 가 null 이면 음성 항목. */
+    public record Stored<V>(V value, long writtenAt, long expiresAt) {}
+
+    private record Slot(long offset, int length, long expiresAt) {}
+
+    private final String name;
+    private final Path file;
+    private final Codec<V> codec;
+    private final Map<String, Slot> index = new HashMap<>();
+    private FileChannel channel;
+    private long liveBytes;
+
+    public PersistentTier(String name, Path dir, Codec<V> codec) throws IOException {
+        this.name = name;
+        this.file = Files.createDirectories(dir).resolve(name + ".log");
+        this.codec = codec;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        load();
+    }
+
+    /** 만료 전 항목을 작성 시각 순으로 돌려준다(메모리 계층 예열용). */
+    public synchronized void forEachLive(BiConsumer<String, Stored<V>> consumer) {
+        long now = System.currentTimeMillis();
+        List<Map.Entry<String, Stored<V>>> live = new ArrayList<>();
+        for (Map.Entry<String, Slot> e : index.entrySet()) {
+            if (e.getValue().expiresAt() <= now) continue;
+            Stored<V> s = read(e.getValue());
+            if (s != null) live.add(Map.entry(e.getKey(), s));
+        }
+        live.sort((a, b) -> Long.compare(a.getValue().writtenAt(), b.getValue().writtenAt()));
+        live.forEach(e -> consumer.accept(e.getKey(), e.getValue()));
+    }
+
+    public synchronized Stored<V> get(String key) {
+        Slot slot = index.get(key);
+        if (slot == null) return null;
+        if (slot.expiresAt() <= System.currentTimeMillis()) {
+            drop(key);
+            return null;
+        }
+        return read(slot);
+    }
+
+    public synchronized void put(String key, V value, long writtenAt, long expiresAt) {
+        append(value == null ? NEGATIVE : PUT, key, value, writtenAt, expiresAt);
+    }
+
+    public synchronized void remove(String key) {
+        if (index.containsKey(key)) append(DELETE, key, null, System.currentTimeMillis(), 0);
+    }
+
+    public synchronized void clear() {
+        try {
+            channel.truncate(0);
+            index.clear();
+            liveBytes = 0;
+        } catch (IOException e) {
+            log.warn("[cache-disk:{}] 비우기 실패: {}", name, e.getMessage());
+        }
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized long fileBytes() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /** 죽은 바이트가 절반을 넘으면 살아 있는 레코드만 새 파일로 옮긴다. */
+    public synchronized void compactIfNeeded() {
+        try {
+            long now = System.currentTimeMillis();
+            index.entrySet().removeIf(e -> {
+                if (e.getValue().expiresAt() > now) return false;
+                liveBytes -= e.getValue().length() + HEADER;
+                return true;
+            });
+            long total = channel.size();
+            if (total < MIN_COMPACT_BYTES || liveBytes * 2 > total) return;
+            Path tmp = file.resolveSibling(file.getFileName() + ".compact");
+            Map<String, Slot> moved = new HashMap<>();
+            long pos = 0;
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (Map.Entry<String, Slot> e : index.entrySet()) {
+                    Slot s = e.getValue();
+                    int len = s.length() + HEADER;
+                    ByteBuffer buf = ByteBuffer.allocate(len);
+                    channel.read(buf, s.offset() - HEADER);
+                    buf.flip();
+                    while (buf.hasRemaining()) out.write(buf);
+                    moved.put(e.getKey(), new Slot(pos + HEADER, s.length(), s.expiresAt()));
+                    pos += len;
+                }
+                out.force(true);
+            }
+            channel.close();
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            index.clear();
+            index.putAll(moved);
+            liveBytes = pos;
+            log.info("[cache-disk:{}] 압축 {} → {} bytes ({}건)", name, total, pos, moved.size());
+        } catch (IOException e) {
+            log.warn("[cache-disk:{}] 압축 실패 (기존 로그 유지): {}", name, e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            log.debug("[cache-disk:{}] 닫기 실패: {}", name, e.getMessage());
+        }
+    }
+
+    private void load() throws IOException {
+        long size = channel.size();
+        long pos = 0;
+        ByteBuffer head = ByteBuffer.allocate(HEADER);
+        while (pos + HEADER <= size) {
+            head.clear();
+            channel.read(head, pos);
+            head.flip();
+            int len = head.getInt();
+            int crc = head.getInt();
+            if (len <= 0 || pos + HEADER + len > size) break;
+            ByteBuffer body = ByteBuffer.allocate(len);
+            channel.read(body, pos + HEADER);
+            if (crc(body.array()) != crc) break;
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body.array()))) {
+                byte kind = in.readByte();
+                in.readLong(); // writtenAt
+                long expiresAt = in.readLong();
+                String key = in.readUTF();
+                drop(key);
+                if (kind != DELETE) {
+                    index.put(key, new Slot(pos + HEADER, len, expiresAt));
+                    liveBytes += len + HEADER;
+                }
+            }
+            pos += HEADER + len;
+        }
+        if (pos < size) {
+            log.warn("[cache-disk:{}] 로그 끝 {} bytes 손상 → 잘라냄", name, size - pos);
+            channel.truncate(pos);
+        }
+        log.info("[cache-disk:{}] {} 에서 {}건 색인", name, file, index.size());
+    }
+
+    private void append(byte kind, String key, V value, long writtenAt, long expiresAt) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeByte(kind);
+                out.writeLong(writtenAt);
+                out.writeLong(expiresAt);
+                out.writeUTF(key);
+                if (kind == PUT) codec.write(out, value);
+            }
+            byte[] body = bytes.toByteArray();
+            ByteBuffer buf = ByteBuffer.allocate(HEADER + body.length);
+            buf.putInt(body.length).putInt(crc(body)).put(body).flip();
+            long pos = channel.size();
+            while (buf.hasRemaining()) channel.write(buf, pos + buf.position());
+            drop(key);
+            if (kind != DELETE) {
+                index.put(key, new Slot(pos + HEADER, body.length, expiresAt));
+                liveBytes += HEADER + body.length;
+            }
+        } catch (IOException e) {
+            log.debug("[cache-disk:{}] 쓰기 실패 '{}': {}", name, key, e.getMessage());
+        }
+    }
+
+    private Stored<V> read(Slot slot) {
+        try {
+            ByteBuffer body = ByteBuffer.allocate(slot.length());
+            channel.read(body, slot.offset());
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body.array()))) {
+                byte kind = in.readByte();
+                long writtenAt = in.readLong();
+                long expiresAt = in.readLong();
+                in.readUTF();
+                V value = kind == PUT ? codec.read(in) : null;
+                return new Stored<>(value, writtenAt, expiresAt);
+            }
+        } catch (IOException e) {
+            log.debug("[cache-disk:{}] 읽기 실패: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    private void drop(String key) {
+        Slot prev = index.remove(key);
+        if (prev != null) liveBytes -= prev.length() + HEADER;
+    }
+
+    private static int crc(byte[] b) {
+        CRC32 c = new CRC32();
+        c.update(b);
+        return (int) c.getValue();
+    }
+}
@@ -0,0 +1,93 @@
+package com.waynai.demo.cache;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 같은 키의 동시 호출을 1건으로 합친다(single-flight).
+ *
+ * <p>먼저 들어온 호출자(승자)가 자기 스레드에서 실제 호출을 하고, 그동안 같은 키로 들어온 호출자는 그 결과(또는 예외)를
+ * 기다렸다가 함께 받는다. 호출이 끝나면 키를 비우므로 이후 호출은 다시 발송된다 — 결과를 오래 쥐는 것은 캐시의 몫이다.
+ * 캐시와 함께 쓸 때는 승자가 결과를 캐시에 넣은 뒤 완료해야 대기자가 풀린 직후의 호출도 캐시에 적중한다.
+ *
+ * <p>{@link #execute} 는 블로킹 호출 전용(boundedElastic 등에서 호출), {@link #executeAsync} 는 future 를 돌려주는 비동기
+ * 호출용이다. 두 방식은 같은 진행 표를 쓴다. 결과는 호출자끼리 공유되므로 변경하지 않는 값이어야 한다.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /** key 로 진행 중인 호출이 있으면 그 결과를, 없으면 call 을 직접 실행한 결과를 돌려준다. 예외도 공유된다. */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return await(running);
+        }
+        try {
+            V v = call.get();
+            mine.complete(v);
+            return v;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 비동기 호출용. key 로 진행 중인 호출이 있으면 그 결과를, 없으면 call 이 시작한 호출의 결과를 싣는 future 를 돌려준다.
+     * 호출 스레드를 막지 않는다. 호출자마다 사본을 주므로 돌려받은 future 를 취소해도 진행 중인 호출과 다른 호출자에는
+     * 영향이 없다. 키는 결과를 싣기 전에 비운다(승자가 캐시에 넣은 뒤 완료하면 대기자 이후의 호출도 캐시에 적중).
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return running.copy();
+        }
+        try {
+            call.get().whenComplete((v, e) -> {
+                inFlight.remove(key, mine);
+                if (e != null) mine.completeExceptionally(e);
+                else mine.complete(v);
+            });
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+        }
+        return mine.copy();
+    }
+
+    /** 다른 호출자의 결과를 받아 간 횟수. */
+    public long coalesced() {
+        return coalesced.get();
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("진행 중인 호출 대기 중 인터럽트", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new CompletionException(cause);
+        }
+    }
+}
@@ -2,66 +2,105 @@ package com.waynai.demo.client;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waynai.demo.transit.EmbeddedTransitPlanner;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * daero(대로) 대중교통 경로엔진 연동 클라이언트.
  * 국내 좌표 구간의 대중교통 소요시간·환승·요금을 조회한다. daero 미기동 시 조용히 비활성.
  * (daero: 자체 RAPTOR+GTFS 엔진, 기본 http://localhost:8090)
+ * {@link EmbeddedTransitPlanner} 가 로컬 GTFS 를 적재했으면 HTTP 없이 JVM 안에서 같은 결과 형태로 계산한다.
  */
 @Slf4j
 @Component
 public class DaeroClient {
 
+    private static final Duration TIMEOUT = Duration.ofMillis(4000);
+
     private final String baseUrl;
-    private final ObjectMapper objectMapper;
+    private final UpstreamHttpClient http;
+    private final EmbeddedTransitPlanner embedded;
 
-    public DaeroClient(@Value("${daero.base-url:}") String baseUrl, ObjectMapper objectMapper) {
+    @Autowired
+    public DaeroClient(@Value("${daero.base-url:}") String baseUrl, UpstreamHttpClient http,
+                       EmbeddedTransitPlanner embedded) {
         this.baseUrl = baseUrl;
-        this.objectMapper = objectMapper;
+        this.http = http;
+        this.embedded = embedded;
+    }
+
+    /** Spring 밖(테스트·단독 실행)에서 쓰는 생성자. HTTP 전용. */
+    public DaeroClient(String baseUrl, ObjectMapper objectMapper) {
+        this(baseUrl, new UpstreamHttpClient(objectMapper), null);
     }
 
     public boolean isEnabled() {
-        return baseUrl != null && !baseUrl.isBlank();
+        return isEmbedded() || (baseUrl != null && !baseUrl.isBlank());
+    }
+
+    /** 내장 엔진으로 계산하는지(이때는 구간을 모아 {@link #transitAll} 한 번으로 푸는 게 싸다). */
+    public boolean isEmbedded() {
+        return embedded != null && embedded.isReady();
+    }
+
+    /** 대중교통 구간 1개(출발 → 도착 좌표). */
+    public record Leg(double fromLat, double fromLon, double toLat, double toLon) {}
+
+    /**
+     * 여러 구간을 한꺼번에 조회. 결과는 legs 와 같은 순서이며 실패/무경로는 null.
+     * 내장 엔진이면 RAPTOR 1회, 아니면 구간마다 HTTP(병렬화는 호출측 몫).
+     */
+    public List<Transit> transitAll(List<Leg> legs, String time) {
+        if (isEmbedded()) {
+            try {
+                return embedded.plan(legs, time);
+            } catch (RuntimeException e) {
+                log.warn("[daero] 내장 엔진 조회 실패 (무시): {}", e.getMessage());
+            }
+        }
+        List<Transit> out = new ArrayList<>(legs.size());
+        for (Leg l : legs) out.add(transit(l.fromLat(), l.fromLon(), l.toLat(), l.toLon(), time));
+        return out;
     }
 
     /** 두 좌표 사이 대중교통 요약. 실패/무경로 시 null. */
     public Transit transit(double fromLat, double fromLon, double toLat, double toLon, String time) {
-        if (!isEnabled()) return null;
+        if (isEmbedded()) {
+            try {
+                return embedded.plan(List.of(new Leg(fromLat, fromLon, toLat, toLon)), time).get(0);
+            } catch (RuntimeException e) {
+                log.debug("[daero] 내장 엔진 조회 실패: {}", e.getMessage());
+                return null;
+            }
+        }
+        if (baseUrl == null || baseUrl.isBlank()) return null;
         try {
             String url = String.format("%s/api/plan/coords?fromLat=%f&fromLon=%f&toLat=%f&toLon=%f&time=%s",
                     baseUrl, fromLat, fromLon, toLat, toLon, URLEncoder.encode(time, StandardCharsets.UTF_8));
-            HttpURLConnection con = (HttpURLConnection) new URL(url).openConnection();
-            con.setConnectTimeout(1500);
-            con.setReadTimeout(4000);
-            int code = con.getResponseCode();
-            if (code != 200) return null;
-            try (BufferedReader r = new BufferedReader(new InputStreamReader(con.getInputStream(), StandardCharsets.UTF_8))) {
-                JsonNode n = objectMapper.readTree(r);
-                if (!n.path("found").asBoolean(false)) return null;
-                String firstRoute = "";
-                String firstMode = "";
-                // 도보 제외 전 구간의 수단을 등장순으로 수집(예: 지하철·버스)
-                java.util.LinkedHashSet<String> modeSet = new java.util.LinkedHashSet<>();
-                for (JsonNode leg : n.path("legs")) {
-                    String mode = leg.path("mode").asText();
-                    if (!"WALK".equals(mode)) {
-                        if (firstMode.isEmpty()) { firstMode = mode; firstRoute = leg.path("route").asText(""); }
-                        modeSet.add(modeKo(mode));
-                    }
+            JsonNode n = http.getJson(url, null, TIMEOUT);
+            if (!n.path("found").asBoolean(false)) return null;
+            String firstRoute = "";
+            String firstMode = "";
+            // 도보 제외 전 구간의 수단을 등장순으로 수집(예: 지하철·버스)
+            java.util.LinkedHashSet<String> modeSet = new java.util.LinkedHashSet<>();
+            for (JsonNode leg : n.path("legs")) {
+                String mode = leg.path("mode").asText();
+                if (!"WALK".equals(mode)) {
+                    if (firstMode.isEmpty()) { firstMode = mode; firstRoute = leg.path("route").asText(""); }
+                    modeSet.add(modeKo(mode));
                 }
-                return new Transit(n.path("durationMin").asInt(), n.path("transfers").asInt(),
-                        n.path("estimatedFareKrw").asInt(), firstMode, firstRoute, String.join("·", modeSet));
             }
+            return new Transit(n.path("durationMin").asInt(), n.path("transfers").asInt(),
+                    n.path("estimatedFareKrw").asInt(), firstMode, firstRoute, String.join("·", modeSet));
         } catch (Exception e) {
             log.debug("[daero] 조회 실패: {}", e.getMessage());
             return null;
@@ -69,7 +108,7 @@ public class DaeroClient {
     }
 
     /** GTFS 모드 코드 → 한글 표기. */
-    static String modeKo(String mode) {
+    public static String modeKo(String mode) {
         return switch (mode) {
             case "BUS" -> "버스"; case "SUBWAY" -> "지하철"; case "RAIL" -> "기차";
             case "AIR" -> "항공"; case "FERRY" -> "여객선"; default -> "대중교통";
@@ -16,7 +16,7 @@ import java.util.function.Consumer;
  * 사용하던 인터페이스(프롬프트 변수 치환, RAG 컨텍스트 주입 등)를 유지하기 위한
  * 얇은 어댑터 역할만 수행합니다.
  *
- * <p>모델 체인·fallback·쿨다운 로직은 전부 {@link OpenRouterModelRouter} 쪽에서 처리합니다.
+ * <p>모델 체인·fallback·서킷 브레이커·응답 캐시는 전부 {@link OpenRouterModelRouter} 쪽에서 처리합니다.
  */
 @Slf4j
 @Component
@@ -59,15 +59,24 @@ public class GeminiApiClient {
      * 구조화 여행 계획 생성 시 체감 지연을 줄이기 위해 사용.
      */
     public reactor.core.publisher.Flux<String> generateJsonStream(String prompt, Consumer<String> onModelSelected) {
-        return router.streamText(prompt, onModelSelected, true)
+        return generateJsonStream(prompt, onModelSelected, LlmTask.GENERAL);
+    }
+
+    /** 요청 유형을 지정한 JSON 스트리밍. 유형별 모델 통계로 체인 순서가 정해진다. */
+    public Flux<String> generateJsonStream(String prompt, Consumer<String> onModelSelected, LlmTask task) {
+        return router.streamText(prompt, onModelSelected, true, task)
                 .onErrorResume(e -> {
                     log.error("LLM(JSON stream) 호출 전체 실패: {}", e.getMessage());
-                    return reactor.core.publisher.Flux.empty();
+                    return Flux.empty();
                 });
     }
 
     public Mono<String> generateJson(String prompt, Consumer<String> onModelSelected) {
-        return router.generateText(prompt, onModelSelected, true)
+        return generateJson(prompt, onModelSelected, LlmTask.GENERAL);
+    }
+
+    public Mono<String> generateJson(String prompt, Consumer<String> onModelSelected, LlmTask task) {
+        return router.generateText(prompt, onModelSelected, true, task)
                 .onErrorResume(e -> {
                     log.error("LLM(JSON) 호출 전체 실패: {}", e.getMessage());
                     return Mono.just("{\"error\":\"AI 서비스에 일시적인 문제가 발생했습니다. 잠시 후 다시 시도해주세요.\",\"status\":\"error\"}");
@@ -75,13 +84,29 @@ public class GeminiApiClient {
     }
 
     public Flux<String> generateTextStream(String prompt) {
-        return router.generateTextStream(prompt)
+        return generateTextStream(prompt, LlmTask.GENERAL);
+    }
+
+    public Flux<String> generateTextStream(String prompt, LlmTask task) {
+        return router.generateTextStream(prompt, task)
                 .onErrorResume(e -> {
                     log.error("Gemini 스트림 호출 전체 실패: {}", e.getMessage());
                     return Flux.just("죄송합니다. AI 서비스에 일시적인 문제가 발생했습니다. 잠시 후 다시 시도해주세요.");
                 });
     }
 
+    /**
+     * 응답 JSON 파싱 성공/실패를 라우터 통계에 보고한다. model 은 onModelSelected 로 받은 값.
+     */
+    public void reportParseResult(String model, LlmTask task, boolean ok) {
+        router.reportParseResult(model, task, ok);
+    }
+
+    /** 파싱에 실패한 JSON 모드 응답을 응답 캐시에서 버린다(재시도·다음 요청이 같은 응답을 재생하지 않도록). */
+    public void discardCachedJson(String prompt) {
+        router.evictCached(prompt, true);
+    }
+
     public Mono<String> generateTextWithContext(String prompt, String context) {
         return generateText(prompt + "\n\n참조 정보:\n" + context);
     }
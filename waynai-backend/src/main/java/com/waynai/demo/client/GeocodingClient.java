@@ -1,86 +1,107 @@
 package com.waynai.demo.client;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import com.waynai.demo.cache.BoundedCache;
+import com.waynai.demo.cache.CacheRegistry;
+import com.waynai.demo.cache.Codec;
+import com.waynai.demo.cache.SingleFlight;
+import com.waynai.demo.quota.Quota;
+import com.waynai.demo.quota.QuotaRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * OpenStreetMap Nominatim 지오코딩 (무료·키 불필요). 장소명 → 좌표.
  *
- * <p>이용정책상 User-Agent 필수 + 초당 1회 제한 → 호출 간 간격 + 캐시. best-effort.
+ * <p>이용정책상 User-Agent 필수 + 초당 1회 제한. 캐시 적중은 기다림 없이 바로 돌려주고, 미스는
+ * {@code nominatim} 호출 한도(용량 1, {@code geocoding.nominatim.min-interval-ms} 마다 1개 보충)에서 발송 시각을
+ * 예약한 뒤 타이머로 기다린다(대기 중 스레드를 점유하지 않음). 예약 대기열은 {@code geocoding.nominatim.max-backlog-ms}
+ * 까지만 쌓고, 넘치면 조회하지 않는다(예약은 취소할 수 없으므로 무한정 쌓지 않는다). 일일 예산을 설정했다면 소진 시
+ * 조회하지 않는다. 같은 질의가 여러 계획에서 동시에 들어오면 진행 중인 조회 1건을 공유한다({@link SingleFlight}). best-effort.
+ *
+ * <p>음성 캐시에는 Nominatim 이 정상 응답으로 "결과 없음" 을 준 이름만 넣는다. 타임아웃·오류·대기열 초과는 캐시하지 않는다.
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class GeocodingClient {
 
-    private final ObjectMapper objectMapper;
-    private final Map<String, double[]> cache = new ConcurrentHashMap<>();
-    private static final double[] NOT_FOUND = new double[0]; // ConcurrentHashMap 은 null 값 불가 → 음성결과 sentinel
-    private volatile long lastCallMs = 0;
+    private static final Duration TIMEOUT = Duration.ofSeconds(8);
+    private static final Map<String, String> HEADERS =
+            Map.of("User-Agent", "WaynAI/1.0 (travel planner)"); // Nominatim 정책상 필수
+
+    private final UpstreamHttpClient http;
+    /** 좌표는 거의 변하지 않으므로 길게, 못 찾은 이름은 짧게(표기 보정·일시 장애 후 재시도) 둔다. */
+    private final BoundedCache<String, double[]> cache;
+    private final SingleFlight<String, double[]> lookups = new SingleFlight<>();
+    private static final double[] NOT_FOUND = new double[0]; // Mono 는 null 을 못 싣는다 → 음성결과 sentinel
+    private static final double[] FAILED = new double[0];    // 일시 실패(캐시하지 않음)
+    private final Quota quota;
+    private final Duration maxBacklog;
+
+    public GeocodingClient(UpstreamHttpClient http, CacheRegistry caches, QuotaRegistry quotas,
+                           @Value("${geocoding.nominatim.min-interval-ms:1100}") long minIntervalMs,
+                           @Value("${geocoding.nominatim.max-backlog-ms:30000}") long maxBacklogMs) {
+        this.http = http;
+        this.maxBacklog = Duration.ofMillis(maxBacklogMs);
+        this.quota = quotas.define("nominatim", Quota.Limits.of(1000.0 / Math.max(1, minIntervalMs), 1, 0));
+        this.cache = caches.region("geocode", BoundedCache.Spec.of(20_000, Duration.ofDays(30))
+                .withNegativeTtl(Duration.ofHours(6)), null, Codec.LAT_LNG);
+    }
 
-    /** 장소명(+지역 힌트) → [lat, lng]. 실패 시 null. */
-    public synchronized double[] geocode(String name, String regionHint) {
-        if (name == null || name.isBlank()) return null;
+    /**
+     * 장소명(+지역 힌트) → [lat, lng]. 못 찾으면 empty.
+     * 구독자가 중간에 빠져도 발송된 조회는 끝까지 진행돼 캐시에 남는다(다음 계획이 재사용).
+     */
+    public Mono<double[]> geocodeAsync(String name, String regionHint) {
+        if (name == null || name.isBlank()) return Mono.empty();
         String q = regionHint != null && !regionHint.isBlank() ? name + ", " + regionHint : name;
         String key = q.toLowerCase();
         double[] cached = cache.get(key);
-        if (cached != null) return cached.length == 2 ? cached : null; // sentinel(길이0) → 이전 실패
+        if (cached != null) return Mono.just(cached);
+        if (cache.isNegative(key)) return Mono.empty(); // 최근에 못 찾은 이름
+        // toFuture 가 바로 구독하므로 prefetch 처럼 결과를 받지 않는 호출도 조회는 진행된다.
+        return Mono.fromFuture(lookups.executeAsync(key, () -> remote(key, q).toFuture()))
+                .filter(p -> p.length == 2);
+    }
+
+    /** 한도 예약 → 타이머 대기 → 조회 → 캐시 반영. 실패는 FAILED 로 끝낸다(예외 없음). */
+    private Mono<double[]> remote(String key, String q) {
+        return Mono.defer(() -> {
+                    long wait = quota.reserve(maxBacklog);
+                    return wait < 0 ? Mono.<double[]>error(new IllegalStateException("nominatim 한도 소진·대기열 초과"))
+                            : Mono.delay(Duration.ofMillis(wait)).then();
+                })
+                .then(Mono.fromCallable(() -> lookup(q)).subscribeOn(Schedulers.boundedElastic()))
+                .onErrorReturn(FAILED)
+                .doOnNext(p -> {
+                    if (p.length == 2) cache.put(key, p);
+                    else if (p == NOT_FOUND) cache.putNegative(key);
+                });
+    }
+
+    private double[] lookup(String q) {
         try {
-            // 초당 1회 제한 준수 (간단 스로틀).
-            long since = System.currentTimeMillis() - lastCallMs;
-            if (since < 1100) Thread.sleep(1100 - since);
             String url = "https://nominatim.openstreetmap.org/search?format=json&limit=1&q="
                     + URLEncoder.encode(q, StandardCharsets.UTF_8);
-            String body = get(url);
-            lastCallMs = System.currentTimeMillis();
-            JsonNode arr = objectMapper.readTree(body);
-            if (arr.isArray() && arr.size() > 0) {
+            JsonNode arr = http.getJson(url, HEADERS, TIMEOUT);
+            if (!arr.isArray()) return FAILED; // 오류 본문 등 — 결과 없음으로 단정하지 않는다
+            if (arr.size() > 0) {
                 double lat = arr.get(0).path("lat").asDouble();
                 double lon = arr.get(0).path("lon").asDouble();
-                double[] p = new double[]{lat, lon};
-                cache.put(key, p);
-                return p;
+                return new double[]{lat, lon};
             }
+            return NOT_FOUND;
         } catch (Exception e) {
             log.debug("[geocode] 실패 '{}': {}", q, e.getMessage());
-        }
-        cache.put(key, NOT_FOUND);
-        return null;
-    }
-
-    private String get(String apiUrl) throws IOException {
-        HttpURLConnection con = (HttpURLConnection) new URL(apiUrl).openConnection();
-        try {
-            con.setRequestMethod("GET");
-            con.setRequestProperty("User-Agent", "WaynAI/1.0 (travel planner)"); // Nominatim 정책상 필수
-            con.setRequestProperty("Accept", "application/json");
-            con.setConnectTimeout(6000);
-            con.setReadTimeout(8000);
-            int code = con.getResponseCode();
-            InputStream is = (code == 200) ? con.getInputStream() : con.getErrorStream();
-            try (BufferedReader r = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-                StringBuilder sb = new StringBuilder();
-                String line;
-                while ((line = r.readLine()) != null) sb.append(line);
-                if (code != 200) throw new IOException("HTTP " + code);
-                return sb.toString();
-            }
-        } finally {
-            con.disconnect();
+            return FAILED;
         }
     }
 }
@@ -2,23 +2,19 @@ package com.waynai.demo.client;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waynai.demo.cache.BoundedCache;
+import com.waynai.demo.cache.CacheRegistry;
 import com.waynai.demo.dto.TravelPlanDto;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -26,28 +22,39 @@ import java.util.regex.Pattern;
  * 국내 숙소 실가격 수집(여기어때 검색 페이지의 SSR __NEXT_DATA__ 파싱).
  *
  * <p>Hotellook 종료(2025-10) 후 대체. 헤드리스 없이 plain HTTP + 임베드 JSON 파싱이라 가볍다.
- * best-effort — 실패/차단 시 빈 결과(호출측이 추정치로 폴백). 지역별 캐시(TTL)로 재요청 최소화.
+ * best-effort — 실패/차단 시 빈 결과(호출측이 추정치로 폴백). 지역별 캐시(TTL·갱신 주기)로 재요청 최소화.
  * ⚠️ 개인용. 대상 사이트 구조 변경 시 깨질 수 있음(그때 빈 결과로 안전 폴백). 국내 전용.
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class HotelCrawlClient {
 
     @Value("${hotel.crawl.enabled:true}")
     private boolean enabled;
 
     private final ObjectMapper objectMapper;
+    private final UpstreamHttpClient http;
 
     private static final String UA =
             "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/126.0.0.0 Safari/537.36";
     private static final Pattern NEXT_DATA =
             Pattern.compile("<script id=\"__NEXT_DATA__\" type=\"application/json\">(.*?)</script>", Pattern.DOTALL);
-    private static final long TTL_MS = 6 * 3600_000L; // 6시간 캐시
-
-    private final ConcurrentHashMap<String, Cached> cache = new ConcurrentHashMap<>();
-
-    private record Cached(List<TravelPlanDto.Accommodation> list, long ts) {}
+    private static final Map<String, String> HEADERS = Map.of(
+            "User-Agent", UA,
+            "Accept", "text/html,application/xhtml+xml",
+            "Accept-Language", "ko-KR,ko;q=0.9");
+    private static final Duration TIMEOUT = Duration.ofSeconds(7);
+
+    /** 지역별 결과. 6시간 보관, 1시간 지나면 기존 값을 쓰면서 백그라운드로 가격을 다시 긁는다. */
+    private final BoundedCache<String, List<TravelPlanDto.Accommodation>> cache;
+
+    public HotelCrawlClient(ObjectMapper objectMapper, UpstreamHttpClient http, CacheRegistry caches) {
+        this.objectMapper = objectMapper;
+        this.http = http;
+        this.cache = caches.region("hotel", BoundedCache.Spec.of(500, Duration.ofHours(6))
+                .withRefreshAfter(Duration.ofHours(1))
+                .withNegativeTtl(Duration.ofMinutes(10)));
+    }
 
     public boolean isEnabled() {
         return enabled;
@@ -56,17 +63,19 @@ public class HotelCrawlClient {
     /** 지역명으로 국내 숙소 실가격 상위 N개. 실패/미지원 시 빈 리스트. */
     public List<TravelPlanDto.Accommodation> search(String region, int limit) {
         if (!enabled || region == null || region.isBlank()) return List.of();
-        String key = region.trim();
-        Cached c = cache.get(key);
-        if (c != null && System.currentTimeMillis() - c.ts() < TTL_MS) return capped(c.list(), limit);
+        List<TravelPlanDto.Accommodation> all = cache.get(region.trim(), this::crawl);
+        return all == null ? List.of() : capped(all, limit);
+    }
 
+    /** 검색 페이지 1회 수집. 실패/구조 불일치면 null(짧게 음성 캐시돼 차단 중 재요청을 막는다). */
+    private List<TravelPlanDto.Accommodation> crawl(String region) {
         List<TravelPlanDto.Accommodation> out = new ArrayList<>();
         try {
             String url = "https://www.yeogi.com/domestic-accommodations?keyword="
                     + URLEncoder.encode(region, StandardCharsets.UTF_8);
-            String html = get(url);
+            String html = http.getString(url, HEADERS, TIMEOUT);
             Matcher m = NEXT_DATA.matcher(html);
-            if (!m.find()) { log.info("[hotel-crawl] __NEXT_DATA__ 미발견: {}", region); return List.of(); }
+            if (!m.find()) { log.info("[hotel-crawl] __NEXT_DATA__ 미발견: {}", region); return null; }
             JsonNode accs = objectMapper.readTree(m.group(1))
                     .path("props").path("pageProps").path("accommodationsData");
             if (accs.isArray()) {
@@ -75,13 +84,12 @@ public class HotelCrawlClient {
                     if (acc != null) out.add(acc);
                 }
             }
-            cache.put(key, new Cached(out, System.currentTimeMillis()));
             log.info("[hotel-crawl] '{}' 국내 숙소 {}건 수집", region, out.size());
+            return out;
         } catch (Exception e) {
             log.warn("[hotel-crawl] 실패 (무시): {}", e.getMessage());
-            return List.of();
+            return null;
         }
-        return capped(out, limit);
     }
 
     /** 여기어때 지역 검색 딥링크(예약 CTA용). */
@@ -130,28 +138,4 @@ public class HotelCrawlClient {
     private List<TravelPlanDto.Accommodation> capped(List<TravelPlanDto.Accommodation> list, int limit) {
         return list.size() <= limit ? list : new ArrayList<>(list.subList(0, limit));
     }
-
-    private String get(String apiUrl) throws IOException {
-        HttpURLConnection con = (HttpURLConnection) new URL(apiUrl).openConnection();
-        try {
-            con.setRequestMethod("GET");
-            con.setRequestProperty("User-Agent", UA);
-            con.setRequestProperty("Accept", "text/html,application/xhtml+xml");
-            con.setRequestProperty("Accept-Language", "ko-KR,ko;q=0.9");
-            con.setConnectTimeout(3000);
-            con.setReadTimeout(7000);
-            con.setInstanceFollowRedirects(true);
-            int code = con.getResponseCode();
-            InputStream is = (code >= 200 && code < 300) ? con.getInputStream() : con.getErrorStream();
-            try (BufferedReader r = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-                StringBuilder sb = new StringBuilder();
-                String line;
-                while ((line = r.readLine()) != null) sb.append(line);
-                if (code < 200 || code >= 300) throw new IOException("HTTP " + code);
-                return sb.toString();
-            }
-        } finally {
-            con.disconnect();
-        }
-    }
 }
@@ -2,79 +2,154 @@ package com.waynai.demo.client;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import com.waynai.demo.cache.BoundedCache;
+import com.waynai.demo.cache.CacheRegistry;
+import com.waynai.demo.cache.Codec;
+import com.waynai.demo.cache.SingleFlight;
+import com.waynai.demo.util.AliasTrie;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.Map;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 도시/지역명 → IATA 코드 변환기.
  *
- * <p>Travelpayouts autocomplete(places2, 토큰 불필요)로 조회하되, 자주 쓰는 한국어 지명은
- * 정적 오버라이드로 즉시 매핑하고 결과는 캐시한다. 실패 시 null.
+ * <p>번들된 도시 사전({@code reference/iata_cities.csv}, 한국어·영어·일본어/중국어 별칭)을 트라이로 올려
+ * 질의 문장을 한 번 훑어 최장 일치로 해석한다(네트워크 없음). 사전에 없는 지명만 Travelpayouts
+ * autocomplete(places2, 토큰 불필요)로 조회하며, 의도 보정 경로에서는 백그라운드로만 돌려 캐시를 데운다.
+ * 실패 시 null.
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class IataResolver {
 
+    private static final String CITY_FILE = "reference/iata_cities.csv";
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
     @Value("${travelpayouts.autocomplete-url:https://autocomplete.travelpayouts.com/places2}")
     private String autocompleteUrl;
 
-    private final ObjectMapper objectMapper;
-
-    private final Map<String, String> cache = new ConcurrentHashMap<>();
-
-    /** 자주 쓰는 지명 정적 매핑 (autocomplete 모호성 회피). key 는 소문자. */
-    private static final Map<String, String> OVERRIDES = Map.ofEntries(
-            Map.entry("서울", "SEL"), Map.entry("seoul", "SEL"),
-            Map.entry("부산", "PUS"), Map.entry("busan", "PUS"),
-            Map.entry("제주", "CJU"), Map.entry("제주도", "CJU"), Map.entry("jeju", "CJU"),
-            Map.entry("도쿄", "TYO"), Map.entry("동경", "TYO"), Map.entry("tokyo", "TYO"),
-            Map.entry("오사카", "OSA"), Map.entry("osaka", "OSA"),
-            Map.entry("후쿠오카", "FUK"), Map.entry("fukuoka", "FUK"),
-            Map.entry("방콕", "BKK"), Map.entry("bangkok", "BKK"),
-            Map.entry("싱가포르", "SIN"), Map.entry("singapore", "SIN"),
-            Map.entry("파리", "PAR"), Map.entry("paris", "PAR"),
-            Map.entry("런던", "LON"), Map.entry("london", "LON"),
-            Map.entry("뉴욕", "NYC"), Map.entry("new york", "NYC"),
-            Map.entry("로마", "ROM"), Map.entry("rome", "ROM"),
-            Map.entry("다낭", "DAD"), Map.entry("danang", "DAD"),
-            Map.entry("타이베이", "TPE"), Map.entry("대만", "TPE"), Map.entry("taipei", "TPE")
-    );
+    private final UpstreamHttpClient http;
+
+    /** autocomplete 결과. 못 찾은 이름도 하루 동안 기억해 같은 오타로 반복 조회하지 않는다. */
+    private final BoundedCache<String, String> cache;
+    /** 백그라운드 autocomplete 진행 중인 키(중복 발송 방지). */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    /** 같은 지명의 동시 autocomplete(동기 resolve·warmAsync 혼재)를 1건으로 합친다. */
+    private final SingleFlight<String, String> remote = new SingleFlight<>();
+
+    private static final BoundedCache.Spec CACHE_SPEC =
+            BoundedCache.Spec.of(5_000, Duration.ofDays(30)).withNegativeTtl(Duration.ofDays(1));
+
+    @Autowired
+    public IataResolver(UpstreamHttpClient http, CacheRegistry caches) {
+        this.http = http;
+        this.cache = caches.region("iata", CACHE_SPEC, null, Codec.STRING);
+    }
+
+    /** Spring 밖(테스트)에서 쓰는 생성자. 사전 조회만 쓴다면 네트워크·캐시 설정은 기본값이면 충분하다. */
+    public IataResolver(ObjectMapper objectMapper) {
+        this.http = new UpstreamHttpClient(objectMapper);
+        this.cache = new BoundedCache<>("iata", CACHE_SPEC);
+    }
+
+    /** 사전의 도시 1곳. country 는 ISO 2자리. */
+    public record City(String iata, String country) {}
+
+    /** 별칭(소문자) → 도시. 클래스 로드 시 1회 적재 후 읽기 전용. */
+    private static final AliasTrie<City> CITIES = loadCities();
+
+    /** 문장에서 찾은 사전 지명. name 은 사전 표기(영문은 소문자). */
+    public record KnownCity(String name, String iata) {}
+
+    private static AliasTrie<City> loadCities() {
+        AliasTrie<City> trie = new AliasTrie<>();
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(
+                new ClassPathResource(CITY_FILE).getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] c = line.split(",", 3);
+                if (c.length < 3) continue;
+                City city = new City(c[0].trim(), c[1].trim());
+                for (String alias : c[2].split("\\|")) trie.put(alias, city);
+            }
+            log.info("[iata] 도시 사전 로드: 별칭 {}개", trie.size());
+        } catch (IOException e) {
+            log.error("[iata] 도시 사전 로드 실패: {}", e.getMessage());
+        }
+        return trie;
+    }
 
     /**
-     * 지명을 IATA 코드로 변환. 못 찾으면 null.
+     * 지명을 IATA 코드로 변환. 사전·캐시에 없으면 autocomplete 를 동기 호출한다(항공권 조회 경로용). 못 찾으면 null.
      */
     public String resolve(String name) {
         if (name == null || name.isBlank()) return null;
-        String key = name.trim().toLowerCase();
+        KnownCity offline = resolveOffline(name);
+        if (offline != null) return offline.iata();
+        return resolveRemote(name);
+    }
 
+    /**
+     * 사전(정확 일치 → 문장 스캔)과 캐시만으로 해석. 네트워크를 타지 않는다. 못 찾으면 null.
+     */
+    public KnownCity resolveOffline(String text) {
+        if (text == null || text.isBlank()) return null;
+        String trimmed = text.trim();
         // 이미 IATA 코드(ASCII 대문자 3자리)면 그대로 사용.
         // 주의: 한글 3음절(오사카/제주도 등)이 코드로 오인되지 않도록 A-Z 만 허용.
-        if (name.trim().matches("[A-Z]{3}")) {
-            return name.trim();
-        }
-        if (OVERRIDES.containsKey(key)) return OVERRIDES.get(key);
-        if (cache.containsKey(key)) return cache.get(key);
+        if (trimmed.matches("[A-Z]{3}")) return new KnownCity(trimmed, trimmed);
+        String key = trimmed.toLowerCase();
+        City exact = CITIES.get(key);
+        if (exact != null) return new KnownCity(key, exact.iata());
+        String cached = cache.get(key);
+        if (cached != null) return new KnownCity(trimmed, cached);
+        List<AliasTrie.Hit<City>> hits = CITIES.scan(trimmed);
+        if (!hits.isEmpty()) return new KnownCity(hits.get(0).alias(), hits.get(0).value().iata());
+        return null;
+    }
+
+    /** 사전에 없는 지명을 백그라운드로 autocomplete 해 캐시에 올린다(결과를 기다리지 않음). */
+    public void warmAsync(String name) {
+        if (name == null || name.isBlank() || resolveOffline(name) != null) return;
+        String key = name.trim().toLowerCase();
+        if (!pending.add(key)) return;
+        Mono.fromRunnable(() -> resolveRemote(name))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doFinally(sig -> pending.remove(key))
+                .subscribe();
+    }
 
+    private String resolveRemote(String name) {
+        String key = name.trim().toLowerCase();
+        String cached = cache.get(key);
+        if (cached != null || cache.isNegative(key)) return cached;
+        return remote.execute(key, () -> autocomplete(name, key));
+    }
+
+    private String autocomplete(String name, String key) {
         try {
             String url = autocompleteUrl
                     + "?locale=ko&types%5B%5D=city&term="
                     + URLEncoder.encode(name.trim(), StandardCharsets.UTF_8);
-            String body = get(url);
-            JsonNode arr = objectMapper.readTree(body);
+            JsonNode arr = http.getJson(url, null, TIMEOUT);
             if (arr.isArray()) {
                 for (JsonNode node : arr) {
                     String code = node.path("code").asText(null);
@@ -85,6 +160,7 @@ public class IataResolver {
                     }
                 }
             }
+            cache.putNegative(key);
             log.warn("[iata] '{}' 에 대한 IATA 코드를 찾지 못했습니다.", name);
         } catch (Exception e) {
             log.warn("[iata] autocomplete 실패 '{}': {}", name, e.getMessage());
@@ -94,38 +170,27 @@ public class IataResolver {
 
     /**
      * 자유 질의 문장에서 도시 IATA 를 추출한다. (예: "도쿄 3박4일 커플 여행" → TYO)
-     * 1) 각 토큰을 오버라이드/캐시에서 먼저 조회(네트워크 없음),
+     * 1) 문장 전체를 사전 트라이로 1회 스캔(네트워크 없음),
      * 2) 없으면 첫 토큰만 autocomplete 로 1회 시도.
      */
     public String resolveFromQuery(String query) {
         if (query == null || query.isBlank()) return null;
-        String[] tokens = query.trim().split("\\s+");
-        for (String t : tokens) {
-            String key = t.toLowerCase();
-            if (OVERRIDES.containsKey(key)) return OVERRIDES.get(key);
-            if (cache.containsKey(key)) return cache.get(key);
-        }
-        return resolve(tokens[0]);
+        KnownCity offline = resolveOffline(query);
+        if (offline != null) return offline.iata();
+        return resolveRemote(query.trim().split("\\s+")[0]);
     }
 
-    private String get(String apiUrl) throws IOException {
-        HttpURLConnection con = (HttpURLConnection) new URL(apiUrl).openConnection();
-        try {
-            con.setRequestMethod("GET");
-            con.setRequestProperty("Accept", "application/json");
-            con.setConnectTimeout(8000);
-            con.setReadTimeout(10000);
-            int code = con.getResponseCode();
-            InputStream is = (code == HttpURLConnection.HTTP_OK) ? con.getInputStream() : con.getErrorStream();
-            try (BufferedReader r = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-                StringBuilder sb = new StringBuilder();
-                String line;
-                while ((line = r.readLine()) != null) sb.append(line);
-                if (code != HttpURLConnection.HTTP_OK) throw new IOException("HTTP " + code);
-                return sb.toString();
-            }
-        } finally {
-            con.disconnect();
+    /**
+     * 문장에 등장하는 사전 지명을 등장 순서대로 모두 찾는다 (네트워크 없음). 같은 IATA 는 처음 1개만.
+     * 예: "제주도랑 오사카" → [제주도/CJU, 오사카/OSA].
+     */
+    public List<KnownCity> findKnownCities(String text) {
+        List<KnownCity> out = new ArrayList<>();
+        if (text == null || text.isBlank()) return out;
+        Set<String> seen = new LinkedHashSet<>();
+        for (AliasTrie.Hit<City> h : CITIES.scan(text)) {
+            if (seen.add(h.value().iata())) out.add(new KnownCity(h.alias(), h.value().iata()));
         }
+        return out;
     }
 }
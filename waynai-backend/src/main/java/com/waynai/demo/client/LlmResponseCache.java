@@ -0,0 +1,136 @@
+package com.waynai.demo.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waynai.demo.cache.BoundedCache;
+import com.waynai.demo.cache.CacheRegistry;
+import com.waynai.demo.cache.Codec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LLM 응답 캐시 (내용 주소 기반).
+ *
+ * <p>키는 모델과 무관하게 {@code SHA-256(jsonMode + 프롬프트)} 이다. 같은 질의의 의도 분석,
+ * 같은 RAG 컨텍스트의 권역 프롬프트, 반복되는 /api/llm 질문이 OpenRouter 를 다시 타지 않는다.
+ *
+ * <p>저장소는 {@link CacheRegistry} 의 {@code llm-response} 영역이다(가중치 = 응답 문자 수). 크기·TTL 은
+ * {@code openrouter.cache.*} 가 기본값이고 {@code waynai.cache.llm-response.*} 로 덮어쓴다. {@code waynai.cache.dir} 이
+ * 있으면 다른 영역과 같은 디스크 계층·압축·메트릭을 쓰며, 메모리와 디스크 모두 같은 TTL 하나로 만료된다.
+ *
+ * <p>JSON 모드 응답은 파싱 가능한 것만 저장한다(깨진 JSON 을 재생하지 않도록). 구문은 맞아도 호출자가 스키마 파싱에
+ * 실패한 응답은 호출자가 {@link #evict} 로 버린다. 저장은 호출 스레드에서 바로 끝나(디스크는 파일 끝 추가 1회)
+ * 뒤이은 evict 보다 늦게 되살아나는 일이 없다.
+ */
+@Slf4j
+@Component
+public class LlmResponseCache {
+
+    public record Entry(String model, String text, long createdAt) {}
+
+    /** 응답 본문은 64KB 를 넘을 수 있어 writeUTF 대신 길이 + UTF-8 바이트로 쓴다. */
+    static final Codec<Entry> ENTRY_CODEC = new Codec<>() {
+        @Override
+        public void write(DataOutput out, Entry value) throws IOException {
+            out.writeUTF(value.model() != null ? value.model() : "");
+            out.writeLong(value.createdAt());
+            byte[] text = value.text().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(text.length);
+            out.write(text);
+        }
+
+        @Override
+        public Entry read(DataInput in) throws IOException {
+            String model = in.readUTF();
+            long createdAt = in.readLong();
+            byte[] text = new byte[in.readInt()];
+            in.readFully(text);
+            return new Entry(model.isEmpty() ? null : model, new String(text, StandardCharsets.UTF_8), createdAt);
+        }
+    };
+
+    private final boolean enabled;
+    private final BoundedCache<String, Entry> cache;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public LlmResponseCache(CacheRegistry caches,
+                            @Value("${openrouter.cache.enabled:true}") boolean enabled,
+                            @Value("${openrouter.cache.ttl-minutes:360}") long ttlMinutes,
+                            @Value("${openrouter.cache.max-weight-chars:8000000}") long maxWeightChars) {
+        this.enabled = enabled;
+        this.cache = caches.region("llm-response",
+                BoundedCache.Spec.of(maxWeightChars, Duration.ofMinutes(ttlMinutes)),
+                e -> e.text().length(), ENTRY_CODEC);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String key(String prompt, boolean jsonMode) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update((byte) (jsonMode ? 'J' : 'T'));
+            md.update(prompt.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** 메모리 → 디스크 순으로 조회. 없거나 만료면 null. 디스크 조회가 있어 블로킹 스레드에서 호출할 것. */
+    public Entry get(String key) {
+        return enabled ? cache.get(key) : null;
+    }
+
+    public void put(String key, String model, String text, boolean jsonMode) {
+        if (!enabled || text == null || text.isBlank()) return;
+        if (jsonMode && !isParsableJson(text)) {
+            log.debug("[llm-cache] JSON 파싱 불가 응답은 저장하지 않음");
+            return;
+        }
+        cache.put(key, new Entry(model, text, System.currentTimeMillis()));
+    }
+
+    public void evict(String key) {
+        cache.invalidate(key);
+    }
+
+    /** actuator 노출용. 영역 전체 통계는 /actuator/cacheregions/llm-response. */
+    public Map<String, Object> stats() {
+        BoundedCache.Stats s = cache.stats();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("entries", s.size());
+        m.put("weightChars", s.weight());
+        m.put("hits", s.hits());
+        m.put("diskHits", s.diskHits());
+        m.put("misses", s.misses());
+        m.put("diskEntries", s.diskSize());
+        return m;
+    }
+
+    private boolean isParsableJson(String text) {
+        int start = text.indexOf('{');
+        int end = text.lastIndexOf('}');
+        if (start < 0 || end <= start) return false;
+        String json = text.substring(start, end + 1)
+                .replace('“', '"').replace('”', '"');
+        try {
+            objectMapper.readTree(json);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
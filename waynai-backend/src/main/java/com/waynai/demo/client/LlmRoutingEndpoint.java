@@ -0,0 +1,33 @@
+package com.waynai.demo.client;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/llmrouting} — 모델별 서킷 상태, 요청 유형별 통계, 응답 캐시 적중률을 한 번에 보여준다.
+ */
+@Component
+@Endpoint(id = "llmrouting")
+@RequiredArgsConstructor
+public class LlmRoutingEndpoint {
+
+    private final OpenRouterModelRouter router;
+    private final ModelCircuitBreaker circuitBreaker;
+    private final ModelStatsRegistry modelStats;
+    private final LlmResponseCache responseCache;
+
+    @ReadOperation
+    public Map<String, Object> routing() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("chain", router.getModelChain());
+        out.put("circuits", circuitBreaker.snapshot());
+        out.put("stats", modelStats.snapshot());
+        out.put("cache", responseCache.stats());
+        return out;
+    }
+}
@@ -0,0 +1,26 @@
+package com.waynai.demo.client;
+
+/**
+ * LLM 요청 유형. 모델별 통계를 유형마다 따로 쌓아 체인 순서를 유형별로 정한다.
+ *
+ * <p>{@code expectedTokens} 는 유형별 대략적인 출력 길이로, 예상 소요시간
+ * (TTFT + 출력 토큰 / 초당 토큰) 계산에 쓴다. 짧은 출력(의도 분석)은 TTFT 가,
+ * 긴 출력(구조화 일정)은 처리량이 순서를 좌우하게 된다.
+ */
+public enum LlmTask {
+    INTENT(300),
+    STRUCTURED_PLAN(4000),
+    SEGMENT(2000),
+    CHAT(500),
+    GENERAL(800);
+
+    private final int expectedTokens;
+
+    LlmTask(int expectedTokens) {
+        this.expectedTokens = expectedTokens;
+    }
+
+    public int expectedTokens() {
+        return expectedTokens;
+    }
+}
@@ -0,0 +1,185 @@
+package com.waynai.demo.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 모델별 서킷 브레이커. 블로킹({@code generateText})과 스트리밍({@code streamText}) 경로가 공유한다.
+ *
+ * <pre>
+ * CLOSED ──(윈도우 실패율 ≥ 임계 or 쿼터/인증 오류)──▶ OPEN ──(차단 시간 경과)──▶ HALF_OPEN
+ *   ▲                                                 ▲                          │ 프로브 1건만 허용
+ *   └──────────────(프로브 성공)───────────────────────┴────(프로브 실패: 차단 시간 ×2)┘
+ * </pre>
+ *
+ * <p>최근 N건 결과를 링버퍼(슬라이딩 윈도우)로 유지하고, 연속 OPEN 횟수에 따라 차단 시간을
+ * 지수적으로 늘린다(상한 있음). 죽은 모델에 매 요청 연결/타임아웃 비용을 내지 않도록
+ * 호출 전에 {@link #tryAcquire} 로 허가를 받는다.
+ */
+@Slf4j
+@Component
+public class ModelCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    @Value("${openrouter.circuit.window-size:10}")
+    private int windowSize;
+
+    @Value("${openrouter.circuit.minimum-calls:4}")
+    private int minimumCalls;
+
+    @Value("${openrouter.circuit.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${openrouter.circuit.open-base-seconds:30}")
+    private long openBaseSeconds;
+
+    @Value("${openrouter.circuit.open-max-seconds:600}")
+    private long openMaxSeconds;
+
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    /**
+     * 호출 허가. OPEN 이면 false, HALF_OPEN 이면 프로브 1건만 true.
+     * true 를 받은 호출은 반드시 onSuccess/onFailure/onAbandon 중 하나로 결과를 알려야 한다.
+     */
+    public boolean tryAcquire(String model) {
+        return circuit(model).tryAcquire(System.currentTimeMillis());
+    }
+
+    public void onSuccess(String model) {
+        circuit(model).success();
+    }
+
+    public void onFailure(String model, Throwable error) {
+        boolean hard = error instanceof OpenRouterHttpException http && http.isHardFailure();
+        circuit(model).failure(hard, System.currentTimeMillis());
+    }
+
+    /** 결과 판정 없이 끝난 호출(헤지 패배로 취소 등). HALF_OPEN 프로브였다면 슬롯만 반납한다. */
+    public void onAbandon(String model) {
+        circuit(model).abandon();
+    }
+
+    public State state(String model) {
+        return circuit(model).state(System.currentTimeMillis());
+    }
+
+    /** actuator 노출용 스냅샷. */
+    public Map<String, Map<String, Object>> snapshot() {
+        long now = System.currentTimeMillis();
+        Map<String, Map<String, Object>> out = new LinkedHashMap<>();
+        circuits.forEach((model, c) -> out.put(model, c.toMap(now)));
+        return out;
+    }
+
+    private Circuit circuit(String model) {
+        return circuits.computeIfAbsent(model, Circuit::new);
+    }
+
+    private final class Circuit {
+        private final String model;
+        private final boolean[] window = new boolean[Math.max(1, windowSize)]; // true = 실패
+        private int windowPos;
+        private int windowCount;
+        private State state = State.CLOSED;
+        private long openUntilMs;
+        private int consecutiveOpens;
+        private boolean probeInFlight;
+
+        Circuit(String model) {
+            this.model = model;
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            switch (state(now)) {
+                case CLOSED:
+                    return true;
+                case HALF_OPEN:
+                    if (probeInFlight) return false;
+                    probeInFlight = true;
+                    log.info("[circuit] {} HALF_OPEN → 프로브 1건 허용", model);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        /** OPEN 차단 시간이 지나면 HALF_OPEN 으로 전이. */
+        synchronized State state(long now) {
+            if (state == State.OPEN && now >= openUntilMs) {
+                state = State.HALF_OPEN;
+                probeInFlight = false;
+            }
+            return state;
+        }
+
+        synchronized void success() {
+            if (state == State.HALF_OPEN) {
+                log.info("[circuit] {} 프로브 성공 → CLOSED", model);
+                state = State.CLOSED;
+                consecutiveOpens = 0;
+                probeInFlight = false;
+                windowPos = 0;
+                windowCount = 0;
+                return;
+            }
+            record(false);
+        }
+
+        synchronized void failure(boolean hard, long now) {
+            if (state == State.HALF_OPEN) {
+                probeInFlight = false;
+                open(now, "프로브 실패");
+                return;
+            }
+            if (state == State.OPEN) return;
+            record(true);
+            if (hard) {
+                open(now, "쿼터/인증 오류");
+            } else if (windowCount >= minimumCalls && failureRate() >= failureRateThreshold) {
+                open(now, String.format("실패율 %.0f%%", failureRate() * 100));
+            }
+        }
+
+        synchronized void abandon() {
+            if (state == State.HALF_OPEN) probeInFlight = false;
+        }
+
+        private void record(boolean failed) {
+            window[windowPos] = failed;
+            windowPos = (windowPos + 1) % window.length;
+            if (windowCount < window.length) windowCount++;
+        }
+
+        private double failureRate() {
+            if (windowCount == 0) return 0;
+            int failures = 0;
+            for (int i = 0; i < windowCount; i++) if (window[i]) failures++;
+            return (double) failures / windowCount;
+        }
+
+        private void open(long now, String reason) {
+            long seconds = Math.min(openMaxSeconds, openBaseSeconds << Math.min(consecutiveOpens, 20));
+            consecutiveOpens++;
+            state = State.OPEN;
+            openUntilMs = now + seconds * 1000;
+            log.warn("[circuit] {} OPEN ({}) — {}초 차단 (연속 {}회)", model, reason, seconds, consecutiveOpens);
+        }
+
+        synchronized Map<String, Object> toMap(long now) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("state", state(now).name());
+            m.put("failureRate", Math.round(failureRate() * 1000) / 1000.0);
+            m.put("windowCalls", windowCount);
+            m.put("consecutiveOpens", consecutiveOpens);
+            if (state == State.OPEN) m.put("openRemainingMs", Math.max(0, openUntilMs - now));
+            return m;
+        }
+    }
+}
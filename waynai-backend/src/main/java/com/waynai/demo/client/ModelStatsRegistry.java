@@ -0,0 +1,190 @@
+package com.waynai.demo.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * 모델별 롤링 통계 + 요청 유형별 체인 정렬.
+ *
+ * <p>(모델, {@link LlmTask}) 마다 EWMA 로 TTFT·초당 토큰·오류율·JSON 파싱 실패율을 유지하고,
+ * 예상 소요시간 = (TTFT + 예상 출력 토큰 / 초당 토큰) × 오류·파싱 실패 페널티 로 체인을 정렬한다.
+ * 표본이 부족한 모델은 사전값(prior)으로 평가해 설정 순서를 크게 벗어나지 않게 하고,
+ * 동점이면 설정({@code openrouter.model.chain}) 순서를 따른다.
+ *
+ * <p>토큰 수는 스트림 델타 길이 기준 근사치(문자 3개 ≈ 토큰 1개)다. 순위 비교용이라 절대값은 중요하지 않다.
+ */
+@Slf4j
+@Component
+public class ModelStatsRegistry {
+
+    private static final double ALPHA = 0.2;
+    private static final int MIN_SAMPLES = 3;
+    private static final double PRIOR_TTFT_MS = 3000;
+    private static final double PRIOR_TOKENS_PER_SEC = 40;
+    private static final double CHARS_PER_TOKEN = 3.0;
+
+    private final Map<String, Stats> byModelTask = new ConcurrentHashMap<>();
+    private final Map<String, Stats> byModel = new ConcurrentHashMap<>();
+
+    /** 첫 델타까지 걸린 시간. */
+    public void recordTtft(String model, LlmTask task, double ms) {
+        stats(model, task).ttft(ms);
+        modelStats(model).ttft(ms);
+    }
+
+    /**
+     * 첫 델타 전에 취소(헤지 패배·클라이언트 종료)된 호출의 경과시간. 실제 TTFT 는 이보다 크다는 하한값일 뿐이라
+     * max(경과시간, 현재 EWMA) 로만 반영한다 — 빨리 취소될수록 모델이 빨라 보이는 왜곡을 막는다. 표본이 없으면 버린다.
+     */
+    public void recordTtftLowerBound(String model, LlmTask task, double ms) {
+        stats(model, task).ttftAtLeast(ms);
+        modelStats(model).ttftAtLeast(ms);
+    }
+
+    /** 응답 완료. outputChars 는 첫 토큰 이후 generationMs 동안 받은 문자 수. */
+    public void recordSuccess(String model, LlmTask task, long outputChars, double generationMs) {
+        double tps = generationMs > 0 ? (outputChars / CHARS_PER_TOKEN) / (generationMs / 1000.0) : 0;
+        stats(model, task).success(tps);
+        modelStats(model).success(tps);
+    }
+
+    public void recordError(String model, LlmTask task) {
+        stats(model, task).error();
+        modelStats(model).error();
+    }
+
+    /** 호출자가 응답 JSON 파싱 성공/실패를 알려준다 (구조화 일정·권역·의도 분석). */
+    public void recordParse(String model, LlmTask task, boolean ok) {
+        if (model == null) return;
+        stats(model, task).parse(ok);
+        modelStats(model).parse(ok);
+    }
+
+    /** 모델 전체(유형 무관) TTFT EWMA. 표본이 없으면 null. */
+    public Double ttftEwmaMs(String model) {
+        Stats s = byModel.get(model);
+        return s == null || s.ttftSamples() == 0 ? null : s.ttftMs();
+    }
+
+    /**
+     * 요청 유형별 예상 소요시간이 짧은 순으로 체인을 정렬한다. 원본 리스트는 건드리지 않는다.
+     */
+    public List<String> order(List<String> chain, LlmTask task) {
+        if (chain.size() < 2) return chain;
+        Map<String, Integer> rank = new LinkedHashMap<>();
+        for (int i = 0; i < chain.size(); i++) rank.put(chain.get(i), i);
+        List<String> sorted = new ArrayList<>(chain);
+        sorted.sort(Comparator.<String>comparingDouble(m -> expectedCostMs(m, task))
+                .thenComparingInt(rank::get));
+        if (!sorted.equals(chain)) {
+            log.debug("[model-stats] {} 체인 재정렬: {} → {}", task, chain, sorted);
+        }
+        return sorted;
+    }
+
+    /** 예상 소요시간(ms) × 신뢰도 페널티. */
+    double expectedCostMs(String model, LlmTask task) {
+        Stats s = byModelTask.get(key(model, task));
+        Stats m = byModel.get(model);
+        double ttft = pick(s, m, Stats::ttftMs, Stats::ttftSamples, PRIOR_TTFT_MS);
+        double tps = pick(s, m, Stats::tokensPerSec, Stats::successSamples, PRIOR_TOKENS_PER_SEC);
+        double err = s != null && s.calls() >= MIN_SAMPLES ? s.errorRate() : 0;
+        double parseFail = s != null && s.parseSamples() >= MIN_SAMPLES ? s.parseFailRate() : 0;
+        double latency = ttft + task.expectedTokens() / Math.max(1.0, tps) * 1000.0;
+        // 실패하면 다음 모델로 넘어가며 시간을 다시 쓰므로 기대 시도 횟수(1/(1-p))만큼 늘린다.
+        double retryFactor = 1.0 / (1.0 - Math.min(0.9, err + parseFail - err * parseFail));
+        return latency * retryFactor;
+    }
+
+    /** 유형별 표본이 충분하면 그것을, 아니면 모델 전체 표본, 그것도 없으면 prior. */
+    private double pick(Stats task, Stats model,
+                        ToDoubleFunction<Stats> value, ToIntFunction<Stats> samples, double prior) {
+        if (task != null && samples.applyAsInt(task) >= MIN_SAMPLES) return value.applyAsDouble(task);
+        if (model != null && samples.applyAsInt(model) >= MIN_SAMPLES) return value.applyAsDouble(model);
+        return prior;
+    }
+
+    /** 관측용 스냅샷 (모델 → 유형 → 지표). */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> out = new LinkedHashMap<>();
+        byModelTask.forEach((k, s) -> out.computeIfAbsent(k.substring(0, k.lastIndexOf('|')), x -> new LinkedHashMap<>())
+                .put(k.substring(k.lastIndexOf('|') + 1), s.toMap()));
+        return out;
+    }
+
+    private Stats stats(String model, LlmTask task) {
+        return byModelTask.computeIfAbsent(key(model, task), k -> new Stats());
+    }
+
+    private Stats modelStats(String model) {
+        return byModel.computeIfAbsent(model, k -> new Stats());
+    }
+
+    private static String key(String model, LlmTask task) {
+        return model + "|" + task.name();
+    }
+
+    /** EWMA 묶음. 첫 표본은 그대로 초기값으로 쓴다. */
+    private static final class Stats {
+        private double ttftMs;
+        private int ttftSamples;
+        private double tokensPerSec;
+        private int successSamples;
+        private double errorRate;
+        private int calls;
+        private double parseFailRate;
+        private int parseSamples;
+
+        synchronized void ttft(double ms) {
+            ttftMs = ttftSamples++ == 0 ? ms : ttftMs + ALPHA * (ms - ttftMs);
+        }
+
+        synchronized void ttftAtLeast(double ms) {
+            if (ttftSamples > 0 && ms > ttftMs) ttft(ms);
+        }
+
+        synchronized void success(double tps) {
+            if (tps > 0) {
+                tokensPerSec = successSamples++ == 0 ? tps : tokensPerSec + ALPHA * (tps - tokensPerSec);
+            }
+            errorRate = calls++ == 0 ? 0 : errorRate + ALPHA * (0 - errorRate);
+        }
+
+        synchronized void error() {
+            errorRate = calls++ == 0 ? 1 : errorRate + ALPHA * (1 - errorRate);
+        }
+
+        synchronized void parse(boolean ok) {
+            double v = ok ? 0 : 1;
+            parseFailRate = parseSamples++ == 0 ? v : parseFailRate + ALPHA * (v - parseFailRate);
+        }
+
+        synchronized double ttftMs() { return ttftMs; }
+        synchronized int ttftSamples() { return ttftSamples; }
+        synchronized double tokensPerSec() { return tokensPerSec; }
+        synchronized int successSamples() { return successSamples; }
+        synchronized double errorRate() { return errorRate; }
+        synchronized int calls() { return calls; }
+        synchronized double parseFailRate() { return parseFailRate; }
+        synchronized int parseSamples() { return parseSamples; }
+
+        synchronized Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("ttftMs", Math.round(ttftMs));
+            m.put("tokensPerSec", Math.round(tokensPerSec * 10) / 10.0);
+            m.put("errorRate", Math.round(errorRate * 1000) / 1000.0);
+            m.put("parseFailRate", Math.round(parseFailRate * 1000) / 1000.0);
+            m.put("calls", calls);
+            return m;
+        }
+    }
+}
@@ -1,37 +1,35 @@
 package com.waynai.demo.client;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waynai.demo.cache.SingleFlight;
 import com.waynai.demo.dto.NaverBlogSearchDto;
 import com.waynai.demo.dto.NaverLocalSearchDto;
-import jakarta.annotation.PostConstruct;
-import lombok.RequiredArgsConstructor;
+import com.waynai.demo.quota.Quota;
+import com.waynai.demo.quota.QuotaRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.HttpsURLConnection;
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLSocketFactory;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
-import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.io.IOException;
 import java.net.URLEncoder;
-import java.security.cert.X509Certificate;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * 네이버 블로그 검색 API 클라이언트
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class NaverApiClient {
 
+    private static final Duration TIMEOUT = Duration.ofSeconds(8);
+    private static final Duration QUOTA_WAIT = Duration.ofSeconds(1);
+    /** 네이버 오픈API 의 일일 호출 한도 초과 오류 코드. 그 밖의 429 는 순간 속도 제한이다. */
+    private static final Pattern DAILY_LIMIT = Pattern.compile("\"errorCode\"\\s*:\\s*\"012\"");
+
     @Value("${naver.api.client.id}")
     private String clientId;
 
@@ -41,36 +39,17 @@ public class NaverApiClient {
     @Value("${naver.api.url}")
     private String apiUrl;
 
-    /**
-     * 로컬 개발용 TLS 검증 우회 플래그.
-     * JVM cacerts 에 MITM 프록시(Zscaler 등) 루트 인증서가 없을 때 PKIX 빌드 실패를 막기 위한 목적.
-     * 운영에서는 반드시 false.
-     */
-    @Value("${gemini.tls.insecure:false}")
-    private boolean tlsInsecure;
-
     private final ObjectMapper objectMapper;
-
-    private SSLSocketFactory insecureSocketFactory;
-    private HostnameVerifier insecureHostnameVerifier;
-
-    @PostConstruct
-    public void initTlsBypass() {
-        if (!tlsInsecure) return;
-        try {
-            log.warn("[naver] TLS 인증 검증을 우회합니다 (gemini.tls.insecure=true). 로컬 개발 전용 - 운영에서 사용하지 마세요.");
-            TrustManager[] trustAll = new TrustManager[] { new X509TrustManager() {
-                @Override public void checkClientTrusted(X509Certificate[] chain, String authType) { }
-                @Override public void checkServerTrusted(X509Certificate[] chain, String authType) { }
-                @Override public X509Certificate[] getAcceptedIssuers() { return new X509Certificate[0]; }
-            }};
-            SSLContext ctx = SSLContext.getInstance("TLS");
-            ctx.init(null, trustAll, new java.security.SecureRandom());
-            insecureSocketFactory = ctx.getSocketFactory();
-            insecureHostnameVerifier = (hostname, session) -> true;
-        } catch (Exception e) {
-            log.error("[naver] InsecureTrustManager 설정 실패. 기본 TLS 로 진행합니다.", e);
-        }
+    private final UpstreamHttpClient http;
+    /** 검색 API 하루 25,000건(블로그·지역 합산), 초당 10건. */
+    private final Quota quota;
+    /** 같은 URL(검색어·옵션 동일)의 동시 호출은 1건만 보내고 응답 트리를 공유한다. */
+    private final SingleFlight<String, JsonNode> flights = new SingleFlight<>();
+
+    public NaverApiClient(ObjectMapper objectMapper, UpstreamHttpClient http, QuotaRegistry quotas) {
+        this.objectMapper = objectMapper;
+        this.http = http;
+        this.quota = quotas.define("naver", Quota.Limits.of(10, 10, 25_000));
     }
 
     /**
@@ -92,7 +71,7 @@ public class NaverApiClient {
             if (sort == null) sort = "sim";
 
             // 검색어 URL 인코딩
-            String encodedQuery = URLEncoder.encode(query, "UTF-8");
+            String encodedQuery = URLEncoder.encode(normalize(query), "UTF-8");
             
             // API URL 구성
             String fullApiUrl = String.format("%s?query=%s&display=%d&start=%d&sort=%s", 
@@ -104,10 +83,10 @@ public class NaverApiClient {
             requestHeaders.put("X-Naver-Client-Secret", clientSecret);
 
             // API 호출
-            String responseBody = get(fullApiUrl, requestHeaders);
+            JsonNode responseBody = get(fullApiUrl, requestHeaders);
             
             // JSON 응답을 DTO로 변환
-            NaverBlogSearchDto result = objectMapper.readValue(responseBody, NaverBlogSearchDto.class);
+            NaverBlogSearchDto result = objectMapper.treeToValue(responseBody, NaverBlogSearchDto.class);
             
             log.info("네이버 블로그 검색 완료: 총 {}개 결과", result.getTotal());
             return result;
@@ -139,7 +118,7 @@ public class NaverApiClient {
             if (display > 5) display = 5;
             if (sort == null || sort.isBlank()) sort = "random";
 
-            String encodedQuery = URLEncoder.encode(query, "UTF-8");
+            String encodedQuery = URLEncoder.encode(normalize(query), "UTF-8");
             // 기본 blog 용 URL 이 apiUrl(.../search/blog) 이므로 host+path 를 재조립
             String base = apiUrl.replaceFirst("/blog$", "/local.json");
             if (!base.endsWith("/local.json")) {
@@ -154,8 +133,8 @@ public class NaverApiClient {
             requestHeaders.put("X-Naver-Client-Id", clientId);
             requestHeaders.put("X-Naver-Client-Secret", clientSecret);
 
-            String body = get(fullApiUrl, requestHeaders);
-            NaverLocalSearchDto result = objectMapper.readValue(body, NaverLocalSearchDto.class);
+            JsonNode body = get(fullApiUrl, requestHeaders);
+            NaverLocalSearchDto result = objectMapper.treeToValue(body, NaverLocalSearchDto.class);
             log.info("네이버 지역검색 완료: items={}", result.getItems() == null ? 0 : result.getItems().size());
             return result;
         } catch (Exception e) {
@@ -164,75 +143,34 @@ public class NaverApiClient {
         }
     }
 
+    /** 공백만 다른 검색어가 같은 URL(= 같은 single-flight 키)이 되도록 정리. */
+    private static String normalize(String query) {
+        return query.trim().replaceAll("\\s+", " ");
+    }
+
     /**
-     * HTTP GET 요청 실행
+     * HTTP GET 요청 실행 (공용 커넥션 풀 사용)
      * @param apiUrl API URL
      * @param requestHeaders 요청 헤더
-     * @return 응답 본문
+     * @return 응답 JSON
      */
-    private String get(String apiUrl, Map<String, String> requestHeaders) {
-        HttpURLConnection con = connect(apiUrl);
-        try {
-            con.setRequestMethod("GET");
-            for (Map.Entry<String, String> header : requestHeaders.entrySet()) {
-                con.setRequestProperty(header.getKey(), header.getValue());
-            }
-
-            int responseCode = con.getResponseCode();
-            if (responseCode == HttpURLConnection.HTTP_OK) { // 정상 호출
-                return readBody(con.getInputStream());
-            } else { // 오류 발생
-                String errorBody = readBody(con.getErrorStream());
-                log.error("API 오류 응답: code={}, body={}", responseCode, errorBody);
-                throw new RuntimeException("API 오류: " + responseCode + " - " + errorBody);
-            }
-        } catch (IOException e) {
-            throw new RuntimeException("API 요청과 응답 실패", e);
-        } finally {
-            con.disconnect();
-        }
+    private JsonNode get(String apiUrl, Map<String, String> requestHeaders) {
+        return flights.execute(apiUrl, () -> send(apiUrl, requestHeaders));
     }
 
-    /**
-     * HTTP 연결 생성
-     * @param apiUrl API URL
-     * @return HttpURLConnection
-     */
-    private HttpURLConnection connect(String apiUrl) {
+    private JsonNode send(String apiUrl, Map<String, String> requestHeaders) {
+        if (!quota.acquire(QUOTA_WAIT)) {
+            throw new RuntimeException("네이버 API 호출 한도 소진");
+        }
         try {
-            URL url = new URL(apiUrl);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            if (tlsInsecure && conn instanceof HttpsURLConnection https) {
-                if (insecureSocketFactory != null) https.setSSLSocketFactory(insecureSocketFactory);
-                if (insecureHostnameVerifier != null) https.setHostnameVerifier(insecureHostnameVerifier);
-            }
-            return conn;
-        } catch (MalformedURLException e) {
-            throw new RuntimeException("API URL이 잘못되었습니다. : " + apiUrl, e);
+            return http.getJson(apiUrl, requestHeaders, TIMEOUT);
         } catch (IOException e) {
-            throw new RuntimeException("연결이 실패했습니다. : " + apiUrl, e);
-        }
-    }
-
-    /**
-     * 응답 본문 읽기
-     * @param body 입력 스트림
-     * @return 응답 본문 문자열
-     */
-    private String readBody(InputStream body) {
-        InputStreamReader streamReader = new InputStreamReader(body);
-
-        try (BufferedReader lineReader = new BufferedReader(streamReader)) {
-            StringBuilder responseBody = new StringBuilder();
-
-            String line;
-            while ((line = lineReader.readLine()) != null) {
-                responseBody.append(line);
+            if (e instanceof UpstreamHttpException h && h.isRateLimited()) {
+                if (DAILY_LIMIT.matcher(h.getBody()).find()) quota.exhaust();
+                else quota.backOff(h.retryAfter());
             }
-
-            return responseBody.toString();
-        } catch (IOException e) {
-            throw new RuntimeException("API 응답을 읽는 데 실패했습니다.", e);
+            log.error("API 오류 응답: {}", e.getMessage());
+            throw new RuntimeException("API 요청과 응답 실패: " + e.getMessage(), e);
         }
     }
 }
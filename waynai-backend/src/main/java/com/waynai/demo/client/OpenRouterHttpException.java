@@ -0,0 +1,25 @@
+package com.waynai.demo.client;
+
+/**
+ * OpenRouter 가 HTTP 오류 상태로 응답한 경우. 상태코드로 장애 유형(쿼터·인증·서버 오류)을 판별한다.
+ */
+public class OpenRouterHttpException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    public OpenRouterHttpException(int status, String body) {
+        super("HTTP " + status + ": " + body);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /** 쿼터/크레딧 부족/인증 실패 — 잠시 뒤 재시도해도 그대로일 가능성이 높아 즉시 차단 대상. */
+    public boolean isHardFailure() {
+        return status == 429 || status == 402 || status == 401 || status == 403;
+    }
+}
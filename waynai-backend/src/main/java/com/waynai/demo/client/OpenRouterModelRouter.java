@@ -6,6 +6,7 @@ import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
@@ -16,16 +17,21 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Schedulers;
 import reactor.netty.http.client.HttpClient;
+import reactor.util.context.Context;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -36,11 +42,23 @@ import java.util.stream.Collectors;
  * {@code POST https://openrouter.ai/api/v1/chat/completions} 를 WebClient 로 직접 호출한다.
  * 저가 모델부터 시도하고 실패(쿼터 초과/모델 없음/5xx 등) 시 다음 모델로 자동 전환(hot-swap)한다.
  *
- * <p>기존 GeminiModelRouter 의 핫스왑·쿨다운·재시도 구조를 그대로 계승하되, 엔드포인트/헤더/
- * 요청·응답 파싱만 OpenRouter(OpenAI) 규격으로 바꿨다.
+ * <p>기존 GeminiModelRouter 의 핫스왑·재시도 구조를 그대로 계승하되, 엔드포인트/헤더/
+ * 요청·응답 파싱만 OpenRouter(OpenAI) 규격으로 바꿨다. 고정 쿨다운 대신 모델별
+ * {@link ModelCircuitBreaker} 가 블로킹·스트리밍 경로 모두에서 죽은 모델을 건너뛰게 한다.
+ *
+ * <p>스트리밍은 헤지(hedged) 모드가 기본이다. 모델 N 이 첫 델타를 지연 한도 안에 내지 못하면
+ * 모델 N+1 을 병렬로 띄우고, 먼저 델타를 낸 쪽으로 확정한 뒤 나머지는 취소한다.
+ * 지연 한도는 모델별 첫 토큰 시간(TTFT) EWMA 로 적응한다.
+ *
+ * <p>같은 프롬프트(+jsonMode)는 {@link LlmResponseCache} 에서 모델 호출 없이 돌려준다.
+ * 스트리밍 적중은 저장된 응답을 델타 Flux 로 재생하므로 SSE 소비자 입장에선 동일하게 동작한다.
+ *
+ * <p>체인 순서는 고정이 아니라 {@link ModelStatsRegistry} 가 요청 유형({@link LlmTask})별
+ * 예상 소요시간으로 매 요청 정렬한다. 설정 순서는 표본이 없을 때의 기본값이자 동점 처리 기준이다.
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class OpenRouterModelRouter {
 
     @Value("${openrouter.api.key:}")
@@ -75,10 +93,44 @@ public class OpenRouterModelRouter {
 
     private List<String> modelChain = Collections.emptyList();
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ModelStatsRegistry modelStats;
+    private final ModelCircuitBreaker circuitBreaker;
+    private final LlmResponseCache responseCache;
     private volatile WebClient webClient;
 
-    private final Map<String, Long> cooldownUntilMs = new ConcurrentHashMap<>();
-    private static final long COOLDOWN_MS = 60_000L;
+    /** 헤지 스트리밍 on/off. 끄면 기존처럼 모델을 하나씩 순차 폴백한다. */
+    @Value("${openrouter.hedge.enabled:true}")
+    private boolean hedgeEnabled;
+
+    /** TTFT 표본이 없는 모델의 헤지 지연(ms). */
+    @Value("${openrouter.hedge.delay-ms:8000}")
+    private long hedgeDelayMs;
+
+    /** 적응형 헤지 지연 하한/상한(ms). 지연 = clamp(TTFT EWMA × 배수). */
+    @Value("${openrouter.hedge.min-delay-ms:2000}")
+    private long hedgeMinDelayMs;
+
+    @Value("${openrouter.hedge.max-delay-ms:20000}")
+    private long hedgeMaxDelayMs;
+
+    @Value("${openrouter.hedge.ttft-multiplier:2.0}")
+    private double hedgeTtftMultiplier;
+
+    /** 헤지 경주에서 어느 모델의 델타인지 표시. 승자 확정 후 델타만 바깥으로 내보낸다. */
+    private record ModelDelta(String model, String delta) {}
+
+    /** 캐시 재생 시 델타 조각 크기(문자). */
+    private static final int REPLAY_CHUNK_CHARS = 48;
+
+    /**
+     * 스트림 1회의 누적 결과. 첫 토큰 이후 끊긴 스트림(부분 수신)은 정상 종료처럼 보이므로
+     * timedStream 이 Reactor Context 로 이 객체를 찾아 truncated 를 표시해 캐시 저장을 막는다.
+     */
+    private static final class StreamOutcome {
+        final StringBuilder text = new StringBuilder();
+        volatile String model;
+        volatile boolean truncated;
+    }
 
     @PostConstruct
     public void init() {
@@ -143,41 +195,129 @@ public class OpenRouterModelRouter {
      * 구문상 유효한 JSON 만 반환하도록 강제한다. (구조화 여행 계획 전용)
      */
     public Mono<String> generateText(String prompt, Consumer<String> onModelSelected, boolean jsonMode) {
-        return Mono.fromCallable(() -> invokeWithFallback(prompt, onModelSelected, jsonMode))
+        return generateText(prompt, onModelSelected, jsonMode, LlmTask.GENERAL);
+    }
+
+    /** 요청 유형을 지정한 호출. 유형별 통계로 체인 순서를 정한다. */
+    public Mono<String> generateText(String prompt, Consumer<String> onModelSelected, boolean jsonMode, LlmTask task) {
+        return Mono.fromCallable(() -> {
+                    if (!responseCache.isEnabled()) {
+                        return invokeWithFallback(prompt, onModelSelected, jsonMode, task);
+                    }
+                    String key = responseCache.key(prompt, jsonMode);
+                    LlmResponseCache.Entry hit = responseCache.get(key);
+                    if (hit != null) {
+                        log.info("[llm-cache] 적중: task={}, model={}, len={}", task, hit.model(), hit.text().length());
+                        notifySelected(onModelSelected, hit.model());
+                        return hit.text();
+                    }
+                    AtomicReference<String> chosen = new AtomicReference<>();
+                    String text = invokeWithFallback(prompt, m -> {
+                        chosen.set(m);
+                        if (onModelSelected != null) onModelSelected.accept(m);
+                    }, jsonMode, task);
+                    responseCache.put(key, chosen.get(), text, jsonMode);
+                    return text;
+                })
                 .subscribeOn(Schedulers.boundedElastic());
     }
 
+    public Flux<String> generateTextStream(String prompt, LlmTask task) {
+        return generateText(prompt, null, false, task).flux();
+    }
+
     public Flux<String> generateTextStream(String prompt) {
         return generateText(prompt).flux();
     }
 
     /**
      * 진짜 토큰 스트리밍. OpenRouter {@code stream:true} 로 델타(content 조각)를 실시간 방출한다.
-     * 모델 체인 순서로 시도하며, 첫 토큰이 나오기 전에 실패하면 다음 모델로 폴백한다.
+     * 헤지 모드면 첫 토큰이 늦은 모델 뒤로 다음 모델을 병렬 경주시키고, 아니면 체인 순서로
+     * 첫 토큰이 나오기 전에 실패할 때만 다음 모델로 폴백한다.
      *
      * @param onModelSelected 실제로 토큰을 뱉기 시작한 모델명을 1회 통지
      * @return content 델타 문자열의 Flux (완결 시 onComplete)
      */
     public Flux<String> streamText(String prompt, Consumer<String> onModelSelected, boolean jsonMode) {
+        return streamText(prompt, onModelSelected, jsonMode, LlmTask.GENERAL);
+    }
+
+    public Flux<String> streamText(String prompt, Consumer<String> onModelSelected, boolean jsonMode, LlmTask task) {
         if (apiKey == null || apiKey.isBlank()) {
             return Flux.error(new IllegalStateException("OPENROUTER_API_KEY 가 설정되지 않았습니다."));
         }
-        return streamWithFallback(prompt, 0, onModelSelected, jsonMode);
+        if (!responseCache.isEnabled()) {
+            return streamLive(prompt, onModelSelected, jsonMode, task);
+        }
+        String key = responseCache.key(prompt, jsonMode);
+        Flux<String> live = Flux.defer(() -> {
+            StreamOutcome outcome = new StreamOutcome();
+            return streamLive(prompt, m -> {
+                        outcome.model = m;
+                        if (onModelSelected != null) onModelSelected.accept(m);
+                    }, jsonMode, task)
+                    .doOnNext(outcome.text::append)
+                    .doOnComplete(() -> {
+                        if (!outcome.truncated) {
+                            responseCache.put(key, outcome.model, outcome.text.toString(), jsonMode);
+                        }
+                    })
+                    .contextWrite(Context.of(StreamOutcome.class, outcome));
+        });
+        // 디스크 계층 조회가 있을 수 있어 블로킹 스케줄러에서 조회한다.
+        return Mono.fromCallable(() -> responseCache.get(key))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(hit -> replay(hit, onModelSelected, task))
+                .switchIfEmpty(live);
+    }
+
+    private Flux<String> streamLive(String prompt, Consumer<String> onModelSelected, boolean jsonMode, LlmTask task) {
+        List<String> chain = modelStats.order(modelChain, task);
+        if (hedgeEnabled && chain.size() > 1) {
+            return streamHedged(chain, prompt, onModelSelected, jsonMode, task);
+        }
+        return streamWithFallback(chain, prompt, 0, onModelSelected, jsonMode, task);
+    }
+
+    /** 캐시 적중 응답을 델타 조각으로 재생. 모델 통지는 저장 당시 모델로 1회. */
+    private Flux<String> replay(LlmResponseCache.Entry hit, Consumer<String> onModelSelected, LlmTask task) {
+        log.info("[llm-cache] 스트림 적중: task={}, model={}, len={}", task, hit.model(), hit.text().length());
+        String text = hit.text();
+        List<String> chunks = new ArrayList<>((text.length() + REPLAY_CHUNK_CHARS - 1) / REPLAY_CHUNK_CHARS);
+        for (int i = 0; i < text.length(); i += REPLAY_CHUNK_CHARS) {
+            chunks.add(text.substring(i, Math.min(text.length(), i + REPLAY_CHUNK_CHARS)));
+        }
+        return Flux.fromIterable(chunks)
+                .doOnSubscribe(s -> notifySelected(onModelSelected, hit.model()));
     }
 
-    private Flux<String> streamWithFallback(String prompt, int idx, Consumer<String> onModelSelected, boolean jsonMode) {
-        if (idx >= modelChain.size()) {
+    /**
+     * 호출자가 응답 JSON 파싱 결과를 알려준다. 파싱 실패가 잦은 모델은 해당 유형에서 뒤로 밀린다.
+     */
+    public void reportParseResult(String model, LlmTask task, boolean ok) {
+        modelStats.recordParse(model, task, ok);
+    }
+
+    /**
+     * 호출자가 쓸 수 없다고 판정한 응답을 캐시에서 지운다. JSON 으로는 읽혀도 스키마가 깨진 응답이 TTL 동안 재생되거나,
+     * 같은 프롬프트 재시도가 그 응답을 돌려받아 모델에 닿지 못하는 것을 막는다.
+     */
+    public void evictCached(String prompt, boolean jsonMode) {
+        if (responseCache.isEnabled()) responseCache.evict(responseCache.key(prompt, jsonMode));
+    }
+
+    private Flux<String> streamWithFallback(List<String> chain, String prompt, int idx, Consumer<String> onModelSelected,
+                                            boolean jsonMode, LlmTask task) {
+        if (idx >= chain.size()) {
             return Flux.error(new RuntimeException("모든 OpenRouter 모델 스트리밍 실패"));
         }
-        String model = modelChain.get(idx);
-        java.util.concurrent.atomic.AtomicBoolean announced = new java.util.concurrent.atomic.AtomicBoolean(false);
-        return streamOne(model, prompt, jsonMode)
+        String model = chain.get(idx);
+        AtomicBoolean announced = new AtomicBoolean(false);
+        return timedStream(model, prompt, jsonMode, task)
                 .doOnNext(delta -> {
                     if (announced.compareAndSet(false, true)) {
                         log.info("[openrouter] 스트리밍 시작: model={}", model);
-                        if (onModelSelected != null) {
-                            try { onModelSelected.accept(model); } catch (Exception ignore) { }
-                        }
+                        notifySelected(onModelSelected, model);
                     }
                 })
                 .onErrorResume(e -> {
@@ -187,10 +327,136 @@ public class OpenRouterModelRouter {
                         return Flux.empty();
                     }
                     log.warn("[hot-swap:stream] {} 실패 → 다음 모델: {}", model, e.getMessage());
-                    return streamWithFallback(prompt, idx + 1, onModelSelected, jsonMode);
+                    return streamWithFallback(chain, prompt, idx + 1, onModelSelected, jsonMode, task);
+                });
+    }
+
+    /**
+     * 헤지 스트리밍. 체인 앞 모델부터 경주를 시작해 첫 델타를 낸 모델로 확정한다.
+     * onModelSelected 는 승자 확정 시 정확히 1회만 호출된다.
+     */
+    private Flux<String> streamHedged(List<String> chain, String prompt, Consumer<String> onModelSelected,
+                                      boolean jsonMode, LlmTask task) {
+        AtomicBoolean announced = new AtomicBoolean(false);
+        return raceFrom(chain, prompt, 0, jsonMode, task)
+                .doOnNext(md -> {
+                    if (announced.compareAndSet(false, true)) {
+                        log.info("[openrouter] 스트리밍 시작(hedge 승자): model={}", md.model());
+                        notifySelected(onModelSelected, md.model());
+                    }
+                })
+                .map(ModelDelta::delta)
+                .onErrorMap(e -> new RuntimeException("모든 OpenRouter 모델 스트리밍 실패: " + e.getMessage(), e));
+    }
+
+    /**
+     * idx 번째 모델을 시작하고, 헤지 지연 안에 첫 델타가 없거나 먼저 실패하면 idx+1 이후 체인을 병렬로 띄운다.
+     * {@link Flux#firstWithValue} 가 먼저 값을 낸 쪽만 남기고 나머지 구독(HTTP 연결)을 취소한다.
+     */
+    private Flux<ModelDelta> raceFrom(List<String> chain, String prompt, int idx, boolean jsonMode, LlmTask task) {
+        String model = chain.get(idx);
+        Flux<ModelDelta> primary = hedgeAttempt(model, prompt, jsonMode, task);
+        if (idx + 1 >= chain.size()) {
+            return primary;
+        }
+        // 1순위가 첫 토큰 전에 실패/빈 종료하면 지연을 기다리지 않고 바로 다음 모델을 띄운다.
+        Sinks.Empty<Void> primaryDone = Sinks.empty();
+        long delayMs = hedgeDelayFor(model);
+        Mono<Void> launch = Mono.firstWithSignal(
+                Mono.delay(Duration.ofMillis(delayMs)).then(),
+                primaryDone.asMono());
+        Flux<ModelDelta> hedge = Flux.defer(() -> {
+                    log.info("[hedge] {} 첫 토큰 대기 {}ms 초과 또는 실패 → {} 병렬 시작",
+                            model, delayMs, chain.get(idx + 1));
+                    return raceFrom(chain, prompt, idx + 1, jsonMode, task);
+                })
+                .delaySubscription(launch);
+        return Flux.firstWithValue(
+                primary.doOnTerminate(primaryDone::tryEmitEmpty),
+                hedge);
+    }
+
+    /** 헤지 경주 참가자 1개. 첫 토큰 이후 끊기면 부분 수신으로 정상 종료, 그 전 실패는 에러로 경주에 알린다. */
+    private Flux<ModelDelta> hedgeAttempt(String model, String prompt, boolean jsonMode, LlmTask task) {
+        AtomicBoolean started = new AtomicBoolean(false);
+        return timedStream(model, prompt, jsonMode, task)
+                .doOnNext(d -> started.set(true))
+                .map(d -> new ModelDelta(model, d))
+                .onErrorResume(e -> {
+                    if (started.get()) {
+                        log.warn("[openrouter] 스트리밍 중단(부분 수신): model={}, {}", model, e.getMessage());
+                        return Flux.empty();
+                    }
+                    log.warn("[hedge] {} 첫 토큰 전 실패: {}", model, e.getMessage());
+                    return Flux.error(e);
                 });
     }
 
+    /**
+     * streamOne + 모델 통계·서킷 기록. 첫 델타 시점에 TTFT, 정상 종료 시 처리량, 첫 토큰 전 실패 시 오류를 남긴다.
+     * 헤지에서 지거나 클라이언트가 끊어 첫 토큰 전에 취소되면 경과시간은 TTFT 하한일 뿐이라,
+     * 현재 EWMA 보다 클 때만 반영한다({@link ModelStatsRegistry#recordTtftLowerBound}).
+     *
+     * <p>서킷이 열려 있으면 연결 없이 즉시 실패하므로 폴백/헤지가 곧바로 다음 모델로 넘어간다.
+     * 첫 델타가 나오면 성공, 그 전 실패(빈 종료 포함)는 실패, 헤지 패배 취소는 판정 없이 반납한다.
+     */
+    private Flux<String> timedStream(String model, String prompt, boolean jsonMode, LlmTask task) {
+        return Flux.deferContextual(ctx -> {
+            if (!circuitBreaker.tryAcquire(model)) {
+                return Flux.error(new IllegalStateException("서킷 OPEN: " + model));
+            }
+            long t0 = System.nanoTime();
+            AtomicLong firstAt = new AtomicLong(0);
+            AtomicLong chars = new AtomicLong(0);
+            return streamOne(model, prompt, jsonMode)
+                    .doOnNext(d -> {
+                        if (firstAt.compareAndSet(0, System.nanoTime())) {
+                            modelStats.recordTtft(model, task, (firstAt.get() - t0) / 1_000_000.0);
+                            circuitBreaker.onSuccess(model);
+                        }
+                        chars.addAndGet(d.length());
+                    })
+                    .doOnComplete(() -> {
+                        if (firstAt.get() != 0) {
+                            modelStats.recordSuccess(model, task, chars.get(), (System.nanoTime() - firstAt.get()) / 1_000_000.0);
+                        } else {
+                            circuitBreaker.onFailure(model, new RuntimeException("빈 응답"));
+                        }
+                    })
+                    .doOnError(e -> {
+                        modelStats.recordError(model, task);
+                        if (firstAt.get() == 0) {
+                            circuitBreaker.onFailure(model, e);
+                        } else {
+                            ctx.getOrEmpty(StreamOutcome.class).ifPresent(o -> ((StreamOutcome) o).truncated = true);
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (firstAt.get() == 0) {
+                            modelStats.recordTtftLowerBound(model, task, (System.nanoTime() - t0) / 1_000_000.0);
+                            circuitBreaker.onAbandon(model);
+                        }
+                    });
+        });
+    }
+
+    /** 모델별 헤지 지연. TTFT 표본이 있으면 EWMA × 배수를 [min,max] 로 제한, 없으면 기본값. */
+    private long hedgeDelayFor(String model) {
+        Double ewma = modelStats.ttftEwmaMs(model);
+        if (ewma == null) return hedgeDelayMs;
+        long adaptive = Math.round(ewma * hedgeTtftMultiplier);
+        return Math.max(hedgeMinDelayMs, Math.min(hedgeMaxDelayMs, adaptive));
+    }
+
+    private void notifySelected(Consumer<String> onModelSelected, String model) {
+        if (onModelSelected == null) return;
+        try {
+            onModelSelected.accept(model);
+        } catch (Exception hookErr) {
+            log.warn("[openrouter] onModelSelected 훅 오류 (무시): {}", hookErr.getMessage());
+        }
+    }
+
     private Flux<String> streamOne(String model, String prompt, boolean jsonMode) {
         Map<String, Object> body = new HashMap<>();
         body.put("model", model);
@@ -209,8 +475,8 @@ public class OpenRouterModelRouter {
                 .retrieve()
                 .onStatus(HttpStatusCode::isError, r -> r.bodyToMono(String.class)
                         .defaultIfEmpty("")
-                        .flatMap(b -> Mono.error(new RuntimeException(
-                                "HTTP " + r.statusCode().value() + ": " + truncate(b, 300)))))
+                        .flatMap(b -> Mono.error(new OpenRouterHttpException(
+                                r.statusCode().value(), truncate(b, 300)))))
                 .bodyToFlux(new org.springframework.core.ParameterizedTypeReference<org.springframework.http.codec.ServerSentEvent<String>>() {})
                 .timeout(Duration.ofSeconds(timeoutSeconds))
                 .mapNotNull(sse -> extractDelta(sse.data()))
@@ -239,40 +505,38 @@ public class OpenRouterModelRouter {
         return null;
     }
 
-    private String invokeWithFallback(String prompt, Consumer<String> onModelSelected, boolean jsonMode) {
+    private String invokeWithFallback(String prompt, Consumer<String> onModelSelected, boolean jsonMode, LlmTask task) {
         if (apiKey == null || apiKey.isBlank()) {
             throw new IllegalStateException("OPENROUTER_API_KEY 가 설정되지 않았습니다.");
         }
         Exception last = null;
-        long now = System.currentTimeMillis();
-        for (String model : modelChain) {
-            Long coolUntil = cooldownUntilMs.get(model);
-            if (coolUntil != null && coolUntil > now) {
-                log.info("[hot-swap] {} 은 쿨다운 중이라 건너뜁니다 (남은 {}ms)", model, coolUntil - now);
-                continue;
-            }
+        for (String model : modelStats.order(modelChain, task)) {
             for (int attempt = 0; attempt <= retryPerModel; attempt++) {
+                if (!circuitBreaker.tryAcquire(model)) {
+                    log.info("[hot-swap] {} 은 서킷 {} 상태라 건너뜁니다", model, circuitBreaker.state(model));
+                    break;
+                }
                 try {
-                    log.info("[openrouter] 호출 시도: model={}, attempt={}, jsonMode={}, promptLen={}", model, attempt, jsonMode, prompt.length());
+                    log.info("[openrouter] 호출 시도: model={}, task={}, attempt={}, jsonMode={}, promptLen={}",
+                            model, task, attempt, jsonMode, prompt.length());
+                    long t0 = System.nanoTime();
                     String text = callOnce(model, prompt, jsonMode);
                     if (text == null || text.isBlank()) {
                         throw new RuntimeException("빈 응답");
                     }
+                    // 비스트리밍은 TTFT 를 따로 알 수 없어 전체 소요시간으로 처리량만 기록한다.
+                    modelStats.recordSuccess(model, task, text.length(), (System.nanoTime() - t0) / 1_000_000.0);
+                    circuitBreaker.onSuccess(model);
                     log.info("[openrouter] 성공: model={}, respLen={}", model, text.length());
-                    if (onModelSelected != null) {
-                        try {
-                            onModelSelected.accept(model);
-                        } catch (Exception hookErr) {
-                            log.warn("[openrouter] onModelSelected 훅 오류 (무시): {}", hookErr.getMessage());
-                        }
-                    }
+                    notifySelected(onModelSelected, model);
                     return text;
                 } catch (Exception e) {
                     last = e;
-                    boolean isQuota = isQuotaOrRateLimit(e);
+                    modelStats.recordError(model, task);
+                    circuitBreaker.onFailure(model, e);
                     log.warn("[hot-swap] {} 실패 (attempt={}): {} -> {}", model, attempt, e.getClass().getSimpleName(), e.getMessage());
-                    if (isQuota) {
-                        cooldownUntilMs.put(model, System.currentTimeMillis() + COOLDOWN_MS);
+                    // 쿼터/인증 오류는 같은 모델 재시도가 무의미하다. 서킷이 열렸으면 다음 루프에서 건너뛴다.
+                    if (e instanceof OpenRouterHttpException http && http.isHardFailure()) {
                         break;
                     }
                 }
@@ -299,8 +563,8 @@ public class OpenRouterModelRouter {
                 .retrieve()
                 .onStatus(HttpStatusCode::isError, r -> r.bodyToMono(String.class)
                         .defaultIfEmpty("")
-                        .flatMap(b -> Mono.error(new RuntimeException(
-                                "HTTP " + r.statusCode().value() + ": " + truncate(b, 500)))))
+                        .flatMap(b -> Mono.error(new OpenRouterHttpException(
+                                r.statusCode().value(), truncate(b, 500)))))
                 .bodyToMono(String.class)
                 .timeout(Duration.ofSeconds(timeoutSeconds))
                 .block();
@@ -322,11 +586,4 @@ public class OpenRouterModelRouter {
         if (s == null) return "";
         return s.length() <= max ? s : s.substring(0, max) + "...";
     }
-
-    private boolean isQuotaOrRateLimit(Throwable e) {
-        String msg = (e.getMessage() == null ? "" : e.getMessage()).toLowerCase();
-        return msg.contains("quota") || msg.contains("rate") || msg.contains("429")
-                || msg.contains("insufficient") || msg.contains("unavailable") || msg.contains("502")
-                || msg.contains("503");
-    }
 }
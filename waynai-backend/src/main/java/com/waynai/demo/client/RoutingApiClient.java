@@ -1,54 +1,140 @@
 package com.waynai.demo.client;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import com.waynai.demo.cache.BoundedCache;
+import com.waynai.demo.cache.CacheRegistry;
+import com.waynai.demo.cache.Codec;
+import com.waynai.demo.quota.Quota;
+import com.waynai.demo.quota.QuotaRegistry;
+import com.waynai.demo.routing.EmbeddedRouter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * OpenRouteService 경로 API 클라이언트.
  *
  * <p>좌표열(위/경도)을 받아 총 이동 거리(m)·소요 시간(초)을 계산한다.
  * 무료 API 키(openrouteservice.org) 필요. 미설정 시 자동 비활성(빈 결과).
- * 공유 RestTemplate 이 data.go.kr 외 TLS 를 막으므로 HttpURLConnection 사용.
+ * 공유 RestTemplate 이 data.go.kr 외 TLS 를 막으므로 {@link UpstreamHttpClient} 사용.
+ * {@link EmbeddedRouter} 가 해당 프로필을 준비했으면 그쪽을 먼저 쓰고(한도 없음), 못 구하면 ORS 로 넘긴다.
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class RoutingApiClient {
 
+    private static final Duration TIMEOUT = Duration.ofSeconds(12);
+    private static final Duration QUOTA_WAIT = Duration.ofSeconds(3);
+    /** matrix 1회 좌표 수 상한(무료 등급 요청당 3,500칸 → 50×50 안쪽). */
+    static final int MATRIX_MAX_LOCATIONS = 50;
+
     @Value("${openrouteservice.api.key:}")
     private String apiKey;
 
     @Value("${openrouteservice.api.base-url:https://api.openrouteservice.org/v2/directions}")
     private String baseUrl;
 
-    private final ObjectMapper objectMapper;
+    @Value("${openrouteservice.api.matrix-url:https://api.openrouteservice.org/v2/matrix}")
+    private String matrixUrl;
+
+    private final UpstreamHttpClient http;
+    private final EmbeddedRouter embedded;
+
+    // 경로는 구간(A→B, 프로파일별) 단위로 캐시해 ORS 무료 한도(하루 2,000건) 낭비를 막는다.
+    // 방문지 순서를 바꾸거나 하나를 더해도 나머지 구간은 그대로 적중한다.
+    // 상한은 geometry 좌표 수 합(경로 길이에 비례해 메모리를 차지하므로).
+    private final BoundedCache<String, RouteDetail> legs;
+    /** 무료 등급: directions 분당 40건·하루 2,000건. */
+    private final Quota quota;
+    /** 무료 등급: matrix 분당 40건·하루 500건(directions 와 별도 집계). */
+    private final Quota matrixQuota;
+
+    public RoutingApiClient(UpstreamHttpClient http, CacheRegistry caches, QuotaRegistry quotas,
+                            EmbeddedRouter embedded) {
+        this.http = http;
+        this.embedded = embedded;
+        this.quota = quotas.define("ors", Quota.Limits.of(40 / 60.0, 5, 2_000));
+        this.matrixQuota = quotas.define("ors-matrix", Quota.Limits.of(40 / 60.0, 5, 500));
+        this.legs = caches.region("route-leg", BoundedCache.Spec.of(500_000, Duration.ofDays(7)),
+                d -> d.geometry().size() + 1, ROUTE_CODEC);
+    }
+
+    /**
+     * 디스크 계층용 {@link RouteDetail} 직렬화. geometry 는 1e-5도(약 1m) 정수로 양자화해 직전 점과의
+     * 차분만 가변 길이로 쓴다(도로 좌표는 인접 점이 가까워 점당 2~4바이트).
+     */
+    static final Codec<RouteDetail> ROUTE_CODEC = new Codec<>() {
+        @Override
+        public void write(DataOutput out, RouteDetail d) throws IOException {
+            out.writeDouble(d.distanceMeters());
+            out.writeDouble(d.durationSeconds());
+            out.writeInt(d.legs().size());
+            for (RouteSummary leg : d.legs()) {
+                out.writeDouble(leg.distanceMeters());
+                out.writeDouble(leg.durationSeconds());
+            }
+            out.writeInt(d.geometry().size());
+            long prevLat = 0, prevLng = 0;
+            for (double[] p : d.geometry()) {
+                long lat = Math.round(p[0] * 1e5), lng = Math.round(p[1] * 1e5);
+                Codec.writeVarLong(out, lat - prevLat);
+                Codec.writeVarLong(out, lng - prevLng);
+                prevLat = lat;
+                prevLng = lng;
+            }
+        }
 
-    // 동일 좌표열+프로파일 경로는 캐시해 ORS 무료 한도(하루 2,000건) 낭비를 막는다.
-    private final java.util.Map<String, RouteDetail> cache = new java.util.concurrent.ConcurrentHashMap<>();
+        @Override
+        public RouteDetail read(DataInput in) throws IOException {
+            double distance = in.readDouble();
+            double duration = in.readDouble();
+            int legCount = in.readInt();
+            List<RouteSummary> legs = new ArrayList<>(legCount);
+            for (int i = 0; i < legCount; i++) legs.add(new RouteSummary(in.readDouble(), in.readDouble()));
+            int n = in.readInt();
+            List<double[]> geometry = new ArrayList<>(n);
+            long lat = 0, lng = 0;
+            for (int i = 0; i < n; i++) {
+                lat += Codec.readVarLong(in);
+                lng += Codec.readVarLong(in);
+                geometry.add(new double[]{lat / 1e5, lng / 1e5});
+            }
+            return new RouteDetail(geometry, distance, duration, legs);
+        }
+    };
 
     public boolean isEnabled() {
+        return orsEnabled() || embedded.isReady();
+    }
+
+    /** 내장 경로엔진이 준비됐는지(이때는 ORS 일일 한도와 무관하게 계산된다). */
+    public boolean hasEmbeddedEngine() {
+        return embedded.isReady();
+    }
+
+    private boolean orsEnabled() {
         return apiKey != null && !apiKey.isBlank();
     }
 
-    private String cacheKey(List<double[]> latLngs, String profile) {
-        StringBuilder sb = new StringBuilder(profile).append('|');
-        for (double[] p : latLngs) sb.append(Math.round(p[0] * 1e4)).append(',').append(Math.round(p[1] * 1e4)).append(';');
-        return sb.toString();
+    /** 구간 키. 좌표는 1e-4도(약 10m) 격자에 스냅해 같은 장소의 미세한 좌표 차이는 같은 구간으로 본다. */
+    private static String legKey(double[] from, double[] to, String profile) {
+        return profile + '|' + snap(from) + '|' + snap(to);
+    }
+
+    private static String snap(double[] p) {
+        return Math.round(p[0] * 1e4) + "," + Math.round(p[1] * 1e4);
     }
 
     /** 이동 요약. */
@@ -63,23 +149,19 @@ public class RoutingApiClient {
     public RouteSummary route(List<double[]> latLngs, String profile) {
         if (!isEnabled() || latLngs == null || latLngs.size() < 2) return null;
         String prof = (profile == null || profile.isBlank()) ? "driving-car" : profile;
+        RouteDetail local = embedded.routeDetail(latLngs, prof);
+        if (local != null) return new RouteSummary(local.distanceMeters(), local.durationSeconds());
+        if (!orsEnabled()) return null;
         try {
             // ORS 는 [lon, lat] 순서.
-            StringBuilder coords = new StringBuilder("[");
-            for (int i = 0; i < latLngs.size(); i++) {
-                double[] p = latLngs.get(i);
-                if (i > 0) coords.append(",");
-                coords.append("[").append(p[1]).append(",").append(p[0]).append("]");
-            }
-            coords.append("]");
+            String coords = lonLatArray(latLngs);
             // radiuses=-1: 각 좌표를 가장 가까운 도로에 스냅(반경 무제한) → "routable point 없음" 404 완화
             StringBuilder rad = new StringBuilder("[");
             for (int ri = 0; ri < latLngs.size(); ri++) rad.append(ri > 0 ? ",-1" : "-1");
             rad.append("]");
             String body = "{\"coordinates\":" + coords + ",\"radiuses\":" + rad + "}";
 
-            String resp = post(baseUrl + "/" + prof, body);
-            JsonNode root = objectMapper.readTree(resp);
+            JsonNode root = post(baseUrl + "/" + prof, body);
             JsonNode summary = root.path("routes").path(0).path("summary");
             if (summary.isMissingNode()) return null;
             return new RouteSummary(
@@ -96,31 +178,61 @@ public class RoutingApiClient {
                               List<RouteSummary> legs) {}
 
     /**
-     * 실제 도로 경로 상세 조회. GeoJSON 엔드포인트로 geometry + 구간 정보를 받는다.
+     * 실제 도로 경로 상세 조회. 구간 캐시에서 이어 붙이고, 빠진 구간만 GeoJSON 엔드포인트로 받는다
+     * (첫 빈 구간 ~ 마지막 빈 구간을 directions 1회로 받아 구간별로 잘라 캐시).
      */
     public RouteDetail routeDetail(List<double[]> latLngs, String profile) {
         if (!isEnabled() || latLngs == null || latLngs.size() < 2) return null;
         String prof = (profile == null || profile.isBlank()) ? "driving-car" : profile;
-        String key = cacheKey(latLngs, prof);
-        RouteDetail cached = cache.get(key);
-        if (cached != null) return cached;
-        try {
-            StringBuilder coords = new StringBuilder("[");
-            for (int i = 0; i < latLngs.size(); i++) {
-                double[] p = latLngs.get(i);
-                if (i > 0) coords.append(",");
-                coords.append("[").append(p[1]).append(",").append(p[0]).append("]");
+        RouteDetail local = embedded.routeDetail(latLngs, prof);
+        if (local != null) return local;
+        if (!orsEnabled()) return null;
+        RouteDetail[] parts = cachedLegs(latLngs, prof);
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < parts.length; i++) {
+            if (parts[i] != null) continue;
+            if (first < 0) first = i;
+            last = i;
+        }
+        if (first >= 0) {
+            List<RouteDetail> fetched = fetchLegs(latLngs.subList(first, last + 2), prof);
+            if (fetched == null) return null;
+            for (int k = 0; k < fetched.size(); k++) {
+                int i = first + k;
+                if (parts[i] != null) continue;
+                parts[i] = fetched.get(k);
+                legs.put(legKey(latLngs.get(i), latLngs.get(i + 1), prof), parts[i]);
             }
-            coords.append("]");
+        }
+        return stitch(parts);
+    }
+
+    /** 구간별 캐시 조회. 없는 구간은 null. 같은 격자 점끼리의 구간은 조회 없이 길이 0. */
+    private RouteDetail[] cachedLegs(List<double[]> latLngs, String prof) {
+        RouteDetail[] parts = new RouteDetail[latLngs.size() - 1];
+        for (int i = 0; i < parts.length; i++) {
+            double[] from = latLngs.get(i);
+            double[] to = latLngs.get(i + 1);
+            parts[i] = snap(from).equals(snap(to))
+                    ? new RouteDetail(List.of(from), 0, 0, List.of(new RouteSummary(0, 0)))
+                    : legs.get(legKey(from, to, prof));
+        }
+        return parts;
+    }
+
+    /** 좌표열 1개를 directions(GeoJSON) 1회로 받아 way_points 기준 구간별로 자른다. 실패/형식 불일치면 null. */
+    private List<RouteDetail> fetchLegs(List<double[]> latLngs, String prof) {
+        try {
+            String coords = lonLatArray(latLngs);
             // radiuses=-1: 각 좌표를 가장 가까운 도로에 스냅(반경 무제한) → "routable point 없음" 404 완화
             StringBuilder rad = new StringBuilder("[");
             for (int ri = 0; ri < latLngs.size(); ri++) rad.append(ri > 0 ? ",-1" : "-1");
             rad.append("]");
             String body = "{\"coordinates\":" + coords + ",\"radiuses\":" + rad + "}";
 
-            // GeoJSON 엔드포인트: geometry.coordinates + properties.segments 제공.
-            String resp = post(baseUrl + "/" + prof + "/geojson", body);
-            JsonNode feat = objectMapper.readTree(resp).path("features").path(0);
+            // GeoJSON 엔드포인트: geometry.coordinates + properties.segments/way_points 제공.
+            JsonNode feat = post(baseUrl + "/" + prof + "/geojson", body).path("features").path(0);
             JsonNode coordsNode = feat.path("geometry").path("coordinates");
             List<double[]> geometry = new ArrayList<>();
             if (coordsNode.isArray()) {
@@ -130,49 +242,173 @@ public class RoutingApiClient {
                 }
             }
             JsonNode props = feat.path("properties");
-            JsonNode sum = props.path("summary");
-            List<RouteSummary> legs = new ArrayList<>();
-            for (JsonNode seg : props.path("segments")) {
-                legs.add(new RouteSummary(seg.path("distance").asDouble(0), seg.path("duration").asDouble(0)));
+            JsonNode segments = props.path("segments");
+            JsonNode wayPoints = props.path("way_points");
+            int n = latLngs.size() - 1;
+            if (segments.size() != n || wayPoints.size() != n + 1 || geometry.isEmpty()) {
+                log.warn("[ors] 경로 응답의 구간 수가 요청과 다름 (segments={}, way_points={}, 요청 구간={})",
+                        segments.size(), wayPoints.size(), n);
+                return null;
+            }
+            List<RouteDetail> out = new ArrayList<>(n);
+            for (int k = 0; k < n; k++) {
+                int from = Math.min(wayPoints.get(k).asInt(), geometry.size() - 1);
+                int to = Math.min(wayPoints.get(k + 1).asInt(), geometry.size() - 1);
+                RouteSummary leg = new RouteSummary(segments.get(k).path("distance").asDouble(0),
+                        segments.get(k).path("duration").asDouble(0));
+                out.add(new RouteDetail(new ArrayList<>(geometry.subList(from, Math.max(from, to) + 1)),
+                        leg.distanceMeters(), leg.durationSeconds(), List.of(leg)));
             }
-            RouteDetail detail = new RouteDetail(geometry, sum.path("distance").asDouble(0),
-                    sum.path("duration").asDouble(0), legs);
-            cache.put(key, detail);
-            return detail;
+            return out;
         } catch (Exception e) {
             log.warn("[ors] 경로 상세 조회 실패 (무시): {}", e.getMessage());
             return null;
         }
     }
 
-    private String post(String apiUrl, String jsonBody) throws IOException {
-        // geojson 엔드포인트는 application/geo+json 을 요구(Accept application/json 이면 406).
-        String accept = apiUrl.endsWith("/geojson")
-                ? "application/geo+json, application/json"
-                : "application/json";
-        HttpURLConnection con = (HttpURLConnection) new URL(apiUrl).openConnection();
+    /** 구간들을 순서대로 이어 붙인다(이음새 좌표는 한 번만). */
+    private static RouteDetail stitch(RouteDetail[] parts) {
+        List<double[]> geometry = new ArrayList<>();
+        List<RouteSummary> summaries = new ArrayList<>(parts.length);
+        double distance = 0;
+        double duration = 0;
+        for (RouteDetail p : parts) {
+            List<double[]> g = p.geometry();
+            geometry.addAll(geometry.isEmpty() ? g : g.subList(Math.min(1, g.size()), g.size()));
+            summaries.add(new RouteSummary(p.distanceMeters(), p.durationSeconds()));
+            distance += p.distanceMeters();
+            duration += p.durationSeconds();
+        }
+        return new RouteDetail(geometry, distance, duration, summaries);
+    }
+
+    /**
+     * 여러 좌표열(날짜별 방문 순서)의 총 이동을 한꺼번에 계산. 결과는 paths 와 같은 순서이며, 못 구한 좌표열은 null.
+     *
+     * <p>내장 경로엔진이 구하면 그 값을, 아니면 모든 구간이 {@link #routeDetail} 구간 캐시에 있는 좌표열은 그 값을
+     * 쓰고, 나머지는 좌표를 모아 matrix 호출 1회 (좌표 {@value #MATRIX_MAX_LOCATIONS}개 단위로 묶음)로 연속 구간의 시간·거리를 받아 합산한다.
+     * 도로에 붙지 않는 좌표가 섞인 좌표열은 null. matrix 는 구간 캐시를 채우지 않으므로, 지도(/api/route)가 다시 그릴 날은
+     * {@link #routeDetail} 이 낫다 — 이 메서드는 directions 예산이 부족할 때의 대안이다.
+     */
+    public List<RouteSummary> routeSummaries(List<List<double[]>> paths, String profile) {
+        List<RouteSummary> out = new ArrayList<>(Collections.nCopies(paths == null ? 0 : paths.size(), null));
+        if (!isEnabled() || paths == null) return out;
+        String prof = (profile == null || profile.isBlank()) ? "driving-car" : profile;
+        List<Integer> batch = new ArrayList<>();
+        int batchPoints = 0;
+        for (int i = 0; i < paths.size(); i++) {
+            List<double[]> path = paths.get(i);
+            if (path == null || path.size() < 2) continue;
+            RouteDetail local = embedded.routeDetail(path, prof);
+            if (local != null) {
+                out.set(i, new RouteSummary(local.distanceMeters(), local.durationSeconds()));
+                continue;
+            }
+            if (!orsEnabled()) continue;
+            RouteDetail[] cached = cachedLegs(path, prof);
+            if (Arrays.stream(cached).allMatch(Objects::nonNull)) {
+                RouteDetail d = stitch(cached);
+                out.set(i, new RouteSummary(d.distanceMeters(), d.durationSeconds()));
+                continue;
+            }
+            if (path.size() > MATRIX_MAX_LOCATIONS) continue;
+            if (batchPoints + path.size() > MATRIX_MAX_LOCATIONS) {
+                matrixBatch(paths, batch, prof, out);
+                batch.clear();
+                batchPoints = 0;
+            }
+            batch.add(i);
+            batchPoints += path.size();
+        }
+        if (!batch.isEmpty()) matrixBatch(paths, batch, prof, out);
+        return out;
+    }
+
+    /** batch 에 속한 좌표열들의 좌표를 이어 붙여 matrix 1회 → 각 좌표열의 연속 구간 합. */
+    private void matrixBatch(List<List<double[]>> paths, List<Integer> batch, String prof, List<RouteSummary> out) {
+        List<double[]> locations = new ArrayList<>();
+        for (int i : batch) locations.addAll(paths.get(i));
         try {
-            con.setRequestMethod("POST");
-            con.setRequestProperty("Authorization", apiKey);
-            con.setRequestProperty("Content-Type", "application/json");
-            con.setRequestProperty("Accept", accept);
-            con.setConnectTimeout(8000);
-            con.setReadTimeout(12000);
-            con.setDoOutput(true);
-            try (OutputStream os = con.getOutputStream()) {
-                os.write(jsonBody.getBytes(StandardCharsets.UTF_8));
+            String body = "{\"locations\":" + lonLatArray(locations) + ",\"metrics\":[\"duration\",\"distance\"]}";
+            JsonNode root = postLimited(matrixQuota, matrixUrl + "/" + prof, body);
+            JsonNode durations = root.path("durations");
+            JsonNode distances = root.path("distances");
+            int offset = 0;
+            for (int i : batch) {
+                int n = paths.get(i).size();
+                double duration = 0;
+                double distance = 0;
+                boolean routable = true;
+                for (int k = offset; k + 1 < offset + n; k++) {
+                    JsonNode d = durations.path(k).path(k + 1);
+                    JsonNode m = distances.path(k).path(k + 1);
+                    if (!d.isNumber() || !m.isNumber()) {
+                        routable = false;
+                        break;
+                    }
+                    duration += d.asDouble();
+                    distance += m.asDouble();
+                }
+                if (routable) out.set(i, new RouteSummary(distance, duration));
+                offset += n;
             }
-            int code = con.getResponseCode();
-            InputStream is = (code >= 200 && code < 300) ? con.getInputStream() : con.getErrorStream();
-            try (BufferedReader r = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-                StringBuilder sb = new StringBuilder();
-                String line;
-                while ((line = r.readLine()) != null) sb.append(line);
-                if (code < 200 || code >= 300) throw new IOException("HTTP " + code + " - " + sb);
-                return sb.toString();
+        } catch (Exception e) {
+            log.warn("[ors] matrix 계산 실패 (무시): {}", e.getMessage());
+        }
+    }
+
+    /** [lat, lng] 목록 → ORS 의 [[lon, lat], ...] JSON 배열. */
+    private static String lonLatArray(List<double[]> latLngs) {
+        StringBuilder coords = new StringBuilder("[");
+        for (int i = 0; i < latLngs.size(); i++) {
+            double[] p = latLngs.get(i);
+            if (i > 0) coords.append(",");
+            coords.append("[").append(p[1]).append(",").append(p[0]).append("]");
+        }
+        return coords.append("]").toString();
+    }
+
+    private JsonNode post(String apiUrl, String jsonBody) throws IOException {
+        return postLimited(quota, apiUrl, jsonBody);
+    }
+
+    /**
+     * 한도 안에서만 발송. 못 받으면 조회를 건너뛴다(호출측은 null 처리). 429 는 일일 할당량 소진일 때만 그날 예산을
+     * 닫고, 분당 제한이면 Retry-After 만큼 쉰다.
+     */
+    private JsonNode postLimited(Quota q, String apiUrl, String jsonBody) throws IOException {
+        if (!q.acquire(QUOTA_WAIT)) throw new IOException("ORS 호출 한도 소진 — 건너뜀");
+        try {
+            return send(apiUrl, jsonBody);
+        } catch (UpstreamHttpException e) {
+            if (e.isRateLimited()) {
+                if (isDailyLimit(e)) q.exhaust();
+                else q.backOff(e.retryAfter());
             }
-        } finally {
-            con.disconnect();
+            throw e;
+        }
+    }
+
+    /**
+     * ORS 는 일일 할당량을 x-ratelimit-remaining / x-ratelimit-reset(epoch 초)으로 알린다.
+     * 남은 횟수가 0 이고 초기화가 1시간 넘게 남았을 때만 일일 한도로 본다.
+     */
+    static boolean isDailyLimit(UpstreamHttpException e) {
+        if (!e.header("x-ratelimit-remaining").map(String::trim).filter("0"::equals).isPresent()) return false;
+        try {
+            return e.header("x-ratelimit-reset")
+                    .map(v -> Long.parseLong(v.trim()) - Instant.now().getEpochSecond() > 3600)
+                    .orElse(true);
+        } catch (NumberFormatException ex) {
+            return true;
         }
     }
+
+    private JsonNode send(String apiUrl, String jsonBody) throws IOException {
+        // geojson 엔드포인트는 application/geo+json 을 요구(Accept application/json 이면 406).
+        String accept = apiUrl.endsWith("/geojson")
+                ? "application/geo+json, application/json"
+                : "application/json";
+        return http.postJson(apiUrl, Map.of("Authorization", apiKey, "Accept", accept), jsonBody, TIMEOUT);
+    }
 }
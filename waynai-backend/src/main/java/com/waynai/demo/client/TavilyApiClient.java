@@ -2,19 +2,13 @@ package com.waynai.demo.client;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import com.waynai.demo.quota.Quota;
+import com.waynai.demo.quota.QuotaRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -23,13 +17,18 @@ import java.util.List;
  *
  * <p>AI 검색 전용 API. {@code POST https://api.tavily.com/search} 로 질의하고
  * title/url/content 결과를 받는다. 무료 키(tavily.com) 필요, 미설정 시 자동 비활성.
- * 공유 RestTemplate 이 data.go.kr 외 TLS 를 막으므로 HttpURLConnection 사용.
+ * 공유 RestTemplate 이 data.go.kr 외 TLS 를 막으므로 {@link UpstreamHttpClient} 사용.
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class TavilyApiClient {
 
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+    private static final Duration QUOTA_WAIT = Duration.ofSeconds(2);
+    /** 요금제(432)·종량제(433) 크레딧 한도 초과. 429 는 순간 속도 제한이다. */
+    private static final int PLAN_LIMIT = 432;
+    private static final int PAYGO_LIMIT = 433;
+
     @Value("${tavily.api.key:}")
     private String apiKey;
 
@@ -40,6 +39,15 @@ public class TavilyApiClient {
     private int maxResults;
 
     private final ObjectMapper objectMapper;
+    private final UpstreamHttpClient http;
+    /** 초당 1건(버스트 3). 월 크레딧 요금제는 upstream.quota.tavily.per-day 로 일일 몫을 정한다. */
+    private final Quota quota;
+
+    public TavilyApiClient(ObjectMapper objectMapper, UpstreamHttpClient http, QuotaRegistry quotas) {
+        this.objectMapper = objectMapper;
+        this.http = http;
+        this.quota = quotas.define("tavily", Quota.Limits.of(1, 3, 0));
+    }
 
     public boolean isEnabled() {
         return apiKey != null && !apiKey.isBlank();
@@ -62,9 +70,12 @@ public class TavilyApiClient {
                     "max_results", maxResults,
                     "include_answer", false
             ));
+            if (!quota.acquire(QUOTA_WAIT)) {
+                log.info("[tavily] 호출 한도 소진 — 웹 검색 건너뜀");
+                return out;
+            }
             log.info("[tavily] 웹 검색: {}", query);
-            String resp = post(apiUrl, body);
-            JsonNode results = objectMapper.readTree(resp).path("results");
+            JsonNode results = http.postJson(apiUrl, null, body, TIMEOUT).path("results");
             if (results.isArray()) {
                 for (JsonNode r : results) {
                     out.add(new WebResult(
@@ -75,34 +86,12 @@ public class TavilyApiClient {
             }
             log.info("[tavily] 결과 {}건", out.size());
         } catch (Exception e) {
+            if (e instanceof UpstreamHttpException h) {
+                if (h.getStatus() == PLAN_LIMIT || h.getStatus() == PAYGO_LIMIT) quota.exhaust();
+                else if (h.isRateLimited()) quota.backOff(h.retryAfter());
+            }
             log.warn("[tavily] 웹 검색 실패 (무시): {}", e.getMessage());
         }
         return out;
     }
-
-    private String post(String url, String jsonBody) throws IOException {
-        HttpURLConnection con = (HttpURLConnection) new URL(url).openConnection();
-        try {
-            con.setRequestMethod("POST");
-            con.setRequestProperty("Content-Type", "application/json");
-            con.setRequestProperty("Accept", "application/json");
-            con.setConnectTimeout(8000);
-            con.setReadTimeout(15000);
-            con.setDoOutput(true);
-            try (OutputStream os = con.getOutputStream()) {
-                os.write(jsonBody.getBytes(StandardCharsets.UTF_8));
-            }
-            int code = con.getResponseCode();
-            InputStream is = (code >= 200 && code < 300) ? con.getInputStream() : con.getErrorStream();
-            try (BufferedReader r = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-                StringBuilder sb = new StringBuilder();
-                String line;
-                while ((line = r.readLine()) != null) sb.append(line);
-                if (code < 200 || code >= 300) throw new IOException("HTTP " + code + " - " + sb);
-                return sb.toString();
-            }
-        } finally {
-            con.disconnect();
-        }
-    }
 }
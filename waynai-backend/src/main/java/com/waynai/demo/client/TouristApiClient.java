@@ -1,5 +1,6 @@
 package com.waynai.demo.client;
 
+import com.waynai.demo.cache.SingleFlight;
 import com.waynai.demo.dto.TouristApiResponseDto;
 import com.waynai.demo.util.DateUtil;
 import lombok.RequiredArgsConstructor;
@@ -21,6 +22,9 @@ import java.nio.charset.StandardCharsets;
 public class TouristApiClient {
     
     private final RestTemplate restTemplate;
+
+    /** 같은 지역·페이지의 동시 조회는 1건만 보내고 응답을 공유한다(인기 지역 몰림 대비). */
+    private final SingleFlight<String, TouristApiResponseDto> flights = new SingleFlight<>();
     
     @Value("${data.api.url.LocgoHubTarService1.areaBasedList1}")
     private String apiUrl;
@@ -62,10 +66,10 @@ public class TouristApiClient {
             headers.set("Accept", "application/json");
             org.springframework.http.HttpEntity<?> entity = new org.springframework.http.HttpEntity<>(headers);
             
-            org.springframework.http.ResponseEntity<TouristApiResponseDto> responseEntity = 
-                restTemplate.exchange(uri, org.springframework.http.HttpMethod.GET, entity, TouristApiResponseDto.class);
-            
-            TouristApiResponseDto response = responseEntity.getBody();
+            URI target = uri;
+            TouristApiResponseDto response = flights.execute(uri.toString(), () -> restTemplate
+                    .exchange(target, org.springframework.http.HttpMethod.GET, entity, TouristApiResponseDto.class)
+                    .getBody());
             
             if (response != null && response.getResponse() != null) {
                 log.info("API 호출 성공 - 결과 코드: {}, 메시지: {}", 
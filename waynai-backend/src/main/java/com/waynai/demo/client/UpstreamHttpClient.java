@@ -0,0 +1,212 @@
+package com.waynai.demo.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 외부 API 공용 HTTP 클라이언트 (data.go.kr RestTemplate·LLM WebClient 제외 전부).
+ *
+ * <p>호출마다 {@code HttpURLConnection} 을 새로 열던 클라이언트들이 JDK {@link HttpClient} 하나를 공유한다.
+ * 연결은 호스트별로 keep-alive 풀에 남아 재사용되고(TLS 핸드셰이크 1회), 서버가 지원하면 HTTP/2 로
+ * 한 연결에 다중화한다. 호스트별 동시 요청 수는 {@code upstream.http.max-per-host} 로 묶어 한 API 가 느려져도
+ * 다른 API 몫의 스레드·연결을 잡아먹지 않게 한다. 응답 본문은 문자열로 모으지 않고 스트림째 Jackson 에 넘긴다.
+ *
+ * <p>JDK 클라이언트의 요청 timeout 은 응답 헤더까지만 적용되므로, 본문을 읽는 동안에는 감시 타이머가 같은 마감
+ * (발송 시각 + timeout)에 스트림을 닫아 교환 전체를 묶는다. 멈춘 상류가 호스트 슬롯을 무기한 쥐지 못한다.
+ *
+ * <p>2xx 가 아니면 {@link UpstreamHttpException}({@code "HTTP <code> - <본문 앞부분>"}) 을 던진다.
+ */
+@Slf4j
+@Component
+public class UpstreamHttpClient {
+
+    /** 오류 예외에 싣는 본문 앞부분(문자 수, UTF-8 로 풀어 자른다). */
+    private static final int ERROR_BODY_CHARS = 500;
+
+    /** 본문 수신 마감 감시(스트림 닫기만 하므로 데몬 스레드 1개로 충분). */
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "upstream-http-deadline");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ObjectMapper objectMapper;
+    private final HttpClient http;
+    private final int maxPerHost;
+    private final long acquireTimeoutMs;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UpstreamHttpClient(ObjectMapper objectMapper,
+                              @Value("${upstream.http.connect-timeout-ms:3000}") long connectTimeoutMs,
+                              @Value("${upstream.http.max-per-host:16}") int maxPerHost,
+                              @Value("${upstream.http.acquire-timeout-ms:3000}") long acquireTimeoutMs,
+                              @Value("${gemini.tls.insecure:false}") boolean tlsInsecure) {
+        this.objectMapper = objectMapper;
+        this.maxPerHost = Math.max(1, maxPerHost);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        HttpClient.Builder b = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2) // 미지원 서버는 ALPN 협상으로 HTTP/1.1 유지
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs));
+        if (tlsInsecure) {
+            SSLContext ctx = insecureContext();
+            if (ctx != null) b.sslContext(ctx);
+        }
+        this.http = b.build();
+    }
+
+    /** Spring 밖(테스트·단독 실행)에서 쓰는 기본 설정. */
+    public UpstreamHttpClient(ObjectMapper objectMapper) {
+        this(objectMapper, 3000, 16, 3000, false);
+    }
+
+    /** GET → JSON 트리. */
+    public JsonNode getJson(String url, Map<String, String> headers, Duration timeout) throws IOException {
+        HttpRequest.Builder req = request(url, headers, timeout).GET();
+        if (headers == null || !headers.containsKey("Accept")) req.header("Accept", "application/json");
+        return readJson(req.build());
+    }
+
+    /** POST(JSON 본문) → JSON 트리. */
+    public JsonNode postJson(String url, Map<String, String> headers, String jsonBody, Duration timeout) throws IOException {
+        HttpRequest.Builder req = request(url, headers, timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(jsonBody, StandardCharsets.UTF_8));
+        if (headers == null || !headers.containsKey("Accept")) req.header("Accept", "application/json");
+        return readJson(req.build());
+    }
+
+    /** GET → 본문 문자열(HTML 등 JSON 이 아닌 응답). */
+    public String getString(String url, Map<String, String> headers, Duration timeout) throws IOException {
+        HttpRequest req = request(url, headers, timeout).GET().build();
+        return withPermit(req, body -> new String(body.readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    private JsonNode readJson(HttpRequest req) throws IOException {
+        return withPermit(req, objectMapper::readTree);
+    }
+
+    private HttpRequest.Builder request(String url, Map<String, String> headers, Duration timeout) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(url)).timeout(timeout);
+        if (headers != null) headers.forEach(b::header);
+        return b;
+    }
+
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(InputStream body) throws IOException;
+    }
+
+    /** 호스트 슬롯을 잡고 요청 → 2xx 면 본문 스트림을 reader 에 넘긴다. 슬롯은 본문을 다 읽은 뒤 반납. */
+    private <T> T withPermit(HttpRequest req, BodyReader<T> reader) throws IOException {
+        String host = req.uri().getHost();
+        Semaphore permits = hostPermits.computeIfAbsent(host, h -> new Semaphore(maxPerHost));
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IOException("동시 요청 한도 초과: " + host);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("요청 대기 중 인터럽트: " + host, e);
+        }
+        long deadline = System.nanoTime() + req.timeout().map(Duration::toNanos).orElse(Long.MAX_VALUE / 2);
+        try {
+            HttpResponse<InputStream> resp = http.send(req, HttpResponse.BodyHandlers.ofInputStream());
+            InputStream stream = resp.body(); // 감시 타이머가 닫는 참조(try 자원과 별도)
+            try (InputStream body = stream) {
+                // 닫힌 스트림은 EOF 로 읽히므로, 잘린 본문을 정상 값으로 돌려주지 않게 발동 여부를 따로 본다.
+                AtomicBoolean expired = new AtomicBoolean();
+                ScheduledFuture<?> watchdog = WATCHDOG.schedule(() -> {
+                    expired.set(true);
+                    try {
+                        stream.close();
+                    } catch (IOException ignore) {
+                        // best-effort
+                    }
+                }, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                try {
+                    int code = resp.statusCode();
+                    if (code < 200 || code >= 300) {
+                        throw new UpstreamHttpException(code, head(body), resp.headers());
+                    }
+                    T value = reader.read(body);
+                    if (expired.get()) throw new HttpTimeoutException("응답 본문 수신 시간 초과: " + host);
+                    return value;
+                } catch (IOException e) {
+                    if (expired.get() && !(e instanceof HttpTimeoutException)) {
+                        throw new HttpTimeoutException("응답 본문 수신 시간 초과: " + host);
+                    }
+                    throw e;
+                } finally {
+                    watchdog.cancel(false);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("요청 중 인터럽트: " + host, e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /** 본문 앞 {@value #ERROR_BODY_CHARS}자. 바이트가 아니라 문자로 잘라 한글 오류 메시지가 글자 중간에서 끊기지 않는다. */
+    private static String head(InputStream body) throws IOException {
+        Reader reader = new InputStreamReader(body, StandardCharsets.UTF_8);
+        char[] buf = new char[ERROR_BODY_CHARS];
+        int n = 0;
+        int read;
+        while (n < buf.length && (read = reader.read(buf, n, buf.length - n)) > 0) n += read;
+        return new String(buf, 0, n);
+    }
+
+    /**
+     * 로컬 개발용 TLS 검증 우회 (MITM 프록시 루트 인증서가 JVM cacerts 에 없을 때). 운영에서는 사용 금지.
+     * JDK HttpClient 는 호스트명 검증을 시스템 속성으로만 끌 수 있어 함께 설정한다.
+     */
+    private static SSLContext insecureContext() {
+        try {
+            log.warn("[http] TLS 인증 검증을 우회합니다 (gemini.tls.insecure=true). 로컬 개발 전용 - 운영에서 사용하지 마세요.");
+            TrustManager[] trustAll = new TrustManager[] { new X509TrustManager() {
+                @Override public void checkClientTrusted(X509Certificate[] chain, String authType) { }
+                @Override public void checkServerTrusted(X509Certificate[] chain, String authType) { }
+                @Override public X509Certificate[] getAcceptedIssuers() { return new X509Certificate[0]; }
+            }};
+            SSLContext ctx = SSLContext.getInstance("TLS");
+            ctx.init(null, trustAll, new java.security.SecureRandom());
+            System.setProperty("jdk.internal.httpclient.disableHostnameVerification", "true");
+            return ctx;
+        } catch (Exception e) {
+            log.error("[http] InsecureTrustManager 설정 실패. 기본 TLS 로 진행합니다.", e);
+            return null;
+        }
+    }
+}
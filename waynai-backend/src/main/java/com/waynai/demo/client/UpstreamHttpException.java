@@ -0,0 +1,67 @@
+package com.waynai.demo.client;
+
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 외부 API 가 2xx 가 아닌 상태로 응답한 경우({@link UpstreamHttpClient}).
+ *
+ * <p>429 는 대부분 잠깐의 속도 제한이라 {@link #retryAfter()} 만큼 쉬면 풀린다. 그날 한도가 닫혔는지는
+ * 제공자마다 알리는 방식이 달라 호출 측이 {@link #header(String)}·{@link #getBody()} 로 판별한다.
+ */
+public class UpstreamHttpException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Retry-After 가 없을 때 쉬는 시간. */
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(2);
+    /** Retry-After 가 비정상적으로 길어도 이 이상은 쉬지 않는다(일일 한도는 별도 신호로 닫는다). */
+    private static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(10);
+
+    private final int status;
+    private final String body;
+    private final transient HttpHeaders headers;
+
+    public UpstreamHttpException(int status, String body) {
+        this(status, body, null);
+    }
+
+    public UpstreamHttpException(int status, String body, HttpHeaders headers) {
+        super("HTTP " + status + " - " + body);
+        this.status = status;
+        this.body = body;
+        this.headers = headers;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /** 응답 본문 앞부분(오류 코드 판별용). */
+    public String getBody() {
+        return body;
+    }
+
+    /** 429 — 속도 제한 또는 할당량 초과. */
+    public boolean isRateLimited() {
+        return status == 429;
+    }
+
+    public Optional<String> header(String name) {
+        return headers != null ? headers.firstValue(name) : Optional.empty();
+    }
+
+    /** Retry-After(초). 없거나 읽을 수 없으면 짧은 기본값(2초). */
+    public Duration retryAfter() {
+        try {
+            return header("Retry-After")
+                    .map(v -> Duration.ofSeconds(Math.max(0, Long.parseLong(v.trim()))))
+                    .map(d -> d.compareTo(MAX_RETRY_AFTER) > 0 ? MAX_RETRY_AFTER : d)
+                    .orElse(DEFAULT_RETRY_AFTER);
+        } catch (NumberFormatException e) {
+            return DEFAULT_RETRY_AFTER;
+        }
+    }
+}
@@ -27,6 +27,7 @@ public class IntentAnalysisDto {
     private String style;        // 여행 스타일 (예: "배낭여행","신혼여행","효도여행","도보","가족").
     private String budgetLevel;  // 예산 수준 ("저렴"|"보통"|"고급") 또는 자유 서술.
     private String companions;   // 동반 유형 (예: "커플","가족","친구","혼자").
+    private Integer partySize;   // 인원수 (예: "2명", "둘이"). 미지정 시 null.
     private java.util.List<Segment> segments; // 다권역/장기 여행 시 권역별 분해 (없으면 단일 생성)
     private Double confidence; // 신뢰도 (0.0 ~ 1.0)
     private String reason; // 분석 이유 또는 오류 메시지
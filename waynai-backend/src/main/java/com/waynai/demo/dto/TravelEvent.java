@@ -16,6 +16,7 @@ import lombok.NoArgsConstructor;
  *  - sources.naver  : 네이버 블로그 RAG 수집 결과 요약
  *  - model          : Gemini 핫스왑 라우터가 최종 선택한 모델명
  *  - token          : AI 본문 청크 (증분 텍스트)
+ *  - partial        : 생성 중인 계획 스냅샷 (TravelPlanDto). 일차/권역이 완성될 때마다 갱신
  *  - plan           : 구조화(JSON) 여행 계획 파싱 결과 (TravelPlanDto)
  *  - done           : 전체 완료
  *  - error          : 최종 실패
@@ -0,0 +1,208 @@
+package com.waynai.demo.quota;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 외부 API 1곳의 호출 한도 (초당 토큰 버킷 + 일일 예산).
+ *
+ * <p>초당 한도는 GCRA(가상 도착 시각 1개를 CAS 로 미는 방식)라 락이 없다. 버스트만큼은 연달아 통과하고,
+ * 그 뒤로는 {@code 1/perSecond} 간격으로 한 건씩 풀린다. 일일 예산은 UTC 자정에 초기화되며
+ * {@link QuotaRegistry} 가 파일로 남겨 재시작해도 이어 센다.
+ *
+ * <p>호출 측은 {@link #tryAcquire()}(즉시 판정) 또는 {@link #acquire(Duration)}(마감까지 대기)로 허가를 받고,
+ * 상류가 429 를 돌려주면 잠깐의 속도 제한은 {@link #backOff(Duration)} 로 가상 도착 시각만 뒤로 밀고(저장 안 함),
+ * 제공자가 일일 한도 소진을 알린 경우에만 {@link #exhaust()} 로 그날 예산을 닫는다. 예산이 {@code reserveRatio} 아래로
+ * 떨어지면 {@link #isNearlyExhausted()} 가 참이 되어, 부가 보강(이동시간·블로그 등)은 미리 건너뛰고
+ * 남은 몫을 사용자 직접 요청에 남긴다.
+ */
+@Slf4j
+public class Quota {
+
+    /** perSecond ≤ 0 이면 초당 제한 없음, perDay ≤ 0 이면 일일 제한 없음. */
+    public record Limits(double perSecond, int burst, long perDay, double reserveRatio) {
+        public static Limits of(double perSecond, int burst, long perDay) {
+            return new Limits(perSecond, burst, perDay, 0.1);
+        }
+    }
+
+    /** 상태 스냅샷. */
+    public record Snapshot(String name, double perSecond, long perDay, long usedToday, long remainingToday,
+                           boolean nearlyExhausted, long rejected) {}
+
+    private final String name;
+    private final Limits limits;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+
+    /** GCRA 가상 도착 시각(ns). */
+    private final AtomicLong tat = new AtomicLong(System.nanoTime());
+    private final AtomicLong usedToday = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile long day = today();
+    private volatile boolean dirty;
+
+    Quota(String name, Limits limits) {
+        this.name = name;
+        this.limits = limits;
+        this.intervalNanos = limits.perSecond() > 0 ? (long) (1_000_000_000L / limits.perSecond()) : 0;
+        this.toleranceNanos = intervalNanos * Math.max(0, limits.burst() - 1);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Limits limits() {
+        return limits;
+    }
+
+    /** 지금 바로 1건 보낼 수 있으면 허가를 차감하고 true. */
+    public boolean tryAcquire() {
+        return acquireNanos(0) >= 0;
+    }
+
+    /**
+     * maxWait 안에 허가가 나면 그때까지 기다린 뒤 true. 일일 예산이 없거나 대기가 마감을 넘으면 즉시 false.
+     * 블로킹 호출 전용(boundedElastic 등에서 호출).
+     */
+    public boolean acquire(Duration maxWait) {
+        long wait = acquireNanos(maxWait.toNanos());
+        if (wait < 0) return false;
+        if (wait > 0) {
+            try {
+                Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 대기 시간에 상한 없이 발송 순번을 예약하고 기다려야 할 ms 를 돌려준다(타이머로 기다리는 비동기 호출용).
+     * 일일 예산이 없으면 -1.
+     */
+    public long reserve() {
+        long wait = acquireNanos(Long.MAX_VALUE);
+        return wait < 0 ? -1 : wait / 1_000_000;
+    }
+
+    /** {@link #reserve()} 와 같되, 기다릴 시간이 maxWait 를 넘으면 예약하지 않고 -1(대기열 상한). */
+    public long reserve(Duration maxWait) {
+        long wait = acquireNanos(maxWait.toNanos());
+        return wait < 0 ? -1 : wait / 1_000_000;
+    }
+
+    /** 상류가 일일 한도 소진을 알렸을 때 그날 남은 예산을 닫는다(저장됨). */
+    public void exhaust() {
+        rollDay();
+        if (limits.perDay() > 0) {
+            usedToday.accumulateAndGet(limits.perDay(), Math::max);
+            dirty = true;
+            log.warn("[quota:{}] 상류 한도 초과 응답 → 오늘 예산 소진 처리", name);
+        }
+    }
+
+    /**
+     * 상류가 잠깐의 속도 제한(429)을 알렸을 때 지금부터 d 동안 허가를 멈춘다. 가상 도착 시각만 밀 뿐
+     * 일일 예산은 건드리지 않고 저장하지도 않는다.
+     */
+    public void backOff(Duration d) {
+        tat.accumulateAndGet(System.nanoTime() + d.toNanos() + toleranceNanos, Math::max);
+        log.info("[quota:{}] 상류 속도 제한 응답 → {}ms 대기", name, d.toMillis());
+    }
+
+    public boolean isNearlyExhausted() {
+        if (limits.perDay() <= 0) return false;
+        rollDay();
+        return remainingToday() < Math.max(1, Math.round(limits.perDay() * limits.reserveRatio()));
+    }
+
+    public long remainingToday() {
+        if (limits.perDay() <= 0) return Long.MAX_VALUE;
+        rollDay();
+        return Math.max(0, limits.perDay() - usedToday.get());
+    }
+
+    public Snapshot snapshot() {
+        rollDay();
+        return new Snapshot(name, limits.perSecond(), limits.perDay(), usedToday.get(),
+                limits.perDay() > 0 ? remainingToday() : -1, isNearlyExhausted(), rejected.get());
+    }
+
+    /** 대기 ns(≥0) 또는 -1(거절). */
+    private long acquireNanos(long maxWaitNanos) {
+        if (!takeDaily()) {
+            rejected.incrementAndGet();
+            return -1;
+        }
+        // 초당 제한이 없어도 backOff 로 밀린 시각은 지킨다(간격 0 이라 base 만 유지된다).
+        while (true) {
+            long now = System.nanoTime();
+            long prev = tat.get();
+            long base = Math.max(prev, now);
+            long wait = base - toleranceNanos - now;
+            if (wait > maxWaitNanos) {
+                refundDaily();
+                rejected.incrementAndGet();
+                return -1;
+            }
+            if (tat.compareAndSet(prev, base + intervalNanos)) return Math.max(0, wait);
+        }
+    }
+
+    private boolean takeDaily() {
+        if (limits.perDay() <= 0) return true;
+        rollDay();
+        if (usedToday.incrementAndGet() > limits.perDay()) {
+            usedToday.decrementAndGet();
+            return false;
+        }
+        dirty = true;
+        return true;
+    }
+
+    private void refundDaily() {
+        if (limits.perDay() > 0) usedToday.decrementAndGet();
+    }
+
+    private void rollDay() {
+        long d = today();
+        if (d == day) return;
+        synchronized (this) {
+            if (d == day) return;
+            day = d;
+            usedToday.set(0);
+            dirty = true;
+        }
+    }
+
+    /** 저장 형식: {@code <epochDay>:<used>}. */
+    String persistedValue() {
+        dirty = false;
+        return day + ":" + usedToday.get();
+    }
+
+    boolean isDirty() {
+        return dirty;
+    }
+
+    void restore(String value) {
+        try {
+            String[] p = value.split(":");
+            if (Long.parseLong(p[0]) == today()) usedToday.set(Long.parseLong(p[1]));
+        } catch (RuntimeException e) {
+            log.debug("[quota:{}] 저장값 무시: {}", name, value);
+        }
+    }
+
+    private static long today() {
+        return LocalDate.now(ZoneOffset.UTC).toEpochDay();
+    }
+}
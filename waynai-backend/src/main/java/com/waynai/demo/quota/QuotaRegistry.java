@@ -0,0 +1,139 @@
+package com.waynai.demo.quota;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 외부 API 호출 한도 레지스트리.
+ *
+ * <p>각 클라이언트가 이름과 기본 한도로 {@link Quota} 를 정의하고, 운영에서는
+ * {@code upstream.quota.<이름>.*}({@code per-second}, {@code burst}, {@code per-day}, {@code reserve-ratio})로
+ * 덮어쓴다. 일일 사용량은 {@code upstream.quota.file} 에 주기적으로(그리고 종료 시) 저장해 재시작 후에도
+ * 이어 세며, 남은 예산은 {@code upstream.quota.remaining{upstream=<이름>}} 게이지로 노출한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QuotaRegistry {
+
+    private final Environment environment;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    private final Map<String, Quota> quotas = new ConcurrentHashMap<>();
+    private final Properties persisted = new Properties();
+    private Path path;
+    private Disposable flusher;
+
+    /** 일일 사용량 저장 파일. 비우면 메모리만(재시작 시 0부터). */
+    @Value("${upstream.quota.file:}")
+    private String file;
+
+    @PostConstruct
+    public void init() {
+        if (file == null || file.isBlank()) return;
+        path = Paths.get(file);
+        if (Files.isRegularFile(path)) {
+            try (Reader r = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                persisted.load(r);
+            } catch (IOException e) {
+                log.warn("[quota] 사용량 파일 로드 실패 (0부터 집계): {}", e.getMessage());
+            }
+        }
+        flusher = Schedulers.boundedElastic().schedulePeriodically(this::flush, 30, 30, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (flusher != null) flusher.dispose();
+        flush();
+    }
+
+    /** 이름으로 한도를 만들거나 기존 것을 돌려준다. */
+    public Quota define(String name, Quota.Limits defaults) {
+        return quotas.computeIfAbsent(name, n -> {
+            String p = "upstream.quota." + n + ".";
+            Quota.Limits limits = new Quota.Limits(
+                    environment.getProperty(p + "per-second", Double.class, defaults.perSecond()),
+                    environment.getProperty(p + "burst", Integer.class, defaults.burst()),
+                    environment.getProperty(p + "per-day", Long.class, defaults.perDay()),
+                    environment.getProperty(p + "reserve-ratio", Double.class, defaults.reserveRatio()));
+            Quota q = new Quota(n, limits);
+            String saved = persisted.getProperty(n);
+            if (saved != null) q.restore(saved);
+            bindMetrics(q);
+            log.info("[quota] '{}' — {}/s (burst {}), {}/day, 오늘 사용 {}",
+                    n, limits.perSecond(), limits.burst(), limits.perDay(), q.snapshot().usedToday());
+            return q;
+        });
+    }
+
+    /** 정의된 한도. 없으면 null. */
+    public Quota get(String name) {
+        return quotas.get(name);
+    }
+
+    /** 정의되지 않은 이름이면 false(제한 없음으로 취급). */
+    public boolean isNearlyExhausted(String name) {
+        Quota q = quotas.get(name);
+        return q != null && q.isNearlyExhausted();
+    }
+
+    public List<Quota.Snapshot> snapshot() {
+        List<Quota.Snapshot> out = new ArrayList<>();
+        quotas.values().forEach(q -> out.add(q.snapshot()));
+        out.sort((a, b) -> a.name().compareTo(b.name()));
+        return out;
+    }
+
+    private synchronized void flush() {
+        if (path == null || quotas.values().stream().noneMatch(Quota::isDirty)) return;
+        quotas.values().forEach(q -> persisted.setProperty(q.name(), q.persistedValue()));
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                persisted.store(w, "upstream daily usage (epochDay:used)");
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.debug("[quota] 사용량 저장 실패: {}", e.getMessage());
+        }
+    }
+
+    private void bindMetrics(Quota q) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) return;
+        if (q.limits().perDay() > 0) {
+            Gauge.builder("upstream.quota.remaining", q, Quota::remainingToday)
+                    .tag("upstream", q.name()).register(registry);
+        }
+        FunctionCounter.builder("upstream.quota.rejected", q, x -> x.snapshot().rejected())
+                .tag("upstream", q.name()).register(registry);
+    }
+}
@@ -0,0 +1,489 @@
+package com.waynai.demo.routing;
+
+import com.waynai.demo.util.IntArrayList;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 프로필 1개의 축약 계층(Contraction Hierarchy) 도로 그래프 + 좌표 격자 색인.
+ *
+ * <p>구축: 노드를 중요도(간선 차 + 이미 축약된 이웃 수) 낮은 순으로 하나씩 축약하며, 이웃 u→v→w 를 대신할
+ * 더 짧은 우회로(목격자)가 없으면 지름길 u→w 를 더한다. 질의: 출발지에서 위로(순위 증가 방향), 도착지에서
+ * 역방향으로 위로만 탐색하는 양방향 다익스트라 — 한국 전역 그래프에서도 방문 노드가 수백~수천 개라 1ms 안쪽이다.
+ * 지름길은 (skip1, skip2) 두 간선으로 재귀 전개해 실제 도로 좌표열을 복원한다.
+ *
+ * <p>모든 데이터는 원시 int 배열이며, {@link #save} 한 파일은 {@link #load} 에서 구역별로 메모리 매핑한다
+ * (힙에 올리지 않고 OS 페이지 캐시를 공유, 재기동 즉시 사용).
+ */
+@Slf4j
+final class ContractionHierarchy {
+
+    /** 경로 1개. nodes 는 출발 노드부터 도착 노드까지의 원 그래프 노드열. */
+    record Route(int[] nodes, long weightMs, long lengthDm) {}
+
+    private static final int MAGIC = 0x57524348; // "WRCH"
+    private static final int VERSION = 1;
+    /** 격자 한 칸 크기(1e-7도 단위, 0.01도 ≈ 1.1km). */
+    private static final int CELL = 100_000;
+    private static final int WITNESS_SETTLE_LIMIT = 300;
+
+    private final int n;
+    private final IntBuffer lat, lon;
+    private final IntBuffer fwdFirst, fwdEdge, bwdFirst, bwdEdge;
+    private final IntBuffer eFrom, eTo, eWeight, eLength, eSkip1, eSkip2;
+    private final int gridMinLat, gridMinLon, gridRows, gridCols;
+    private final IntBuffer cellFirst, cellNode;
+
+    private final ThreadLocal<SearchSpace[]> workspace =
+            ThreadLocal.withInitial(() -> new SearchSpace[]{new SearchSpace(), new SearchSpace()});
+
+    private ContractionHierarchy(int n, IntBuffer[] s, int[] grid) {
+        this.n = n;
+        lat = s[0]; lon = s[1];
+        fwdFirst = s[2]; fwdEdge = s[3]; bwdFirst = s[4]; bwdEdge = s[5];
+        eFrom = s[6]; eTo = s[7]; eWeight = s[8]; eLength = s[9]; eSkip1 = s[10]; eSkip2 = s[11];
+        cellFirst = s[12]; cellNode = s[13];
+        gridMinLat = grid[0]; gridMinLon = grid[1]; gridRows = grid[2]; gridCols = grid[3];
+    }
+
+    int nodeCount() {
+        return n;
+    }
+
+    int edgeCount() {
+        return eFrom.limit();
+    }
+
+    double lat(int v) {
+        return lat.get(v) / 1e7;
+    }
+
+    double lon(int v) {
+        return lon.get(v) / 1e7;
+    }
+
+    // ------------------------------------------------------------------ 질의
+
+    /** 가장 가까운 (이 프로필로 갈 수 있는) 노드. maxMeters 안에 없으면 -1. */
+    int nearest(double latDeg, double lonDeg, double maxMeters) {
+        int la = (int) Math.round(latDeg * 1e7);
+        int lo = (int) Math.round(lonDeg * 1e7);
+        int r0 = Math.floorDiv(la - gridMinLat, CELL);
+        int c0 = Math.floorDiv(lo - gridMinLon, CELL);
+        int best = -1;
+        double bestM = maxMeters;
+        int maxRing = (int) Math.ceil(maxMeters / 1000.0) + 1;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // 이 고리의 가장 가까운 칸도 현재 최선보다 멀면 중단(한 칸 ≥ 약 0.9km)
+            if (best >= 0 && (ring - 1) * 900.0 > bestM) break;
+            for (int r = r0 - ring; r <= r0 + ring; r++) {
+                for (int c = c0 - ring; c <= c0 + ring; c++) {
+                    if (Math.max(Math.abs(r - r0), Math.abs(c - c0)) != ring) continue;
+                    if (r < 0 || c < 0 || r >= gridRows || c >= gridCols) continue;
+                    int cell = r * gridCols + c;
+                    for (int i = cellFirst.get(cell); i < cellFirst.get(cell + 1); i++) {
+                        int v = cellNode.get(i);
+                        double m = RoadNetwork.meters(la, lo, lat.get(v), lon.get(v));
+                        if (m < bestM) {
+                            bestM = m;
+                            best = v;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /** s → t 최단(시간) 경로. 닿지 않으면 null. */
+    Route route(int s, int t) {
+        if (s < 0 || t < 0) return null;
+        if (s == t) return new Route(new int[]{s}, 0, 0);
+        SearchSpace[] ws = workspace.get();
+        SearchSpace fw = ws[0];
+        SearchSpace bw = ws[1];
+        fw.clear();
+        bw.clear();
+        fw.relax(s, 0, -1);
+        bw.relax(t, 0, -1);
+        long best = Long.MAX_VALUE;
+        int meet = -1;
+        while (!fw.isEmpty() || !bw.isEmpty()) {
+            boolean forward = !fw.isEmpty() && (bw.isEmpty() || fw.peekDist() <= bw.peekDist());
+            SearchSpace cur = forward ? fw : bw;
+            SearchSpace other = forward ? bw : fw;
+            if (cur.peekDist() >= best) {
+                // 이 방향은 더 나아질 수 없다. 반대쪽도 끝났으면 종료.
+                if (other.isEmpty() || other.peekDist() >= best) break;
+                cur = other;
+                other = forward ? fw : bw;
+                forward = !forward;
+            }
+            int du = cur.peekDist();
+            int u = cur.poll();
+            int dOther = other.dist(u);
+            if (dOther != Integer.MAX_VALUE && (long) du + dOther < best) {
+                best = (long) du + dOther;
+                meet = u;
+            }
+            if (stalled(u, du, cur, forward)) continue;
+            IntBuffer first = forward ? fwdFirst : bwdFirst;
+            IntBuffer adj = forward ? fwdEdge : bwdEdge;
+            for (int i = first.get(u); i < first.get(u + 1); i++) {
+                int e = adj.get(i);
+                int v = forward ? eTo.get(e) : eFrom.get(e);
+                long nd = (long) du + eWeight.get(e);
+                if (nd < Integer.MAX_VALUE) cur.relax(v, (int) nd, e);
+            }
+        }
+        if (meet < 0) return null;
+        IntArrayList top = new IntArrayList(64);
+        // 정방향: meet → s 로 거슬러 모은 뒤 뒤집는다.
+        IntArrayList fwdEdges = new IntArrayList(32);
+        for (int v = meet; v != s; ) {
+            int e = fw.parent(v);
+            fwdEdges.add(e);
+            v = eFrom.get(e);
+        }
+        for (int i = fwdEdges.size() - 1; i >= 0; i--) top.add(fwdEdges.get(i));
+        for (int v = meet; v != t; ) {
+            int e = bw.parent(v);
+            top.add(e);
+            v = eTo.get(e);
+        }
+        return unpack(s, top, best);
+    }
+
+    /**
+     * stall-on-demand: 더 높은 순위 노드에서 (반대 방향 간선으로) 더 짧게 올 수 있으면 u 는 최단 경로 위가 아니므로
+     * 더 펼치지 않는다.
+     */
+    private boolean stalled(int u, int du, SearchSpace cur, boolean forward) {
+        IntBuffer first = forward ? bwdFirst : fwdFirst;
+        IntBuffer adj = forward ? bwdEdge : fwdEdge;
+        for (int i = first.get(u); i < first.get(u + 1); i++) {
+            int e = adj.get(i);
+            int v = forward ? eFrom.get(e) : eTo.get(e);
+            int dv = cur.dist(v);
+            if (dv != Integer.MAX_VALUE && (long) dv + eWeight.get(e) < du) return true;
+        }
+        return false;
+    }
+
+    private Route unpack(int s, IntArrayList top, long weight) {
+        IntArrayList nodes = new IntArrayList(128);
+        nodes.add(s);
+        long length = 0;
+        IntArrayList stack = new IntArrayList(64);
+        for (int i = top.size() - 1; i >= 0; i--) stack.add(top.get(i));
+        while (stack.size() > 0) {
+            int e = stack.get(stack.size() - 1);
+            stack.removeAtUnordered(stack.size() - 1);
+            int a = eSkip1.get(e);
+            if (a < 0) {
+                nodes.add(eTo.get(e));
+                length += eLength.get(e);
+            } else {
+                stack.add(eSkip2.get(e));
+                stack.add(a);
+            }
+        }
+        return new Route(nodes.toArray(), weight, length);
+    }
+
+    // ------------------------------------------------------------------ 구축
+
+    /** 도로망에서 프로필 1개의 CH 를 만든다. 한국 전역은 수 분 걸리므로 한 번 만들어 {@link #save} 해 둔다. */
+    static ContractionHierarchy build(RoadNetwork net, RoadProfile profile) {
+        long started = System.currentTimeMillis();
+        int n = net.nodeCount();
+        RoadNetwork.Edges in = net.edges.get(profile);
+        Builder b = new Builder(n);
+        for (int i = 0; i < in.size(); i++) b.addOriginal(in.from.get(i), in.to.get(i), in.weight.get(i), in.length.get(i));
+        int[] rank = b.contract();
+        ContractionHierarchy ch = b.finish(rank, net.lat, net.lon);
+        log.info("[routing] CH 구축 완료 ({}): 노드 {}, 간선 {} (원 간선 {}), {}ms", profile.id(), n,
+                ch.edgeCount(), in.size(), System.currentTimeMillis() - started);
+        return ch;
+    }
+
+    private static final class Builder {
+        final int n;
+        final IntArrayList from = new IntArrayList(1 << 12);
+        final IntArrayList to = new IntArrayList(1 << 12);
+        final IntArrayList weight = new IntArrayList(1 << 12);
+        final IntArrayList length = new IntArrayList(1 << 12);
+        final IntArrayList skip1 = new IntArrayList(1 << 12);
+        final IntArrayList skip2 = new IntArrayList(1 << 12);
+        final IntArrayList[] out;
+        final IntArrayList[] in;
+        final boolean[] contracted;
+        final int[] deletedNeighbors;
+        final SearchSpace witness = new SearchSpace();
+
+        Builder(int n) {
+            this.n = n;
+            out = new IntArrayList[n];
+            in = new IntArrayList[n];
+            contracted = new boolean[n];
+            deletedNeighbors = new int[n];
+        }
+
+        private IntArrayList out(int v) {
+            if (out[v] == null) out[v] = new IntArrayList(4);
+            return out[v];
+        }
+
+        private IntArrayList in(int v) {
+            if (in[v] == null) in[v] = new IntArrayList(4);
+            return in[v];
+        }
+
+        /** 원 간선. 같은 방향 중복 간선은 짧은 쪽만 남긴다. */
+        void addOriginal(int a, int c, int w, int len) {
+            if (a == c) return;
+            IntArrayList o = out(a);
+            for (int i = 0; i < o.size(); i++) {
+                int e = o.get(i);
+                if (to.get(e) == c) {
+                    if (w < weight.get(e)) {
+                        weight.set(e, w);
+                        length.set(e, len);
+                    }
+                    return;
+                }
+            }
+            addEdge(a, c, w, len, -1, -1);
+        }
+
+        int addEdge(int a, int c, int w, int len, int s1, int s2) {
+            int e = from.size();
+            from.add(a);
+            to.add(c);
+            weight.add(w);
+            length.add(len);
+            skip1.add(s1);
+            skip2.add(s2);
+            out(a).add(e);
+            in(c).add(e);
+            return e;
+        }
+
+        int[] contract() {
+            int[] rank = new int[n];
+            SearchSpace queue = new SearchSpace(Math.max(16, n));
+            for (int v = 0; v < n; v++) queue.relax(v, priority(v), -1);
+            int level = 0;
+            int logEvery = Math.max(100_000, n / 10);
+            while (!queue.isEmpty()) {
+                int p = queue.peekDist();
+                int v = queue.poll();
+                int fresh = priority(v);
+                if (fresh > p && !queue.isEmpty() && fresh > queue.peekDist()) {
+                    // 우선순위가 낡았다 → 새 값으로 다시 넣는다(지연 갱신).
+                    queue.reopen(v, fresh);
+                    continue;
+                }
+                contractNode(v, false);
+                contracted[v] = true;
+                rank[v] = level++;
+                if (level % logEvery == 0) log.info("[routing] CH 축약 {}/{}", level, n);
+            }
+            return rank;
+        }
+
+        private int priority(int v) {
+            int inDeg = 0, outDeg = 0;
+            if (in[v] != null) for (int i = 0; i < in[v].size(); i++) if (!contracted[from.get(in[v].get(i))]) inDeg++;
+            if (out[v] != null) for (int i = 0; i < out[v].size(); i++) if (!contracted[to.get(out[v].get(i))]) outDeg++;
+            int shortcuts = contractNode(v, true);
+            return shortcuts - inDeg - outDeg + deletedNeighbors[v] + 1_000_000; // 음수 방지
+        }
+
+        /** v 를 축약(simulate 면 지름길 수만 센다). */
+        private int contractNode(int v, boolean simulate) {
+            if (in[v] == null || out[v] == null) {
+                if (!simulate) touchNeighbors(v);
+                return 0;
+            }
+            int added = 0;
+            int maxOut = 0;
+            for (int j = 0; j < out[v].size(); j++) {
+                int ew = out[v].get(j);
+                if (!contracted[to.get(ew)]) maxOut = Math.max(maxOut, weight.get(ew));
+            }
+            int inCount = in[v].size();
+            for (int i = 0; i < inCount; i++) {
+                int eu = in[v].get(i);
+                int u = from.get(eu);
+                if (contracted[u]) continue;
+                long limit = (long) weight.get(eu) + maxOut;
+                witnessSearch(u, v, limit);
+                int outCount = out[v].size();
+                for (int j = 0; j < outCount; j++) {
+                    int ew = out[v].get(j);
+                    int w = to.get(ew);
+                    if (contracted[w] || w == u) continue;
+                    long via = (long) weight.get(eu) + weight.get(ew);
+                    if (witness.dist(w) <= via) continue;
+                    added++;
+                    if (!simulate) {
+                        addEdge(u, w, (int) Math.min(Integer.MAX_VALUE - 1, via),
+                                (int) Math.min(Integer.MAX_VALUE - 1, (long) length.get(eu) + length.get(ew)), eu, ew);
+                    }
+                }
+            }
+            if (!simulate) touchNeighbors(v);
+            return added;
+        }
+
+        private void touchNeighbors(int v) {
+            if (in[v] != null) for (int i = 0; i < in[v].size(); i++) deletedNeighbors[from.get(in[v].get(i))]++;
+            if (out[v] != null) for (int i = 0; i < out[v].size(); i++) deletedNeighbors[to.get(out[v].get(i))]++;
+        }
+
+        /** u 에서 v 를 거치지 않고 축약 안 된 노드만으로 limit 까지(방문 상한 있음) 탐색. */
+        private void witnessSearch(int u, int skip, long limit) {
+            witness.clear();
+            witness.relax(u, 0, -1);
+            int settled = 0;
+            while (!witness.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+                if (witness.peekDist() > limit) break;
+                int d = witness.peekDist();
+                int x = witness.poll();
+                settled++;
+                if (out[x] == null) continue;
+                for (int i = 0; i < out[x].size(); i++) {
+                    int e = out[x].get(i);
+                    int y = to.get(e);
+                    if (y == skip || contracted[y]) continue;
+                    long nd = (long) d + weight.get(e);
+                    if (nd <= limit) witness.relax(y, (int) nd, e);
+                }
+            }
+        }
+
+        ContractionHierarchy finish(int[] rank, int[] lat, int[] lon) {
+            int m = from.size();
+            int[] fwdCount = new int[n + 1];
+            int[] bwdCount = new int[n + 1];
+            for (int e = 0; e < m; e++) {
+                int a = from.get(e), c = to.get(e);
+                if (rank[a] < rank[c]) fwdCount[a + 1]++;
+                else bwdCount[c + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                fwdCount[v + 1] += fwdCount[v];
+                bwdCount[v + 1] += bwdCount[v];
+            }
+            int[] fwdEdge = new int[fwdCount[n]];
+            int[] bwdEdge = new int[bwdCount[n]];
+            int[] fPos = Arrays.copyOf(fwdCount, n);
+            int[] bPos = Arrays.copyOf(bwdCount, n);
+            for (int e = 0; e < m; e++) {
+                int a = from.get(e), c = to.get(e);
+                if (rank[a] < rank[c]) fwdEdge[fPos[a]++] = e;
+                else bwdEdge[bPos[c]++] = e;
+            }
+            boolean[] usable = new boolean[n];
+            for (int e = 0; e < m; e++) {
+                if (skip1.get(e) < 0) {
+                    usable[from.get(e)] = true;
+                    usable[to.get(e)] = true;
+                }
+            }
+            int[][] grid = buildGrid(lat, lon, usable);
+            IntBuffer[] s = {
+                    IntBuffer.wrap(lat), IntBuffer.wrap(lon),
+                    IntBuffer.wrap(fwdCount), IntBuffer.wrap(fwdEdge), IntBuffer.wrap(bwdCount), IntBuffer.wrap(bwdEdge),
+                    IntBuffer.wrap(from.toArray()), IntBuffer.wrap(to.toArray()), IntBuffer.wrap(weight.toArray()),
+                    IntBuffer.wrap(length.toArray()), IntBuffer.wrap(skip1.toArray()), IntBuffer.wrap(skip2.toArray()),
+                    IntBuffer.wrap(grid[1]), IntBuffer.wrap(grid[2])};
+            return new ContractionHierarchy(n, s, grid[0]);
+        }
+    }
+
+    /** {header[minLat,minLon,rows,cols], cellFirst, cellNode}. 이 프로필로 닿는 노드만 색인한다. */
+    private static int[][] buildGrid(int[] lat, int[] lon, boolean[] usable) {
+        int minLat = Integer.MAX_VALUE, minLon = Integer.MAX_VALUE, maxLat = Integer.MIN_VALUE, maxLon = Integer.MIN_VALUE;
+        for (int v = 0; v < lat.length; v++) {
+            if (!usable[v]) continue;
+            minLat = Math.min(minLat, lat[v]);
+            maxLat = Math.max(maxLat, lat[v]);
+            minLon = Math.min(minLon, lon[v]);
+            maxLon = Math.max(maxLon, lon[v]);
+        }
+        if (minLat == Integer.MAX_VALUE) return new int[][]{{0, 0, 0, 0}, {0}, {}};
+        int rows = (maxLat - minLat) / CELL + 1;
+        int cols = (maxLon - minLon) / CELL + 1;
+        int[] first = new int[rows * cols + 1];
+        for (int v = 0; v < lat.length; v++) {
+            if (usable[v]) first[((lat[v] - minLat) / CELL) * cols + (lon[v] - minLon) / CELL + 1]++;
+        }
+        for (int i = 0; i < rows * cols; i++) first[i + 1] += first[i];
+        int[] nodes = new int[first[rows * cols]];
+        int[] pos = Arrays.copyOf(first, rows * cols);
+        for (int v = 0; v < lat.length; v++) {
+            if (usable[v]) nodes[pos[((lat[v] - minLat) / CELL) * cols + (lon[v] - minLon) / CELL]++] = v;
+        }
+        return new int[][]{{minLat, minLon, rows, cols}, first, nodes};
+    }
+
+    // ------------------------------------------------------------------ 저장
+
+    private IntBuffer[] sections() {
+        return new IntBuffer[]{lat, lon, fwdFirst, fwdEdge, bwdFirst, bwdEdge,
+                eFrom, eTo, eWeight, eLength, eSkip1, eSkip2, cellFirst, cellNode};
+    }
+
+    /** 머리말(매직·버전·노드 수·격자) + 구역 길이표 + 구역들(int, big-endian). 임시 파일에 쓴 뒤 원자적 교체. */
+    void save(Path file) throws IOException {
+        IntBuffer[] s = sections();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt(gridMinLat);
+            out.writeInt(gridMinLon);
+            out.writeInt(gridRows);
+            out.writeInt(gridCols);
+            out.writeInt(s.length);
+            for (IntBuffer b : s) out.writeInt(b.limit());
+            for (IntBuffer b : s) {
+                for (int i = 0; i < b.limit(); i++) out.writeInt(b.get(i));
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** {@link #save} 한 파일을 구역별로 읽기 전용 매핑한다. 형식이 다르면 IOException. */
+    static ContractionHierarchy load(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            IntBuffer head = ch.map(FileChannel.MapMode.READ_ONLY, 0, 8 * 4).asIntBuffer();
+            if (head.get(0) != MAGIC || head.get(1) != VERSION) throw new IOException("CH 파일 형식/버전 불일치: " + file);
+            int count = head.get(7);
+            IntBuffer lengths = ch.map(FileChannel.MapMode.READ_ONLY, 8 * 4, (long) count * 4).asIntBuffer();
+            long offset = (8L + count) * 4;
+            IntBuffer[] s = new IntBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long bytes = (long) lengths.get(i) * 4;
+                if (offset + bytes > ch.size()) throw new IOException("CH 파일이 잘렸습니다: " + file);
+                s[i] = ch.map(FileChannel.MapMode.READ_ONLY, offset, bytes).asIntBuffer();
+                offset += bytes;
+            }
+            return new ContractionHierarchy(head.get(2), s, new int[]{head.get(3), head.get(4), head.get(5), head.get(6)});
+        }
+    }
+}
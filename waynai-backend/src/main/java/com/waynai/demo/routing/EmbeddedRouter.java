@@ -0,0 +1,143 @@
+package com.waynai.demo.routing;
+
+import com.waynai.demo.client.RoutingApiClient.RouteDetail;
+import com.waynai.demo.client.RoutingApiClient.RouteSummary;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 내장(오프라인) 도로 경로엔진. OpenRouteService 대신 프로세스 안에서 driving-car / foot-walking 경로를 계산한다.
+ *
+ * <p>{@code routing.embedded.osm-file} 에 한국 OSM 추출본(.osm / .osm.gz)을 주면, 기동 후 백그라운드에서
+ * 프로필별 {@link ContractionHierarchy} 를 만들어 {@code routing.embedded.dir} 에 저장하고, 다음 기동부터는
+ * 저장본을 메모리 매핑만 해서 곧바로 쓴다(추출본이 더 새로우면 다시 만든다). 준비 전이나 미설정이면
+ * {@link #isReady} 가 false 라 호출측은 ORS 로 간다. 좌표를 도로에 붙이지 못하면(반경 {@value #SNAP_METERS}m)
+ * null 을 돌려 역시 ORS 로 넘긴다.
+ */
+@Slf4j
+@Component
+public class EmbeddedRouter {
+
+    static final double SNAP_METERS = 2_000;
+
+    @Value("${routing.embedded.osm-file:}")
+    private String osmFile;
+
+    @Value("${routing.embedded.dir:./data/routing}")
+    private String dir;
+
+    private final Map<RoadProfile, ContractionHierarchy> graphs = new EnumMap<>(RoadProfile.class);
+
+    @PostConstruct
+    void init() {
+        if (osmFile == null || osmFile.isBlank()) {
+            log.info("[routing] routing.embedded.osm-file 미설정 — 내장 경로엔진 비활성 (ORS 사용)");
+            return;
+        }
+        Mono.fromRunnable(this::prepare)
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(v -> { }, e -> log.warn("[routing] 내장 경로엔진 준비 실패 (ORS 사용): {}", e.getMessage()));
+    }
+
+    /** 저장본이 있으면 매핑, 없거나 추출본보다 오래됐으면 추출본에서 구축 후 저장. */
+    private void prepare() {
+        Path osm = Path.of(osmFile);
+        try {
+            RoadNetwork net = null;
+            for (RoadProfile p : RoadProfile.values()) {
+                Path ch = Path.of(dir).resolve(p.id() + ".ch");
+                if (Files.exists(ch) && (!Files.exists(osm)
+                        || Files.getLastModifiedTime(ch).compareTo(Files.getLastModifiedTime(osm)) >= 0)) {
+                    try {
+                        install(p, ContractionHierarchy.load(ch));
+                        continue;
+                    } catch (IOException e) {
+                        log.warn("[routing] {} 저장본 읽기 실패, 다시 구축: {}", ch, e.getMessage());
+                    }
+                }
+                if (net == null) net = OsmExtractReader.read(osm);
+                ContractionHierarchy built = ContractionHierarchy.build(net, p);
+                try {
+                    built.save(ch);
+                } catch (IOException e) {
+                    log.warn("[routing] {} 저장 실패 (메모리본만 사용): {}", ch, e.getMessage());
+                }
+                install(p, built);
+            }
+        } catch (IOException e) {
+            log.warn("[routing] OSM 추출본 읽기 실패 (ORS 사용): {}", e.getMessage());
+        }
+    }
+
+    void install(RoadProfile profile, ContractionHierarchy graph) {
+        synchronized (graphs) {
+            graphs.put(profile, graph);
+        }
+        log.info("[routing] 내장 경로엔진 준비 완료: {} (노드 {}, 간선 {})",
+                profile.id(), graph.nodeCount(), graph.edgeCount());
+    }
+
+    private ContractionHierarchy graph(String profile) {
+        RoadProfile p = RoadProfile.of(profile);
+        if (p == null) return null;
+        synchronized (graphs) {
+            return graphs.get(p);
+        }
+    }
+
+    /** 이 프로필을 내장 엔진으로 계산할 수 있는지. */
+    public boolean isReady(String profile) {
+        return graph(profile) != null;
+    }
+
+    /** 어떤 프로필이든 하나라도 준비됐는지. */
+    public boolean isReady() {
+        synchronized (graphs) {
+            return !graphs.isEmpty();
+        }
+    }
+
+    /**
+     * 좌표열(순서대로) 경로 상세. {@link com.waynai.demo.client.RoutingApiClient#routeDetail} 과 같은 형태
+     * (geometry [lat, lng], 거리 m, 시간 초, 구간별 요약). 미준비·도로에 못 붙는 좌표·끊긴 구간이 있으면 null.
+     */
+    public RouteDetail routeDetail(List<double[]> latLngs, String profile) {
+        ContractionHierarchy g = graph(profile);
+        if (g == null || latLngs == null || latLngs.size() < 2) return null;
+        int[] snapped = new int[latLngs.size()];
+        for (int i = 0; i < snapped.length; i++) {
+            double[] p = latLngs.get(i);
+            snapped[i] = g.nearest(p[0], p[1], SNAP_METERS);
+            if (snapped[i] < 0) return null;
+        }
+        List<double[]> geometry = new ArrayList<>();
+        List<RouteSummary> legs = new ArrayList<>(snapped.length - 1);
+        double distance = 0;
+        double duration = 0;
+        for (int i = 0; i + 1 < snapped.length; i++) {
+            ContractionHierarchy.Route r = g.route(snapped[i], snapped[i + 1]);
+            if (r == null) return null;
+            int[] nodes = r.nodes();
+            for (int k = geometry.isEmpty() ? 0 : 1; k < nodes.length; k++) {
+                geometry.add(new double[]{g.lat(nodes[k]), g.lon(nodes[k])});
+            }
+            RouteSummary leg = new RouteSummary(r.lengthDm() / 10.0, r.weightMs() / 1000.0);
+            legs.add(leg);
+            distance += leg.distanceMeters();
+            duration += leg.durationSeconds();
+        }
+        return new RouteDetail(geometry, distance, duration, legs);
+    }
+}
@@ -0,0 +1,184 @@
+package com.waynai.demo.routing;
+
+import com.waynai.demo.util.IntArrayList;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * OSM XML 추출본({@code .osm}, {@code .osm.gz}) → {@link RoadNetwork}.
+ *
+ * <p>StAX 로 한 번 훑는다. 노드는 id·좌표만 원시 배열에 쌓고(추출본은 노드가 way 보다 먼저 나온다),
+ * {@code highway} way 의 연속 노드쌍을 프로필별 방향 간선으로 만든다. 도로에 쓰인 노드만 그래프 노드가 된다.
+ * PBF 는 지원하지 않는다 — {@code osmium cat korea.osm.pbf -o korea.osm.gz} 등으로 변환해 넣는다.
+ */
+@Slf4j
+final class OsmExtractReader {
+
+    private long[] ids = new long[1 << 16];
+    private int[] lats = new int[1 << 16];
+    private int[] lons = new int[1 << 16];
+    private int nodes;
+    private boolean sorted = true;
+    private int[] order; // 정렬 안 된 추출본일 때만: id 순 → 원래 인덱스
+
+    private int[] graphIndex;
+    private final IntArrayList graphLat = new IntArrayList(1 << 16);
+    private final IntArrayList graphLon = new IntArrayList(1 << 16);
+    private final Map<RoadProfile, RoadNetwork.Edges> edges = RoadNetwork.emptyEdges();
+
+    private OsmExtractReader() {
+    }
+
+    static RoadNetwork read(Path file) throws IOException {
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+             InputStream in = file.toString().endsWith(".gz") ? new GZIPInputStream(raw, 1 << 16) : raw) {
+            return read(in);
+        }
+    }
+
+    static RoadNetwork read(InputStream in) throws IOException {
+        OsmExtractReader r = new OsmExtractReader();
+        try {
+            r.parse(in);
+        } catch (XMLStreamException e) {
+            throw new IOException("OSM XML 파싱 실패: " + e.getMessage(), e);
+        }
+        return r.network();
+    }
+
+    private void parse(InputStream in) throws XMLStreamException {
+        XMLInputFactory f = XMLInputFactory.newFactory();
+        f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        f.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader x = f.createXMLStreamReader(in, "UTF-8");
+        IntArrayList wayNodes = new IntArrayList(256);
+        Map<String, String> tags = new HashMap<>();
+        boolean inWay = false;
+        while (x.hasNext()) {
+            int ev = x.next();
+            if (ev == XMLStreamConstants.START_ELEMENT) {
+                switch (x.getLocalName()) {
+                    case "node" -> addNode(Long.parseLong(x.getAttributeValue(null, "id")),
+                            fixed(x.getAttributeValue(null, "lat")), fixed(x.getAttributeValue(null, "lon")));
+                    case "way" -> {
+                        inWay = true;
+                        wayNodes = new IntArrayList(256);
+                        tags.clear();
+                    }
+                    case "nd" -> {
+                        if (inWay) wayNodes.add(lookup(Long.parseLong(x.getAttributeValue(null, "ref"))));
+                    }
+                    case "tag" -> {
+                        if (inWay) tags.put(x.getAttributeValue(null, "k"), x.getAttributeValue(null, "v"));
+                    }
+                    default -> { }
+                }
+            } else if (ev == XMLStreamConstants.END_ELEMENT && "way".equals(x.getLocalName())) {
+                inWay = false;
+                addWay(wayNodes, tags);
+            }
+        }
+        x.close();
+    }
+
+    private static int fixed(String deg) {
+        return (int) Math.round(Double.parseDouble(deg) * 1e7);
+    }
+
+    private void addNode(long id, int lat, int lon) {
+        if (nodes == ids.length) {
+            int cap = nodes + (nodes >> 1);
+            ids = Arrays.copyOf(ids, cap);
+            lats = Arrays.copyOf(lats, cap);
+            lons = Arrays.copyOf(lons, cap);
+        }
+        if (nodes > 0 && id <= ids[nodes - 1]) sorted = false;
+        ids[nodes] = id;
+        lats[nodes] = lat;
+        lons[nodes] = lon;
+        nodes++;
+    }
+
+    /** OSM 노드 id → 원시 인덱스. 없으면 -1. 첫 way 에서 id 색인을 확정한다. */
+    private int lookup(long id) {
+        if (graphIndex == null) {
+            graphIndex = new int[nodes];
+            Arrays.fill(graphIndex, -1);
+            if (!sorted) {
+                Integer[] boxed = new Integer[nodes];
+                for (int i = 0; i < nodes; i++) boxed[i] = i;
+                long[] src = ids;
+                Arrays.sort(boxed, (a, b) -> Long.compare(src[a], src[b]));
+                order = new int[nodes];
+                long[] sortedIds = new long[nodes];
+                for (int i = 0; i < nodes; i++) {
+                    order[i] = boxed[i];
+                    sortedIds[i] = src[boxed[i]];
+                }
+                ids = sortedIds;
+            }
+        }
+        int pos = Arrays.binarySearch(ids, 0, nodes, id);
+        if (pos < 0) return -1;
+        return order != null ? order[pos] : pos;
+    }
+
+    private int graphNode(int raw) {
+        int g = graphIndex[raw];
+        if (g < 0) {
+            g = graphLat.size();
+            graphLat.add(lats[raw]);
+            graphLon.add(lons[raw]);
+            graphIndex[raw] = g;
+        }
+        return g;
+    }
+
+    private void addWay(IntArrayList refs, Map<String, String> tags) {
+        String highway = tags.get("highway");
+        if (highway == null || refs.size() < 2) return;
+        RoadProfile[] profiles = RoadProfile.values();
+        boolean any = false;
+        for (RoadProfile p : profiles) any |= p.allows(highway, tags);
+        if (!any) return;
+        for (int i = 0; i + 1 < refs.size(); i++) {
+            int ra = refs.get(i);
+            int rb = refs.get(i + 1);
+            if (ra < 0 || rb < 0 || ra == rb) continue;
+            int a = graphNode(ra);
+            int b = graphNode(rb);
+            double meters = RoadNetwork.meters(lats[ra], lons[ra], lats[rb], lons[rb]);
+            int lengthDm = (int) Math.max(1, Math.round(meters * 10));
+            for (RoadProfile p : profiles) {
+                if (!p.allows(highway, tags)) continue;
+                int weightMs = (int) Math.max(1, Math.round(meters / p.speedMps(highway, tags) * 1000));
+                int dir = p.direction(highway, tags);
+                if (dir >= 0) edges.get(p).add(a, b, weightMs, lengthDm);
+                if (dir <= 0) edges.get(p).add(b, a, weightMs, lengthDm);
+            }
+        }
+    }
+
+    private RoadNetwork network() {
+        log.info("[routing] OSM 추출본 읽기 완료: 노드 {}개 중 도로 노드 {}개, 간선 {}",
+                nodes, graphLat.size(), edges.entrySet().stream()
+                        .map(e -> e.getKey().id() + "=" + e.getValue().size()).toList());
+        ids = null;
+        lats = null;
+        lons = null;
+        return new RoadNetwork(graphLat.toArray(), graphLon.toArray(), edges);
+    }
+}
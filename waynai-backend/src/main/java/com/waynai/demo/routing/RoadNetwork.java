@@ -0,0 +1,63 @@
+package com.waynai.demo.routing;
+
+import com.waynai.demo.util.IntArrayList;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * OSM 추출본에서 뽑은 도로망(축약 전). 노드 좌표와 프로필별 방향 간선(가중치 = 주행 ms, 길이 = dm).
+ * {@link ContractionHierarchy#build} 의 입력이며 이후에는 버린다.
+ */
+final class RoadNetwork {
+
+    /** 방향 간선 목록. i 번째 간선 = from[i] → to[i]. */
+    static final class Edges {
+        final IntArrayList from = new IntArrayList(1 << 10);
+        final IntArrayList to = new IntArrayList(1 << 10);
+        final IntArrayList weight = new IntArrayList(1 << 10);
+        final IntArrayList length = new IntArrayList(1 << 10);
+
+        void add(int a, int b, int weightMs, int lengthDm) {
+            from.add(a);
+            to.add(b);
+            weight.add(weightMs);
+            length.add(lengthDm);
+        }
+
+        int size() {
+            return from.size();
+        }
+    }
+
+    /** 1e-7도 정수 좌표. */
+    final int[] lat;
+    final int[] lon;
+    final Map<RoadProfile, Edges> edges;
+
+    RoadNetwork(int[] lat, int[] lon, Map<RoadProfile, Edges> edges) {
+        this.lat = lat;
+        this.lon = lon;
+        this.edges = edges;
+    }
+
+    int nodeCount() {
+        return lat.length;
+    }
+
+    static Map<RoadProfile, Edges> emptyEdges() {
+        Map<RoadProfile, Edges> m = new EnumMap<>(RoadProfile.class);
+        for (RoadProfile p : RoadProfile.values()) m.put(p, new Edges());
+        return m;
+    }
+
+    /** 두 1e-7도 좌표 사이 대권 거리(m). */
+    static double meters(int lat1, int lon1, int lat2, int lon2) {
+        double p1 = Math.toRadians(lat1 / 1e7);
+        double p2 = Math.toRadians(lat2 / 1e7);
+        double dp = p2 - p1;
+        double dl = Math.toRadians((lon2 - lon1) / 1e7);
+        double a = Math.sin(dp / 2) * Math.sin(dp / 2) + Math.cos(p1) * Math.cos(p2) * Math.sin(dl / 2) * Math.sin(dl / 2);
+        return 2 * 6_371_008.8 * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,90 @@
+package com.waynai.demo.routing;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 내장 경로엔진의 이동 프로필 (ORS 프로필 이름과 같다).
+ *
+ * <p>OSM {@code highway} 태그로 통행 가능 여부와 속도를 정한다. 차량은 {@code maxspeed} 가 있으면 그 값의 90%,
+ * 없으면 도로 등급별 기본 속도를 쓰고, 일방통행({@code oneway}, 고속도로·회전교차로)을 지킨다. 도보는 자동차
+ * 전용 도로를 빼고 양방향 4.5km/h.
+ */
+public enum RoadProfile {
+
+    CAR("driving-car"),
+    FOOT("foot-walking");
+
+    private static final Map<String, Integer> CAR_SPEED_KMH = Map.ofEntries(
+            Map.entry("motorway", 100), Map.entry("motorway_link", 60),
+            Map.entry("trunk", 80), Map.entry("trunk_link", 50),
+            Map.entry("primary", 60), Map.entry("primary_link", 40),
+            Map.entry("secondary", 50), Map.entry("secondary_link", 35),
+            Map.entry("tertiary", 40), Map.entry("tertiary_link", 30),
+            Map.entry("unclassified", 30), Map.entry("residential", 30),
+            Map.entry("living_street", 10), Map.entry("service", 15),
+            Map.entry("road", 30));
+
+    private static final Set<String> FOOT_ONLY = Set.of(
+            "footway", "pedestrian", "path", "steps", "track", "cycleway", "corridor", "bridleway");
+
+    private static final Set<String> NO_FOOT = Set.of("motorway", "motorway_link", "trunk", "trunk_link");
+
+    static final double FOOT_SPEED_MPS = 4.5 / 3.6;
+
+    private final String id;
+
+    RoadProfile(String id) {
+        this.id = id;
+    }
+
+    /** ORS 프로필 이름. */
+    public String id() {
+        return id;
+    }
+
+    /** ORS 프로필 이름 → 프로필. 내장 엔진이 지원하지 않으면 null. */
+    public static RoadProfile of(String id) {
+        if (id == null || id.isBlank()) return CAR;
+        for (RoadProfile p : values()) if (p.id.equals(id)) return p;
+        return null;
+    }
+
+    /** 해당 way 를 이 프로필로 지날 수 있는지. */
+    boolean allows(String highway, Map<String, String> tags) {
+        if (highway == null) return false;
+        String access = tags.get("access");
+        if ("no".equals(access) || "private".equals(access)) return false;
+        return switch (this) {
+            case CAR -> CAR_SPEED_KMH.containsKey(highway) && !"no".equals(tags.get("motor_vehicle"));
+            case FOOT -> !NO_FOOT.contains(highway) && !"no".equals(tags.get("foot"))
+                    && (FOOT_ONLY.contains(highway) || CAR_SPEED_KMH.containsKey(highway));
+        };
+    }
+
+    /** 진행 방향 제약: 0 양방향, 1 정방향만, -1 역방향만. 도보는 항상 양방향. */
+    int direction(String highway, Map<String, String> tags) {
+        if (this == FOOT) return 0;
+        String oneway = tags.get("oneway");
+        if ("-1".equals(oneway) || "reverse".equals(oneway)) return -1;
+        if ("yes".equals(oneway) || "1".equals(oneway) || "true".equals(oneway)) return 1;
+        if ("no".equals(oneway)) return 0;
+        if ("motorway".equals(highway) || "roundabout".equals(tags.get("junction"))) return 1;
+        return 0;
+    }
+
+    /** 주행 속도(m/s). */
+    double speedMps(String highway, Map<String, String> tags) {
+        if (this == FOOT) return FOOT_SPEED_MPS;
+        int kmh = CAR_SPEED_KMH.getOrDefault(highway, 30);
+        String max = tags.get("maxspeed");
+        if (max != null) {
+            try {
+                kmh = (int) Math.round(Integer.parseInt(max.replaceAll("[^0-9].*$", "").trim()) * 0.9);
+            } catch (NumberFormatException ignore) {
+                // "signals", "KR:urban" 등은 도로 등급 기본값 유지
+            }
+        }
+        return Math.max(5, kmh) / 3.6;
+    }
+}
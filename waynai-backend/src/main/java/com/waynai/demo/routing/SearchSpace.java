@@ -0,0 +1,215 @@
+package com.waynai.demo.routing;
+
+import java.util.Arrays;
+
+/**
+ * 다익스트라 1방향 탐색 작업 공간 (노드 → 거리·직전 간선 + 인덱스 최소 힙).
+ *
+ * <p>CH 질의·목격자 탐색은 전체 노드 중 극히 일부만 건드리므로, 노드 수 크기 배열 대신 개방 주소 해시로
+ * 방문 노드에만 슬롯을 준다. {@link #clear()} 는 쓴 슬롯만 되돌려 질의마다 할당이 없다. 스레드 하나 전용.
+ */
+final class SearchSpace {
+
+    private static final int EMPTY = -1;
+
+    private int[] keys;      // 해시 테이블: 노드 → 슬롯
+    private int[] slotOf;
+    private int mask;
+
+    private int[] node;      // 슬롯별
+    private int[] dist;
+    private int[] parent;
+    private int[] heapPos;   // -1: 힙 밖(확정 또는 미삽입)
+    private boolean[] settled;
+    private int slots;
+
+    private int[] heap;      // 슬롯 번호의 이진 힙(dist 기준)
+    private int heapSize;
+
+    SearchSpace() {
+        this(1 << 10);
+    }
+
+    SearchSpace(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(16, capacity) * 2 - 1) << 1;
+        keys = new int[tableSize];
+        slotOf = new int[tableSize];
+        Arrays.fill(keys, EMPTY);
+        mask = tableSize - 1;
+        node = new int[capacity];
+        dist = new int[capacity];
+        parent = new int[capacity];
+        heapPos = new int[capacity];
+        settled = new boolean[capacity];
+        heap = new int[capacity];
+    }
+
+    void clear() {
+        for (int s = 0; s < slots; s++) {
+            int h = hash(node[s]);
+            while (keys[h] != EMPTY) {
+                keys[h] = EMPTY;
+                h = (h + 1) & mask;
+            }
+        }
+        slots = 0;
+        heapSize = 0;
+    }
+
+    /** 노드의 현재 거리. 방문 전이면 Integer.MAX_VALUE. */
+    int dist(int v) {
+        int s = find(v);
+        return s < 0 ? Integer.MAX_VALUE : dist[s];
+    }
+
+    int parent(int v) {
+        int s = find(v);
+        return s < 0 ? -1 : parent[s];
+    }
+
+    boolean isSettled(int v) {
+        int s = find(v);
+        return s >= 0 && settled[s];
+    }
+
+    /** 더 짧으면 거리·직전 간선을 갱신하고 힙에 넣는다. 확정된 노드는 건드리지 않는다. */
+    boolean relax(int v, int d, int viaEdge) {
+        int s = find(v);
+        if (s < 0) {
+            s = insert(v);
+            dist[s] = d;
+            parent[s] = viaEdge;
+            heapPush(s);
+            return true;
+        }
+        if (settled[s] || d >= dist[s]) return false;
+        dist[s] = d;
+        parent[s] = viaEdge;
+        if (heapPos[s] < 0) heapPush(s);
+        else siftUp(heapPos[s]);
+        return true;
+    }
+
+    /** 확정된 노드를 새 거리로 다시 힙에 넣는다(CH 구축의 지연 우선순위 갱신용). */
+    void reopen(int v, int d) {
+        int s = find(v);
+        if (s < 0) {
+            relax(v, d, -1);
+            return;
+        }
+        settled[s] = false;
+        dist[s] = d;
+        if (heapPos[s] < 0) heapPush(s);
+        else {
+            siftUp(heapPos[s]);
+            siftDown(heapPos[s]);
+        }
+    }
+
+    boolean isEmpty() {
+        return heapSize == 0;
+    }
+
+    int peekDist() {
+        return heapSize == 0 ? Integer.MAX_VALUE : dist[heap[0]];
+    }
+
+    /** 최소 거리 노드를 확정하고 돌려준다. */
+    int poll() {
+        int s = heap[0];
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapPos[heap[0]] = 0;
+            siftDown(0);
+        }
+        heapPos[s] = -1;
+        settled[s] = true;
+        return node[s];
+    }
+
+    int visited() {
+        return slots;
+    }
+
+    private int hash(int v) {
+        return (v * 0x9E3779B1) >>> 1 & mask;
+    }
+
+    private int find(int v) {
+        int h = hash(v);
+        while (keys[h] != EMPTY) {
+            if (keys[h] == v) return slotOf[h];
+            h = (h + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int insert(int v) {
+        if (slots == node.length) grow();
+        int s = slots++;
+        node[s] = v;
+        heapPos[s] = -1;
+        settled[s] = false;
+        int h = hash(v);
+        while (keys[h] != EMPTY) h = (h + 1) & mask;
+        keys[h] = v;
+        slotOf[h] = s;
+        return s;
+    }
+
+    private void grow() {
+        int cap = node.length * 2;
+        node = Arrays.copyOf(node, cap);
+        dist = Arrays.copyOf(dist, cap);
+        parent = Arrays.copyOf(parent, cap);
+        heapPos = Arrays.copyOf(heapPos, cap);
+        settled = Arrays.copyOf(settled, cap);
+        heap = Arrays.copyOf(heap, cap);
+        int tableSize = keys.length * 2;
+        keys = new int[tableSize];
+        slotOf = new int[tableSize];
+        Arrays.fill(keys, EMPTY);
+        mask = tableSize - 1;
+        for (int s = 0; s < slots; s++) {
+            int h = hash(node[s]);
+            while (keys[h] != EMPTY) h = (h + 1) & mask;
+            keys[h] = node[s];
+            slotOf[h] = s;
+        }
+    }
+
+    private void heapPush(int s) {
+        heap[heapSize] = s;
+        heapPos[s] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private void siftUp(int i) {
+        int s = heap[i];
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (dist[heap[p]] <= dist[s]) break;
+            heap[i] = heap[p];
+            heapPos[heap[i]] = i;
+            i = p;
+        }
+        heap[i] = s;
+        heapPos[s] = i;
+    }
+
+    private void siftDown(int i) {
+        int s = heap[i];
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= heapSize) break;
+            if (c + 1 < heapSize && dist[heap[c + 1]] < dist[heap[c]]) c++;
+            if (dist[heap[c]] >= dist[s]) break;
+            heap[i] = heap[c];
+            heapPos[heap[i]] = i;
+            i = c;
+        }
+        heap[i] = s;
+        heapPos[s] = i;
+    }
+}
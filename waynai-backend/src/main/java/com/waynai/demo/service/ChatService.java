@@ -1,6 +1,7 @@
 package com.waynai.demo.service;
 
 import com.waynai.demo.client.GeminiApiClient;
+import com.waynai.demo.client.LlmTask;
 import com.waynai.demo.dto.*;
 import com.waynai.demo.util.PromptLoader;
 import lombok.RequiredArgsConstructor;
@@ -45,7 +46,7 @@ public class ChatService {
             String prompt = createChatPrompt(request.getMessage(), multiturn, context);
             
             // 4. Gemini API 호출
-            return geminiApiClient.generateTextStream(prompt)
+            return geminiApiClient.generateTextStream(prompt, LlmTask.CHAT)
                     .doOnNext(chunk -> log.info("채팅 스트림 응답: {}", chunk))
                     .doOnComplete(() -> log.info("채팅 메시지 처리 완료 - 세션: {}", request.getSessionId()))
                     .doOnError(error -> log.error("채팅 메시지 처리 오류 - 세션: {}", request.getSessionId(), error));
@@ -0,0 +1,84 @@
+package com.waynai.demo.service;
+
+import com.waynai.demo.client.GeocodingClient;
+import com.waynai.demo.util.KoreanGazetteer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 계획 단위 지오코딩 배치.
+ *
+ * <p>먼저 로컬 색인({@link KoreanGazetteer})에서 찾고, 없는 이름만 Nominatim 으로 보낸다.
+ * 일차 전체의 장소명을 중복 제거해 한 번에 요청하고, 마감 시간까지 풀린 좌표만 돌려준다.
+ * 마감 후에도 이미 예약된 조회는 {@link GeocodingClient} 안에서 계속 진행돼 캐시에 쌓이므로,
+ * 긴 계획이라도 상한 때문에 좌표가 영구히 빠지지 않고 다음 요청부터 적중한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GeocodingService {
+
+    private final GeocodingClient geocodingClient;
+    private final KoreanGazetteer koreanGazetteer;
+
+    /** 계획 1건이 좌표 보정을 기다리는 최대 시간. */
+    @Value("${geocoding.batch-deadline-ms:12000}")
+    private long batchDeadlineMs;
+
+    /** 단건 조회. 못 찾으면 empty. */
+    public Mono<double[]> geocode(String name, String regionHint) {
+        double[] local = koreanGazetteer.lookup(name, regionHint);
+        if (local != null) return Mono.just(local);
+        return geocodingClient.geocodeAsync(name, regionHint);
+    }
+
+    /**
+     * 이름들 → 좌표 맵(찾은 것만). 같은 이름은 한 번만 조회하고, 마감 시간이 지나면
+     * 그때까지 모인 결과로 완료한다.
+     */
+    public Mono<Map<String, double[]>> geocodeAll(Collection<String> names, String regionHint) {
+        Set<String> unique = new LinkedHashSet<>();
+        for (String n : names) {
+            if (n != null && !n.isBlank()) unique.add(n.trim());
+        }
+        if (unique.isEmpty()) return Mono.just(Map.of());
+        Map<String, double[]> found = new ConcurrentHashMap<>();
+        Set<String> misses = new LinkedHashSet<>();
+        for (String n : unique) {
+            double[] local = koreanGazetteer.lookup(n, regionHint);
+            if (local != null) found.put(n, local);
+            else misses.add(n);
+        }
+        if (misses.isEmpty()) return Mono.just(found);
+        log.debug("[geocode] 로컬 색인 적중 {}/{}건", found.size(), unique.size());
+        return Flux.fromIterable(misses)
+                .flatMap(n -> geocodingClient.geocodeAsync(n, regionHint)
+                        .doOnNext(p -> found.put(n, p)))
+                .take(Duration.ofMillis(batchDeadlineMs))
+                .then(Mono.fromSupplier(() -> {
+                    if (found.size() < unique.size()) {
+                        log.debug("[geocode] 배치 {}건 중 {}건 해석 (나머지는 캐시로 계속 적재)", unique.size(), found.size());
+                    }
+                    return found;
+                }));
+    }
+
+    /** 결과를 기다리지 않고 조회만 걸어 둔다(스트리밍 중 완성된 일차의 좌표를 미리 데우기). */
+    public void prefetch(Collection<String> names, String regionHint) {
+        for (String n : names) {
+            if (n == null || n.isBlank() || koreanGazetteer.lookup(n, regionHint) != null) continue;
+            geocodingClient.geocodeAsync(n.trim(), regionHint);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.waynai.demo.service;
 
+import com.waynai.demo.bulkhead.BulkheadRegistry;
 import com.waynai.demo.client.LocationBasedApiClient;
 import com.waynai.demo.client.NaverApiClient;
 import com.waynai.demo.dto.GpsNearbyRequestDto;
@@ -49,6 +50,7 @@ public class GpsNearbyService {
 
     private final LocationBasedApiClient locationClient;
     private final NaverApiClient naverApiClient;
+    private final BulkheadRegistry bulkheads;
 
     public GpsNearbyResponseDto findNearby(GpsNearbyRequestDto req) {
         validate(req);
@@ -67,18 +69,20 @@ public class GpsNearbyService {
         final String effectiveContext = context == null
                 ? "여행지 관광지 맛집"
                 : context;
+        // 공용 ForkJoinPool 대신 상류별 격벽에서 조회한다. 격벽이 포화면 그 쪽은 빈 목록.
         CompletableFuture<List<GpsNearbyResponseDto.NearbySpot>> spotsFut =
-                CompletableFuture.supplyAsync(() -> {
+                bulkheads.get(BulkheadRegistry.TOUR).supply(() -> {
                     List<GpsNearbyResponseDto.NearbySpot> spots =
                             safeCollectSpots(lng, lat, radius, contentTypeId, limit);
                     if (!spots.isEmpty()) return spots;
                     log.info("[gps.nearby] 관광공사 0건 → Naver Local 폴백");
                     return safeCollectLocalSpots(lat, lng, radius, effectiveContext, limit);
-                });
+                }).exceptionally(e -> degraded("spots", e));
 
         CompletableFuture<List<GpsNearbyResponseDto.NearbyBlog>> blogsFut =
-                CompletableFuture.supplyAsync(() ->
-                        safeCollectBlogs(effectiveContext, limit));
+                bulkheads.get(BulkheadRegistry.NAVER).supply(() ->
+                        safeCollectBlogs(effectiveContext, limit))
+                        .exceptionally(e -> degraded("blogs", e));
 
         CompletableFuture.allOf(spotsFut, blogsFut).join();
 
@@ -96,6 +100,11 @@ public class GpsNearbyService {
                 .build();
     }
 
+    private static <T> List<T> degraded(String what, Throwable e) {
+        log.warn("[gps.nearby] {} 조회 생략: {}", what, e.getMessage());
+        return Collections.emptyList();
+    }
+
     private void validate(GpsNearbyRequestDto req) {
         if (req == null || req.getLat() == null || req.getLng() == null) {
             throw new IllegalArgumentException("lat, lng 는 필수입니다.");
@@ -1,19 +1,30 @@
 package com.waynai.demo.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waynai.demo.cache.NearDuplicateIndex;
 import com.waynai.demo.client.GeminiApiClient;
+import com.waynai.demo.client.LlmTask;
 import com.waynai.demo.dto.IntentAnalysisDto;
 import com.waynai.demo.dto.IntentAnalysisWithSearchDto;
 import com.waynai.demo.dto.NaverBlogSearchDto;
 import com.waynai.demo.util.AreaCodeUtil;
 import com.waynai.demo.util.PromptLoader;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * 의도 분석 서비스
+ *
+ * <p>먼저 {@link RuleIntentExtractor} 로 로컬 추출을 해 보고, 신뢰도가 임계값 이상이면 LLM 을 생략한다.
+ * LLM 이 실패하거나 응답을 파싱하지 못하면 목적지를 잡은 규칙 결과로 대체한다.
+ * LLM 까지 간 질의는 {@link NearDuplicateIndex} 에 남겨, 표기만 다른 다음 질의는 그 결과를 복사해 쓴다.
+ * 이때 두 질의의 규칙 추출 목적지·권역·동반({@link RuleIntentExtractor#anchor})이 같아야 한다.
  */
 @Slf4j
 @Service
@@ -25,6 +36,37 @@ public class IntentAnalysisService {
     private final ObjectMapper objectMapper;
     private final AreaCodeUtil areaCodeUtil;
     private final NaverSearchService naverSearchService;
+    private final RuleIntentExtractor ruleIntentExtractor;
+
+    /** 규칙 기반 빠른 경로 on/off. */
+    @Value("${intent.fast-path.enabled:true}")
+    private boolean fastPathEnabled;
+
+    /** 규칙 추출 신뢰도가 이 값 이상이면 LLM 호출 생략. */
+    @Value("${intent.fast-path.threshold:0.75}")
+    private double fastPathThreshold;
+
+    /** 근사 중복 질의 재사용: on/off, 자카드 임계값, 기억할 질의 수. */
+    @Value("${intent.near-duplicate.enabled:true}")
+    private boolean nearDuplicateEnabled;
+
+    @Value("${intent.near-duplicate.threshold:0.8}")
+    private double nearDuplicateThreshold;
+
+    @Value("${intent.near-duplicate.max-entries:5000}")
+    private int nearDuplicateMaxEntries;
+
+    private NearDuplicateIndex<Remembered> nearDuplicates;
+
+    /** LLM 분석 결과와 그 질의의 규칙 추출 핵심 항목. */
+    private record Remembered(IntentAnalysisDto intent, String anchor) {}
+
+    @PostConstruct
+    void init() {
+        if (nearDuplicateEnabled) {
+            nearDuplicates = new NearDuplicateIndex<>(nearDuplicateMaxEntries, nearDuplicateThreshold);
+        }
+    }
 
     /**
      * 사용자 입력 의도 분석
@@ -34,30 +76,46 @@ public class IntentAnalysisService {
     public Mono<IntentAnalysisDto> analyzeIntent(String query) {
         try {
             log.info("의도 분석 시작: {}", query);
+
+            IntentAnalysisDto rule = ruleIntentExtractor.extract(query);
+            if (fastPathEnabled && rule.getConfidence() != null && rule.getConfidence() >= fastPathThreshold) {
+                log.info("의도 분석 규칙 경로 채택(LLM 생략): confidence={}, dest={}, days={}",
+                        rule.getConfidence(), rule.getDestination(), rule.getDays());
+                return Mono.just(rule);
+            }
+
+            String anchor = ruleIntentExtractor.anchor(rule);
+            NearDuplicateIndex.Match<Remembered> similar = nearDuplicates != null
+                    ? nearDuplicates.find(query, r -> r.anchor().equals(anchor)) : null;
+            if (similar != null) {
+                log.info("의도 분석 근사 중복 재사용(LLM 생략): '{}' ≈ '{}' ({})",
+                        query, similar.canonical(), String.format("%.2f", similar.similarity()));
+                // 오케스트레이터가 intent 를 보정(변경)하므로 저장본은 복사해 넘긴다.
+                return Mono.just(objectMapper.convertValue(similar.value().intent(), IntentAnalysisDto.class));
+            }
             
             String prompt = promptLoader.getPrompt("intent_analysis");
             if (prompt == null) {
                 throw new RuntimeException("의도 분석 프롬프트를 찾을 수 없습니다.");
             }
             
-            // 지역 데이터를 문자열로 변환
-            String areaData = formatAreaDataForPrompt();
+            // 시작 시 만들어 둔 압축 표에서 질의에 등장한 후보 지역만 (+ 17개 시도 요약) 넣는다.
+            String areaData = areaCodeUtil.formatForPrompt(query);
+            log.debug("의도 분석 지역 표 {}자", areaData.length());
             
             // 프롬프트에 쿼리와 지역 데이터 치환
             String fullPrompt = prompt.replace("$query", query).replace("$areaData", areaData);
             
-            return geminiApiClient.generateJson(fullPrompt)
+            // 응답 모델을 받아 두었다가 파싱 성공/실패를 모델 통계에 보고한다.
+            AtomicReference<String> model = new AtomicReference<>();
+            return geminiApiClient.generateJson(fullPrompt, model::set, LlmTask.INTENT)
                     .map(response -> {
                         try {
                             // API 오류 응답인지 확인
                             if (response.contains("\"error\"") && response.contains("\"status\"")) {
                                 log.warn("API 오류 응답 감지: {}", response);
-                                // 기본 의도 분석 결과 반환
-                                IntentAnalysisDto defaultResult = new IntentAnalysisDto();
-                                defaultResult.setIntent("general");
-                                defaultResult.setConfidence(0.5);
-                                defaultResult.setReason("AI 서비스 일시적 오류로 인한 기본 응답");
-                                return defaultResult;
+                                geminiApiClient.discardCachedJson(fullPrompt);
+                                return fallbackIntent(rule, "AI 서비스 일시적 오류로 인한 기본 응답");
                             }
                             
                             // JSON 코드 블록 제거
@@ -72,16 +130,19 @@ public class IntentAnalysisService {
                             cleanResponse = cleanResponse.replaceAll(":\\s*\"null\"", ": null");
 
                             IntentAnalysisDto result = objectMapper.readValue(cleanResponse, IntentAnalysisDto.class);
+                            geminiApiClient.reportParseResult(model.get(), LlmTask.INTENT, true);
+                            if (result.getPartySize() == null) result.setPartySize(rule.getPartySize());
+                            if (nearDuplicates != null) {
+                                nearDuplicates.put(query, new Remembered(
+                                        objectMapper.convertValue(result, IntentAnalysisDto.class), anchor));
+                            }
                             log.info("의도 분석 완료: {}", result);
                             return result;
                         } catch (Exception e) {
                             log.error("의도 분석 결과 파싱 실패", e);
-                            // 파싱 실패 시 기본 의도 분석 결과 반환
-                            IntentAnalysisDto defaultResult = new IntentAnalysisDto();
-                            defaultResult.setIntent("general");
-                            defaultResult.setConfidence(0.5);
-                            defaultResult.setReason("응답 파싱 오류로 인한 기본 응답");
-                            return defaultResult;
+                            geminiApiClient.reportParseResult(model.get(), LlmTask.INTENT, false);
+                            geminiApiClient.discardCachedJson(fullPrompt);
+                            return fallbackIntent(rule, "응답 파싱 오류로 인한 기본 응답");
                         }
                     })
                     .doOnError(error -> log.error("의도 분석 실패", error));
@@ -93,35 +154,18 @@ public class IntentAnalysisService {
     }
     
     /**
-     * 프롬프트용 지역 데이터 포맷팅
-     * @return 포맷된 지역 데이터 문자열
+     * LLM 결과를 쓸 수 없을 때의 기본 응답. 규칙 추출이 목적지라도 잡았으면 그것을, 아니면 general.
      */
-    private String formatAreaDataForPrompt() {
-        try {
-            var areaCodes = areaCodeUtil.getAllAreaCodes();
-            
-            // 지역별로 그룹화하여 정리
-            StringBuilder areaData = new StringBuilder();
-            String currentArea = "";
-            
-            for (var areaCode : areaCodes) {
-                if (!currentArea.equals(areaCode.getAreaName())) {
-                    if (!currentArea.isEmpty()) {
-                        areaData.append("\n");
-                    }
-                    currentArea = areaCode.getAreaName();
-                    areaData.append(String.format("지역: %s (코드: %s)\n", 
-                        areaCode.getAreaName(), areaCode.getAreaCode()));
-                }
-                areaData.append(String.format("  - %s (코드: %s)\n", 
-                    areaCode.getSigunguName(), areaCode.getSigunguCode()));
-            }
-            
-            return areaData.toString();
-        } catch (Exception e) {
-            log.warn("지역 데이터 포맷팅 실패", e);
-            return "지역 데이터를 불러올 수 없습니다.";
+    private IntentAnalysisDto fallbackIntent(IntentAnalysisDto rule, String reason) {
+        if (rule.getDestination() != null) {
+            rule.setReason(reason + " (규칙 기반 추출 사용)");
+            return rule;
         }
+        IntentAnalysisDto defaultResult = new IntentAnalysisDto();
+        defaultResult.setIntent("general");
+        defaultResult.setConfidence(0.5);
+        defaultResult.setReason(reason);
+        return defaultResult;
     }
 
     /**
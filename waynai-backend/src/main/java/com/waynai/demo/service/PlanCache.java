@@ -0,0 +1,233 @@
+package com.waynai.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waynai.demo.cache.BoundedCache;
+import com.waynai.demo.cache.CacheRegistry;
+import com.waynai.demo.dto.FlightOfferDto;
+import com.waynai.demo.dto.IntentAnalysisDto;
+import com.waynai.demo.dto.TravelEvent;
+import com.waynai.demo.dto.TravelPlanDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 계획 단위 결과 캐시. 같은 조건의 요청이면 의도 분석 뒤의 파이프라인(RAG·숙소·항공·생성·좌표·이동)을 건너뛰고
+ * 저장된 {@link TravelEvent} 순서를 그대로 재생한다.
+ *
+ * <p>키는 의도 분석 결과와 요청 값을 정규화해 만든다(목적지·권역·키워드·일수·인원·스타일/예산·출발지·출발 월·왕복 여부).
+ * 일정은 {@code plan}(기본 6시간), 숙소·항공 가격은 {@code plan-hotel}(1시간)·{@code plan-flight}(30분) 영역에 따로 두어
+ * 가격이 먼저 만료되면 재생 뒤 그 부분만 새로 받아 계획을 갱신한다. 일정은 출발 월로 묶지만 가격은 날짜마다 달라
+ * {@link #priceKey} (정확한 출발·귀국일)로 나눠 둔다. TTL 은 {@code waynai.cache.<영역>.ttl} 로 덮어쓴다.
+ * 객체 그대로 두는 메모리 전용 영역이다.
+ */
+@Slf4j
+@Component
+public class PlanCache {
+
+    /**
+     * 재생하지 않는 이벤트: 증분 토큰·중간 스냅샷(최종 plan 이 대신한다), 요청마다 새로 보내는 의도 분석·종료,
+     * 가격 영역에서 따로 꺼내 보내는 숙소·항공.
+     */
+    private static final Set<String> NOT_REPLAYED = Set.of("token", "partial", "intent", "done", "error",
+            "sources.hotel", "sources.flight");
+
+    /**
+     * 적중 결과. hotels/flights 가 null 이면 그 날짜의 가격이 없거나 만료돼 새로 받아야 한다.
+     * sameDates 는 저장된 계획이 이번 요청과 같은 출발·귀국일 가격으로 만들어졌는지.
+     */
+    public record Hit(List<TravelEvent> events, TravelPlanDto plan,
+                      List<TravelPlanDto.Accommodation> hotels, List<FlightOfferDto> flights, boolean sameDates) {}
+
+    /** 저장된 일정 이벤트와 그 계획을 만들 때 쓴 가격 키. */
+    record Stored(List<TravelEvent> events, String priceKey) {}
+
+    private final BoundedCache<String, Stored> itineraries;
+    private final BoundedCache<String, List<TravelPlanDto.Accommodation>> hotels;
+    private final BoundedCache<String, List<FlightOfferDto>> flights;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    @Autowired
+    public PlanCache(CacheRegistry caches, ObjectMapper objectMapper,
+                     @Value("${waynai.plan.cache.enabled:true}") boolean enabled) {
+        this(caches.region("plan", BoundedCache.Spec.of(200, Duration.ofHours(6))),
+                caches.region("plan-hotel", BoundedCache.Spec.of(200, Duration.ofHours(1))),
+                caches.region("plan-flight", BoundedCache.Spec.of(200, Duration.ofMinutes(30))),
+                objectMapper, enabled);
+    }
+
+    PlanCache(BoundedCache<String, Stored> itineraries,
+              BoundedCache<String, List<TravelPlanDto.Accommodation>> hotels,
+              BoundedCache<String, List<FlightOfferDto>> flights,
+              ObjectMapper objectMapper, boolean enabled) {
+        this.itineraries = itineraries;
+        this.hotels = hotels;
+        this.flights = flights;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+    }
+
+    /**
+     * 요청의 정규형 키. 공백·대소문자·구두점 차이는 무시하고, 출발일은 월 단위로 묶는다.
+     * 요청 값(origin·departDate·returnDate)이 있으면 의도 분석 값보다 우선한다.
+     */
+    public String key(IntentAnalysisDto intent, String query, String origin, String departDate, String returnDate) {
+        IntentAnalysisDto i = intent != null ? intent : new IntentAnalysisDto();
+        String area = i.getArea() != null ? i.getArea().getName() : null;
+        String segments = i.getSegments() == null ? "" : i.getSegments().stream()
+                .map(s -> norm(first(s.getArea(), s.getTitle())) + (s.getDays() != null ? s.getDays() : ""))
+                .collect(Collectors.joining("+"));
+        String depart = first(departDate, i.getDepartDate());
+        String ret = first(returnDate, i.getReturnDate());
+        return String.join("|",
+                norm(first(i.getDestination(), area, i.getKeyword(), query)),
+                segments,
+                norm(i.getKeyword()),
+                i.getDays() != null ? i.getDays().toString() : "",
+                (i.getPartySize() != null ? i.getPartySize().toString() : "") + "/" + norm(i.getCompanions()),
+                norm(i.getStyle()) + "/" + norm(i.getBudgetLevel()),
+                norm(first(origin, i.getOrigin(), "서울")),
+                depart != null && depart.length() >= 7 ? depart.substring(0, 7) : "",
+                ret != null ? "rt" : "ow");
+    }
+
+    /** 숙소·항공 가격 영역의 키. 일정 키에 정확한 출발·귀국일을 붙인다. */
+    public String priceKey(IntentAnalysisDto intent, String query, String origin, String departDate, String returnDate) {
+        IntentAnalysisDto i = intent != null ? intent : new IntentAnalysisDto();
+        String depart = first(departDate, i.getDepartDate());
+        String ret = first(returnDate, i.getReturnDate());
+        return key(intent, query, origin, departDate, returnDate) + "|" + (depart != null ? depart.trim() : "")
+                + "|" + (ret != null ? ret.trim() : "");
+    }
+
+    /** 저장된 계획과 priceKey 날짜의 가격. 없거나 꺼져 있으면 null. */
+    public Hit lookup(String key, String priceKey) {
+        if (!enabled || key == null) return null;
+        Stored stored = itineraries.get(key);
+        if (stored == null) return null;
+        TravelPlanDto plan = null;
+        for (TravelEvent e : stored.events()) {
+            if ("plan".equals(e.getType()) && e.getPayload() instanceof TravelPlanDto p) plan = p;
+        }
+        if (plan == null) return null;
+        String prices = priceKey != null ? priceKey : key;
+        return new Hit(stored.events(), plan, hotels.get(prices), flights.get(prices),
+                prices.equals(stored.priceKey()));
+    }
+
+    public void putHotels(String key, List<TravelPlanDto.Accommodation> value) {
+        if (enabled && key != null) hotels.put(key, value != null ? List.copyOf(value) : List.of());
+    }
+
+    public void putFlights(String key, List<FlightOfferDto> value) {
+        if (enabled && key != null) flights.put(key, value != null ? List.copyOf(value) : List.of());
+    }
+
+    /** 저장본을 건드리지 않도록 깊은 복사(가격 갱신 전에 쓴다). */
+    public TravelPlanDto copy(TravelPlanDto plan) {
+        return objectMapper.convertValue(plan, TravelPlanDto.class);
+    }
+
+    /** 요청 1건의 이벤트 기록기. 구조화 계획으로 끝난 요청만 {@code done} 시점에 저장한다. */
+    public Transcript transcript() {
+        return new Transcript();
+    }
+
+    public final class Transcript {
+        private final List<TravelEvent> events = Collections.synchronizedList(new ArrayList<>());
+        private volatile String key;
+        private volatile String priceKey;
+        private volatile boolean replayed;
+        private volatile List<TravelPlanDto.Accommodation> hotelsSeen;
+        private volatile List<FlightOfferDto> flightsSeen;
+
+        private Transcript() {
+        }
+
+        public void key(String key) {
+            this.key = key;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public void priceKey(String priceKey) {
+            this.priceKey = priceKey;
+        }
+
+        /** 가격 영역 키. 따로 정하지 않았으면 일정 키와 같다. */
+        public String priceKey() {
+            return priceKey != null ? priceKey : key;
+        }
+
+        /** 캐시에서 재생 중인 요청은 다시 저장하지 않는다. */
+        public void replayed() {
+            replayed = true;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void record(TravelEvent e) {
+            if (!enabled || replayed || e == null || e.getType() == null) return;
+            switch (e.getType()) {
+                case "sources.hotel" -> hotelsSeen = (List<TravelPlanDto.Accommodation>) e.getPayload();
+                case "sources.flight" -> flightsSeen = (List<FlightOfferDto>) e.getPayload();
+                case "done" -> {
+                    store();
+                    return;
+                }
+                default -> { }
+            }
+            if (NOT_REPLAYED.contains(e.getType())) return;
+            // 분석·수집 시작 안내는 재생 요청에서도 intent 단계가 직접 보낸다.
+            if ("stage".equals(e.getType()) && ("analyzing".equals(e.getStage()) || "searching".equals(e.getStage()))) {
+                return;
+            }
+            events.add(e);
+        }
+
+        private void store() {
+            if (key == null) return;
+            List<TravelEvent> stored = new ArrayList<>(events.size());
+            boolean planned = false;
+            synchronized (events) {
+                for (TravelEvent e : events) {
+                    if ("plan".equals(e.getType()) && e.getPayload() instanceof TravelPlanDto p) {
+                        if (p.getItinerary() == null || p.getItinerary().isEmpty()) continue;
+                        stored.add(TravelEvent.builder().type(e.getType()).stage(e.getStage())
+                                .message(e.getMessage()).payload(copy(p)).build());
+                        planned = true;
+                    } else {
+                        stored.add(e);
+                    }
+                }
+            }
+            if (!planned) return;
+            String prices = priceKey();
+            itineraries.put(key, new Stored(List.copyOf(stored), prices));
+            putHotels(prices, hotelsSeen);
+            putFlights(prices, flightsSeen);
+            log.debug("[plan-cache] 저장: {} (이벤트 {}개)", key, stored.size());
+        }
+    }
+
+    private static String first(String... values) {
+        for (String v : values) if (v != null && !v.isBlank()) return v;
+        return null;
+    }
+
+    private static String norm(String s) {
+        if (s == null) return "";
+        return s.toLowerCase(Locale.ROOT).replaceAll("[\\s\\p{Punct}·]+", "");
+    }
+}
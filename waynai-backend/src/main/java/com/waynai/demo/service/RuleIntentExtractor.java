@@ -0,0 +1,322 @@
+package com.waynai.demo.service;
+
+import com.waynai.demo.client.IataResolver;
+import com.waynai.demo.dto.AreaCodeDto;
+import com.waynai.demo.dto.IntentAnalysisDto;
+import com.waynai.demo.util.AreaCodeUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 규칙 기반 의도 추출 (LLM 없이 즉시).
+ *
+ * <p>"부산 2박3일 커플 여행" 처럼 구조가 단순한 질의는 목적지·일수·동반·스타일을 정규식과
+ * 지역/도시 사전({@link AreaCodeUtil}, {@link IataResolver#findKnownCities})만으로 채울 수 있다.
+ * 채운 항목과 해석하지 못한 토큰으로 신뢰도를 매기고, 호출측은 임계값 이상일 때만 LLM 을 건너뛴다.
+ *
+ * <p>다음은 일부러 신뢰도를 낮춰 LLM 에 맡긴다: 목적지가 여럿(권역 분해 필요), 5일 이상 장기,
+ * 날짜 언급(출발/귀국일 해석), 해석 못 한 단어가 남은 경우.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RuleIntentExtractor {
+
+    private final AreaCodeUtil areaCodeUtil;
+    private final IataResolver iataResolver;
+
+    private static final Pattern NIGHTS_DAYS = Pattern.compile("(\\d{1,2})\\s*박\\s*(\\d{1,2})\\s*일");
+    private static final Pattern NIGHTS = Pattern.compile("(\\d{1,2})\\s*박");
+    private static final Pattern DAYS = Pattern.compile("(?<!월\\s?)(\\d{1,2})\\s*일(?!\\s*(?:차|부터|까지|에|날))");
+    private static final Pattern PARTY = Pattern.compile("(\\d{1,2})\\s*(?:명|인)(?!\\s*실)");
+    private static final Pattern DATE = Pattern.compile("\\d{1,2}\\s*월|\\d{1,2}/\\d{1,2}|\\d{4}-\\d{1,2}|다음\\s*주|이번\\s*주|내일|모레");
+    private static final Pattern ORIGIN = Pattern.compile("(\\S+?)에서(?:\\s*출발)?");
+    private static final Pattern PARTICLE = Pattern.compile("(이랑|랑|하고|과|와|으로|로|에서|에|의|을|를|은|는|도)$");
+
+    private static final Map<String, Integer> DURATION_WORDS = Map.of(
+            "당일치기", 1, "당일", 1, "하루", 1, "일주일", 7, "주말", 2);
+    private static final Map<String, Integer> PARTY_WORDS = Map.of(
+            "혼자", 1, "둘이", 2, "셋이", 3, "넷이", 4);
+
+    /** 표현 → 정규화 값. 앞에 있는 표현이 우선. */
+    private static final Map<String, String> STYLES = ordered(
+            "배낭", "배낭여행", "신혼", "신혼여행", "허니문", "신혼여행", "효도", "효도여행",
+            "뚜벅이", "도보", "도보", "도보", "걷기", "도보", "힐링", "힐링", "휴양", "힐링", "호캉스", "힐링");
+    private static final Map<String, String> COMPANIONS = ordered(
+            "커플", "커플", "연인", "커플", "여자친구", "커플", "남자친구", "커플", "데이트", "커플",
+            "가족", "가족", "아이랑", "가족", "아이와", "가족", "부모님", "가족",
+            "친구", "친구", "혼자", "혼자", "혼행", "혼자", "나홀로", "혼자", "단체", "단체", "워크샵", "단체");
+    private static final Map<String, String> BUDGETS = ordered(
+            "가성비", "저렴", "저렴", "저렴", "알뜰", "저렴", "럭셔리", "고급", "고급", "고급", "호캉스", "고급");
+    private static final List<String> KEYWORDS = List.of(
+            "맛집", "카페", "박물관", "미술관", "해수욕장", "해변", "바다", "등산", "쇼핑", "야경", "온천",
+            "캠핑", "드라이브", "시장", "축제", "전시", "유적지", "역사", "사찰", "벚꽃", "단풍", "트레킹", "섬");
+    private static final Set<String> FILLERS = Set.of(
+            "여행", "여행지", "여행코스", "코스", "일정", "계획", "추천", "추천해줘", "짜줘", "짜줘요", "짜주세요",
+            "알려줘", "알려주세요", "가고", "싶어", "싶어요", "가자", "갈래", "투어", "놀러", "가기", "좋은", "곳",
+            "같이", "함께", "국내", "해외", "please", "trip", "travel");
+
+    /**
+     * 질의에서 의도를 추출한다. 항상 결과를 돌려주며, 신뢰도(confidence)로 채택 여부를 판단한다.
+     */
+    public IntentAnalysisDto extract(String query) {
+        IntentAnalysisDto out = IntentAnalysisDto.builder()
+                .segments(new ArrayList<>())
+                .reason("규칙 기반 추출")
+                .build();
+        if (query == null || query.isBlank()) {
+            out.setIntent("none");
+            out.setConfidence(0.0);
+            return out;
+        }
+        String q = query.trim();
+        List<String> recognized = new ArrayList<>();
+        double confidence = 0;
+
+        // 출발지 ("서울에서 부산") — 목적지 탐색 전에 떼어낸다.
+        String rest = q;
+        Matcher om = ORIGIN.matcher(q);
+        if (om.find() && isPlace(om.group(1))) {
+            out.setOrigin(om.group(1));
+            recognized.add(om.group());
+            rest = q.substring(0, om.start()) + " " + q.substring(om.end());
+        }
+
+        // 일수
+        Integer days = parseDays(rest, recognized);
+        if (days != null) {
+            out.setDays(days);
+            confidence += 0.2;
+        }
+
+        // 인원
+        Matcher pm = PARTY.matcher(rest);
+        if (pm.find()) {
+            out.setPartySize(Integer.parseInt(pm.group(1)));
+            recognized.add(pm.group());
+        } else {
+            for (Map.Entry<String, Integer> e : PARTY_WORDS.entrySet()) {
+                if (rest.contains(e.getKey())) {
+                    out.setPartySize(e.getValue());
+                    recognized.add(e.getKey());
+                    break;
+                }
+            }
+        }
+
+        // 목적지
+        int destinations = resolveDestination(rest, out, recognized);
+        if (destinations == 1) confidence += 0.55;
+
+        // 스타일·동반·예산·키워드 (목적지 이름을 지운 나머지에서 찾는다: "부산"의 "산" 오인 방지)
+        String residual = rest;
+        for (String r : recognized) residual = residual.replace(r, " ");
+        out.setStyle(firstMatch(residual, STYLES, recognized));
+        out.setCompanions(firstMatch(residual, COMPANIONS, recognized));
+        out.setBudgetLevel(firstMatch(residual, BUDGETS, recognized));
+        if ("혼자".equals(out.getCompanions()) && out.getPartySize() == null) out.setPartySize(1);
+        for (String k : KEYWORDS) {
+            if (residual.contains(k)) {
+                out.setKeyword(k);
+                recognized.add(k);
+                break;
+            }
+        }
+        int extras = (out.getStyle() != null ? 1 : 0) + (out.getCompanions() != null ? 1 : 0)
+                + (out.getBudgetLevel() != null ? 1 : 0) + (out.getKeyword() != null ? 1 : 0);
+        confidence += Math.min(0.1, extras * 0.05);
+
+        boolean hasDest = destinations == 1;
+        out.setIntent(hasDest ? (out.getKeyword() != null ? "area_keyword" : "area")
+                : (out.getKeyword() != null ? "keyword" : "none"));
+
+        // 해석하지 못한 단어 1개당 감점.
+        int unknown = countUnknownTokens(rest, recognized);
+        confidence += unknown == 0 ? 0.1 : -0.1 * unknown;
+
+        if (destinations > 1) confidence = Math.min(confidence, 0.3);
+        if (days != null && days >= 5) confidence = Math.min(confidence, 0.6);
+        if (DATE.matcher(rest).find()) confidence -= 0.2;
+
+        out.setConfidence(Math.max(0.0, Math.min(1.0, Math.round(confidence * 100) / 100.0)));
+        log.debug("[rule-intent] '{}' → dest={}, days={}, unknown={}, confidence={}",
+                query, out.getDestination(), days, unknown, out.getConfidence());
+        return out;
+    }
+
+    /**
+     * 근사 중복 재사용 전에 맞춰 볼 핵심 항목(목적지·권역·동반)의 정규형. {@link #extract} 결과에서 만든다.
+     * 글자 유사도가 높아도 이 값이 다르면("여수 …" / "부산 …") 다른 질의다.
+     */
+    public String anchor(IntentAnalysisDto extracted) {
+        if (extracted == null) return "";
+        IntentAnalysisDto.AreaInfo area = extracted.getArea();
+        String areaKey = area == null ? "" : area.getCode()
+                + (area.getSigungu() != null ? "-" + area.getSigungu().getCode() : "");
+        return String.join("|",
+                extracted.getDestination() != null ? extracted.getDestination().replaceAll("\\s+", "") : "",
+                areaKey,
+                extracted.getCompanions() != null ? extracted.getCompanions() : "");
+    }
+
+    private Integer parseDays(String text, List<String> recognized) {
+        Matcher m = NIGHTS_DAYS.matcher(text);
+        if (m.find()) {
+            recognized.add(m.group());
+            return Integer.parseInt(m.group(2));
+        }
+        m = NIGHTS.matcher(text);
+        if (m.find()) {
+            recognized.add(m.group());
+            return Integer.parseInt(m.group(1)) + 1;
+        }
+        m = DAYS.matcher(text);
+        if (m.find()) {
+            recognized.add(m.group());
+            return Integer.parseInt(m.group(1));
+        }
+        for (Map.Entry<String, Integer> e : DURATION_WORDS.entrySet()) {
+            if (text.contains(e.getKey())) {
+                recognized.add(e.getKey());
+                return e.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 국내(시도·시군구)와 해외(정적 도시 사전) 후보를 모아 목적지 개수를 센다. 정확히 1개면 out 에 채운다.
+     */
+    private int resolveDestination(String text, IntentAnalysisDto out, List<String> recognized) {
+        Set<String> areaCodes = areaCodeUtil.matchAreaCodes(text);
+        List<AreaCodeDto> sigungu = areaCodeUtil.matchSigungu(text);
+        // 시도명이 함께 나오면 그 시도 밖의 시군구 매칭(예: "광주" → 경기 광주시)은 버린다.
+        if (!areaCodes.isEmpty()) {
+            sigungu.removeIf(s -> !areaCodes.contains(s.getAreaCode()));
+        }
+        // 시군구는 시 단위로 묶는다 (포항시 남구/북구 → 포항시).
+        Map<String, AreaCodeDto> cities = new LinkedHashMap<>();
+        for (AreaCodeDto s : sigungu) {
+            cities.putIfAbsent(s.getAreaCode() + "|" + cityName(s.getSigunguName()), s);
+        }
+        Set<String> coveredAreas = new LinkedHashSet<>();
+        cities.values().forEach(s -> coveredAreas.add(s.getAreaCode()));
+        Set<String> bareAreas = new LinkedHashSet<>(areaCodes);
+        bareAreas.removeAll(coveredAreas);
+
+        List<IataResolver.KnownCity> abroad = new ArrayList<>();
+        for (IataResolver.KnownCity c : iataResolver.findKnownCities(text)) {
+            if (isDomestic(c.name())) {
+                recognized.add(c.name());
+            } else {
+                abroad.add(c);
+            }
+        }
+
+        int count = cities.size() + bareAreas.size() + abroad.size();
+        if (count != 1) return count;
+
+        if (!abroad.isEmpty()) {
+            IataResolver.KnownCity c = abroad.get(0);
+            out.setInternational(true);
+            out.setDestination(c.name());
+            recognized.add(c.name());
+            return 1;
+        }
+        AreaCodeDto pick;
+        String destName;
+        if (!cities.isEmpty()) {
+            pick = cities.values().iterator().next();
+            destName = stripSuffix(cityName(pick.getSigunguName()));
+            recognized.add(destName);
+        } else {
+            String code = bareAreas.iterator().next();
+            List<AreaCodeDto> list = areaCodeUtil.getSigunguByAreaCode(code);
+            if (list.isEmpty()) return 0;
+            // 시군구 미지정이면 프롬프트 규칙과 같이 첫 번째 시군구.
+            pick = list.get(0);
+            destName = areaCodeUtil.getShortAreaName(code);
+        }
+        for (String code : areaCodes) recognized.add(areaCodeUtil.getShortAreaName(code));
+        recognized.add(pick.getSigunguName());
+        recognized.add(pick.getAreaName());
+        out.setInternational(false);
+        out.setDestination(destName);
+        out.setArea(IntentAnalysisDto.AreaInfo.builder()
+                .name(pick.getAreaName())
+                .code(pick.getAreaCode())
+                .sigungu(IntentAnalysisDto.AreaInfo.SigunguInfo.builder()
+                        .name(pick.getSigunguName())
+                        .code(pick.getSigunguCode())
+                        .build())
+                .build());
+        return 1;
+    }
+
+    private boolean isPlace(String token) {
+        return !areaCodeUtil.matchAreaCodes(token).isEmpty()
+                || !areaCodeUtil.matchSigungu(token).isEmpty()
+                || !iataResolver.findKnownCities(token).isEmpty();
+    }
+
+    private boolean isDomestic(String name) {
+        return !areaCodeUtil.matchAreaCodes(name).isEmpty() || !areaCodeUtil.matchSigungu(name).isEmpty();
+    }
+
+    private int countUnknownTokens(String text, List<String> recognized) {
+        int unknown = 0;
+        for (String raw : text.split("[\\s,.!?~]+")) {
+            if (raw.isBlank()) continue;
+            String tok = PARTICLE.matcher(raw).replaceAll("");
+            if (tok.isEmpty() || FILLERS.contains(tok) || FILLERS.contains(raw)) continue;
+            boolean known = false;
+            for (String r : recognized) {
+                if (r != null && !r.isBlank() && (raw.contains(r.trim()) || r.contains(tok))) {
+                    known = true;
+                    break;
+                }
+            }
+            if (!known) unknown++;
+        }
+        return unknown;
+    }
+
+    private static String firstMatch(String text, Map<String, String> dict, List<String> recognized) {
+        String found = null;
+        for (Map.Entry<String, String> e : dict.entrySet()) {
+            if (text.contains(e.getKey())) {
+                recognized.add(e.getKey());
+                if (found == null) found = e.getValue();
+            }
+        }
+        return found;
+    }
+
+    /** "포항시 남구" → "포항시". */
+    private static String cityName(String sigunguName) {
+        int space = sigunguName.indexOf(' ');
+        return space > 0 ? sigunguName.substring(0, space) : sigunguName;
+    }
+
+    /** "강릉시" → "강릉" (2자 이름은 그대로). */
+    private static String stripSuffix(String name) {
+        return name.length() > 2 && "시군구".indexOf(name.charAt(name.length() - 1)) >= 0
+                ? name.substring(0, name.length() - 1) : name;
+    }
+
+    private static Map<String, String> ordered(String... kv) {
+        Map<String, String> m = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < kv.length; i += 2) m.put(kv[i], kv[i + 1]);
+        return m;
+    }
+}
@@ -0,0 +1,180 @@
+package com.waynai.demo.service;
+
+import com.waynai.demo.bulkhead.BulkheadRegistry;
+import com.waynai.demo.client.TavilyApiClient;
+import com.waynai.demo.dto.AreaCodeDto;
+import com.waynai.demo.dto.IntentAnalysisDto;
+import com.waynai.demo.dto.NaverBlogSearchDto;
+import com.waynai.demo.dto.TouristSpotDto;
+import com.waynai.demo.dto.TouristSpotResponseDto;
+import com.waynai.demo.quota.QuotaRegistry;
+import com.waynai.demo.util.AreaCodeUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * 다권역 계획의 권역별 RAG 컨텍스트 수집.
+ *
+ * <p>주 목적지 하나로 모은 컨텍스트를 모든 권역 프롬프트에 똑같이 넣으면, 권역마다 엉뚱한 지역 정보가
+ * 섞이고 정작 그 권역의 명소·블로그는 빠진다. 여기서는 권역마다 관광공사(국내)·네이버 블로그·웹 검색을
+ * 동시에 돌리고, 앞 권역에서 이미 쓴 항목(같은 URL·같은 관광지명)은 뒤 권역에서 뺀 뒤 권역별로 작은
+ * 컨텍스트 문자열을 만든다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SegmentRagService {
+
+    private static final int TOUR_LIMIT = 8;
+    private static final int BLOG_LIMIT = 4;
+    private static final int WEB_LIMIT = 4;
+    private static final int WEB_SNIPPET_CHARS = 200;
+
+    private final TouristInfoService touristInfoService;
+    private final NaverSearchService naverSearchService;
+    private final TavilyApiClient tavilyApiClient;
+    private final AreaCodeUtil areaCodeUtil;
+    private final QuotaRegistry quotaRegistry;
+    private final BulkheadRegistry bulkheads;
+
+    /** 권역 1개의 수집 결과. */
+    private record SegmentSources(List<TouristSpotDto> tour,
+                                  List<NaverBlogSearchDto.BlogItem> blogs,
+                                  List<TavilyApiClient.WebResult> web) {}
+
+    /**
+     * 권역 순서대로 컨텍스트 문자열 목록을 돌려준다. 수집 결과가 없는 권역은 빈 문자열.
+     * 모든 권역을 동시에 수집하며 실패는 빈 결과로 흡수한다.
+     */
+    public Mono<List<String>> collect(IntentAnalysisDto intent) {
+        List<IntentAnalysisDto.Segment> segs = intent.getSegments();
+        if (segs == null || segs.isEmpty()) return Mono.just(List.of());
+        boolean international = Boolean.TRUE.equals(intent.getInternational());
+        return Flux.fromIterable(segs)
+                .flatMapSequential(seg -> collectSegment(seg, international))
+                .collectList()
+                .map(this::dedupeAndFormat);
+    }
+
+    private Mono<SegmentSources> collectSegment(IntentAnalysisDto.Segment seg, boolean international) {
+        String place = firstNonBlank(seg.getArea(), seg.getTitle());
+        if (place == null) return Mono.just(new SegmentSources(List.of(), List.of(), List.of()));
+        String kw = seg.getKeywords() != null ? seg.getKeywords() : "";
+        Mono<List<TouristSpotDto>> tour = international
+                ? Mono.just(List.of())
+                : blocking(BulkheadRegistry.TOUR, () -> collectTour(place + " " + (seg.getTitle() != null ? seg.getTitle() : "")));
+        // 구간 수만큼 호출이 곱해지므로 일일 예산이 임박하면 구간 보강부터 끊는다.
+        Mono<List<NaverBlogSearchDto.BlogItem>> blogs = quotaRegistry.isNearlyExhausted("naver")
+                ? Mono.just(List.of())
+                : naverSearchService.searchBlog(truncate(place + " 여행 " + kw, 80))
+                        .subscribeOn(bulkheads.get(BulkheadRegistry.NAVER).scheduler())
+                        .map(r -> r.getItems() != null ? r.getItems() : List.<NaverBlogSearchDto.BlogItem>of())
+                        .onErrorResume(e -> {
+                            log.warn("[segment-rag] 네이버 검색 실패({}) 무시: {}", place, e.getMessage());
+                            return Mono.just(List.of());
+                        })
+                        .defaultIfEmpty(List.of());
+        Mono<List<TavilyApiClient.WebResult>> web = tavilyApiClient.isEnabled()
+                && !quotaRegistry.isNearlyExhausted("tavily")
+                ? blocking(BulkheadRegistry.WEB, () -> tavilyApiClient.search((place + " 여행 추천 명소 맛집 " + kw).trim()))
+                : Mono.just(List.of());
+        return Mono.zip(tour, blogs, web)
+                .map(t -> new SegmentSources(t.getT1(), t.getT2(), t.getT3()));
+    }
+
+    /** 권역 지명에서 시군구를 특정할 수 있을 때만 관광공사 조회(랜덤 시군구로 오염시키지 않는다). */
+    private List<TouristSpotDto> collectTour(String text) {
+        List<AreaCodeDto> sigungu = areaCodeUtil.matchSigungu(text);
+        if (sigungu.isEmpty()) return List.of();
+        AreaCodeDto a = sigungu.get(0);
+        TouristSpotResponseDto r = touristInfoService.getTouristSpots(a.getAreaCode(), a.getSigunguCode(), 1, 20);
+        return r != null && r.isSuccess() && r.getItems() != null ? r.getItems() : List.of();
+    }
+
+    /** 해당 상류 격벽에서 실행. 실패·격벽 포화는 빈 목록으로 흡수한다. */
+    private <T> Mono<List<T>> blocking(String bulkhead, Callable<List<T>> task) {
+        return bulkheads.get(bulkhead).call(task)
+                .onErrorResume(e -> {
+                    log.warn("[segment-rag] 수집 실패 (무시): {}", e.getMessage());
+                    return Mono.just(List.of());
+                });
+    }
+
+    /** 앞 권역이 먼저 차지한 항목은 뒤 권역에서 제외하고 권역별 컨텍스트로 포맷. */
+    private List<String> dedupeAndFormat(List<SegmentSources> all) {
+        Set<String> seenSpots = new HashSet<>();
+        Set<String> seenUrls = new HashSet<>();
+        List<String> out = new ArrayList<>(all.size());
+        int dropped = 0;
+        for (SegmentSources s : all) {
+            StringBuilder ctx = new StringBuilder();
+            List<TavilyApiClient.WebResult> web = new ArrayList<>();
+            for (TavilyApiClient.WebResult w : s.web()) {
+                if (web.size() >= WEB_LIMIT) break;
+                if (w.url() == null || !seenUrls.add(w.url())) { dropped++; continue; }
+                web.add(w);
+            }
+            if (!web.isEmpty()) {
+                ctx.append("=== 웹 검색 결과 (이 권역) ===\n");
+                web.forEach(w -> ctx.append(String.format("- %s\n  %s\n", nullSafe(w.title()),
+                        truncate(nullSafe(w.content()), WEB_SNIPPET_CHARS))));
+                ctx.append("\n");
+            }
+            List<TouristSpotDto> tour = new ArrayList<>();
+            for (TouristSpotDto t : s.tour()) {
+                if (tour.size() >= TOUR_LIMIT) break;
+                if (t.getHubTatsNm() == null || !seenSpots.add(t.getHubTatsNm())) { dropped++; continue; }
+                tour.add(t);
+            }
+            if (!tour.isEmpty()) {
+                ctx.append("=== 관광공사 관광지 (이 권역) ===\n");
+                tour.forEach(t -> ctx.append(String.format("- %s (%s %s)\n",
+                        t.getHubTatsNm(), nullSafe(t.getAreaNm()), nullSafe(t.getSignguNm()))));
+                ctx.append("\n");
+            }
+            List<NaverBlogSearchDto.BlogItem> blogs = new ArrayList<>();
+            for (NaverBlogSearchDto.BlogItem b : s.blogs()) {
+                if (blogs.size() >= BLOG_LIMIT) break;
+                if (b.getLink() == null || !seenUrls.add(b.getLink())) { dropped++; continue; }
+                blogs.add(b);
+            }
+            if (!blogs.isEmpty()) {
+                ctx.append("=== 네이버 블로그 참고 (이 권역) ===\n");
+                blogs.forEach(b -> ctx.append(String.format("- %s — %s\n",
+                        stripHtml(b.getTitle()), stripHtml(b.getDescription()))));
+                ctx.append("\n");
+            }
+            out.add(ctx.toString());
+        }
+        log.info("[segment-rag] 권역 {}개 컨텍스트 구성 (중복 제외 {}건)", all.size(), dropped);
+        return out;
+    }
+
+    private static String firstNonBlank(String a, String b) {
+        if (a != null && !a.isBlank()) return a.trim();
+        if (b != null && !b.isBlank()) return b.trim();
+        return null;
+    }
+
+    private static String truncate(String s, int max) {
+        return s.length() > max ? s.substring(0, max) : s;
+    }
+
+    private static String stripHtml(String s) {
+        if (s == null) return "";
+        return s.replaceAll("<[^>]+>", "").replace("&quot;", "\"").replace("&amp;", "&");
+    }
+
+    private static String nullSafe(String s) {
+        return s == null ? "" : s;
+    }
+}
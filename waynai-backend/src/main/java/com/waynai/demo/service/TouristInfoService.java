@@ -5,6 +5,7 @@ import com.waynai.demo.dto.AreaCodeDto;
 import com.waynai.demo.dto.TouristApiResponseDto;
 import com.waynai.demo.dto.TouristSpotResponseDto;
 import com.waynai.demo.util.AreaCodeUtil;
+import com.waynai.demo.util.KoreanGazetteer;
 import com.waynai.demo.util.ValidationUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +23,7 @@ public class TouristInfoService {
     
     private final TouristApiClient touristApiClient;
     private final AreaCodeUtil areaCodeUtil;
+    private final KoreanGazetteer koreanGazetteer;
     
     /**
      * 특정 지역의 관광지 목록 조회
@@ -66,7 +68,10 @@ public class TouristInfoService {
         
         try {
             TouristApiResponseDto apiResponse = touristApiClient.getAreaBasedList(areaCode, sigunguCode, pageNo, numOfRows);
-            return TouristSpotResponseDto.success(apiResponse);
+            TouristSpotResponseDto response = TouristSpotResponseDto.success(apiResponse);
+            // 좌표가 붙은 관광지는 로컬 지오코딩 색인으로도 쓴다.
+            koreanGazetteer.index(response.getItems());
+            return response;
         } catch (Exception e) {
             log.error("관광지 조회 실패 - 지역: {}, 시군구: {}", areaCode, sigunguCode, e);
             return TouristSpotResponseDto.error("ERROR", "관광지 조회 중 오류가 발생했습니다: " + e.getMessage());
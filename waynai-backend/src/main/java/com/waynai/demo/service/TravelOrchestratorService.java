@@ -1,7 +1,10 @@
 package com.waynai.demo.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waynai.demo.bulkhead.Bulkhead;
+import com.waynai.demo.bulkhead.BulkheadRegistry;
 import com.waynai.demo.client.GeminiApiClient;
+import com.waynai.demo.client.LlmTask;
 import com.waynai.demo.dto.FlightOfferDto;
 import com.waynai.demo.dto.IntentAnalysisDto;
 import com.waynai.demo.dto.NaverBlogSearchDto;
@@ -11,18 +14,26 @@ import com.waynai.demo.dto.TouristSpotResponseDto;
 import com.waynai.demo.dto.TravelEvent;
 import com.waynai.demo.dto.TravelPlanDto;
 import com.waynai.demo.util.PromptLoader;
+import com.waynai.demo.util.StreamingPlanParser;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 /**
@@ -34,6 +45,9 @@ import java.util.stream.Collectors;
  * <p>기존 {@link TravelPlanService} 가 제공하던 구조화 JSON 프롬프트를 재사용하되,
  * Gemini 호출이 완료된 시점에 구조화 파싱을 시도하고 성공하면 {@code plan} 이벤트,
  * 실패하면 누적된 {@code token} 텍스트가 그대로 결과로 남도록 설계했습니다.
+ *
+ * <p>파이프라인은 단계별 Mono 의 의존 그래프로 구성한다({@code pipeline} 참고). 요청 스레드를
+ * 붙잡고 기다리는 {@code block()} 은 쓰지 않는다.
  */
 @Slf4j
 @Service
@@ -51,8 +65,26 @@ public class TravelOrchestratorService {
     private final com.waynai.demo.client.IataResolver iataResolver;
     private final com.waynai.demo.client.TavilyApiClient tavilyApiClient;
     private final com.waynai.demo.client.HotelCrawlClient hotelCrawlClient;
-    private final com.waynai.demo.client.GeocodingClient geocodingClient;
+    private final GeocodingService geocodingService;
     private final com.waynai.demo.client.DaeroClient daeroClient;
+    private final SegmentRagService segmentRagService;
+    private final com.waynai.demo.quota.QuotaRegistry quotaRegistry;
+    private final BulkheadRegistry bulkheads;
+    private final PlanCache planCache;
+
+    /** 다권역 계획에서 동시에 보내는 권역 생성 호출 수 상한. */
+    @Value("${waynai.plan.segment-parallelism:3}")
+    private int segmentParallelism;
+
+    /** 생성 뒤 이동시간·대중교통 보강의 동시 조회 수, 전체 대기 상한(넘으면 도착한 결과만 반영). */
+    @Value("${waynai.plan.enrich-parallelism:8}")
+    private int enrichParallelism;
+
+    @Value("${waynai.plan.enrich-budget-ms:6000}")
+    private long enrichBudgetMs;
+
+    /** 동시 emit 충돌 시 재시도 시간 상한. 이벤트 하나를 넣는 동안만 겹치므로 실제로는 마이크로초 단위다. */
+    private static final Sinks.EmitFailureHandler EMIT_RETRY = Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1));
 
     /** 국내 공항 IATA (여기에 없는 코드로 해석되면 해외로 판정). */
     private static final java.util.Set<String> KOREAN_AIRPORTS = java.util.Set.of(
@@ -77,235 +109,420 @@ public class TravelOrchestratorService {
                                                 String departDate, String returnDate) {
         return Flux.defer(() -> {
             Sinks.Many<TravelEvent> sink = Sinks.many().unicast().onBackpressureBuffer();
-            // 별도 스레드에서 파이프라인 실행. 각 단계에서 sink 로 이벤트 push.
-            CompletableFuture.runAsync(() -> runPipeline(query, origin, departDate, returnDate, sink),
-                    Schedulers.boundedElastic()::schedule);
-            return sink.asFlux();
+            PlanCache.Transcript transcript = planCache.transcript();
+            // 파이프라인은 단계 그래프(Mono)로 구독만 한다. 구독자가 끊으면(SSE 종료) 진행 중 단계도 취소.
+            Disposable run = pipeline(query, origin, departDate, returnDate, sink, transcript).subscribe(
+                    ignored -> { },
+                    e -> {
+                        log.error("[orchestrator] 파이프라인 실패", e);
+                        emit(sink, TravelEvent.builder()
+                                .type("error").stage("error")
+                                .message("여행 계획 생성 중 오류가 발생했습니다: " + e.getMessage())
+                                .build());
+                        complete(sink);
+                    },
+                    () -> complete(sink));
+            return sink.asFlux().doOnNext(transcript::record).doOnCancel(run::dispose);
         });
     }
 
-    private void runPipeline(String query, String origin, String departDate, String returnDate,
-                             Sinks.Many<TravelEvent> sink) {
-        try {
-            emit(sink, TravelEvent.builder()
-                    .type("stage").stage("analyzing")
-                    .message("여행 의도를 분석하는 중입니다.")
-                    .build());
-
-            IntentAnalysisDto intent = intentAnalysisService.analyzeIntent(query)
-                    .onErrorResume(e -> {
-                        log.warn("[orchestrator] intent 분석 실패, 기본값 사용: {}", e.getMessage());
-                        return reactor.core.publisher.Mono.just(IntentAnalysisDto.builder()
-                                .intent("general")
-                                .confidence(0.3)
-                                .reason("intent 분석 실패: " + e.getMessage())
-                                .build());
-                    })
-                    .block();
+    /** 단계 간 입력 묶음. 생성 단계는 이 전부가 준비돼야 시작한다. */
+    private record Sources(IntentAnalysisDto intent,
+                           TouristSpotResponseDto tour,
+                           NaverBlogSearchDto naver,
+                           List<com.waynai.demo.client.TavilyApiClient.WebResult> web,
+                           List<TravelPlanDto.Accommodation> hotels,
+                           List<FlightOfferDto> flights,
+                           List<String> segmentContexts) {}
 
-            // intent LLM 이 불안정(실패 시 general)해도 IATA 로 국내/해외를 결정적으로 보정.
-            normalizeIntent(intent, query);
+    /** 생성 결과. plan 이 null 이면 aiText(원문)로 폴백한다. */
+    private record Generated(TravelPlanDto plan, String aiText) {}
 
-            emit(sink, TravelEvent.builder()
-                    .type("intent").stage("analyzing")
-                    .message(describeIntent(intent))
-                    .payload(intent)
-                    .build());
+    /**
+     * 의존 그래프:
+     * <pre>
+     * intent ─┬─ tour ────┐
+     *         ├─ naver ───┤
+     *         ├─ web ─────┼─ generate ─ enrich ─ plan/done
+     *         ├─ hotels ──┤
+     *         ├─ flights ─┤
+     *         └─ segRag ──┘   (다권역일 때만: 권역별 관광공사·블로그·웹)
+     * </pre>
+     * 수집 단계는 intent 만 입력으로 받아 동시에 돌고, 끝나는 즉시 각자의 sources.* 이벤트를 보낸다.
+     * 블로킹 클라이언트 호출은 상류별 격벽({@link BulkheadRegistry})에 가두고, LLM 호출은 논블로킹 체인으로 잇는다.
+     * 격벽이 포화면 그 소스는 비운 채 진행한다.
+     * 같은 조건의 계획이 {@link PlanCache} 에 있으면 intent 뒤 단계를 모두 건너뛰고 {@link #replay} 한다.
+     */
+    private Mono<Void> pipeline(String query, String origin, String departDate, String returnDate,
+                                Sinks.Many<TravelEvent> sink, PlanCache.Transcript transcript) {
+        Mono<IntentAnalysisDto> intentStage = Mono.defer(() -> {
+                    emit(sink, TravelEvent.builder()
+                            .type("stage").stage("analyzing")
+                            .message("여행 의도를 분석하는 중입니다.")
+                            .build());
+                    return intentAnalysisService.analyzeIntent(query);
+                })
+                .onErrorResume(e -> {
+                    log.warn("[orchestrator] intent 분석 실패, 기본값 사용: {}", e.getMessage());
+                    return Mono.just(IntentAnalysisDto.builder()
+                            .intent("general")
+                            .confidence(0.3)
+                            .reason("intent 분석 실패: " + e.getMessage())
+                            .build());
+                })
+                // normalizeIntent 는 IATA autocomplete(HTTP)를 탈 수 있다.
+                .publishOn(Schedulers.boundedElastic())
+                .map(intent -> {
+                    // intent LLM 이 불안정(실패 시 general)해도 IATA 로 국내/해외를 결정적으로 보정.
+                    normalizeIntent(intent, query);
+                    transcript.key(planCache.key(intent, query, origin, departDate, returnDate));
+                    transcript.priceKey(planCache.priceKey(intent, query, origin, departDate, returnDate));
+                    emit(sink, TravelEvent.builder()
+                            .type("intent").stage("analyzing")
+                            .message(describeIntent(intent))
+                            .payload(intent)
+                            .build());
+                    emit(sink, TravelEvent.builder()
+                            .type("stage").stage("searching")
+                            .message("RAG 컨텍스트(관광공사 · 네이버 블로그 · 웹 · 숙소 · 항공)를 병렬로 수집하는 중입니다.")
+                            .build());
+                    return intent;
+                })
+                .cache();
+
+        // 수집 단계 (실패해도 파이프라인은 계속 진행 → 각 safeCollect* 가 null/빈 리스트로 흡수).
+        Mono<Optional<TouristSpotResponseDto>> tourStage = intentStage
+                .flatMap(intent -> blockingStage(BulkheadRegistry.TOUR, () -> safeCollectTour(intent))
+                        .doOnNext(tour -> emit(sink, TravelEvent.builder()
+                                .type("sources.tour").stage("searching")
+                                .message(tour.map(TouristSpotResponseDto::isSuccess).orElse(false)
+                                        ? String.format("관광공사 API 에서 관광지 %d개를 찾았습니다.",
+                                                nullSafe(tour.get().getItemCount()))
+                                        : "관광공사 API 호출 결과가 없습니다.")
+                                .payload(toTourSummary(intent, tour.orElse(null)))
+                                .build())));
+
+        Mono<Optional<NaverBlogSearchDto>> naverStage = intentStage
+                .flatMap(intent -> safeCollectNaver(intent, query))
+                .doOnNext(naver -> emit(sink, TravelEvent.builder()
+                        .type("sources.naver").stage("searching")
+                        .message(naver.map(NaverBlogSearchDto::getItems).isPresent()
+                                ? String.format("네이버 블로그에서 참고 포스트 %d개를 찾았습니다.",
+                                        naver.get().getItems().size())
+                                : "네이버 블로그 검색 결과가 없습니다.")
+                        .payload(toNaverSummary(query, naver.orElse(null)))
+                        .build()));
+
+        Mono<Optional<List<com.waynai.demo.client.TavilyApiClient.WebResult>>> webStage = intentStage
+                .flatMap(intent -> blockingStage(BulkheadRegistry.WEB, () -> safeCollectWeb(intent, query)))
+                .doOnNext(opt -> opt.filter(web -> !web.isEmpty()).ifPresent(web -> {
+                    List<SourceSummaryDto.SourceItem> webItems = web.stream().limit(5)
+                            .map(w -> SourceSummaryDto.SourceItem.builder()
+                                    .title(w.title()).url(w.url()).build())
+                            .collect(Collectors.toList());
+                    emit(sink, TravelEvent.builder()
+                            .type("sources.web").stage("searching")
+                            .message(String.format("웹에서 참고 자료 %d건을 찾았습니다.", web.size()))
+                            .payload(SourceSummaryDto.builder()
+                                    .source("web").count(web.size()).items(webItems).context(query).build())
+                            .build());
+                }));
+
+        // === 숙소 조회 (여기어때 실데이터) ===
+        Mono<Optional<List<TravelPlanDto.Accommodation>>> hotelStage = intentStage
+                .flatMap(intent -> blockingStage(BulkheadRegistry.HOTEL, () -> safeCollectHotels(intent, query)))
+                .doOnNext(opt -> opt.filter(hotels -> !hotels.isEmpty())
+                        .ifPresent(hotels -> emit(sink, hotelsEvent(hotels))));
+
+        // === 항공권 조회 (실데이터 grounding) ===
+        Mono<Optional<List<FlightOfferDto>>> flightStage = intentStage
+                .flatMap(intent -> blockingStage(BulkheadRegistry.FLIGHT,
+                        () -> safeCollectFlights(intent, query, origin, departDate, returnDate)))
+                .doOnNext(opt -> opt.filter(flights -> !flights.isEmpty())
+                        .ifPresent(flights -> emit(sink, flightsEvent(flights))));
+
+        // === 권역별 RAG (다권역 계획 전용) ===
+        Mono<List<String>> segmentRagStage = intentStage
+                .flatMap(intent -> isSegmented(intent)
+                        ? segmentRagService.collect(intent).onErrorReturn(List.of())
+                        : Mono.just(List.<String>of()));
+
+        Mono<Void> generated = Mono.zip(intentStage, tourStage, naverStage, webStage, hotelStage, flightStage,
+                        segmentRagStage)
+                .map(t -> new Sources(t.getT1(), t.getT2().orElse(null), t.getT3().orElse(null),
+                        t.getT4().orElse(null), t.getT5().orElse(null), t.getT6().orElse(null), t.getT7()))
+                .flatMap(src -> generate(src, sink)
+                        .flatMap(gen -> gen.plan() == null ? Mono.just(gen)
+                                : fillMissingCoords(gen.plan(), src.intent()).thenReturn(gen))
+                        .publishOn(Schedulers.boundedElastic())
+                        .map(gen -> enrich(gen, src, query))
+                        .flatMap(gen -> enrichMovement(gen.plan(), src.intent()).thenReturn(gen)))
+                .doOnNext(gen -> emitResult(gen, sink))
+                .then();
+
+        // 수집 단계는 모두 intentStage 에서 파생되므로 generated 를 구독하지 않으면 시작조차 하지 않는다.
+        return intentStage.flatMap(intent -> {
+            PlanCache.Hit hit = planCache.lookup(transcript.key(), transcript.priceKey());
+            if (hit == null) return generated;
+            transcript.replayed();
+            return replay(hit, intent, query, origin, departDate, returnDate, transcript, sink);
+        });
+    }
 
-            emit(sink, TravelEvent.builder()
-                    .type("stage").stage("searching")
-                    .message("RAG 컨텍스트(관광공사 · 네이버 블로그)를 병렬로 수집하는 중입니다.")
-                    .build());
+    /**
+     * 캐시된 계획 재생. 저장된 이벤트(sources.*·stage·plan, 숙소·항공 제외)를 즉시 흘리고, 숙소·항공은 이번 요청 날짜의
+     * 가격 영역에서 꺼내 sources.hotel/flight 로 보낸다. 그 날짜 가격이 없거나 만료됐으면 그 소스만 다시 받고, 저장된
+     * 계획과 다른 가격(다른 날짜·새로 받은 값)이면 계획 사본에 덮어써 갱신된 plan 을 한 번 더 보낸다.
+     * 같은 날짜에서 새로 받은 값이 비면 기존 값을 유지하고, 다른 날짜면 저장된 항공편은 버린다.
+     */
+    private Mono<Void> replay(PlanCache.Hit hit, IntentAnalysisDto intent, String query, String origin,
+                              String departDate, String returnDate, PlanCache.Transcript transcript,
+                              Sinks.Many<TravelEvent> sink) {
+        log.info("[orchestrator] 계획 캐시 적중: {}", transcript.key());
+        hit.events().forEach(e -> emit(sink, e));
+
+        String priceKey = transcript.priceKey();
+        Mono<Optional<List<TravelPlanDto.Accommodation>>> hotels = hit.hotels() != null
+                ? Mono.just(Optional.of(hit.hotels()))
+                : blockingStage(BulkheadRegistry.HOTEL, () -> safeCollectHotels(intent, query))
+                        .doOnNext(opt -> planCache.putHotels(priceKey, opt.orElse(null)));
+        Mono<Optional<List<FlightOfferDto>>> flights = hit.flights() != null
+                ? Mono.just(Optional.of(hit.flights()))
+                : blockingStage(BulkheadRegistry.FLIGHT,
+                        () -> safeCollectFlights(intent, query, origin, departDate, returnDate))
+                        .doOnNext(opt -> planCache.putFlights(priceKey, opt.orElse(null)));
+        boolean current = hit.sameDates() && hit.hotels() != null && hit.flights() != null;
+
+        return Mono.zip(hotels, flights)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(t -> {
+                    List<TravelPlanDto.Accommodation> freshHotels = t.getT1().filter(h -> !h.isEmpty()).orElse(null);
+                    List<FlightOfferDto> freshFlights = t.getT2().filter(f -> !f.isEmpty()).orElse(null);
+                    if (freshHotels != null) emit(sink, hotelsEvent(freshHotels));
+                    if (freshFlights != null) emit(sink, flightsEvent(freshFlights));
+                    if (!current && (freshHotels != null || freshFlights != null || !hit.sameDates())) {
+                        TravelPlanDto plan = planCache.copy(hit.plan());
+                        if (!hit.sameDates() && freshFlights == null) plan.setFlights(null);
+                        enrich(new Generated(plan, ""), new Sources(intent, null, null, null, freshHotels,
+                                freshFlights != null ? freshFlights : plan.getFlights(), List.of()), query);
+                        emit(sink, TravelEvent.builder()
+                                .type("plan").stage("completed")
+                                .message("최신 숙소·항공 가격으로 갱신했어요.")
+                                .payload(plan)
+                                .build());
+                    }
+                    emit(sink, TravelEvent.builder()
+                            .type("done").stage("completed")
+                            .message("여행 계획 생성이 완료되었습니다.")
+                            .build());
+                })
+                .then();
+    }
 
-            // 병렬 수집 (실패해도 파이프라인은 계속 진행).
-            CompletableFuture<TouristSpotResponseDto> tourFut = CompletableFuture.supplyAsync(
-                    () -> safeCollectTour(intent));
-            CompletableFuture<NaverBlogSearchDto> naverFut = CompletableFuture.supplyAsync(
-                    () -> safeCollectNaver(intent, query));
-            CompletableFuture<List<com.waynai.demo.client.TavilyApiClient.WebResult>> webFut =
-                    CompletableFuture.supplyAsync(() -> safeCollectWeb(intent, query));
-            CompletableFuture.allOf(tourFut, naverFut, webFut).join();
+    private static TravelEvent hotelsEvent(List<TravelPlanDto.Accommodation> hotels) {
+        TravelPlanDto.Accommodation h = hotels.get(0);
+        return TravelEvent.builder()
+                .type("sources.hotel").stage("searching")
+                .message(String.format("숙소 %d곳 (예: %s%s)", hotels.size(), h.getName(),
+                        h.getPricePerNightKrw() != null ? String.format(" · 1박 %,d원", h.getPricePerNightKrw()) : ""))
+                .payload(hotels)
+                .build();
+    }
 
-            TouristSpotResponseDto tour = tourFut.get();
-            NaverBlogSearchDto naver = naverFut.get();
-            List<com.waynai.demo.client.TavilyApiClient.WebResult> web = webFut.get();
+    private static TravelEvent flightsEvent(List<FlightOfferDto> flights) {
+        FlightOfferDto cheapest = flights.get(0);
+        return TravelEvent.builder()
+                .type("sources.flight").stage("searching")
+                .message(String.format("항공권 %d건 (최저 %s→%s %,d%s)",
+                        flights.size(), cheapest.getOrigin(), cheapest.getDestination(),
+                        cheapest.getPrice() != null ? cheapest.getPrice() : 0,
+                        cheapest.getCurrency() != null ? cheapest.getCurrency().toUpperCase() : ""))
+                .payload(flights)
+                .build();
+    }
 
-            emit(sink, TravelEvent.builder()
-                    .type("sources.tour").stage("searching")
-                    .message(tour != null && tour.isSuccess()
-                            ? String.format("관광공사 API 에서 관광지 %d개를 찾았습니다.",
-                                    nullSafe(tour.getItemCount()))
-                            : "관광공사 API 호출 결과가 없습니다.")
-                    .payload(toTourSummary(intent, tour))
-                    .build());
+    private boolean isSegmented(IntentAnalysisDto intent) {
+        return intent != null && intent.getSegments() != null && intent.getSegments().size() >= 2;
+    }
 
-            emit(sink, TravelEvent.builder()
-                    .type("sources.naver").stage("searching")
-                    .message(naver != null && naver.getItems() != null
-                            ? String.format("네이버 블로그에서 참고 포스트 %d개를 찾았습니다.",
-                                    naver.getItems().size())
-                            : "네이버 블로그 검색 결과가 없습니다.")
-                    .payload(toNaverSummary(query, naver))
-                    .build());
+    /**
+     * 블로킹 수집 호출을 해당 상류 격벽에 격리. null 결과·격벽 포화도 값(Optional.empty)으로 흘려 zip 을 막지 않는다.
+     */
+    private <T> Mono<Optional<T>> blockingStage(String bulkhead, Callable<T> task) {
+        return bulkheads.get(bulkhead).call(() -> Optional.ofNullable(task.call()))
+                .onErrorResume(RejectedExecutionException.class, e -> {
+                    log.warn("[orchestrator] {} — 이 소스 없이 진행", e.getMessage());
+                    return Mono.just(Optional.<T>empty());
+                });
+    }
 
-            if (web != null && !web.isEmpty()) {
-                List<SourceSummaryDto.SourceItem> webItems = web.stream().limit(5)
-                        .map(w -> SourceSummaryDto.SourceItem.builder()
-                                .title(w.title()).url(w.url()).build())
-                        .collect(Collectors.toList());
+    /** === 일정 생성 === 권역이 2개 이상이면 권역별 생성, 아니면 단일 스트리밍 생성. */
+    private Mono<Generated> generate(Sources src, Sinks.Many<TravelEvent> sink) {
+        emit(sink, TravelEvent.builder()
+                .type("stage").stage("generating")
+                .message("여행 일정을 구성하는 중입니다.")
+                .build());
+        IntentAnalysisDto intent = src.intent();
+        if (isSegmented(intent)) {
+            // 권역별로 나눠 상세 생성 → 병합 (긴 다도시 일정에서 누락·일반화 방지).
+            // 권역 전용 컨텍스트가 비면 주 목적지 컨텍스트로 대체.
+            String ragCtx = buildRagContext(intent, src.tour(), src.naver(), src.flights(), src.web());
+            return generateSegmentedPlan(intent, src.segmentContexts(), ragCtx, sink)
+                    .map(plan -> new Generated(plan, ""));
+        }
+        String prompt = buildStructuredPrompt(intent, src.tour(), src.naver(), src.flights(), src.web());
+        StringBuilder full = new StringBuilder();
+        AtomicReference<String> streamModel = new AtomicReference<>();
+        // 델타를 받는 즉시 점진 파싱 → 일차/최상위 필드가 닫힐 때마다 partial 로 계획 스냅샷을 보낸다.
+        StreamingPlanParser parser = new StreamingPlanParser(objectMapper, new StreamingPlanParser.Listener() {
+            @Override
+            public void onDay(int index, TravelPlanDto.DayPlan day, TravelPlanDto snapshot) {
                 emit(sink, TravelEvent.builder()
-                        .type("sources.web").stage("searching")
-                        .message(String.format("웹에서 참고 자료 %d건을 찾았습니다.", web.size()))
-                        .payload(SourceSummaryDto.builder()
-                                .source("web").count(web.size()).items(webItems).context(query).build())
+                        .type("partial").stage("generating")
+                        .message(String.format("%d일차 일정 완성", index + 1))
+                        .payload(snapshot)
                         .build());
+                // 나머지 일차를 생성하는 동안 좌표 없는 방문지를 미리 조회해 둔다(보정 단계에서 캐시 적중).
+                if (day.getSpots() != null && snapshot.getDestination() != null) {
+                    geocodingService.prefetch(day.getSpots().stream()
+                            .filter(sp -> sp.getLatitude() == null || sp.getLongitude() == null)
+                            .map(TravelPlanDto.Spot::getName)
+                            .collect(Collectors.toList()), snapshot.getDestination());
+                }
             }
 
-            // === 숙소 조회 (Hotellook 실데이터) ===
-            List<TravelPlanDto.Accommodation> hotels = safeCollectHotels(intent, query);
-            if (hotels != null && !hotels.isEmpty()) {
-                TravelPlanDto.Accommodation h = hotels.get(0);
+            @Override
+            public void onField(String name, TravelPlanDto snapshot) {
+                if ("type".equals(name)) return;
                 emit(sink, TravelEvent.builder()
-                        .type("sources.hotel").stage("searching")
-                        .message(String.format("숙소 %d곳 (예: %s%s)", hotels.size(), h.getName(),
-                                h.getPricePerNightKrw() != null ? String.format(" · 1박 %,d원", h.getPricePerNightKrw()) : ""))
-                        .payload(hotels)
+                        .type("partial").stage("generating")
+                        .payload(snapshot)
                         .build());
             }
+        });
+        return geminiApiClient.generateJsonStream(prompt, model -> {
+                    streamModel.set(model);
+                    emit(sink, TravelEvent.builder()
+                            .type("model").stage("generating")
+                            .message("AI 모델을 선택했습니다: " + model)
+                            .payload(Map.of("model", model))
+                            .build());
+                }, LlmTask.STRUCTURED_PLAN)
+                .doOnNext(delta -> {
+                    full.append(delta);
+                    emit(sink, TravelEvent.builder()
+                            .type("token").stage("generating")
+                            .payload(delta)
+                            .build());
+                    parser.feed(delta);
+                })
+                .then(Mono.defer(() -> {
+                    String aiText = full.toString();
+                    // 점진 파싱이 루트까지 깨끗이 닫혔으면 그 결과를 쓰고, 아니면(잘림·깨진 조각) 전체 재파싱.
+                    TravelPlanDto plan = parser.isComplete() ? parser.snapshot() : null;
+                    if (plan == null) plan = tryParsePlan(aiText);
+                    if (!aiText.isBlank()) {
+                        geminiApiClient.reportParseResult(streamModel.get(), LlmTask.STRUCTURED_PLAN, plan != null);
+                    }
+                    if (plan != null) return Mono.just(new Generated(plan, aiText));
+                    // 저가 모델이 긴 JSON 을 깨뜨리는 경우(스마트따옴표·구조붕괴) 비스트리밍으로 1회 재생성.
+                    // 같은 프롬프트라 캐시에 남은 깨진 응답을 먼저 버려야 재시도가 모델까지 간다.
+                    geminiApiClient.discardCachedJson(prompt);
+                    log.warn("[orchestrator] 스트리밍 JSON 파싱 실패 → 비스트리밍 재생성 1회 시도");
+                    AtomicReference<String> retryModel = new AtomicReference<>();
+                    return geminiApiClient.generateJson(prompt, retryModel::set, LlmTask.STRUCTURED_PLAN)
+                            .map(retry -> {
+                                TravelPlanDto p = tryParsePlan(retry);
+                                geminiApiClient.reportParseResult(retryModel.get(), LlmTask.STRUCTURED_PLAN, p != null);
+                                if (p == null) geminiApiClient.discardCachedJson(prompt);
+                                if (p != null) log.info("[orchestrator] 재생성으로 파싱 성공");
+                                return new Generated(p, aiText);
+                            })
+                            .onErrorResume(re -> {
+                                log.warn("[orchestrator] 재생성 실패: {}", re.getMessage());
+                                return Mono.empty();
+                            })
+                            .defaultIfEmpty(new Generated(null, aiText));
+                }));
+    }
 
-            // === 항공권 조회 (실데이터 grounding) ===
-            List<FlightOfferDto> flights = safeCollectFlights(intent, query, origin, departDate, returnDate);
-            if (flights != null && !flights.isEmpty()) {
-                FlightOfferDto cheapest = flights.get(0);
-                emit(sink, TravelEvent.builder()
-                        .type("sources.flight").stage("searching")
-                        .message(String.format("항공권 %d건 (최저 %s→%s %,d%s)",
-                                flights.size(), cheapest.getOrigin(), cheapest.getDestination(),
-                                cheapest.getPrice() != null ? cheapest.getPrice() : 0,
-                                cheapest.getCurrency() != null ? cheapest.getCurrency().toUpperCase() : ""))
-                        .payload(flights)
-                        .build());
-            }
+    /** 실데이터 부착 + 비용 현실화(좌표 보정 이후). 숙소 링크 조회가 섞여 boundedElastic 에서 호출된다. */
+    private Generated enrich(Generated gen, Sources src, String query) {
+        TravelPlanDto plan = gen.plan();
+        if (plan == null) return gen;
+        IntentAnalysisDto intent = src.intent();
+        List<FlightOfferDto> flights = src.flights();
+        List<TravelPlanDto.Accommodation> hotels = src.hotels();
+        if (flights != null && !flights.isEmpty()) {
+            // LLM 이 지어낸 값 대신 실제 항공권 오퍼를 계획에 부착.
+            plan.setFlights(flights);
+        }
+        if (hotels != null && !hotels.isEmpty()) {
+            // LLM 추상 숙소 대신 실제 호텔(가격·예약링크) 부착.
+            plan.setAccommodation(hotels.get(0));
+        }
+        // 숙소에 예약 링크가 없으면 여기어때 검색 딥링크로 보완(국내 전용, 예약 버튼 활성).
+        boolean domesticPlan = intent == null || !Boolean.TRUE.equals(intent.getInternational());
+        if (domesticPlan && plan.getAccommodation() != null
+                && (plan.getAccommodation().getBookingUrl() == null || plan.getAccommodation().getBookingUrl().isBlank())) {
+            plan.getAccommodation().setBookingUrl(
+                    hotelCrawlClient.searchLink(resolveDestinationName(intent, query)));
+        }
+        // 비용을 규칙 기반으로 현실화 (LLM 추측 대신 항공 실값 + 숙소×박수 + per-diem).
+        computeCosts(plan, intent, flights);
+        return gen;
+    }
 
-            // === 일정 생성 ===
+    private void emitResult(Generated gen, Sinks.Many<TravelEvent> sink) {
+        TravelPlanDto plan = gen.plan();
+        String aiText = gen.aiText();
+        if (plan != null && plan.getItinerary() != null && !plan.getItinerary().isEmpty()) {
             emit(sink, TravelEvent.builder()
-                    .type("stage").stage("generating")
-                    .message("여행 일정을 구성하는 중입니다.")
+                    .type("plan").stage("completed")
+                    .message(String.format("%s · %s 일정이 완성됐어요.",
+                            plan.getDestination() != null ? plan.getDestination() : "여행지",
+                            plan.getDuration() != null ? plan.getDuration() : "맞춤"))
+                    .payload(plan)
                     .build());
-
-            String ragCtx = buildRagContext(intent, tour, naver, flights, web);
-            boolean segmented = intent != null && intent.getSegments() != null && intent.getSegments().size() >= 2;
-            TravelPlanDto plan;
-            String aiText = "";
-            if (segmented) {
-                // 권역별로 나눠 상세 생성 → 병합 (긴 다도시 일정에서 누락·일반화 방지).
-                plan = generateSegmentedPlan(intent, ragCtx, sink);
-            } else {
-                String prompt = buildStructuredPrompt(intent, tour, naver, flights, web);
-                StringBuilder full = new StringBuilder();
-                geminiApiClient.generateJsonStream(prompt, model ->
-                        emit(sink, TravelEvent.builder()
-                                .type("model").stage("generating")
-                                .message("AI 모델을 선택했습니다: " + model)
-                                .payload(Map.of("model", model))
-                                .build()))
-                        .doOnNext(delta -> {
-                            full.append(delta);
-                            emit(sink, TravelEvent.builder()
-                                    .type("token").stage("generating")
-                                    .payload(delta)
-                                    .build());
-                        })
-                        .blockLast();
-                aiText = full.toString();
-                plan = tryParsePlan(aiText);
-                // 저가 모델이 긴 JSON 을 깨뜨리는 경우(스마트따옴표·구조붕괴) 비스트리밍으로 1회 재생성.
-                if (plan == null) {
-                    log.warn("[orchestrator] 스트리밍 JSON 파싱 실패 → 비스트리밍 재생성 1회 시도");
-                    try {
-                        String retry = geminiApiClient.generateJson(prompt).block();
-                        plan = tryParsePlan(retry);
-                        if (plan != null) log.info("[orchestrator] 재생성으로 파싱 성공");
-                    } catch (Exception re) {
-                        log.warn("[orchestrator] 재생성 실패: {}", re.getMessage());
-                    }
-                }
-            }
-            if (plan != null && flights != null && !flights.isEmpty()) {
-                // LLM 이 지어낸 값 대신 실제 항공권 오퍼를 계획에 부착.
-                plan.setFlights(flights);
-            }
-            if (plan != null && hotels != null && !hotels.isEmpty()) {
-                // LLM 추상 숙소 대신 실제 호텔(가격·예약링크) 부착.
-                plan.setAccommodation(hotels.get(0));
-            }
-            // 숙소에 예약 링크가 없으면 여기어때 검색 딥링크로 보완(국내 전용, 예약 버튼 활성).
-            boolean domesticPlan = intent == null || !Boolean.TRUE.equals(intent.getInternational());
-            if (plan != null && domesticPlan && plan.getAccommodation() != null
-                    && (plan.getAccommodation().getBookingUrl() == null || plan.getAccommodation().getBookingUrl().isBlank())) {
-                plan.getAccommodation().setBookingUrl(
-                        hotelCrawlClient.searchLink(resolveDestinationName(intent, query)));
-            }
-            // 좌표 누락 보정 + LLM 환각 좌표(한국 밖·지역서 과도히 먼) 교정 (지도/경로/요금/대중교통 정확도↑). 지연 제한 위해 상한.
-            if (plan != null) {
-                fillMissingCoords(plan, intent);
-            }
-            // 비용을 규칙 기반으로 현실화 (LLM 추측 대신 항공 실값 + 숙소×박수 + per-diem).
-            if (plan != null) {
-                computeCosts(plan, intent, flights);
-            }
-            // 좌표가 있으면 실제 이동시간을 계산해 각 날짜 교통 문구에 반영 (ORS 키 있을 때만).
-            if (plan != null && routingApiClient.isEnabled()) {
-                enrichRouteTimes(plan, intent);
-            }
-            // 국내 구간은 daero 대중교통(버스·지하철·기차 + 환승·실요금)으로 추가 보강 (daero 기동 시).
-            if (plan != null && daeroClient.isEnabled()) {
-                enrichTransit(plan, intent);
-            }
-            if (plan != null && plan.getItinerary() != null && !plan.getItinerary().isEmpty()) {
-                emit(sink, TravelEvent.builder()
-                        .type("plan").stage("completed")
-                        .message(String.format("%s · %s 일정이 완성됐어요.",
-                                plan.getDestination() != null ? plan.getDestination() : "여행지",
-                                plan.getDuration() != null ? plan.getDuration() : "맞춤"))
-                        .payload(plan)
-                        .build());
-            } else if (aiText != null && !aiText.isBlank()) {
-                // 텍스트는 받았으나 구조화 파싱 실패(모델이 JSON 을 깨뜨림) → 원문 폴백.
-                emit(sink, TravelEvent.builder()
-                        .type("plan").stage("completed")
-                        .message("구조화(JSON) 파싱 결과가 없어 텍스트 본문을 그대로 사용합니다.")
-                        .payload(Map.of("fallback", true, "text", aiText))
-                        .build());
-            } else {
-                // LLM 이 아무 응답도 내지 못함(사용량 한도·인증·타임아웃 등) → 빈 계획으로 묻지 말고 명확히 에러.
-                log.error("[orchestrator] LLM 빈 응답 → 계획 생성 실패 (OpenRouter 키 한도/인증 확인)");
-                emit(sink, TravelEvent.builder()
-                        .type("error").stage("error")
-                        .message("AI 응답을 받지 못했어요. 잠시 후 다시 시도하거나, 사용량 한도를 확인해 주세요.")
-                        .build());
-            }
-
+        } else if (aiText != null && !aiText.isBlank()) {
+            // 텍스트는 받았으나 구조화 파싱 실패(모델이 JSON 을 깨뜨림) → 원문 폴백.
             emit(sink, TravelEvent.builder()
-                    .type("done").stage("completed")
-                    .message("여행 계획 생성이 완료되었습니다.")
+                    .type("plan").stage("completed")
+                    .message("구조화(JSON) 파싱 결과가 없어 텍스트 본문을 그대로 사용합니다.")
+                    .payload(Map.of("fallback", true, "text", aiText))
                     .build());
-
-            sink.tryEmitComplete();
-        } catch (Exception e) {
-            log.error("[orchestrator] 파이프라인 실패", e);
+        } else {
+            // LLM 이 아무 응답도 내지 못함(사용량 한도·인증·타임아웃 등) → 빈 계획으로 묻지 말고 명확히 에러.
+            log.error("[orchestrator] LLM 빈 응답 → 계획 생성 실패 (OpenRouter 키 한도/인증 확인)");
             emit(sink, TravelEvent.builder()
                     .type("error").stage("error")
-                    .message("여행 계획 생성 중 오류가 발생했습니다: " + e.getMessage())
+                    .message("AI 응답을 받지 못했어요. 잠시 후 다시 시도하거나, 사용량 한도를 확인해 주세요.")
                     .build());
-            sink.tryEmitComplete();
         }
+
+        emit(sink, TravelEvent.builder()
+                .type("done").stage("completed")
+                .message("여행 계획 생성이 완료되었습니다.")
+                .build());
     }
 
+    /**
+     * 단계들이 격벽·boundedElastic 스레드에서 동시에 emit 하므로, 동시 호출(FAIL_NON_SERIALIZED)은 잠깐 돌며 재시도해
+     * 직렬화한다. 구독 취소·종료 뒤의 emit 만 버린다.
+     */
     private void emit(Sinks.Many<TravelEvent> sink, TravelEvent event) {
-        Sinks.EmitResult r = sink.tryEmitNext(event);
-        if (r.isFailure()) {
-            log.debug("[orchestrator] emit 실패({}): {}", r, event.getType());
+        try {
+            sink.emitNext(event, EMIT_RETRY);
+        } catch (Sinks.EmissionException e) {
+            log.debug("[orchestrator] emit 실패({}): {}", e.getReason(), event.getType());
+        }
+    }
+
+    private void complete(Sinks.Many<TravelEvent> sink) {
+        try {
+            sink.emitComplete(EMIT_RETRY);
+        } catch (Sinks.EmissionException e) {
+            log.debug("[orchestrator] complete 실패({})", e.getReason());
         }
     }
 
@@ -321,19 +538,19 @@ public class TravelOrchestratorService {
             if ((destName == null || destName.isBlank()) && intent.getArea() != null) {
                 destName = intent.getArea().getName();
             }
-            // 2) IATA 해석 (목적지명 우선, 없으면 질의 토큰 스캔)
-            String iata = null;
-            String matchedToken = null;
+            // 2) IATA 해석 (목적지명 우선, 없으면 질의 문장 스캔) — 번들 사전만 사용, 네트워크 없음
+            com.waynai.demo.client.IataResolver.KnownCity hit = null;
             if (destName != null && !destName.isBlank()) {
-                iata = iataResolver.resolve(destName);
+                hit = iataResolver.resolveOffline(destName);
+                // 사전에 없는 목적지는 백그라운드로 조회해 두고(항공권 조회 시 캐시 적중), 이번엔 질의 스캔으로 진행
+                if (hit == null) iataResolver.warmAsync(destName);
             }
-            if (iata == null && query != null) {
-                for (String tok : query.trim().split("\\s+")) {
-                    String code = iataResolver.resolve(tok);
-                    if (code != null) { iata = code; matchedToken = tok; break; }
-                }
+            if (hit == null && query != null) {
+                hit = iataResolver.resolveOffline(query);
             }
-            if (iata == null) return; // 해석 불가 → intent 원본 유지
+            if (hit == null) return; // 해석 불가 → intent 원본 유지
+            String iata = hit.iata();
+            String matchedToken = hit.name();
 
             boolean korean = KOREAN_AIRPORTS.contains(iata);
             // intent 가 명확히 판정하지 못했거나 IATA 와 상충하면 IATA 기준으로 보정
@@ -371,86 +588,171 @@ public class TravelOrchestratorService {
     }
 
     /**
-     * 각 날짜 방문지 좌표열로 실제 총 이동시간(ORS)을 계산해 day.transportation 문구에 덧붙인다.
-     * 도보 스타일이면 도보 프로필 사용. 좌표 2개 미만인 날은 건너뜀.
+     * 각 날짜 교통 문구에 실제 이동시간(ORS, 차량/도보)과 국내 대중교통(daero, 환승·실요금)을 덧붙인다.
+     *
+     * <p>두 보강과 날짜·구간별 조회를 {@code route} 격벽에서 동시에 돌리고(동시 호출 {@code waynai.plan.enrich-parallelism}),
+     * {@code waynai.plan.enrich-budget-ms} 안에 도착한 결과만 반영한다. 일정이 길어도 생성 뒤 기다리는 시간은
+     * 거의 일정하다. 예산 안에 다 못 받은 날의 대중교통 합계는 일부 구간 기준임을 문구에 표시한다. best-effort.
      */
-    private void enrichRouteTimes(TravelPlanDto plan, IntentAnalysisDto intent) {
-        try {
-            if (plan.getItinerary() == null) return;
-            String style = intent != null ? intent.getStyle() : null;
-            boolean walking = style != null && (style.contains("도보") || style.contains("산책"));
-            String profile = walking ? "foot-walking" : "driving-car";
-            for (TravelPlanDto.DayPlan day : plan.getItinerary()) {
-                if (day.getSpots() == null) continue;
-                List<double[]> pts = new ArrayList<>();
+    private Mono<Void> enrichMovement(TravelPlanDto plan, IntentAnalysisDto intent) {
+        if (plan == null || plan.getItinerary() == null) return Mono.empty();
+        List<TravelPlanDto.DayPlan> days = plan.getItinerary();
+        List<List<double[]>> dayPts = new ArrayList<>(days.size());
+        for (TravelPlanDto.DayPlan day : days) {
+            List<double[]> pts = new ArrayList<>();
+            if (day.getSpots() != null) {
                 for (TravelPlanDto.Spot s : day.getSpots()) {
                     if (s.getLatitude() != null && s.getLongitude() != null) {
                         pts.add(new double[]{s.getLatitude(), s.getLongitude()});
                     }
                 }
-                // routeDetail(캐시됨) 사용 → 프론트 지도의 /api/route 와 캐시 공유(중복 ORS 호출 방지).
-                var detail = routingApiClient.routeDetail(pts, profile);
-                if (detail == null) continue;
-                long min = Math.round(detail.durationSeconds() / 60.0);
-                double km = detail.distanceMeters() / 1000.0;
-                String note = String.format("실제 이동 약 %d분 · %.1fkm (%s)",
-                        min, km, walking ? "도보" : "차량");
-                day.setTransportation(day.getTransportation() == null || day.getTransportation().isBlank()
-                        ? note
-                        : day.getTransportation() + " · " + note);
             }
-            log.info("[orchestrator] ORS 이동시간 반영 완료");
-        } catch (Exception e) {
-            log.warn("[orchestrator] 이동시간 계산 실패 (무시): {}", e.getMessage());
+            dayPts.add(pts);
         }
+        // directions 일일 예산이 바닥나 가면 남은 몫은 경로 상세 조회(사용자 직접 요청)에 남기고 matrix 로만 합계를 낸다.
+        Mono<Map<Integer, String>> route;
+        if (!routingApiClient.isEnabled()) {
+            route = Mono.just(Map.of());
+        } else if (routingApiClient.hasEmbeddedEngine() || !quotaRegistry.isNearlyExhausted("ors")) {
+            route = routeNotes(dayPts, intent, false);
+        } else if (!quotaRegistry.isNearlyExhausted("ors-matrix")) {
+            log.info("[orchestrator] ORS directions 예산 임박 — matrix 로만 이동시간 보강");
+            route = routeNotes(dayPts, intent, true);
+        } else {
+            log.info("[orchestrator] ORS 일일 예산 임박 — 이동시간 보강 생략");
+            route = Mono.just(Map.of());
+        }
+        // daero 는 국내 GTFS 전용 → 해외 목적지엔 적용하지 않음.
+        boolean international = intent != null && Boolean.TRUE.equals(intent.getInternational());
+        Mono<Map<Integer, String>> transit = daeroClient.isEnabled() && !international
+                ? transitNotes(dayPts)
+                : Mono.just(Map.of());
+        return Mono.zip(route, transit)
+                .doOnNext(t -> {
+                    for (int i = 0; i < days.size(); i++) {
+                        appendTransportation(days.get(i), t.getT1().get(i));
+                        appendTransportation(days.get(i), t.getT2().get(i));
+                    }
+                    if (!t.getT1().isEmpty()) log.info("[orchestrator] ORS 이동시간 반영 완료 ({}일)", t.getT1().size());
+                    if (!t.getT2().isEmpty()) log.info("[orchestrator] daero 대중교통 반영 완료 ({}일)", t.getT2().size());
+                })
+                .then();
     }
 
     /**
-     * 국내 구간 대중교통 실경로를 daero 엔진으로 조회해 각 날짜 교통 문구에 보강.
-     * ORS(차량/도보)와 달리 버스·지하철·기차 + 환승·실요금 포함. 방문지 좌표 연속쌍의 대중교통을
-     * 합산해 하루 요약을 만든다. 해외 목적지·daero 미기동·무경로 시 조용히 건너뜀(best-effort).
+     * 날짜별 ORS 총 이동 문구. 평소에는 날짜별 routeDetail(구간 캐시)을 동시에 받는다 — 프론트 지도가 같은 날의
+     * 경로를 /api/route 로 다시 요청하므로 여기서 채운 구간 캐시를 그대로 쓰고 ORS 를 다시 부르지 않는다.
+     * matrixOnly 면(directions 예산 임박) matrix 1회로 연속 구간 합만 받는다.
      */
-    private void enrichTransit(TravelPlanDto plan, IntentAnalysisDto intent) {
-        try {
-            if (plan.getItinerary() == null) return;
-            // daero 는 국내 GTFS 전용 → 해외 목적지엔 적용하지 않음.
-            if (intent != null && Boolean.TRUE.equals(intent.getInternational())) return;
-            int enrichedDays = 0;
-            for (TravelPlanDto.DayPlan day : plan.getItinerary()) {
-                if (day.getSpots() == null || day.getSpots().size() < 2) continue;
-                List<double[]> pts = new ArrayList<>();
-                for (TravelPlanDto.Spot s : day.getSpots()) {
-                    if (s.getLatitude() != null && s.getLongitude() != null) {
-                        pts.add(new double[]{s.getLatitude(), s.getLongitude()});
-                    }
-                }
-                if (pts.size() < 2) continue;
-                int totalMin = 0, totalTransfers = 0, totalFare = 0, legs = 0;
-                java.util.LinkedHashSet<String> dayModes = new java.util.LinkedHashSet<>();
-                for (int i = 0; i + 1 < pts.size(); i++) {
-                    var t = daeroClient.transit(pts.get(i)[0], pts.get(i)[1],
-                            pts.get(i + 1)[0], pts.get(i + 1)[1], "09:00");
-                    if (t == null) continue;
-                    totalMin += t.durationMin();
-                    totalTransfers += t.transfers();
-                    totalFare += t.fareKrw();
-                    legs++;
-                    if (t.modeSummary() != null && !t.modeSummary().isBlank()) {
-                        for (String m : t.modeSummary().split("·")) if (!m.isBlank()) dayModes.add(m);
-                    }
-                }
-                if (legs == 0) continue;
-                String modeStr = dayModes.isEmpty() ? "" : " (" + String.join("·", dayModes) + ")";
-                String note = String.format("대중교통 약 %d분·환승 %d회·~%,d원", totalMin, totalTransfers, totalFare) + modeStr;
-                day.setTransportation(day.getTransportation() == null || day.getTransportation().isBlank()
-                        ? note
-                        : day.getTransportation() + " · " + note);
-                enrichedDays++;
-            }
-            if (enrichedDays > 0) log.info("[orchestrator] daero 대중교통 반영 완료 ({}일)", enrichedDays);
-        } catch (Exception e) {
-            log.warn("[orchestrator] daero 대중교통 보강 실패 (무시): {}", e.getMessage());
+    private Mono<Map<Integer, String>> routeNotes(List<List<double[]>> dayPts, IntentAnalysisDto intent,
+                                                  boolean matrixOnly) {
+        String style = intent != null ? intent.getStyle() : null;
+        boolean walking = style != null && (style.contains("도보") || style.contains("산책"));
+        String profile = walking ? "foot-walking" : "driving-car";
+        Bulkhead bulkhead = bulkheads.get(BulkheadRegistry.ROUTE);
+        Flux<Map.Entry<Integer, com.waynai.demo.client.RoutingApiClient.RouteSummary>> found = matrixOnly
+                ? bulkhead.call(() -> routingApiClient.routeSummaries(dayPts, profile))
+                        .flatMapMany(sums -> Flux.range(0, sums.size())
+                                .filter(i -> sums.get(i) != null)
+                                .map(i -> Map.entry(i, sums.get(i))))
+                : Flux.range(0, dayPts.size())
+                        .filter(i -> dayPts.get(i).size() >= 2)
+                        .flatMap(i -> quietly(bulkhead.call(() -> routingApiClient.routeDetail(dayPts.get(i), profile)))
+                                        .map(d -> Map.entry(i, new com.waynai.demo.client.RoutingApiClient.RouteSummary(
+                                                d.distanceMeters(), d.durationSeconds()))),
+                                enrichParallelism);
+        return found
+                .take(Duration.ofMillis(enrichBudgetMs))
+                .onErrorResume(e -> {
+                    log.warn("[orchestrator] 이동시간 계산 실패 (무시): {}", e.getMessage());
+                    return Flux.empty();
+                })
+                .collectMap(Map.Entry::getKey, e -> String.format("실제 이동 약 %d분 · %.1fkm (%s)",
+                        Math.round(e.getValue().durationSeconds() / 60.0), e.getValue().distanceMeters() / 1000.0,
+                        walking ? "도보" : "차량"));
+    }
+
+    private record TransitLeg(int day, int index, double[] from, double[] to) {}
+
+    /**
+     * 날짜별 대중교통 요약. 방문지 연속쌍을 모두 조회해 날짜마다 합산한다(수단은 구간 순서대로).
+     * 내장 엔진이면 전 구간을 RAPTOR 1회로, 아니면 구간별 daero HTTP 를 동시에 보낸다.
+     */
+    private Mono<Map<Integer, String>> transitNotes(List<List<double[]>> dayPts) {
+        List<TransitLeg> legs = new ArrayList<>();
+        for (int d = 0; d < dayPts.size(); d++) {
+            List<double[]> pts = dayPts.get(d);
+            for (int i = 0; i + 1 < pts.size(); i++) legs.add(new TransitLeg(d, i, pts.get(i), pts.get(i + 1)));
         }
+        if (legs.isEmpty()) return Mono.just(Map.of());
+        Map<Integer, Integer> legsPerDay = new HashMap<>();
+        for (TransitLeg l : legs) legsPerDay.merge(l.day(), 1, Integer::sum);
+        Bulkhead bulkhead = bulkheads.get(BulkheadRegistry.ROUTE);
+        Flux<Map.Entry<TransitLeg, com.waynai.demo.client.DaeroClient.Transit>> found;
+        if (daeroClient.isEmbedded()) {
+            List<com.waynai.demo.client.DaeroClient.Leg> query = legs.stream()
+                    .map(l -> new com.waynai.demo.client.DaeroClient.Leg(l.from()[0], l.from()[1], l.to()[0], l.to()[1]))
+                    .toList();
+            found = quietly(bulkhead.call(() -> daeroClient.transitAll(query, "09:00")))
+                    .flatMapIterable(all -> {
+                        List<Map.Entry<TransitLeg, com.waynai.demo.client.DaeroClient.Transit>> pairs = new ArrayList<>();
+                        for (int i = 0; i < legs.size(); i++) {
+                            if (all.get(i) != null) pairs.add(Map.entry(legs.get(i), all.get(i)));
+                        }
+                        return pairs;
+                    });
+        } else {
+            found = Flux.fromIterable(legs)
+                    .flatMap(leg -> quietly(bulkhead.call(() -> daeroClient.transit(leg.from()[0], leg.from()[1],
+                                    leg.to()[0], leg.to()[1], "09:00")))
+                                    .map(t -> Map.entry(leg, t)),
+                            enrichParallelism);
+        }
+        return found
+                .take(Duration.ofMillis(enrichBudgetMs))
+                .collectMultimap(e -> e.getKey().day())
+                .map(byDay -> {
+                    Map<Integer, String> notes = new HashMap<>();
+                    byDay.forEach((day, results) -> {
+                        int totalMin = 0, totalTransfers = 0, totalFare = 0;
+                        java.util.LinkedHashSet<String> dayModes = new java.util.LinkedHashSet<>();
+                        List<Map.Entry<TransitLeg, com.waynai.demo.client.DaeroClient.Transit>> ordered =
+                                new ArrayList<>(results);
+                        ordered.sort((a, b) -> Integer.compare(a.getKey().index(), b.getKey().index()));
+                        for (var r : ordered) {
+                            var t = r.getValue();
+                            totalMin += t.durationMin();
+                            totalTransfers += t.transfers();
+                            totalFare += t.fareKrw();
+                            if (t.modeSummary() != null && !t.modeSummary().isBlank()) {
+                                for (String m : t.modeSummary().split("·")) if (!m.isBlank()) dayModes.add(m);
+                            }
+                        }
+                        String modeStr = dayModes.isEmpty() ? "" : " (" + String.join("·", dayModes) + ")";
+                        // 예산 초과·무경로로 빠진 구간이 있으면 합계가 하루 전체가 아님을 밝힌다.
+                        int expected = legsPerDay.getOrDefault(day, ordered.size());
+                        String partial = ordered.size() < expected
+                                ? String.format(" · 구간 %d/%d 기준", ordered.size(), expected) : "";
+                        notes.put(day, String.format("대중교통 약 %d분·환승 %d회·~%,d원", totalMin, totalTransfers, totalFare)
+                                + modeStr + partial);
+                    });
+                    return notes;
+                });
+    }
+
+    /** 보강 조회 1건의 실패·격벽 포화는 그 구간만 비운다. */
+    private static <T> Mono<T> quietly(Mono<T> call) {
+        return call.onErrorResume(e -> {
+            log.debug("[orchestrator] 보강 조회 생략: {}", e.getMessage());
+            return Mono.empty();
+        });
+    }
+
+    private static void appendTransportation(TravelPlanDto.DayPlan day, String note) {
+        if (note == null) return;
+        day.setTransportation(day.getTransportation() == null || day.getTransportation().isBlank()
+                ? note
+                : day.getTransportation() + " · " + note);
     }
 
     /** intent 에서 도착지명 결정: destination → area.name → 원 질의 순. */
@@ -511,6 +813,10 @@ public class TravelOrchestratorService {
     private List<com.waynai.demo.client.TavilyApiClient.WebResult> safeCollectWeb(IntentAnalysisDto intent, String query) {
         try {
             if (!tavilyApiClient.isEnabled()) return List.of();
+            if (quotaRegistry.isNearlyExhausted("tavily")) {
+                log.info("[orchestrator] Tavily 예산 임박 — 웹 검색 생략");
+                return List.of();
+            }
             String dest = resolveDestinationName(intent, null);
             String kw = intent != null && intent.getKeyword() != null ? intent.getKeyword() : "";
             // 목적지 중심 질의 구성 (해외일수록 웹 검색이 유용).
@@ -524,18 +830,25 @@ public class TravelOrchestratorService {
         }
     }
 
-    private NaverBlogSearchDto safeCollectNaver(IntentAnalysisDto intent, String query) {
-        try {
-            // 긴 원문을 그대로 넘기면 네이버가 414(URI too large)를 낸다 → 목적지+키워드로 간결화.
-            String dest = resolveDestinationName(intent, null);
-            String kw = intent != null && intent.getKeyword() != null ? intent.getKeyword() : "";
-            String q = (dest != null && !dest.isBlank()) ? (dest + " 여행 " + kw).trim() : query;
-            if (q.length() > 80) q = q.substring(0, 80);
-            return naverSearchService.searchBlog(q).block();
-        } catch (Exception e) {
-            log.warn("[orchestrator] 네이버 검색 실패 (무시): {}", e.getMessage());
-            return null;
+    /** 네이버 블로그 검색. 실패/무응답이면 Optional.empty 로 흡수한다. */
+    private Mono<Optional<NaverBlogSearchDto>> safeCollectNaver(IntentAnalysisDto intent, String query) {
+        if (quotaRegistry.isNearlyExhausted("naver")) {
+            log.info("[orchestrator] 네이버 일일 예산 임박 — 블로그 검색 생략");
+            return Mono.just(Optional.empty());
         }
+        // 긴 원문을 그대로 넘기면 네이버가 414(URI too large)를 낸다 → 목적지+키워드로 간결화.
+        String dest = resolveDestinationName(intent, null);
+        String kw = intent != null && intent.getKeyword() != null ? intent.getKeyword() : "";
+        String q = (dest != null && !dest.isBlank()) ? (dest + " 여행 " + kw).trim() : query;
+        String trimmed = q.length() > 80 ? q.substring(0, 80) : q;
+        return naverSearchService.searchBlog(trimmed)
+                .subscribeOn(bulkheads.get(BulkheadRegistry.NAVER).scheduler())
+                .map(Optional::of)
+                .onErrorResume(e -> {
+                    log.warn("[orchestrator] 네이버 검색 실패 (무시): {}", e.getMessage());
+                    return Mono.just(Optional.empty());
+                })
+                .defaultIfEmpty(Optional.empty());
     }
 
     /**
@@ -733,10 +1046,13 @@ public class TravelOrchestratorService {
 
     /**
      * 권역별로 나눠 상세 일정을 생성하고 하나의 계획으로 병합한다.
-     * 각 권역이 완성될 때마다 partial 이벤트로 실시간 빌드업을 보낸다.
+     *
+     * <p>권역별 시작 일차는 {@link #distributeDays} 로 미리 정해 두고 권역 호출을 최대
+     * {@code segmentParallelism} 개까지 동시에 보낸다. 결과는 권역 순서대로 병합되며, 앞 권역이 끝나는
+     * 즉시 partial 이벤트로 실시간 빌드업을 보낸다(뒤 권역이 먼저 끝나면 앞 권역을 기다렸다가 이어서 방출).
      */
-    private TravelPlanDto generateSegmentedPlan(IntentAnalysisDto intent, String ragCtx,
-                                                Sinks.Many<TravelEvent> sink) {
+    private Mono<TravelPlanDto> generateSegmentedPlan(IntentAnalysisDto intent, List<String> segmentContexts,
+                                                      String ragCtx, Sinks.Many<TravelEvent> sink) {
         List<TravelPlanDto.DayPlan> merged = new ArrayList<>();
         TravelPlanDto plan = TravelPlanDto.builder()
                 .type("travel_plan")
@@ -749,47 +1065,71 @@ public class TravelOrchestratorService {
         int totalDays = intent.getDays() != null && intent.getDays() > 0 ? intent.getDays() : segs.size() * 3;
         // 권역별 일수를 총일수에 맞춰 결정적으로 분배(합계=totalDays 보장). intent 권역일수는 가중치로만.
         int[] segDaysArr = distributeDays(totalDays, segs);
-        int dayCounter = 1;
-        for (int si = 0; si < segs.size(); si++) {
-            IntentAnalysisDto.Segment seg = segs.get(si);
-            int segDays = segDaysArr[si];
-            String segTitle = seg.getTitle() != null ? seg.getTitle() : (si + 1) + "권역";
-            emit(sink, TravelEvent.builder()
-                    .type("stage").stage("generating")
-                    .message(String.format("%s 일정을 구성하는 중… (%d/%d)", segTitle, si + 1, segs.size()))
-                    .build());
-            try {
-                Map<String, String> vars = new HashMap<>();
-                vars.put("segment", describeSegment(seg, segDays));
-                vars.put("startDay", String.valueOf(dayCounter));
-                vars.put("days", String.valueOf(segDays));
-                vars.put("context", ragCtx);
-                String prompt = promptLoader.getPromptWithVariables("travel_plan_segment", vars);
-                String text = geminiApiClient.generateJson(prompt).block();
-                for (TravelPlanDto.DayPlan d : parseSegmentDays(text)) {
-                    d.setDay(dayCounter++);
-                    merged.add(d);
-                }
-            } catch (Exception e) {
-                log.warn("[orchestrator] 권역 생성 실패({}) 무시: {}", segTitle, e.getMessage());
-            }
-            plan.setItinerary(new ArrayList<>(merged));
-            emit(sink, TravelEvent.builder()
-                    .type("partial").stage("generating")
-                    .message(String.format("%s 완료 · 누적 %d일", segTitle, merged.size()))
-                    .payload(plan)
-                    .build());
-        }
-        // 목표 일수 초과 시 트림 + day 재번호 (권역 균등분배로 1~2일 초과 방지).
-        if (intent.getDays() != null && intent.getDays() > 0 && merged.size() > intent.getDays()) {
-            merged = new ArrayList<>(merged.subList(0, intent.getDays()));
-        }
-        for (int i = 0; i < merged.size(); i++) merged.get(i).setDay(i + 1);
-        plan.setItinerary(merged);
-        plan.setDays(merged.size());
-        plan.setDuration(merged.size() + "일");
-        enrichMeta(plan, intent);
-        return plan;
+        int[] startDays = new int[segs.size()];
+        for (int i = 0, next = 1; i < segs.size(); next += segDaysArr[i], i++) startDays[i] = next;
+        return Flux.range(0, segs.size())
+                .flatMapSequential(si -> {
+                    IntentAnalysisDto.Segment seg = segs.get(si);
+                    int segDays = segDaysArr[si];
+                    String segTitle = segTitle(seg, si);
+                    emit(sink, TravelEvent.builder()
+                            .type("stage").stage("generating")
+                            .message(String.format("%s 일정을 구성하는 중… (%d/%d)", segTitle, si + 1, segs.size()))
+                            .build());
+                    Map<String, String> vars = new HashMap<>();
+                    vars.put("segment", describeSegment(seg, segDays));
+                    vars.put("startDay", String.valueOf(startDays[si]));
+                    vars.put("days", String.valueOf(segDays));
+                    String segCtx = segmentContexts != null && si < segmentContexts.size()
+                            ? segmentContexts.get(si) : null;
+                    vars.put("context", segCtx != null && !segCtx.isBlank() ? segCtx : ragCtx);
+                    String prompt = promptLoader.getPromptWithVariables("travel_plan_segment", vars);
+                    AtomicReference<String> segModel = new AtomicReference<>();
+                    return geminiApiClient.generateJson(prompt, segModel::set, LlmTask.SEGMENT)
+                            .map(text -> {
+                                List<TravelPlanDto.DayPlan> segDaysParsed = parseSegmentDays(text);
+                                geminiApiClient.reportParseResult(segModel.get(), LlmTask.SEGMENT, !segDaysParsed.isEmpty());
+                                if (segDaysParsed.isEmpty()) geminiApiClient.discardCachedJson(prompt);
+                                // 권역 범위를 넘는 일차는 다음 권역 자리이므로 잘라낸다.
+                                return segDaysParsed.size() > segDays
+                                        ? segDaysParsed.subList(0, segDays) : segDaysParsed;
+                            })
+                            .onErrorResume(e -> {
+                                log.warn("[orchestrator] 권역 생성 실패({}) 무시: {}", segTitle, e.getMessage());
+                                return Mono.empty();
+                            })
+                            .defaultIfEmpty(List.of());
+                }, Math.max(1, segmentParallelism))
+                .index()
+                .doOnNext(t -> {
+                    int si = t.getT1().intValue();
+                    for (TravelPlanDto.DayPlan d : t.getT2()) {
+                        d.setDay(merged.size() + 1);
+                        merged.add(d);
+                    }
+                    plan.setItinerary(new ArrayList<>(merged));
+                    emit(sink, TravelEvent.builder()
+                            .type("partial").stage("generating")
+                            .message(String.format("%s 완료 · 누적 %d일", segTitle(segs.get(si), si), merged.size()))
+                            .payload(plan)
+                            .build());
+                })
+                .then(Mono.defer(() -> {
+                    List<TravelPlanDto.DayPlan> days = merged;
+                    // 목표 일수 초과 시 트림 + day 재번호 (권역 균등분배로 1~2일 초과 방지).
+                    if (intent.getDays() != null && intent.getDays() > 0 && days.size() > intent.getDays()) {
+                        days = new ArrayList<>(days.subList(0, intent.getDays()));
+                    }
+                    for (int i = 0; i < days.size(); i++) days.get(i).setDay(i + 1);
+                    plan.setItinerary(days);
+                    plan.setDays(days.size());
+                    plan.setDuration(days.size() + "일");
+                    return enrichMeta(plan, intent);
+                }));
+    }
+
+    private String segTitle(IntentAnalysisDto.Segment seg, int index) {
+        return seg.getTitle() != null ? seg.getTitle() : (index + 1) + "권역";
     }
 
     private String describeSegment(IntentAnalysisDto.Segment seg, int segDays) {
@@ -822,15 +1162,24 @@ public class TravelOrchestratorService {
     }
 
     /** 병합 후 상단 메타(요약·날씨·현지·준비물·팁)를 짧게 채운다. */
-    private void enrichMeta(TravelPlanDto plan, IntentAnalysisDto intent) {
+    private Mono<TravelPlanDto> enrichMeta(TravelPlanDto plan, IntentAnalysisDto intent) {
+        String dest = plan.getDestination();
+        String metaPrompt = "다음 여행의 요약 정보만 순수 JSON 으로 반환(설명·코드펜스 금지):\n"
+                + "{\"summary\":\"한 줄 요약\",\"theme\":\"테마\",\"weatherInfo\":\"기간 날씨·복장\","
+                + "\"localInfo\":\"현지 치안·교통·통화·팁\",\"packingList\":[\"준비물 6~8개\"],\"tips\":[\"핵심 팁 5개 이내\"]}\n"
+                + "목적지: " + dest + ", 기간: " + (plan.getDays() != null ? plan.getDays() : "") + "일"
+                + (intent != null && intent.getStyle() != null ? ", 스타일: " + intent.getStyle() : "");
+        return geminiApiClient.generateJson(metaPrompt)
+                .doOnNext(t -> applyMeta(plan, t))
+                .onErrorResume(e -> {
+                    log.warn("[orchestrator] 메타 생성 실패 (무시): {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .then(Mono.just(plan));
+    }
+
+    private void applyMeta(TravelPlanDto plan, String t) {
         try {
-            String dest = plan.getDestination();
-            String metaPrompt = "다음 여행의 요약 정보만 순수 JSON 으로 반환(설명·코드펜스 금지):\n"
-                    + "{\"summary\":\"한 줄 요약\",\"theme\":\"테마\",\"weatherInfo\":\"기간 날씨·복장\","
-                    + "\"localInfo\":\"현지 치안·교통·통화·팁\",\"packingList\":[\"준비물 6~8개\"],\"tips\":[\"핵심 팁 5개 이내\"]}\n"
-                    + "목적지: " + dest + ", 기간: " + (plan.getDays() != null ? plan.getDays() : "") + "일"
-                    + (intent != null && intent.getStyle() != null ? ", 스타일: " + intent.getStyle() : "");
-            String t = geminiApiClient.generateJson(metaPrompt).block();
             String json = extractJson(t);
             if (json == null) return;
             var m = objectMapper.readTree(json);
@@ -878,42 +1227,61 @@ public class TravelOrchestratorService {
         return out;
     }
 
-    /** 좌표 없는 방문지를 이름+목적지로 지오코딩해 채운다(상한 있음, best-effort). */
-    private void fillMissingCoords(TravelPlanDto plan, IntentAnalysisDto intent) {
-        try {
-            if (plan.getItinerary() == null) return;
-            String region = plan.getDestination();
-            boolean domestic = intent == null || !Boolean.TRUE.equals(intent.getInternational());
-            // 국내 여행: 지역 중심 좌표(1회 지오코딩)를 스팟 타당성 기준으로 사용.
-            double[] center = (domestic && region != null && !region.isBlank())
-                    ? geocodingClient.geocode(region, "대한민국") : null;
-            int budget = 12; // Nominatim 초당 1회 → 지연 제한 위해 최대 12곳만
-            int fixed = 0;
-            for (TravelPlanDto.DayPlan day : plan.getItinerary()) {
-                if (day.getSpots() == null) continue;
-                for (TravelPlanDto.Spot s : day.getSpots()) {
-                    boolean missing = s.getLatitude() == null || s.getLongitude() == null;
-                    boolean implausible = false;
-                    if (!missing && domestic) {
-                        double lat = s.getLatitude(), lon = s.getLongitude();
-                        boolean inKorea = lat >= 33 && lat <= 39.5 && lon >= 124 && lon <= 132;
-                        boolean farFromRegion = center != null && haversineKm(lat, lon, center[0], center[1]) > 100;
-                        implausible = !inKorea || farFromRegion; // 한국 밖 or 지역서 100km↑ → LLM 환각 의심
+    /**
+     * 좌표 누락 보정 + LLM 환각 좌표(한국 밖·지역서 과도히 먼) 교정 (지도/경로/요금/대중교통 정확도↑).
+     * 대상 장소명을 모아 한 번에 배치 조회하고, 배치 마감까지 못 푼 환각 좌표는 제거한다(best-effort).
+     */
+    private Mono<TravelPlanDto> fillMissingCoords(TravelPlanDto plan, IntentAnalysisDto intent) {
+        if (plan.getItinerary() == null) return Mono.just(plan);
+        String region = plan.getDestination();
+        boolean domestic = intent == null || !Boolean.TRUE.equals(intent.getInternational());
+        // 국내 여행: 지역 중심 좌표(1회 지오코딩)를 스팟 타당성 기준으로 사용.
+        Mono<Optional<double[]>> centerMono = (domestic && region != null && !region.isBlank())
+                ? geocodingService.geocode(region, "대한민국").map(Optional::of).defaultIfEmpty(Optional.empty())
+                : Mono.just(Optional.empty());
+        return centerMono.flatMap(centerOpt -> {
+                    double[] center = centerOpt.orElse(null);
+                    List<TravelPlanDto.Spot> targets = new ArrayList<>();
+                    java.util.Set<TravelPlanDto.Spot> implausibleSpots =
+                            java.util.Collections.newSetFromMap(new java.util.IdentityHashMap<>());
+                    for (TravelPlanDto.DayPlan day : plan.getItinerary()) {
+                        if (day.getSpots() == null) continue;
+                        for (TravelPlanDto.Spot s : day.getSpots()) {
+                            boolean missing = s.getLatitude() == null || s.getLongitude() == null;
+                            boolean implausible = false;
+                            if (!missing && domestic) {
+                                double lat = s.getLatitude(), lon = s.getLongitude();
+                                boolean inKorea = lat >= 33 && lat <= 39.5 && lon >= 124 && lon <= 132;
+                                boolean farFromRegion = center != null && haversineKm(lat, lon, center[0], center[1]) > 100;
+                                implausible = !inKorea || farFromRegion; // 한국 밖 or 지역서 100km↑ → LLM 환각 의심
+                            }
+                            if (!(missing || implausible)) continue;
+                            if (s.getName() == null || s.getName().isBlank()) continue;
+                            targets.add(s);
+                            if (implausible) implausibleSpots.add(s);
+                        }
                     }
-                    if (!(missing || implausible)) continue;
-                    if (s.getName() == null || s.getName().isBlank()) continue;
-                    if (budget <= 0) { if (implausible) { s.setLatitude(null); s.setLongitude(null); } continue; }
-                    double[] p = geocodingClient.geocode(s.getName(), region);
-                    budget--;
-                    boolean okKorea = p != null && (!domestic || (p[0] >= 33 && p[0] <= 39.5 && p[1] >= 124 && p[1] <= 132));
-                    if (okKorea) { s.setLatitude(p[0]); s.setLongitude(p[1]); if (implausible) fixed++; }
-                    else if (implausible) { s.setLatitude(null); s.setLongitude(null); fixed++; } // 교정 실패 → 오염 좌표 제거
-                }
-            }
-            if (fixed > 0) log.info("[orchestrator] 좌표 교정(환각/오류) {}건", fixed);
-        } catch (Exception e) {
-            log.warn("[orchestrator] 지오코딩 보정 실패 (무시)", e);
-        }
+                    if (targets.isEmpty()) return Mono.just(plan);
+                    List<String> names = targets.stream().map(TravelPlanDto.Spot::getName).collect(Collectors.toList());
+                    return geocodingService.geocodeAll(names, region).map(found -> {
+                        int fixed = 0;
+                        for (TravelPlanDto.Spot s : targets) {
+                            double[] p = found.get(s.getName().trim());
+                            boolean implausible = implausibleSpots.contains(s);
+                            boolean okKorea = p != null && (!domestic || (p[0] >= 33 && p[0] <= 39.5 && p[1] >= 124 && p[1] <= 132));
+                            if (okKorea) { s.setLatitude(p[0]); s.setLongitude(p[1]); if (implausible) fixed++; }
+                            else if (implausible) { s.setLatitude(null); s.setLongitude(null); fixed++; } // 교정 실패 → 오염 좌표 제거
+                        }
+                        if (fixed > 0) log.info("[orchestrator] 좌표 교정(환각/오류) {}건", fixed);
+                        log.debug("[orchestrator] 좌표 보정 대상 {}곳 중 {}곳 해석", targets.size(),
+                                targets.stream().filter(t -> found.containsKey(t.getName().trim())).count());
+                        return plan;
+                    });
+                })
+                .onErrorResume(e -> {
+                    log.warn("[orchestrator] 지오코딩 보정 실패 (무시)", e);
+                    return Mono.just(plan);
+                });
     }
 
     /** 두 좌표 간 대략 거리(km, Haversine). */
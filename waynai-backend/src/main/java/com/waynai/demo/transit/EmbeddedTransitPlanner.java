@@ -0,0 +1,127 @@
+package com.waynai.demo.transit;
+
+import com.waynai.demo.client.DaeroClient;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 내장(JVM 안) 대중교통 경로엔진. daero HTTP 대신 로컬 GTFS 로 {@link DaeroClient.Transit} 을 계산한다.
+ *
+ * <p>{@code daero.embedded.gtfs} 에 GTFS 피드(디렉터리 또는 .zip, 쉼표로 여러 개)를 주면 기동 후 백그라운드에서
+ * {@link Timetable} 로 읽어 들이고, 이후 하루치 구간을 {@link Raptor} 한 번으로 푼다. 미설정·적재 전에는
+ * {@link #isReady} 가 false 라 {@link DaeroClient} 는 HTTP 로 간다.
+ *
+ * <p>요금은 daero 와 같은 추정치다: 버스·지하철은 수도권 통합환승(기본 1,500원, 10km 초과 5km 마다 100원),
+ * 철도·여객선은 거리 비례, 항공은 정액.
+ */
+@Slf4j
+@Component
+public class EmbeddedTransitPlanner {
+
+    private static final int INTEGRATED_BASE_KRW = 1_500;
+    private static final int INTEGRATED_STEP_KRW = 100;
+
+    @Value("${daero.embedded.gtfs:}")
+    private String feeds;
+
+    private volatile Timetable timetable;
+
+    @PostConstruct
+    void init() {
+        if (feeds == null || feeds.isBlank()) {
+            log.info("[transit] daero.embedded.gtfs 미설정 — 내장 대중교통 엔진 비활성 (daero HTTP 사용)");
+            return;
+        }
+        List<Path> paths = Arrays.stream(feeds.split(",")).map(String::trim).filter(s -> !s.isEmpty())
+                .map(Path::of).toList();
+        Mono.fromCallable(() -> GtfsFeedReader.read(paths))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(this::install, e -> log.warn("[transit] GTFS 적재 실패 (daero HTTP 사용): {}",
+                        e instanceof IOException ? e.getMessage() : e.toString()));
+    }
+
+    void install(Timetable tt) {
+        timetable = tt;
+    }
+
+    public boolean isReady() {
+        return timetable != null;
+    }
+
+    /**
+     * 구간들(같은 날 방문지 연속쌍 등)을 한 번에 계산한다. 결과는 legs 와 같은 순서이며 경로가 없으면 null.
+     *
+     * @param time 출발 시각 "HH:mm"(모든 구간 공통)
+     */
+    public List<DaeroClient.Transit> plan(List<DaeroClient.Leg> legs, String time) {
+        Timetable tt = timetable;
+        List<DaeroClient.Transit> out = new ArrayList<>(legs.size());
+        if (tt == null || legs.isEmpty()) {
+            legs.forEach(l -> out.add(null));
+            return out;
+        }
+        for (Raptor.Journey j : new Raptor(tt).search(legs, departure(time))) {
+            out.add(j == null ? null : toTransit(tt, j));
+        }
+        return out;
+    }
+
+    private static int departure(String time) {
+        try {
+            String[] hm = time.trim().split(":");
+            return Integer.parseInt(hm[0]) * 3600 + Integer.parseInt(hm[1]) * 60;
+        } catch (RuntimeException e) {
+            return 9 * 3600;
+        }
+    }
+
+    static DaeroClient.Transit toTransit(Timetable tt, Raptor.Journey j) {
+        int minutes = (int) Math.ceil(j.durationSec() / 60.0);
+        if (j.trips().length == 0) return new DaeroClient.Transit(minutes, 0, 0, "WALK", "", "도보");
+        Set<String> modes = new LinkedHashSet<>();
+        for (int trip : j.trips()) modes.add(DaeroClient.modeKo(Timetable.MODES[tt.patternMode[tt.tripPattern[trip]]]));
+        int firstPattern = tt.tripPattern[j.trips()[0]];
+        return new DaeroClient.Transit(minutes, j.trips().length - 1, fare(tt, j),
+                Timetable.MODES[tt.patternMode[firstPattern]], tt.patternRoute[firstPattern], String.join("·", modes));
+    }
+
+    /** 탑승 구간별 직선 거리로 요금을 추정한다(100원 단위). */
+    static int fare(Timetable tt, Raptor.Journey j) {
+        int fare = 0;
+        boolean integrated = false;
+        double integratedKm = 0;
+        for (int i = 0; i < j.trips().length; i++) {
+            double km = Timetable.meters(tt.stopLat[j.boards()[i]], tt.stopLon[j.boards()[i]],
+                    tt.stopLat[j.alights()[i]], tt.stopLon[j.alights()[i]]) / 1000.0;
+            switch (tt.patternMode[tt.tripPattern[j.trips()[i]]]) {
+                case Timetable.RAIL -> fare += Math.max(2_600, hundreds(km * 110));
+                case Timetable.FERRY -> fare += Math.max(5_000, hundreds(km * 250));
+                case Timetable.AIR -> fare += 60_000;
+                default -> {
+                    integrated = true;
+                    integratedKm += km;
+                }
+            }
+        }
+        if (integrated) {
+            fare += INTEGRATED_BASE_KRW + INTEGRATED_STEP_KRW * (int) Math.ceil(Math.max(0, integratedKm - 10) / 5);
+        }
+        return fare;
+    }
+
+    private static int hundreds(double krw) {
+        return (int) Math.round(krw / 100) * 100;
+    }
+}
@@ -0,0 +1,442 @@
+package com.waynai.demo.transit;
+
+import com.waynai.demo.util.IntArrayList;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * GTFS 피드(디렉터리 또는 .zip) 여러 개 → {@link Timetable}.
+ *
+ * <p>stops · routes · trips · stop_times 를 읽고, calendar.txt 가 있으면 평일(월~금) 중 하루라도 운행하는 service 만
+ * 남긴다(calendar_dates·frequencies 는 보지 않는다). 비어 있는 도착/출발 시각은 앞뒤 시각으로 선형 보간하고,
+ * 시각이 거꾸로 가는 운행은 버린다. id 는 피드 안에서만 풀고 정류장·노선 번호는 전역으로 매겨 피드끼리 섞이지 않게 한다.
+ */
+@Slf4j
+final class GtfsFeedReader {
+
+    private final IntArrayList stopLat = new IntArrayList(1 << 12);
+    private final IntArrayList stopLon = new IntArrayList(1 << 12);
+    private final IntArrayList routeModes = new IntArrayList();
+    private final List<String> routeNames = new ArrayList<>();
+
+    /** 패턴 = (노선, 정류장 순서). 운행 시각은 임시 번호로 모아 뒀다가 마지막에 출발 순으로 재배열한다. */
+    private final Map<PatternKey, Integer> patternIndex = new HashMap<>();
+    private final List<int[]> patternStopList = new ArrayList<>();
+    private final IntArrayList patternMode = new IntArrayList();
+    private final List<String> patternRoute = new ArrayList<>();
+    private final List<IntArrayList> patternTrips = new ArrayList<>();
+    private final IntArrayList tripTimeFirst = new IntArrayList(1 << 12);
+    private final IntArrayList arrival = new IntArrayList(1 << 16);
+    private final IntArrayList departure = new IntArrayList(1 << 16);
+
+    private record PatternKey(int route, int[] stops) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PatternKey k && k.route == route && Arrays.equals(k.stops, stops);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * route + Arrays.hashCode(stops);
+        }
+    }
+
+    private GtfsFeedReader() {
+    }
+
+    static Timetable read(List<Path> feeds) throws IOException {
+        GtfsFeedReader r = new GtfsFeedReader();
+        for (int f = 0; f < feeds.size(); f++) {
+            try (Feed feed = Feed.open(feeds.get(f))) {
+                r.readFeed(f, feed);
+            }
+        }
+        return r.timetable();
+    }
+
+    // ------------------------------------------------------------------ 피드 1개
+
+    private void readFeed(int feedNo, Feed feed) throws IOException {
+        Map<String, Integer> stops = new HashMap<>();
+        try (Csv csv = feed.csv("stops.txt", true)) {
+            int id = csv.column("stop_id"), lat = csv.column("stop_lat"), lon = csv.column("stop_lon");
+            for (String[] row; (row = csv.next()) != null; ) {
+                if (row[lat].isBlank() || row[lon].isBlank()) continue;
+                stops.put(row[id], stopLat.size());
+                stopLat.add((int) Math.round(Double.parseDouble(row[lat]) * 1e7));
+                stopLon.add((int) Math.round(Double.parseDouble(row[lon]) * 1e7));
+            }
+        }
+
+        Map<String, Integer> routes = new HashMap<>();
+        try (Csv csv = feed.csv("routes.txt", true)) {
+            int id = csv.column("route_id"), type = csv.column("route_type");
+            int shortName = csv.column("route_short_name"), longName = csv.column("route_long_name");
+            for (String[] row; (row = csv.next()) != null; ) {
+                routes.put(row[id], routeNames.size());
+                String name = shortName >= 0 && !row[shortName].isBlank() ? row[shortName]
+                        : longName >= 0 ? row[longName] : "";
+                routeNames.add(name);
+                routeModes.add(mode(row[type].isBlank() ? 3 : Integer.parseInt(row[type].trim())));
+            }
+        }
+
+        Set<String> weekday = null;
+        try (Csv csv = feed.csv("calendar.txt", false)) {
+            if (csv != null) {
+                weekday = new HashSet<>();
+                int id = csv.column("service_id");
+                int[] days = {csv.column("monday"), csv.column("tuesday"), csv.column("wednesday"),
+                        csv.column("thursday"), csv.column("friday")};
+                for (String[] row; (row = csv.next()) != null; ) {
+                    for (int d : days) {
+                        if (d >= 0 && "1".equals(row[d].trim())) {
+                            weekday.add(row[id]);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<String, Integer> trips = new HashMap<>();
+        IntArrayList tripRoute = new IntArrayList(1 << 12);
+        try (Csv csv = feed.csv("trips.txt", true)) {
+            int id = csv.column("trip_id"), route = csv.column("route_id"), service = csv.column("service_id");
+            for (String[] row; (row = csv.next()) != null; ) {
+                Integer rt = routes.get(row[route]);
+                if (rt == null || (weekday != null && !weekday.contains(row[service]))) continue;
+                trips.put(row[id], tripRoute.size());
+                tripRoute.add(rt);
+            }
+        }
+
+        IntArrayList rowTrip = new IntArrayList(1 << 16);
+        IntArrayList rowSeq = new IntArrayList(1 << 16);
+        IntArrayList rowStop = new IntArrayList(1 << 16);
+        IntArrayList rowArr = new IntArrayList(1 << 16);
+        IntArrayList rowDep = new IntArrayList(1 << 16);
+        try (Csv csv = feed.csv("stop_times.txt", true)) {
+            int trip = csv.column("trip_id"), stop = csv.column("stop_id"), seq = csv.column("stop_sequence");
+            int arr = csv.column("arrival_time"), dep = csv.column("departure_time");
+            for (String[] row; (row = csv.next()) != null; ) {
+                Integer t = trips.get(row[trip]);
+                Integer s = stops.get(row[stop]);
+                if (t == null || s == null) continue;
+                rowTrip.add(t);
+                rowSeq.add(Integer.parseInt(row[seq].trim()));
+                rowStop.add(s);
+                int a = seconds(row[arr]);
+                int d = seconds(row[dep]);
+                rowArr.add(a >= 0 ? a : d);
+                rowDep.add(d >= 0 ? d : a);
+            }
+        }
+
+        // 운행별로 묶기(계수 정렬) → 운행 안에서 stop_sequence 순 정렬(대개 이미 정렬돼 있다)
+        int tripCount = tripRoute.size();
+        int[] first = new int[tripCount + 1];
+        for (int i = 0; i < rowTrip.size(); i++) first[rowTrip.get(i) + 1]++;
+        for (int t = 0; t < tripCount; t++) first[t + 1] += first[t];
+        int[] rows = new int[rowTrip.size()];
+        int[] pos = Arrays.copyOf(first, tripCount);
+        for (int i = 0; i < rowTrip.size(); i++) rows[pos[rowTrip.get(i)]++] = i;
+        int kept = 0;
+        for (int t = 0; t < tripCount; t++) {
+            int from = first[t], to = first[t + 1];
+            for (int i = from + 1; i < to; i++) {
+                int row = rows[i];
+                int j = i - 1;
+                while (j >= from && rowSeq.get(rows[j]) > rowSeq.get(row)) {
+                    rows[j + 1] = rows[j];
+                    j--;
+                }
+                rows[j + 1] = row;
+            }
+            if (to - from >= 2 && addTrip(tripRoute.get(t), rows, from, to, rowStop, rowArr, rowDep)) {
+                kept++;
+            }
+        }
+        log.info("[transit] GTFS 피드 #{} {} 읽기 완료: 정류장 {}, 노선 {}, 운행 {}/{}", feedNo, feed.name(),
+                stops.size(), routes.size(), kept, tripCount);
+    }
+
+    /** 운행 1개를 패턴에 붙인다. 시각을 못 채우거나 거꾸로 가면 false. */
+    private boolean addTrip(int route, int[] rows, int from, int to,
+                            IntArrayList rowStop, IntArrayList rowArr, IntArrayList rowDep) {
+        int n = to - from;
+        int[] stops = new int[n];
+        int[] arr = new int[n];
+        int[] dep = new int[n];
+        for (int i = 0; i < n; i++) {
+            stops[i] = rowStop.get(rows[from + i]);
+            arr[i] = rowArr.get(rows[from + i]);
+            dep[i] = rowDep.get(rows[from + i]);
+        }
+        if (!interpolate(arr, dep)) return false;
+        for (int i = 0; i < n; i++) {
+            if (dep[i] < arr[i] || (i > 0 && arr[i] < dep[i - 1])) return false;
+        }
+        PatternKey key = new PatternKey(route, stops);
+        Integer p = patternIndex.get(key);
+        if (p == null) {
+            p = patternStopList.size();
+            patternIndex.put(key, p);
+            patternStopList.add(stops);
+            patternMode.add(routeModes.get(route));
+            patternRoute.add(routeNames.get(route));
+            patternTrips.add(new IntArrayList(4));
+        }
+        patternTrips.get(p).add(tripTimeFirst.size());
+        tripTimeFirst.add(arrival.size());
+        for (int i = 0; i < n; i++) {
+            arrival.add(arr[i]);
+            departure.add(dep[i]);
+        }
+        return true;
+    }
+
+    /** 비어 있는(-1) 시각을 앞뒤 시각 사이 정류장 수 비례로 채운다. 처음/끝이 비면 false. */
+    private static boolean interpolate(int[] arr, int[] dep) {
+        int n = arr.length;
+        if (dep[0] < 0 || arr[n - 1] < 0) return false;
+        int prev = 0;
+        for (int i = 1; i < n; i++) {
+            if (arr[i] < 0) continue;
+            for (int k = prev + 1; k < i; k++) {
+                int t = dep[prev] + (int) ((long) (arr[i] - dep[prev]) * (k - prev) / (i - prev));
+                arr[k] = t;
+                dep[k] = t;
+            }
+            prev = i;
+        }
+        return true;
+    }
+
+    // ------------------------------------------------------------------ 마무리
+
+    private Timetable timetable() {
+        // 패턴 안 운행을 첫 정류장 출발 순으로 정렬한 뒤, 앞 운행을 추월하는 운행은 하위 패턴으로 떼어 낸다(RAPTOR FIFO)
+        List<int[]> subStops = new ArrayList<>();
+        IntArrayList subMode = new IntArrayList();
+        List<String> subRoute = new ArrayList<>();
+        List<IntArrayList> subTrips = new ArrayList<>();
+        for (int i = 0; i < patternStopList.size(); i++) {
+            IntArrayList trips = patternTrips.get(i);
+            long[] order = new long[trips.size()];
+            for (int k = 0; k < order.length; k++) {
+                int old = trips.get(k);
+                order[k] = ((long) departure.get(tripTimeFirst.get(old)) << 32) | old;
+            }
+            Arrays.sort(order);
+            int len = patternStopList.get(i).length;
+            int from = subTrips.size();
+            for (long o : order) {
+                int trip = (int) o;
+                int target = -1;
+                for (int s = from; s < subTrips.size() && target < 0; s++) {
+                    IntArrayList group = subTrips.get(s);
+                    if (!overtakes(trip, group.get(group.size() - 1), len)) target = s;
+                }
+                if (target < 0) {
+                    target = subTrips.size();
+                    subStops.add(patternStopList.get(i));
+                    subMode.add(patternMode.get(i));
+                    subRoute.add(patternRoute.get(i));
+                    subTrips.add(new IntArrayList(4));
+                }
+                subTrips.get(target).add(trip);
+            }
+        }
+        int p = subStops.size();
+        int[] stopFirst = new int[p + 1];
+        for (int i = 0; i < p; i++) stopFirst[i + 1] = stopFirst[i] + subStops.get(i).length;
+        int[] stops = new int[stopFirst[p]];
+        for (int i = 0; i < p; i++) {
+            int[] s = subStops.get(i);
+            System.arraycopy(s, 0, stops, stopFirst[i], s.length);
+        }
+        // 전역 운행 번호를 패턴 순서대로 다시 매긴다
+        int[] tripFirst = new int[p + 1];
+        int[] timeFirst = new int[tripTimeFirst.size()];
+        int[] arr = new int[arrival.size()];
+        int[] dep = new int[departure.size()];
+        int t = 0, cursor = 0;
+        for (int i = 0; i < p; i++) {
+            IntArrayList trips = subTrips.get(i);
+            int len = stopFirst[i + 1] - stopFirst[i];
+            for (int k = 0; k < trips.size(); k++) {
+                int base = tripTimeFirst.get(trips.get(k));
+                timeFirst[t++] = cursor;
+                for (int j = 0; j < len; j++) {
+                    arr[cursor + j] = arrival.get(base + j);
+                    dep[cursor + j] = departure.get(base + j);
+                }
+                cursor += len;
+            }
+            tripFirst[i + 1] = t;
+        }
+        Timetable tt = new Timetable(stopLat.toArray(), stopLon.toArray(), stopFirst, stops, tripFirst,
+                subMode.toArray(), subRoute.toArray(new String[0]), timeFirst, arr, dep);
+        log.info("[transit] 시간표 구축 완료: 정류장 {}, 패턴 {}, 운행 {}, 환승 도보 {}",
+                tt.stopCount(), tt.patternCount(), tt.tripCount(), tt.transferStop.length);
+        return tt;
+    }
+
+    /** 같은 정류장 순서의 뒤 운행 trip 이 앞 운행 prev 보다 어느 정류장에서든 먼저 도착·출발하면 true. */
+    private boolean overtakes(int trip, int prev, int len) {
+        int a = tripTimeFirst.get(trip), b = tripTimeFirst.get(prev);
+        for (int k = 0; k < len; k++) {
+            if (arrival.get(a + k) < arrival.get(b + k) || departure.get(a + k) < departure.get(b + k)) return true;
+        }
+        return false;
+    }
+
+    /** GTFS route_type(기본 + 확장) → {@link Timetable#MODES} 번호. */
+    static int mode(int routeType) {
+        if (routeType == 0 || (routeType >= 900 && routeType < 1000)) return Timetable.TRAM;
+        if (routeType == 1 || (routeType >= 400 && routeType < 500)) return Timetable.SUBWAY;
+        if (routeType == 2 || routeType == 12 || (routeType >= 100 && routeType < 200)) return Timetable.RAIL;
+        if (routeType == 4 || routeType == 1200 || (routeType >= 1000 && routeType < 1100)) return Timetable.FERRY;
+        if (routeType >= 1100 && routeType < 1200) return Timetable.AIR;
+        return Timetable.BUS;
+    }
+
+    /** "H:MM:SS" (24시 넘김 허용) → 초. 비어 있으면 -1. */
+    static int seconds(String hms) {
+        String s = hms.trim();
+        if (s.isEmpty()) return -1;
+        int c1 = s.indexOf(':');
+        int c2 = s.indexOf(':', c1 + 1);
+        return Integer.parseInt(s.substring(0, c1)) * 3600 + Integer.parseInt(s.substring(c1 + 1, c2)) * 60
+                + Integer.parseInt(s.substring(c2 + 1));
+    }
+
+    // ------------------------------------------------------------------ 파일 입출력
+
+    /** 디렉터리 또는 zip 으로 된 피드. */
+    private static final class Feed implements Closeable {
+        private final Path path;
+        private final ZipFile zip;
+
+        private Feed(Path path, ZipFile zip) {
+            this.path = path;
+            this.zip = zip;
+        }
+
+        static Feed open(Path path) throws IOException {
+            return new Feed(path, Files.isDirectory(path) ? null : new ZipFile(path.toFile(), StandardCharsets.UTF_8));
+        }
+
+        String name() {
+            return String.valueOf(path.getFileName());
+        }
+
+        /** 파일이 없으면 required 일 때 IOException, 아니면 null. */
+        Csv csv(String file, boolean required) throws IOException {
+            if (zip == null) {
+                Path p = path.resolve(file);
+                if (Files.exists(p)) return new Csv(Files.newBufferedReader(p, StandardCharsets.UTF_8));
+            } else {
+                ZipEntry e = zip.getEntry(file);
+                if (e != null) {
+                    return new Csv(new BufferedReader(new InputStreamReader(zip.getInputStream(e), StandardCharsets.UTF_8),
+                            1 << 16));
+                }
+            }
+            if (required) throw new IOException("GTFS 필수 파일 없음: " + path + "/" + file);
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (zip != null) zip.close();
+        }
+    }
+
+    /** 한 줄 = 한 레코드인 CSV(따옴표 안 쉼표·"" 이스케이프 지원, 따옴표 안 줄바꿈은 미지원). */
+    private static final class Csv implements Closeable {
+        private final BufferedReader in;
+        private final Map<String, Integer> header = new HashMap<>();
+        private final List<String> fields = new ArrayList<>();
+
+        Csv(BufferedReader in) throws IOException {
+            this.in = in;
+            String line = in.readLine();
+            if (line == null) return;
+            if (!line.isEmpty() && line.charAt(0) == '﻿') line = line.substring(1);
+            String[] names = split(line);
+            for (int i = 0; i < names.length; i++) header.put(names[i].trim(), i);
+        }
+
+        /** 열 번호. 없는 열이면 -1. */
+        int column(String name) {
+            return header.getOrDefault(name, -1);
+        }
+
+        /** 다음 레코드(열 수가 모자라면 빈 문자열로 채움). 끝이면 null. */
+        String[] next() throws IOException {
+            String line;
+            do {
+                line = in.readLine();
+                if (line == null) return null;
+            } while (line.isBlank());
+            String[] row = split(line);
+            if (row.length < header.size()) {
+                String[] padded = Arrays.copyOf(row, header.size());
+                Arrays.fill(padded, row.length, padded.length, "");
+                return padded;
+            }
+            return row;
+        }
+
+        private String[] split(String line) {
+            fields.clear();
+            StringBuilder sb = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        sb.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        sb.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(sb.toString());
+                    sb.setLength(0);
+                } else {
+                    sb.append(c);
+                }
+            }
+            fields.add(sb.toString());
+            return fields.toArray(new String[0]);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
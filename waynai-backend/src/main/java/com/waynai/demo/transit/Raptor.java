@@ -0,0 +1,351 @@
+package com.waynai.demo.transit;
+
+import com.waynai.demo.client.DaeroClient;
+import com.waynai.demo.util.IntArrayList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 다출발 RAPTOR. 하루치 구간(방문지 연속쌍) 여러 개를 한 번에 푼다.
+ *
+ * <p>라운드 k 는 "k 번째 탑승"이다. 라운드마다 모든 출발지의 표시된 정류장이 지나는 패턴을 합집합으로 한 번만 모아,
+ * 패턴별로 그 패턴을 건드린 출발지들을 이어서 훑는다 — 같은 패턴의 정류장·시각 배열을 출발지 수만큼 연달아 읽으므로
+ * 구간을 따로 질의할 때보다 캐시 효율이 좋고 라운드 준비도 한 번이다. 탑승 뒤에는 반경 안 정류장으로 걸어 갈아탄다.
+ *
+ * <p>라벨은 정류장별 최선 도착 하나(+직전 정류장·탄 운행)만 두고, 도착 후보가 각 출발지의 현재 최선 도착(도착지까지
+ * 도보 포함)보다 늦으면 버린다. 직선 {@value #DIRECT_WALK_METERS}m 이하 구간은 걷기가 상한이 되어, 걷는 게 빠르면
+ * 도보만으로 답한다. 작업 배열(출발지 × (정류장 + 패턴))은 한 번에 {@value #MAX_CELLS}칸을 넘지 않게 출발지를 나눠 풀고,
+ * {@value #RETAIN_CELLS}칸 이하일 때만 스레드별로 남겨 재사용(쓴 칸만 되돌림)한다 — 전국 시간표에서 스레드마다 큰 배열이
+ * 계속 붙어 있지 않게 한다.
+ */
+final class Raptor {
+
+    /** 최대 탑승 수(환승 4회). */
+    static final int MAX_RIDES = 5;
+    /** 출발지·도착지에서 정류장까지 걸어갈 반경(m). */
+    static final double ACCESS_METERS = 700;
+    /** 이 거리 이하 구간은 도보도 후보로 본다. */
+    static final double DIRECT_WALK_METERS = 1_500;
+    /** 한 번에 푸는 작업 배열 칸 수 상한(약 2M 칸 ≈ 40MB). 넘으면 출발지를 나눠 차례로 푼다. */
+    static final int MAX_CELLS = 1 << 21;
+    /** 스레드에 남겨 재사용하는 작업 배열 칸 수 상한(약 256K 칸 ≈ 5MB). 넘는 질의는 그때만 할당하고 버린다. */
+    static final int RETAIN_CELLS = 1 << 18;
+
+    private static final int INF = Integer.MAX_VALUE;
+    private static final int VIA_ACCESS = -2;
+    private static final int VIA_WALK = -1;
+
+    /** 찾은 경로. 탑승이 없으면 도보만. 탑승 i = trips[i] 를 boards[i] 에서 타고 alights[i] 에서 내림. */
+    record Journey(int durationSec, int[] trips, int[] boards, int[] alights) {}
+
+    private final Timetable tt;
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+    Raptor(Timetable tt) {
+        this.tt = tt;
+    }
+
+    /** 구간마다 departSec 출발 기준 가장 이른 도착 경로. 못 찾은 구간은 null. */
+    List<Journey> search(List<DaeroClient.Leg> legs, int departSec) {
+        int perOrigin = tt.stopCount() + tt.patternCount();
+        int batch = Math.max(1, MAX_CELLS / Math.max(1, perOrigin));
+        if (legs.size() <= batch) return searchBatch(legs, departSec);
+        List<Journey> out = new ArrayList<>(legs.size());
+        for (int from = 0; from < legs.size(); from += batch) {
+            out.addAll(searchBatch(legs.subList(from, Math.min(legs.size(), from + batch)), departSec));
+        }
+        return out;
+    }
+
+    private List<Journey> searchBatch(List<DaeroClient.Leg> legs, int departSec) {
+        int origins = legs.size();
+        int stops = tt.stopCount();
+        long cells = (long) origins * (stops + tt.patternCount());
+        Workspace w = cells <= RETAIN_CELLS ? WORKSPACE.get() : new Workspace();
+        w.prepare(origins, stops, tt.patternCount());
+        try {
+            int[] bound = new int[origins];
+            int[] walkOnly = new int[origins];
+            List<int[][]> egress = new ArrayList<>(origins);
+            IntArrayList near = new IntArrayList();
+            IntArrayList nearM = new IntArrayList();
+            for (int o = 0; o < origins; o++) {
+                DaeroClient.Leg leg = legs.get(o);
+                int fLat = fixed(leg.fromLat()), fLon = fixed(leg.fromLon());
+                int tLat = fixed(leg.toLat()), tLon = fixed(leg.toLon());
+                double direct = Timetable.meters(fLat, fLon, tLat, tLon);
+                walkOnly[o] = direct <= DIRECT_WALK_METERS ? departSec + Timetable.walkSeconds(direct) : INF;
+                bound[o] = walkOnly[o];
+                tt.near(fLat, fLon, ACCESS_METERS, near, nearM);
+                for (int k = 0; k < near.size(); k++) {
+                    int s = near.get(k);
+                    int a = departSec + Timetable.walkSeconds(nearM.get(k));
+                    if (w.improve(o, s, a, -1, VIA_ACCESS)) w.mark(o, s);
+                }
+                tt.near(tLat, tLon, ACCESS_METERS, near, nearM);
+                int[][] e = new int[2][near.size()];
+                for (int k = 0; k < near.size(); k++) {
+                    e[0][k] = near.get(k);
+                    e[1][k] = Timetable.walkSeconds(nearM.get(k));
+                }
+                egress.add(e);
+            }
+
+            for (int round = 1; round <= MAX_RIDES; round++) {
+                if (!collectRoutes(w, origins)) break;
+                for (int i = 0; i < w.queued.size(); i++) {
+                    int p = w.queued.get(i);
+                    for (int o = 0; o < origins; o++) {
+                        int q = o * w.patterns + p;
+                        int start = w.queuePos[q];
+                        if (start == INF) continue;
+                        w.queuePos[q] = INF;
+                        scan(w, o, p, start, bound[o]);
+                    }
+                    w.patternQueued[p] = false;
+                }
+                w.queued.clear();
+                for (int o = 0; o < origins; o++) {
+                    w.endBoarding(o);
+                    walkTransfers(w, o, bound[o]);
+                    bound[o] = Math.min(bound[o], bestEgress(w, o, egress.get(o))[1]);
+                }
+            }
+
+            List<Journey> out = new ArrayList<>(origins);
+            for (int o = 0; o < origins; o++) {
+                int[] best = bestEgress(w, o, egress.get(o));
+                if (best[0] >= 0 && best[1] < walkOnly[o]) {
+                    out.add(journey(w, o, best[0], best[1] - departSec));
+                } else if (walkOnly[o] != INF) {
+                    out.add(new Journey(walkOnly[o] - departSec, new int[0], new int[0], new int[0]));
+                } else {
+                    out.add(null);
+                }
+            }
+            return out;
+        } finally {
+            w.reset();
+        }
+    }
+
+    /** 지난 라운드에 표시된 정류장을 탑승 후보로 옮기고, 그 정류장을 지나는 패턴을 (출발지별 첫 위치와 함께) 모은다. */
+    private boolean collectRoutes(Workspace w, int origins) {
+        boolean any = false;
+        for (int o = 0; o < origins; o++) {
+            IntArrayList marks = w.beginBoarding(o);
+            for (int i = 0; i < marks.size(); i++) {
+                int s = marks.get(i);
+                any = true;
+                for (int k = tt.stopPatternFirst[s]; k < tt.stopPatternFirst[s + 1]; k++) {
+                    int p = tt.stopPatterns[k];
+                    int q = o * w.patterns + p;
+                    w.queuePos[q] = Math.min(w.queuePos[q], tt.stopPatternPos[k]);
+                    if (!w.patternQueued[p]) {
+                        w.patternQueued[p] = true;
+                        w.queued.add(p);
+                    }
+                }
+            }
+        }
+        return any;
+    }
+
+    /** 패턴 p 를 start 위치부터 훑는다: 타고 있는 운행으로 도착을 갱신하고, 더 이른 운행을 탈 수 있으면 갈아탄다. */
+    private void scan(Workspace w, int o, int p, int start, int bound) {
+        int first = tt.patternStopFirst[p];
+        int len = tt.patternStopFirst[p + 1] - first;
+        int trip = -1;
+        int board = -1;
+        for (int i = start; i < len; i++) {
+            int s = tt.patternStops[first + i];
+            if (trip >= 0) {
+                int a = tt.arrival[tt.tripTimeFirst[trip] + i];
+                if (a < bound && w.improve(o, s, a, board, trip)) w.mark(o, s);
+            }
+            int ready = w.boardTime(o, s);
+            if (ready != INF && (trip < 0 || ready <= tt.departure[tt.tripTimeFirst[trip] + i])) {
+                int t = earliestTrip(p, i, ready, trip < 0 ? tt.patternTripFirst[p + 1] : trip);
+                if (t >= 0) {
+                    trip = t;
+                    board = s;
+                }
+            }
+        }
+    }
+
+    /** 패턴 p 의 운행 중 위치 i 에서 ready 이후 출발하는 첫 운행(번호 < limit). 없으면 -1. */
+    private int earliestTrip(int p, int i, int ready, int limit) {
+        int lo = tt.patternTripFirst[p];
+        int hi = limit;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (tt.departure[tt.tripTimeFirst[mid] + i] < ready) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo < limit ? lo : -1;
+    }
+
+    /** 이번 라운드에 탑승으로 닿은 정류장에서 반경 안 정류장으로 걸어 간다. */
+    private void walkTransfers(Workspace w, int o, int bound) {
+        IntArrayList marks = w.marks[o];
+        int ridden = marks.size();
+        for (int i = 0; i < ridden; i++) {
+            int s = marks.get(i);
+            int at = w.best[o * w.stops + s];
+            for (int k = tt.transferFirst[s]; k < tt.transferFirst[s + 1]; k++) {
+                int a = at + tt.transferSec[k];
+                int to = tt.transferStop[k];
+                if (a < bound && w.improve(o, to, a, s, VIA_WALK)) w.mark(o, to);
+            }
+        }
+    }
+
+    /** {도착지 쪽 최선 정류장(-1 없음), 도착지 도착 시각(INF 없음)}. */
+    private static int[] bestEgress(Workspace w, int o, int[][] egress) {
+        int bestStop = -1;
+        int bestArr = INF;
+        for (int k = 0; k < egress[0].length; k++) {
+            int at = w.best[o * w.stops + egress[0][k]];
+            if (at == INF) continue;
+            int a = at + egress[1][k];
+            if (a < bestArr) {
+                bestArr = a;
+                bestStop = egress[0][k];
+            }
+        }
+        return new int[]{bestStop, bestArr};
+    }
+
+    /** 도착지 쪽 정류장에서 직전 정류장을 거슬러 탑승 구간들을 복원한다. */
+    private Journey journey(Workspace w, int o, int stop, int durationSec) {
+        IntArrayList trips = new IntArrayList(MAX_RIDES);
+        IntArrayList boards = new IntArrayList(MAX_RIDES);
+        IntArrayList alights = new IntArrayList(MAX_RIDES);
+        int s = stop;
+        for (int guard = 0; guard < 4 * MAX_RIDES + 4; guard++) {
+            int idx = o * w.stops + s;
+            int via = w.via[idx];
+            if (via == VIA_ACCESS) break;
+            if (via >= 0) {
+                trips.add(via);
+                boards.add(w.parent[idx]);
+                alights.add(s);
+            }
+            s = w.parent[idx];
+        }
+        return new Journey(durationSec, reverse(trips), reverse(boards), reverse(alights));
+    }
+
+    private static int[] reverse(IntArrayList l) {
+        int[] a = new int[l.size()];
+        for (int i = 0; i < a.length; i++) a[i] = l.get(a.length - 1 - i);
+        return a;
+    }
+
+    private static int fixed(double deg) {
+        return (int) Math.round(deg * 1e7);
+    }
+
+    /** 작업 배열(출발지 × 정류장, 출발지 × 패턴). 스레드에 남긴 것은 쓴 칸만 되돌려 질의마다 할당하지 않는다. */
+    private static final class Workspace {
+        int stops, patterns;
+        int[] best = new int[0];
+        int[] parent = new int[0];
+        int[] via = new int[0];
+        int[] boardAt = new int[0];
+        boolean[] marked = new boolean[0];
+        int[] queuePos = new int[0];
+        boolean[] patternQueued = new boolean[0];
+        final IntArrayList queued = new IntArrayList();
+        final IntArrayList touched = new IntArrayList(1 << 12);
+        IntArrayList[] marks = new IntArrayList[0];
+        IntArrayList[] boarding = new IntArrayList[0];
+
+        void prepare(int origins, int stops, int patterns) {
+            this.stops = stops;
+            this.patterns = patterns;
+            int cells = origins * stops;
+            if (best.length < cells) {
+                best = new int[cells];
+                Arrays.fill(best, INF);
+                parent = new int[cells];
+                via = new int[cells];
+                boardAt = new int[cells];
+                Arrays.fill(boardAt, INF);
+                marked = new boolean[cells];
+            }
+            if (queuePos.length < origins * patterns) {
+                queuePos = new int[origins * patterns];
+                Arrays.fill(queuePos, INF);
+            }
+            if (patternQueued.length < patterns) patternQueued = new boolean[patterns];
+            if (marks.length < origins) {
+                marks = new IntArrayList[origins];
+                boarding = new IntArrayList[origins];
+                for (int o = 0; o < origins; o++) {
+                    marks[o] = new IntArrayList();
+                    boarding[o] = new IntArrayList();
+                }
+            }
+        }
+
+        boolean improve(int o, int s, int arrival, int from, int how) {
+            int idx = o * stops + s;
+            if (arrival >= best[idx]) return false;
+            if (best[idx] == INF) touched.add(idx);
+            best[idx] = arrival;
+            parent[idx] = from;
+            via[idx] = how;
+            return true;
+        }
+
+        void mark(int o, int s) {
+            int idx = o * stops + s;
+            if (marked[idx]) return;
+            marked[idx] = true;
+            marks[o].add(s);
+        }
+
+        /** 표시 목록 → 이번 라운드 탑승 후보(탑승 가능 시각 고정). 새 표시 목록은 비운다. */
+        IntArrayList beginBoarding(int o) {
+            IntArrayList b = boarding[o];
+            boarding[o] = marks[o];
+            marks[o] = b;
+            b = boarding[o];
+            for (int i = 0; i < b.size(); i++) {
+                int idx = o * stops + b.get(i);
+                marked[idx] = false;
+                boardAt[idx] = best[idx];
+            }
+            return b;
+        }
+
+        int boardTime(int o, int s) {
+            return boardAt[o * stops + s];
+        }
+
+        void endBoarding(int o) {
+            IntArrayList b = boarding[o];
+            for (int i = 0; i < b.size(); i++) boardAt[o * stops + b.get(i)] = INF;
+            b.clear();
+        }
+
+        void reset() {
+            for (int i = 0; i < touched.size(); i++) {
+                int idx = touched.get(i);
+                best[idx] = INF;
+                boardAt[idx] = INF;
+                marked[idx] = false;
+            }
+            touched.clear();
+            for (IntArrayList m : marks) if (m != null) m.clear();
+            for (IntArrayList b : boarding) if (b != null) b.clear();
+            for (int i = 0; i < queued.size(); i++) patternQueued[queued.get(i)] = false;
+            queued.clear();
+            Arrays.fill(queuePos, INF);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.waynai.demo.transit;
+
+import com.waynai.demo.util.IntArrayList;
+
+import java.util.Arrays;
+
+/**
+ * RAPTOR 용 압축 시간표. 모든 표는 원시 int 배열(CSR)이다.
+ *
+ * <ul>
+ *   <li>패턴: 같은 노선·같은 정류장 순서를 도는 운행(trip) 묶음. 운행은 첫 정류장 출발 순으로 정렬돼 있고
+ *       서로 추월하지 않는다(RAPTOR 의 FIFO 가정). 앞 운행을 추월하는 급행 등은 읽을 때 같은 정류장 순서의 하위 패턴으로 나뉜다.</li>
+ *   <li>운행 t 의 i 번째 정류장 도착/출발 = {@code arrival/departure[tripTimeFirst[t] + i]} (자정 기준 초, 24시 넘김 허용).</li>
+ *   <li>정류장 → 지나는 패턴(+ 그 패턴 안 첫 위치), 정류장 → 걸어서 갈아탈 수 있는 정류장(초)은 생성자에서 만든다.</li>
+ * </ul>
+ */
+final class Timetable {
+
+    static final String[] MODES = {"BUS", "SUBWAY", "RAIL", "FERRY", "AIR", "TRAM"};
+    static final int BUS = 0, SUBWAY = 1, RAIL = 2, FERRY = 3, AIR = 4, TRAM = 5;
+
+    /** 환승 도보 반경(m). */
+    static final double TRANSFER_METERS = 250;
+    /** 도보 속도(m/s)와 직선 → 실제 보행 거리 보정. */
+    static final double WALK_MPS = 1.2;
+    static final double DETOUR = 1.3;
+    /** 격자 한 칸(1e-7도 단위, 0.005도 ≈ 500m). */
+    private static final int CELL = 50_000;
+
+    final int[] stopLat, stopLon;
+    final int[] patternStopFirst, patternStops;
+    final int[] patternTripFirst, patternMode;
+    final String[] patternRoute;
+    final int[] tripPattern, tripTimeFirst;
+    final int[] arrival, departure;
+
+    final int[] stopPatternFirst, stopPatterns, stopPatternPos;
+    final int[] transferFirst, transferStop, transferSec;
+
+    private final int gridMinLat, gridMinLon, gridRows, gridCols;
+    private final int[] cellFirst, cellStop;
+
+    Timetable(int[] stopLat, int[] stopLon, int[] patternStopFirst, int[] patternStops, int[] patternTripFirst,
+              int[] patternMode, String[] patternRoute, int[] tripTimeFirst, int[] arrival, int[] departure) {
+        this.stopLat = stopLat;
+        this.stopLon = stopLon;
+        this.patternStopFirst = patternStopFirst;
+        this.patternStops = patternStops;
+        this.patternTripFirst = patternTripFirst;
+        this.patternMode = patternMode;
+        this.patternRoute = patternRoute;
+        this.tripTimeFirst = tripTimeFirst;
+        this.arrival = arrival;
+        this.departure = departure;
+
+        int p = patternCount();
+        tripPattern = new int[tripTimeFirst.length];
+        for (int pat = 0; pat < p; pat++) {
+            for (int t = patternTripFirst[pat]; t < patternTripFirst[pat + 1]; t++) tripPattern[t] = pat;
+        }
+
+        // 정류장 → 패턴(같은 패턴에 두 번 나오는 정류장은 첫 위치만)
+        int s = stopCount();
+        int[] count = new int[s + 1];
+        for (int pat = 0; pat < p; pat++) {
+            for (int i = patternStopFirst[pat]; i < patternStopFirst[pat + 1]; i++) {
+                if (firstIndex(pat, patternStops[i]) == i) count[patternStops[i] + 1]++;
+            }
+        }
+        for (int i = 0; i < s; i++) count[i + 1] += count[i];
+        stopPatternFirst = count;
+        stopPatterns = new int[count[s]];
+        stopPatternPos = new int[count[s]];
+        int[] pos = Arrays.copyOf(count, s);
+        for (int pat = 0; pat < p; pat++) {
+            for (int i = patternStopFirst[pat]; i < patternStopFirst[pat + 1]; i++) {
+                int stop = patternStops[i];
+                if (firstIndex(pat, stop) != i) continue;
+                stopPatterns[pos[stop]] = pat;
+                stopPatternPos[pos[stop]++] = i - patternStopFirst[pat];
+            }
+        }
+
+        int[][] grid = buildGrid();
+        gridMinLat = grid[0][0];
+        gridMinLon = grid[0][1];
+        gridRows = grid[0][2];
+        gridCols = grid[0][3];
+        cellFirst = grid[1];
+        cellStop = grid[2];
+
+        // 정류장 → 반경 안 정류장 도보 환승
+        int[] tFirst = new int[s + 1];
+        IntArrayList tStop = new IntArrayList(s * 4);
+        IntArrayList tSec = new IntArrayList(s * 4);
+        IntArrayList near = new IntArrayList();
+        IntArrayList nearM = new IntArrayList();
+        for (int a = 0; a < s; a++) {
+            near(stopLat[a], stopLon[a], TRANSFER_METERS, near, nearM);
+            for (int k = 0; k < near.size(); k++) {
+                if (near.get(k) == a) continue;
+                tStop.add(near.get(k));
+                tSec.add(walkSeconds(nearM.get(k)));
+            }
+            tFirst[a + 1] = tStop.size();
+        }
+        transferFirst = tFirst;
+        transferStop = tStop.toArray();
+        transferSec = tSec.toArray();
+    }
+
+    int stopCount() {
+        return stopLat.length;
+    }
+
+    int patternCount() {
+        return patternRoute.length;
+    }
+
+    int tripCount() {
+        return tripTimeFirst.length;
+    }
+
+    private int firstIndex(int pat, int stop) {
+        for (int i = patternStopFirst[pat]; i < patternStopFirst[pat + 1]; i++) if (patternStops[i] == stop) return i;
+        return -1;
+    }
+
+    static int walkSeconds(double meters) {
+        return (int) Math.max(1, Math.round(meters * DETOUR / WALK_MPS));
+    }
+
+    /** (lat, lon) 에서 maxMeters 안의 정류장과 직선 거리(m). 결과 목록은 비우고 채운다. */
+    void near(int lat, int lon, double maxMeters, IntArrayList stops, IntArrayList meters) {
+        stops.clear();
+        meters.clear();
+        if (gridRows == 0) return;
+        int reach = (int) Math.ceil(maxMeters / 400.0); // 한 칸 ≥ 약 440m(경도 방향, 위도 38도)
+        int r0 = Math.floorDiv(lat - gridMinLat, CELL);
+        int c0 = Math.floorDiv(lon - gridMinLon, CELL);
+        for (int r = Math.max(0, r0 - reach); r <= Math.min(gridRows - 1, r0 + reach); r++) {
+            for (int c = Math.max(0, c0 - reach); c <= Math.min(gridCols - 1, c0 + reach); c++) {
+                int cell = r * gridCols + c;
+                for (int i = cellFirst[cell]; i < cellFirst[cell + 1]; i++) {
+                    int st = cellStop[i];
+                    double m = meters(lat, lon, stopLat[st], stopLon[st]);
+                    if (m <= maxMeters) {
+                        stops.add(st);
+                        meters.add((int) Math.round(m));
+                    }
+                }
+            }
+        }
+    }
+
+    private int[][] buildGrid() {
+        int s = stopCount();
+        if (s == 0) return new int[][]{{0, 0, 0, 0}, {0}, {}};
+        int minLat = Integer.MAX_VALUE, minLon = Integer.MAX_VALUE, maxLat = Integer.MIN_VALUE, maxLon = Integer.MIN_VALUE;
+        for (int i = 0; i < s; i++) {
+            minLat = Math.min(minLat, stopLat[i]);
+            maxLat = Math.max(maxLat, stopLat[i]);
+            minLon = Math.min(minLon, stopLon[i]);
+            maxLon = Math.max(maxLon, stopLon[i]);
+        }
+        int rows = (maxLat - minLat) / CELL + 1;
+        int cols = (maxLon - minLon) / CELL + 1;
+        int[] first = new int[rows * cols + 1];
+        for (int i = 0; i < s; i++) first[((stopLat[i] - minLat) / CELL) * cols + (stopLon[i] - minLon) / CELL + 1]++;
+        for (int i = 0; i < rows * cols; i++) first[i + 1] += first[i];
+        int[] cells = new int[s];
+        int[] pos = Arrays.copyOf(first, rows * cols);
+        for (int i = 0; i < s; i++) cells[pos[((stopLat[i] - minLat) / CELL) * cols + (stopLon[i] - minLon) / CELL]++] = i;
+        return new int[][]{{minLat, minLon, rows, cols}, first, cells};
+    }
+
+    /** 두 1e-7도 좌표 사이 대권 거리(m). */
+    static double meters(int lat1, int lon1, int lat2, int lon2) {
+        double p1 = Math.toRadians(lat1 / 1e7);
+        double p2 = Math.toRadians(lat2 / 1e7);
+        double dp = p2 - p1;
+        double dl = Math.toRadians((lon2 - lon1) / 1e7);
+        double a = Math.sin(dp / 2) * Math.sin(dp / 2) + Math.cos(p1) * Math.cos(p2) * Math.sin(dl / 2) * Math.sin(dl / 2);
+        return 2 * 6_371_008.8 * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,100 @@
+package com.waynai.demo.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 별칭 → 값 트라이. 문장을 한 번 훑으며 겹치지 않는 최장 일치를 찾는다.
+ *
+ * <p>키는 소문자로 저장하고 조회 문장도 소문자로 본다. 오탐을 줄이려고 경계를 확인한다.
+ * <ul>
+ *   <li>라틴 문자 별칭은 앞뒤가 글자/숫자가 아니어야 한다("la" 가 "plan" 안에서 잡히지 않게).</li>
+ *   <li>두 글자 이하 한글 별칭은 어절 첫머리에서만 시작한다("니스" 가 "비즈니스" 에서 잡히지 않게).
+ *       뒤쪽은 조사가 붙으므로 보지 않는다.</li>
+ * </ul>
+ *
+ * <p>적재가 끝난 뒤에는 읽기 전용으로 쓰므로 조회는 스레드 안전하다.
+ */
+public class AliasTrie<V> {
+
+    private static final class Node<V> {
+        final Map<Character, Node<V>> next = new HashMap<>(4);
+        V value;
+        String alias;
+    }
+
+    /** 문장에서 찾은 별칭. alias 는 등록된 표기(소문자), start/end 는 문장 내 위치. */
+    public record Hit<V>(String alias, V value, int start, int end) {}
+
+    private final Node<V> root = new Node<>();
+    private int size;
+
+    /** 이미 있는 별칭이면 덮어쓰지 않는다(먼저 등록한 값 우선). */
+    public void put(String alias, V value) {
+        if (alias == null || alias.isBlank()) return;
+        String key = alias.trim().toLowerCase();
+        Node<V> n = root;
+        for (int i = 0; i < key.length(); i++) {
+            n = n.next.computeIfAbsent(key.charAt(i), c -> new Node<>());
+        }
+        if (n.value == null) {
+            n.value = value;
+            n.alias = key;
+            size++;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** 정확히 일치하는 별칭의 값. 없으면 null. */
+    public V get(String alias) {
+        if (alias == null) return null;
+        String key = alias.trim().toLowerCase();
+        Node<V> n = root;
+        for (int i = 0; i < key.length() && n != null; i++) n = n.next.get(key.charAt(i));
+        return n != null ? n.value : null;
+    }
+
+    /** 왼쪽부터 겹치지 않는 최장 일치 목록. */
+    public List<Hit<V>> scan(String text) {
+        List<Hit<V>> out = new ArrayList<>();
+        if (text == null || text.isEmpty()) return out;
+        String s = text.toLowerCase();
+        int i = 0;
+        while (i < s.length()) {
+            Hit<V> best = null;
+            Node<V> n = root;
+            for (int j = i; j < s.length(); j++) {
+                n = n.next.get(s.charAt(j));
+                if (n == null) break;
+                if (n.value != null && accepts(s, i, j + 1, n.alias)) {
+                    best = new Hit<>(n.alias, n.value, i, j + 1);
+                }
+            }
+            if (best != null) {
+                out.add(best);
+                i = best.end();
+            } else {
+                i++;
+            }
+        }
+        return out;
+    }
+
+    private static boolean accepts(String s, int start, int end, String alias) {
+        boolean prevLetter = start > 0 && Character.isLetterOrDigit(s.charAt(start - 1));
+        if (isLatin(alias.charAt(0))) {
+            boolean nextLetter = end < s.length() && Character.isLetterOrDigit(s.charAt(end));
+            return !prevLetter && !nextLetter;
+        }
+        return alias.length() > 2 || !prevLetter;
+    }
+
+    private static boolean isLatin(char c) {
+        return c < 0x250;
+    }
+}
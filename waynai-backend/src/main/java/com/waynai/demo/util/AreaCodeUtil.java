@@ -11,13 +11,20 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
  * 지역 코드 유틸리티 클래스
  * CSV 파일에서 지역 정보를 로드하고 관리
+ *
+ * <p>로드 시 시도/시군구 별칭 색인과 프롬프트용 압축 표를 한 번만 만들어 둔다.
+ * 의도 분석 프롬프트에는 전체 시군구 대신 질의에 등장한 후보 지역만 넣는다({@link #formatForPrompt}).
  */
 @Slf4j
 @Component
@@ -25,6 +32,17 @@ public class AreaCodeUtil {
     
     private List<AreaCodeDto> areaCodeList = new ArrayList<>();
     private final Random random = new Random();
+
+    /** 시도 별칭(정식명·약칭) → 시도 코드. */
+    private final Map<String, String> areaAliases = new LinkedHashMap<>();
+    /** 시군구 별칭(정식명·접미사 뗀 이름) → 해당 시군구들 (고성군처럼 여러 시도에 같은 이름이 있음). */
+    private final Map<String, List<AreaCodeDto>> sigunguAliases = new LinkedHashMap<>();
+    /** 시도 코드 → 약칭 (예: 11 → 서울). */
+    private final Map<String, String> areaShortNames = new LinkedHashMap<>();
+    /** 시도 코드 → "서울특별시 11: 종로구 11110, 중구 11140, …" 한 줄. */
+    private final Map<String, String> areaLines = new LinkedHashMap<>();
+    /** 17개 시도만 담은 최소 표 (후보가 없을 때의 폴백). */
+    private String areaSummaryLine = "";
     
     /**
      * 애플리케이션 시작 시 CSV 파일에서 지역 코드 정보를 로드
@@ -61,6 +79,7 @@ public class AreaCodeUtil {
                 }
                 
                 log.info("지역 코드 정보 로드 완료: {} 개", areaCodeList.size());
+                buildIndexes();
                 
             } catch (IOException e) {
                 log.error("CSV 파일 읽기 실패", e);
@@ -73,6 +92,102 @@ public class AreaCodeUtil {
         }
     }
     
+    /** 별칭 색인과 프롬프트용 압축 표를 만든다. 시작 시 1회. */
+    private void buildIndexes() {
+        Map<String, StringBuilder> lines = new LinkedHashMap<>();
+        for (AreaCodeDto a : areaCodeList) {
+            String code = a.getAreaCode();
+            if (!lines.containsKey(code)) {
+                String shortName = shortAreaName(a.getAreaName());
+                areaShortNames.put(code, shortName);
+                areaAliases.put(a.getAreaName(), code);
+                areaAliases.put(shortName, code);
+                lines.put(code, new StringBuilder(a.getAreaName()).append(' ').append(code).append(':'));
+            } else {
+                lines.get(code).append(',');
+            }
+            lines.get(code).append(' ').append(a.getSigunguName()).append(' ').append(a.getSigunguCode());
+
+            String name = a.getSigunguName();
+            addSigunguAlias(name, a);
+            // "창원시 의창구" 처럼 행정구가 붙은 이름은 시 이름으로도 찾는다.
+            int space = name.indexOf(' ');
+            if (space > 0) addSigunguAlias(name.substring(0, space), a);
+        }
+        lines.forEach((code, b) -> areaLines.put(code, b.toString()));
+        StringBuilder summary = new StringBuilder("시도:");
+        areaShortNames.forEach((code, shortName) -> summary.append(' ').append(shortName).append(' ').append(code).append(','));
+        summary.setLength(summary.length() - 1);
+        areaSummaryLine = summary.toString();
+    }
+
+    /** 정식명과, 3자 이상이면 시/군/구 접미사를 뗀 이름(강릉시→강릉)을 별칭으로 등록. */
+    private void addSigunguAlias(String name, AreaCodeDto a) {
+        List<AreaCodeDto> list = sigunguAliases.computeIfAbsent(name, k -> new ArrayList<>());
+        if (!list.contains(a)) list.add(a);
+        if (name.length() > 2 && "시군구".indexOf(name.charAt(name.length() - 1)) >= 0) {
+            List<AreaCodeDto> stemList = sigunguAliases.computeIfAbsent(name.substring(0, name.length() - 1), k -> new ArrayList<>());
+            if (!stemList.contains(a)) stemList.add(a);
+        }
+    }
+
+    /** 서울특별시→서울, 충청북도→충북, 전북특별자치도→전북, 경기도→경기. */
+    static String shortAreaName(String areaName) {
+        String n = areaName.replaceAll("(특별자치시|특별자치도|특별시|광역시)$", "");
+        if (n.endsWith("도") && n.length() == 4) {
+            return "" + n.charAt(0) + n.charAt(2);
+        }
+        if (n.endsWith("도") && n.length() == 3) {
+            return n.substring(0, 2);
+        }
+        return n;
+    }
+
+    /** 시도 코드의 약칭 (예: 26 → 부산). 모르면 null. */
+    public String getShortAreaName(String areaCode) {
+        return areaShortNames.get(areaCode);
+    }
+
+    /** 문장에 이름(정식명·약칭)이 등장하는 시도 코드들. 등장 순서 무관, 중복 없음. */
+    public Set<String> matchAreaCodes(String text) {
+        Set<String> out = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) return out;
+        areaAliases.forEach((alias, code) -> {
+            if (text.contains(alias)) out.add(code);
+        });
+        return out;
+    }
+
+    /** 문장에 이름(정식명·시/군/구 뗀 이름)이 등장하는 시군구들. */
+    public List<AreaCodeDto> matchSigungu(String text) {
+        Set<AreaCodeDto> out = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) return new ArrayList<>();
+        sigunguAliases.forEach((alias, list) -> {
+            if (text.contains(alias)) out.addAll(list);
+        });
+        return new ArrayList<>(out);
+    }
+
+    /**
+     * 의도 분석 프롬프트용 지역 표. 항상 17개 시도 요약 1줄을 넣고, 질의에 시도명이 나오면 그 시도의
+     * 시군구 전체 1줄을, 시군구명만 나오면 해당 시군구만 넣는다. 후보가 없으면(해외·모호) 요약만.
+     */
+    public String formatForPrompt(String query) {
+        StringBuilder b = new StringBuilder(areaSummaryLine);
+        Set<String> areas = matchAreaCodes(query);
+        for (String code : areas) {
+            b.append('\n').append(areaLines.get(code));
+        }
+        Map<String, StringBuilder> partial = new LinkedHashMap<>();
+        for (AreaCodeDto a : matchSigungu(query)) {
+            if (areas.contains(a.getAreaCode())) continue;
+            partial.computeIfAbsent(a.getAreaCode(), c -> new StringBuilder(a.getAreaName()).append(' ').append(c).append(':'))
+                    .append(' ').append(a.getSigunguName()).append(' ').append(a.getSigunguCode()).append(',');
+        }
+        partial.values().forEach(p -> b.append('\n').append(p, 0, p.length() - 1));
+        return b.toString();
+    }
+
     /**
      * 모든 지역 코드 정보 반환
      * @return 지역 코드 리스트
@@ -0,0 +1,48 @@
+package com.waynai.demo.util;
+
+import java.util.Arrays;
+
+/** 박싱 없는 가변 int 배열. 도로 그래프·GTFS 시간표 구축 중 간선·인접 목록을 쌓는 용도. */
+public final class IntArrayList {
+
+    private int[] data;
+    private int size;
+
+    public IntArrayList() {
+        this(16);
+    }
+
+    public IntArrayList(int capacity) {
+        data = new int[Math.max(4, capacity)];
+    }
+
+    public void add(int v) {
+        if (size == data.length) data = Arrays.copyOf(data, size + (size >> 1) + 1);
+        data[size++] = v;
+    }
+
+    public int get(int i) {
+        return data[i];
+    }
+
+    public void set(int i, int v) {
+        data[i] = v;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /** i 번째를 마지막 원소로 덮어 지운다(순서 무관한 목록 전용). */
+    public void removeAtUnordered(int i) {
+        data[i] = data[--size];
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+}
@@ -0,0 +1,295 @@
+package com.waynai.demo.util;
+
+import com.waynai.demo.dto.AreaCodeDto;
+import com.waynai.demo.dto.TouristSpotDto;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 국내 장소명 → 좌표 로컬 색인 (Nominatim 앞단).
+ *
+ * <p>관광공사 응답이 지나갈 때마다 관광지명과 {@code mapX/mapY} 를 시군구 단위로 적재한다.
+ * {@code gazetteer.file} 이 있으면 추가분을 CSV 로 이어 써서 재시작 후에도 유지한다.
+ *
+ * <p>조회는 지역 힌트를 {@link AreaCodeUtil} 의 시도·시군구로 풀어 그 범위 안에서만 찾는다.
+ * 이름은 공백·괄호·구두점을 지운 정규형으로 비교하고, 정확히 맞지 않으면 자모 단위 편집거리로
+ * 오타·받침 차이를 허용한다. 범위를 특정하지 못하면 전국에서 이름이 유일할 때만 인정한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KoreanGazetteer {
+
+    private static final Pattern PARENS = Pattern.compile("[(\\[（][^)\\]）]*[)\\]）]");
+    private static final Pattern NON_WORD = Pattern.compile("[^0-9a-z가-힣]");
+
+    private final AreaCodeUtil areaCodeUtil;
+
+    /** 추가분을 이어 쓸 CSV 경로. 비우면 메모리만. */
+    @Value("${gazetteer.file:}")
+    private String file;
+
+    public record Place(String name, String areaCode, String sigunguCode, double lat, double lon) {}
+
+    /**
+     * 시도 코드 → (정규화 이름 → 장소들). 같은 시도 안의 동명 장소(예: 시군구마다 있는 "중앙시장")는 시군구별로 따로 둔다.
+     * 시군구 범위는 값에서 거른다(시도당 수백 건 수준).
+     */
+    private final Map<String, Map<String, List<Place>>> byArea = new ConcurrentHashMap<>();
+    /** 정규화 이름 → 장소들(전국). 범위 미특정 조회용. */
+    private final Map<String, List<Place>> byName = new ConcurrentHashMap<>();
+    private Path path;
+
+    @PostConstruct
+    public void init() {
+        if (file == null || file.isBlank()) return;
+        path = Paths.get(file);
+        if (!Files.isRegularFile(path)) return;
+        int loaded = 0;
+        try {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                String[] c = line.split(",");
+                if (c.length < 5) continue;
+                try {
+                    if (put(new Place(c[0], c[1], c[2], Double.parseDouble(c[3]), Double.parseDouble(c[4])))) loaded++;
+                } catch (NumberFormatException ignore) {
+                    // 깨진 줄은 건너뛴다
+                }
+            }
+            log.info("[gazetteer] {} 에서 {}곳 로드", path, loaded);
+        } catch (IOException e) {
+            log.warn("[gazetteer] 로드 실패 (메모리만 사용): {}", e.getMessage());
+        }
+    }
+
+    /** 관광공사 관광지 목록을 색인. 좌표가 없거나 한국 밖이면 버린다. */
+    public void index(Collection<TouristSpotDto> spots) {
+        if (spots == null || spots.isEmpty()) return;
+        List<Place> added = new ArrayList<>();
+        for (TouristSpotDto s : spots) {
+            if (s.getHubTatsNm() == null || s.getAreaCd() == null) continue;
+            try {
+                double lon = Double.parseDouble(s.getMapX());
+                double lat = Double.parseDouble(s.getMapY());
+                if (lat < 33 || lat > 39.5 || lon < 124 || lon > 132) continue;
+                Place p = new Place(s.getHubTatsNm().replace(",", " ").trim(), s.getAreaCd(), s.getSignguCd(), lat, lon);
+                if (put(p)) added.add(p);
+            } catch (NumberFormatException | NullPointerException ignore) {
+                // 좌표 없는 항목
+            }
+        }
+        if (!added.isEmpty() && path != null) {
+            Schedulers.boundedElastic().schedule(() -> append(added));
+        }
+    }
+
+    public int size() {
+        return byName.size();
+    }
+
+    /**
+     * 장소명(+지역 힌트) → [lat, lng]. 못 찾으면 null.
+     * 이름이 시군구 자체이면(예: "강릉") 색인된 장소들의 중심을 돌려준다.
+     */
+    public double[] lookup(String name, String regionHint) {
+        String key = normalize(name);
+        if (key.isEmpty()) return null;
+        Set<String> areas = new LinkedHashSet<>(areaCodeUtil.matchAreaCodes(regionHint));
+        List<AreaCodeDto> sigungu = areaCodeUtil.matchSigungu(regionHint);
+        if (!areas.isEmpty()) sigungu.removeIf(a -> !areas.contains(a.getAreaCode()));
+        Set<String> sigunguCodes = new LinkedHashSet<>();
+        for (AreaCodeDto a : sigungu) {
+            sigunguCodes.add(a.getSigunguCode());
+            areas.add(a.getAreaCode());
+        }
+
+        if (areas.isEmpty()) {
+            // 범위 미특정: 전국에서 이름이 유일할 때만.
+            List<Place> same = byName.get(key);
+            if (same != null && same.size() == 1) return coords(same.get(0));
+            return regionCenter(key);
+        }
+        Place best = null;
+        int bestScore = Integer.MAX_VALUE;
+        String jamoKey = toJamo(key);
+        int tolerance = Math.min(3, Math.max(1, jamoKey.length() / 8));
+        for (String area : areas) {
+            Map<String, List<Place>> places = byArea.get(area);
+            if (places == null) continue;
+            List<Place> exact = places.getOrDefault(key, List.of()).stream()
+                    .filter(p -> sigunguCodes.isEmpty() || sigunguCodes.contains(p.sigunguCode()))
+                    .toList();
+            if (exact.size() == 1) return coords(exact.get(0));
+            if (exact.size() > 1) continue; // 시군구를 못 좁힌 동명 장소 — 어느 쪽인지 모른다
+            if (key.length() < 3) continue; // 두 글자 이하는 오타 허용 시 오탐이 많다
+            for (Map.Entry<String, List<Place>> e : places.entrySet()) {
+                // 범위 밖에 이름이 정확히 같은 곳이 있다면 그건 다른 장소다(범위 안 동명 장소가 색인에 없을 뿐).
+                if (e.getKey().equals(key)) continue;
+                if (Math.abs(e.getKey().length() - key.length()) > tolerance) continue;
+                int d = jamoDistance(jamoKey, toJamo(e.getKey()), tolerance);
+                if (d > tolerance) continue;
+                for (Place p : e.getValue()) {
+                    // 같은 시도 안이면 시군구 밖도 후보로 두되 감점(경계 근처 명소).
+                    int penalty = sigunguCodes.isEmpty() || sigunguCodes.contains(p.sigunguCode()) ? 0 : 1;
+                    if (d + penalty < bestScore) {
+                        best = p;
+                        bestScore = d + penalty;
+                    }
+                }
+            }
+        }
+        if (best != null) return coords(best);
+        return regionCenter(key);
+    }
+
+    /** 이름이 시군구·시도 자체이면(강릉, 강릉시, 부산광역시) 그 범위에 색인된 장소들의 평균 좌표(3곳 이상일 때). */
+    private double[] regionCenter(String key) {
+        List<AreaCodeDto> exact = new ArrayList<>();
+        for (AreaCodeDto a : areaCodeUtil.matchSigungu(key)) {
+            String sg = normalize(a.getSigunguName());
+            if (sg.equals(key) || (sg.length() == key.length() + 1 && sg.startsWith(key)
+                    && "시군구".indexOf(sg.charAt(sg.length() - 1)) >= 0)) {
+                exact.add(a);
+            }
+        }
+        if (exact.size() == 1) {
+            return centroid(exact.get(0).getAreaCode(), exact.get(0).getSigunguCode());
+        }
+        for (String code : areaCodeUtil.matchAreaCodes(key)) {
+            List<AreaCodeDto> rows = areaCodeUtil.getSigunguByAreaCode(code);
+            String full = rows.isEmpty() ? null : normalize(rows.get(0).getAreaName());
+            if (key.equals(normalize(areaCodeUtil.getShortAreaName(code))) || key.equals(full)) {
+                return centroid(code, null);
+            }
+        }
+        return null;
+    }
+
+    private double[] centroid(String areaCode, String sigunguCode) {
+        Map<String, List<Place>> places = byArea.get(areaCode);
+        if (places == null) return null;
+        double lat = 0, lon = 0;
+        int n = 0;
+        for (List<Place> same : places.values()) {
+            for (Place p : same) {
+                if (sigunguCode != null && !sigunguCode.equals(p.sigunguCode())) continue;
+                lat += p.lat();
+                lon += p.lon();
+                n++;
+            }
+        }
+        return n >= 3 ? new double[]{lat / n, lon / n} : null;
+    }
+
+    private boolean put(Place p) {
+        String key = normalize(p.name());
+        if (key.isEmpty()) return false;
+        boolean[] added = {false};
+        // 시군구마다 첫 항목만 둔다(같은 시군구의 같은 이름은 같은 장소).
+        byArea.computeIfAbsent(p.areaCode(), k -> new ConcurrentHashMap<>()).compute(key, (k, list) -> {
+            if (list != null && list.stream().anyMatch(q -> Objects.equals(q.sigunguCode(), p.sigunguCode()))) {
+                return list;
+            }
+            List<Place> out = list == null ? new ArrayList<>(1) : new ArrayList<>(list);
+            out.add(p);
+            added[0] = true;
+            return out;
+        });
+        if (!added[0]) return false;
+        byName.compute(key, (k, list) -> {
+            List<Place> out = list == null ? new ArrayList<>(1) : new ArrayList<>(list);
+            out.add(p);
+            return out;
+        });
+        return true;
+    }
+
+    private synchronized void append(List<Place> places) {
+        try (BufferedWriter w = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Place p : places) {
+                w.write(String.join(",", p.name(), p.areaCode(), nullToEmpty(p.sigunguCode()),
+                        String.valueOf(p.lat()), String.valueOf(p.lon())));
+                w.newLine();
+            }
+        } catch (IOException e) {
+            log.debug("[gazetteer] 파일 쓰기 실패: {}", e.getMessage());
+        }
+    }
+
+    private static double[] coords(Place p) {
+        return new double[]{p.lat(), p.lon()};
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
+    /** 괄호 속 부연·공백·구두점 제거 + 소문자. "해동 용궁사(기장)" → "해동용궁사". */
+    static String normalize(String name) {
+        if (name == null) return "";
+        String s = PARENS.matcher(name).replaceAll("");
+        return NON_WORD.matcher(s.toLowerCase()).replaceAll("");
+    }
+
+    /** 한글 음절을 초·중·종성 자모로 풀어 쓴다(그 외 문자는 그대로). */
+    static String toJamo(String s) {
+        StringBuilder b = new StringBuilder(s.length() * 3);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0xAC00 && c <= 0xD7A3) {
+                int idx = c - 0xAC00;
+                b.append((char) (0x1100 + idx / 588));
+                b.append((char) (0x1161 + (idx % 588) / 28));
+                int jong = idx % 28;
+                if (jong > 0) b.append((char) (0x11A7 + jong));
+            } else {
+                b.append(c);
+            }
+        }
+        return b.toString();
+    }
+
+    /** 편집거리(상한 초과 시 조기 종료 → limit+1 반환). */
+    static int jamoDistance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) return limit + 1;
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, cur[j]);
+            }
+            if (rowMin > limit) return limit + 1;
+            int[] t = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[b.length()];
+    }
+}
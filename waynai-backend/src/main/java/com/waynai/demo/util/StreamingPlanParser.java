@@ -0,0 +1,214 @@
+package com.waynai.demo.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.waynai.demo.dto.TravelPlanDto;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * LLM 스트리밍 델타를 받으면서 구조화 여행 계획(JSON)을 점진적으로 파싱한다.
+ *
+ * <p>문자 단위 상태기계(깊이·문자열·이스케이프)로 최상위 필드 값과 {@code itinerary[i]} 객체가
+ * 닫히는 순간을 감지해 그 구간만 잘라 Jackson 으로 읽는다. 전체 문자열을 매 델타마다 다시 파싱하지
+ * 않으므로 버퍼 1개 외 할당은 완성된 값 조각뿐이다. 첫 '{' 이전(코드펜스 등)과 루트가 닫힌 뒤는 무시하고,
+ * {@code extractJson} 과 같이 스마트따옴표를 표준 따옴표로 정규화한다.
+ *
+ * <p>스레드 안전하지 않다. 스트림 1개당 인스턴스 1개.
+ */
+@Slf4j
+public class StreamingPlanParser {
+
+    private static final String ITINERARY = "itinerary";
+
+    /** 값이 완성될 때마다 호출된다. snapshot 은 방금 완성된 값까지 반영한 계획이다. */
+    public interface Listener {
+        void onDay(int index, TravelPlanDto.DayPlan day, TravelPlanDto snapshot);
+
+        void onField(String name, TravelPlanDto snapshot);
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Listener listener;
+    private final StringBuilder buf = new StringBuilder();
+    private final ObjectNode root;
+    private ArrayNode days;
+
+    private int depth;
+    private boolean inString;
+    private boolean escape;
+    private boolean expectKey;
+    private int keyStart = -1;
+    private String pendingKey;
+    private String currentKey;
+    private int valueStart = -1;
+    private boolean inItinerary;
+    private int elemStart = -1;
+    private boolean done;
+    private boolean failed;
+
+    public StreamingPlanParser(ObjectMapper objectMapper, Listener listener) {
+        this.objectMapper = objectMapper;
+        this.listener = listener;
+        this.root = objectMapper.createObjectNode();
+    }
+
+    public void feed(CharSequence delta) {
+        if (delta == null) return;
+        for (int i = 0; i < delta.length() && !done; i++) {
+            accept(normalize(delta.charAt(i)));
+        }
+    }
+
+    /** 루트 객체가 닫혔고 모든 값 조각이 파싱됐으면 true. 이때 {@link #snapshot()} 이 최종 계획이다. */
+    public boolean isComplete() {
+        return done && !failed;
+    }
+
+    public int dayCount() {
+        return days == null ? 0 : days.size();
+    }
+
+    /** 지금까지 완성된 필드·일차만 담은 계획. 변환 실패 시 null. */
+    public TravelPlanDto snapshot() {
+        try {
+            return objectMapper.treeToValue(root, TravelPlanDto.class);
+        } catch (Exception e) {
+            log.debug("[stream-parser] 스냅샷 변환 실패: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static char normalize(char c) {
+        switch (c) {
+            case '“':
+            case '”':
+                return '"';
+            case '‘':
+            case '’':
+                return '\'';
+            default:
+                return c;
+        }
+    }
+
+    private void accept(char c) {
+        if (depth == 0) {
+            // 루트 시작 전 잡음(코드펜스·설명)은 버린다.
+            if (c == '{') {
+                buf.append(c);
+                depth = 1;
+                expectKey = true;
+            }
+            return;
+        }
+        int pos = buf.length();
+        buf.append(c);
+
+        if (inString) {
+            if (escape) {
+                escape = false;
+            } else if (c == '\\') {
+                escape = true;
+            } else if (c == '"') {
+                inString = false;
+                if (depth == 1 && expectKey && keyStart >= 0) {
+                    pendingKey = buf.substring(keyStart + 1, pos);
+                    keyStart = -1;
+                }
+            }
+            return;
+        }
+
+        switch (c) {
+            case '"':
+                inString = true;
+                if (depth == 1 && expectKey) keyStart = pos;
+                else markValueStart(pos);
+                break;
+            case ':':
+                if (depth == 1 && expectKey) {
+                    currentKey = pendingKey;
+                    pendingKey = null;
+                    expectKey = false;
+                    valueStart = -1;
+                }
+                break;
+            case '{':
+            case '[':
+                if (depth == 1) {
+                    markValueStart(pos);
+                    if (c == '[' && ITINERARY.equals(currentKey)) inItinerary = true;
+                } else if (depth == 2 && inItinerary && c == '{') {
+                    elemStart = pos;
+                }
+                depth++;
+                break;
+            case '}':
+            case ']':
+                depth--;
+                if (depth == 2 && inItinerary && c == '}' && elemStart >= 0) {
+                    completeDay(elemStart, pos + 1);
+                    elemStart = -1;
+                } else if (depth == 0) {
+                    completeValue(pos);
+                    done = true;
+                }
+                break;
+            case ',':
+                if (depth == 1) {
+                    completeValue(pos);
+                    expectKey = true;
+                }
+                break;
+            default:
+                if (!Character.isWhitespace(c)) markValueStart(pos);
+        }
+    }
+
+    private void markValueStart(int pos) {
+        if (depth == 1 && !expectKey && valueStart < 0) valueStart = pos;
+    }
+
+    private void completeDay(int start, int end) {
+        TravelPlanDto.DayPlan day;
+        try {
+            JsonNode node = objectMapper.readTree(buf.substring(start, end));
+            day = objectMapper.treeToValue(node, TravelPlanDto.DayPlan.class);
+            if (days == null) {
+                days = root.putArray(ITINERARY);
+            }
+            days.add(node);
+        } catch (Exception e) {
+            failed = true;
+            log.debug("[stream-parser] 일차 파싱 실패: {}", e.getMessage());
+            return;
+        }
+        listener.onDay(days.size() - 1, day, snapshot());
+    }
+
+    /** 최상위 값 완성. itinerary 는 일차별로 이미 반영했으므로 배열 전체로 교체만 한다. */
+    private void completeValue(int end) {
+        String key = currentKey;
+        int start = valueStart;
+        boolean itinerary = inItinerary;
+        currentKey = null;
+        valueStart = -1;
+        inItinerary = false;
+        if (key == null || start < 0) return;
+        try {
+            JsonNode value = objectMapper.readTree(buf.substring(start, end));
+            root.set(key, value);
+            if (itinerary) {
+                days = value.isArray() ? (ArrayNode) value : null;
+                return;
+            }
+        } catch (Exception e) {
+            failed = true;
+            log.debug("[stream-parser] 필드 파싱 실패({}): {}", key, e.getMessage());
+            return;
+        }
+        listener.onField(key, snapshot());
+    }
+}
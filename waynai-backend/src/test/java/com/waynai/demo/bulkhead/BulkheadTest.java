@@ -0,0 +1,65 @@
+package com.waynai.demo.bulkhead;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 스레드·대기열이 차면 즉시 거절하고, 한 격벽의 포화가 다른 격벽 실행을 막지 않는지 확인.
+ */
+class BulkheadTest {
+
+    @Test
+    void 스레드와_대기열이_차면_즉시_거절한다() throws Exception {
+        Bulkhead slow = new Bulkhead("slow", 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            slow.supply(() -> await(release));
+            slow.supply(() -> await(release));
+            assertThatThrownBy(() -> slow.supply(() -> "x").join())
+                    .hasCauseInstanceOf(RejectedExecutionException.class);
+            assertThatThrownBy(() -> slow.call(() -> "x").block())
+                    .isInstanceOf(RejectedExecutionException.class);
+
+            Bulkhead.Snapshot s = slow.snapshot();
+            assertThat(s.rejected()).isEqualTo(2);
+            assertThat(s.saturation()).isEqualTo(1.0);
+        } finally {
+            release.countDown();
+            slow.shutdown();
+        }
+    }
+
+    @Test
+    void 느린_격벽이_다른_격벽을_막지_않는다() throws Exception {
+        Bulkhead tour = new Bulkhead("tour", 2, 0);
+        Bulkhead naver = new Bulkhead("naver", 2, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            tour.supply(() -> await(release));
+            tour.supply(() -> await(release));
+            List<String> r = List.of(naver.supply(() -> "a").get(1, TimeUnit.SECONDS),
+                    naver.call(() -> "b").block());
+            assertThat(r).containsExactly("a", "b");
+        } finally {
+            release.countDown();
+            tour.shutdown();
+            naver.shutdown();
+        }
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+}
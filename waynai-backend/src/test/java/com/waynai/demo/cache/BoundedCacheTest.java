@@ -0,0 +1,77 @@
+package com.waynai.demo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 영역 상한·만료·음성 캐시와, 한 번 스치고 지나가는 키가 자주 쓰는 항목을 밀어내지 못하는지(TinyLFU) 확인.
+ */
+class BoundedCacheTest {
+
+    @Test
+    void 자주_찾는_항목은_일회성_키_폭주에도_남는다() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>("t", BoundedCache.Spec.of(100, Duration.ofHours(1)));
+        for (int i = 0; i < 50; i++) cache.put("hot" + i, i);
+        for (int r = 0; r < 5; r++) {
+            for (int i = 0; i < 50; i++) cache.get("hot" + i);
+        }
+        for (int i = 0; i < 5_000; i++) cache.put("scan" + i, i);
+
+        int survived = 0;
+        for (int i = 0; i < 50; i++) if (cache.get("hot" + i) != null) survived++;
+        assertThat(survived).isGreaterThanOrEqualTo(45);
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    void 가중치_합으로_상한을_건다() {
+        BoundedCache<String, String> cache = new BoundedCache<>("w", BoundedCache.Spec.of(1_000, Duration.ofHours(1)),
+                String::length);
+        for (int i = 0; i < 100; i++) cache.put("k" + i, "x".repeat(100));
+        assertThat(cache.stats().weight()).isLessThanOrEqualTo(1_000);
+        assertThat(cache.stats().evictions()).isPositive();
+    }
+
+    @Test
+    void 후보가_밀려나면_자리를_내준_희생자도_없다() {
+        // 윈도 10, 본 영역 990. 400 짜리 둘이 본 영역에 있고 700 짜리 후보가 둘 다 밀어내야 들어간다.
+        BoundedCache<String, String> cache = new BoundedCache<>("a", BoundedCache.Spec.of(1_000, Duration.ofHours(1)),
+                String::length);
+        cache.put("cold", "c".repeat(400));
+        cache.put("hot", "h".repeat(400));
+        for (int i = 0; i < 5; i++) cache.get("hot");
+        for (int i = 0; i < 2; i++) cache.get("mid");
+
+        // mid(빈도 2)는 cold(0)는 이기지만 hot(5)에 져서 탈락 → cold 도 그대로 남아야 한다.
+        cache.put("mid", "m".repeat(700));
+        assertThat(cache.get("mid")).isNull();
+        assertThat(cache.get("cold")).isNotNull();
+        assertThat(cache.get("hot")).isNotNull();
+        assertThat(cache.stats().weight()).isEqualTo(800);
+    }
+
+    @Test
+    void 만료된_항목은_미스로_센다() throws InterruptedException {
+        BoundedCache<String, String> cache = new BoundedCache<>("e", BoundedCache.Spec.of(10, Duration.ofMillis(30)));
+        cache.put("a", "1");
+        assertThat(cache.get("a")).isEqualTo("1");
+        Thread.sleep(60);
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.stats().expirations()).isEqualTo(1);
+    }
+
+    @Test
+    void 음성_결과는_따로_기억하고_로더를_다시_부르지_않는다() {
+        BoundedCache<String, String> cache = new BoundedCache<>("n",
+                BoundedCache.Spec.of(10, Duration.ofHours(1)).withNegativeTtl(Duration.ofMinutes(1)));
+        int[] calls = {0};
+        assertThat(cache.get("없는곳", k -> { calls[0]++; return null; })).isNull();
+        assertThat(cache.get("없는곳", k -> { calls[0]++; return "X"; })).isNull();
+        assertThat(calls[0]).isEqualTo(1);
+        assertThat(cache.isNegative("없는곳")).isTrue();
+        assertThat(cache.stats().negativeHits()).isEqualTo(1);
+    }
+}
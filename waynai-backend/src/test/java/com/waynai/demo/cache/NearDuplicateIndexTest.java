@@ -0,0 +1,67 @@
+package com.waynai.demo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 띄어쓰기·꾸밈말만 다른 질의는 묶고, 목적지·일수가 다른 질의는 가르는지, 상한을 넘으면 오래된 질의를 잊는지(비교만 된 후보는 최근 사용이 아님) 확인.
+ */
+class NearDuplicateIndexTest {
+
+    @Test
+    void 표기만_다른_질의를_대표_질의로_묶는다() {
+        NearDuplicateIndex<String> index = new NearDuplicateIndex<>(100, 0.7);
+        index.put("부산 2박 3일 여행 코스", "busan");
+        index.put("여수 2박 3일 여행 코스", "yeosu");
+
+        NearDuplicateIndex.Match<String> m = index.find("부산 2박3일 여행코스 추천");
+        assertThat(m).isNotNull();
+        assertThat(m.canonical()).isEqualTo("부산 2박 3일 여행 코스");
+        assertThat(m.value()).isEqualTo("busan");
+        assertThat(m.similarity()).isGreaterThanOrEqualTo(0.7).isLessThan(1.0);
+
+        assertThat(index.find("부산, 2박 3일 여행 코스!").similarity()).isEqualTo(1.0);
+    }
+
+    @Test
+    void 숫자나_목적지가_다르면_묶지_않는다() {
+        NearDuplicateIndex<String> index = new NearDuplicateIndex<>(100, 0.7);
+        index.put("부산 2박 3일 여행 코스", "busan");
+
+        assertThat(index.find("부산 3박 4일 여행 코스")).isNull();
+        assertThat(index.find("제주 한라산 등산 일정")).isNull();
+        assertThat(index.find("")).isNull();
+    }
+
+    @Test
+    void 상한을_넘으면_가장_오래_안_쓴_질의부터_잊는다() {
+        NearDuplicateIndex<Integer> index = new NearDuplicateIndex<>(3, 0.7);
+        index.put("부산 해운대 맛집 여행", 1);
+        index.put("강릉 바다 카페 여행", 2);
+        index.put("전주 한옥마을 먹방 여행", 3);
+        assertThat(index.find("부산 해운대 맛집여행")).isNotNull();
+        index.put("경주 불국사 역사 여행", 4);
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.find("강릉 바다 카페 여행")).isNull();
+        assertThat(index.find("부산 해운대 맛집 여행").value()).isEqualTo(1);
+        assertThat(index.find("경주 불국사 역사여행").value()).isEqualTo(4);
+    }
+
+    @Test
+    void 후보로_비교만_되고_진_질의는_최근_사용으로_올리지_않는다() {
+        NearDuplicateIndex<Integer> index = new NearDuplicateIndex<>(3, 0.7);
+        index.put("부산 해운대 맛집 여행 코스", 1);
+        index.put("부산 해운대 맛집 여행 코스 추천", 2);
+        index.put("강릉 바다 카페 여행", 3);
+        for (int i = 0; i < 3; i++) {
+            assertThat(index.find("부산 해운대 맛집 여행코스 추천해줘").value()).isEqualTo(2);
+        }
+        index.put("경주 불국사 역사 여행", 4);
+
+        assertThat(index.find("부산 해운대 맛집 여행 코스", v -> v == 1)).isNull();
+        assertThat(index.find("강릉 바다 카페 여행").value()).isEqualTo(3);
+        assertThat(index.find("부산 해운대 맛집 여행 코스 추천").value()).isEqualTo(2);
+    }
+}
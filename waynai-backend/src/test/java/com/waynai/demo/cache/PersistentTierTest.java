@@ -0,0 +1,62 @@
+package com.waynai.demo.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 디스크 계층은 재시작 후 색인·예열을 복원하고, 끝이 잘린 로그와 덮어쓰기 누적을 견뎌야 한다.
+ */
+class PersistentTierTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void 재시작하면_메모리_계층을_디스크에서_예열한다() throws Exception {
+        BoundedCache.Spec spec = BoundedCache.Spec.of(100, Duration.ofHours(1)).withNegativeTtl(Duration.ofHours(1));
+        BoundedCache<String, double[]> first = new BoundedCache<>("geo", spec);
+        first.attach(new PersistentTier<>("geo", dir, Codec.LAT_LNG));
+        first.put("해운대", new double[]{35.1587, 129.1604});
+        first.putNegative("없는곳");
+        first.tier().close();
+
+        BoundedCache<String, double[]> second = new BoundedCache<>("geo", spec);
+        second.attach(new PersistentTier<>("geo", dir, Codec.LAT_LNG));
+        assertThat(second.get("해운대")).containsExactly(35.1587, 129.1604);
+        assertThat(second.isNegative("없는곳")).isTrue();
+    }
+
+    @Test
+    void 끝이_잘린_레코드는_버리고_앞부분은_살린다() throws Exception {
+        PersistentTier<String> tier = new PersistentTier<>("iata", dir, Codec.STRING);
+        long exp = System.currentTimeMillis() + 60_000;
+        tier.put("오사카", "OSA", System.currentTimeMillis(), exp);
+        tier.close();
+        Files.write(dir.resolve("iata.log"), new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        PersistentTier<String> reopened = new PersistentTier<>("iata", dir, Codec.STRING);
+        assertThat(reopened.get("오사카").value()).isEqualTo("OSA");
+        assertThat(reopened.size()).isEqualTo(1);
+        reopened.close();
+    }
+
+    @Test
+    void 덮어쓰기가_쌓이면_압축해도_최신값이_남는다() throws Exception {
+        PersistentTier<String> tier = new PersistentTier<>("c", dir, Codec.STRING);
+        long exp = System.currentTimeMillis() + 60_000;
+        String big = "x".repeat(4_000);
+        for (int i = 0; i < 600; i++) tier.put("k" + (i % 3), big + i, System.currentTimeMillis(), exp);
+        long before = tier.fileBytes();
+        tier.compactIfNeeded();
+        assertThat(tier.fileBytes()).isLessThan(before / 10);
+        assertThat(tier.get("k2").value()).isEqualTo(big + 599);
+        tier.close();
+    }
+}
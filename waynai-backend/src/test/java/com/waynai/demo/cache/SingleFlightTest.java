@@ -0,0 +1,118 @@
+package com.waynai.demo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 같은 키의 동시 호출이 1건으로 합쳐지고 결과·예외를 함께 받는지(블로킹·비동기), 캐시 read-through 미스도 합쳐지는지 확인.
+ */
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    void 동시_호출은_한_번만_실행되고_결과를_공유한다() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        List<String> results = runConcurrently(() -> flight.execute("k", () -> {
+            calls.incrementAndGet();
+            sleep(150);
+            return "v";
+        }));
+
+        assertThat(results).hasSize(CALLERS).containsOnly("v");
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(flight.coalesced()).isEqualTo(CALLERS - 1);
+        assertThat(flight.inFlight()).isZero();
+    }
+
+    @Test
+    void 예외도_대기자에게_그대로_전달되고_다음_호출은_다시_실행된다() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        assertThatThrownBy(() -> flight.execute("k", () -> {
+            throw new IllegalStateException("upstream down");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(flight.execute("k", () -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    void 비동기_호출도_진행_중인_호출을_공유하고_한_호출자의_취소는_번지지_않는다() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> first = flight.executeAsync("k", () -> {
+            calls.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<String> second = flight.executeAsync("k", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        first.cancel(true);
+        upstream.complete("v");
+
+        assertThat(second.get(1, TimeUnit.SECONDS)).isEqualTo("v");
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(flight.coalesced()).isEqualTo(1);
+        assertThat(flight.inFlight()).isZero();
+        assertThat(flight.executeAsync("k", () -> CompletableFuture.completedFuture("next")).get()).isEqualTo("next");
+    }
+
+    @Test
+    void 캐시_미스가_몰려도_로더는_한_번만_부른다() throws Exception {
+        BoundedCache<String, String> cache = new BoundedCache<>("sf", BoundedCache.Spec.of(100, Duration.ofHours(1)));
+        AtomicInteger loads = new AtomicInteger();
+        List<String> results = runConcurrently(() -> cache.get("seoul", k -> {
+            loads.incrementAndGet();
+            sleep(150);
+            return k.toUpperCase();
+        }));
+
+        assertThat(results).containsOnly("SEOUL");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.get("seoul")).isEqualTo("SEOUL");
+        assertThat(cache.stats().coalesced()).isEqualTo(CALLERS - 1);
+    }
+
+    private static List<String> runConcurrently(java.util.concurrent.Callable<String> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<String> out = new ArrayList<>();
+            for (Future<String> f : futures) out.add(f.get(5, TimeUnit.SECONDS));
+            return out;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.waynai.demo.client;
+
+import com.waynai.demo.cache.PersistentTier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * LLM 응답은 디스크 계층에 64KB 를 넘는 한글 본문도 그대로 남고, 저장 당시 모델·시각과 함께 되읽혀야 한다.
+ */
+class LlmResponseCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void 긴_한글_응답도_디스크_계층을_거쳐_그대로_읽힌다() throws Exception {
+        String text = "{\"itinerary\":\"" + "해운대 해수욕장 산책 ".repeat(4_000) + "\"}";
+        long now = System.currentTimeMillis();
+        PersistentTier<LlmResponseCache.Entry> tier = new PersistentTier<>("llm-response", dir,
+                LlmResponseCache.ENTRY_CODEC);
+        tier.put("k", new LlmResponseCache.Entry("model-a", text, now), now, now + 60_000);
+        tier.close();
+
+        PersistentTier<LlmResponseCache.Entry> reopened = new PersistentTier<>("llm-response", dir,
+                LlmResponseCache.ENTRY_CODEC);
+        LlmResponseCache.Entry e = reopened.get("k").value();
+        assertThat(e.text()).isEqualTo(text);
+        assertThat(e.model()).isEqualTo("model-a");
+        assertThat(e.createdAt()).isEqualTo(now);
+        reopened.close();
+    }
+}
@@ -0,0 +1,89 @@
+package com.waynai.demo.quota;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 버스트 후 간격 제한, 일일 예산 소진·임박 판정, 대기 마감 처리, 속도 제한 백오프를 확인.
+ */
+class QuotaTest {
+
+    @Test
+    void 버스트만큼_통과하고_이후는_간격을_기다린다() {
+        Quota q = new Quota("t", Quota.Limits.of(10, 3, 0));
+        assertThat(q.tryAcquire()).isTrue();
+        assertThat(q.tryAcquire()).isTrue();
+        assertThat(q.tryAcquire()).isTrue();
+        assertThat(q.tryAcquire()).isFalse();
+
+        long start = System.nanoTime();
+        assertThat(q.acquire(Duration.ofMillis(500))).isTrue();
+        assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis()).isBetween(40L, 400L);
+    }
+
+    @Test
+    void 마감_안에_허가가_안_나면_즉시_거절하고_예산을_돌려준다() {
+        Quota q = new Quota("t", Quota.Limits.of(1, 1, 100));
+        assertThat(q.tryAcquire()).isTrue();
+        assertThat(q.acquire(Duration.ofMillis(50))).isFalse();
+        assertThat(q.remainingToday()).isEqualTo(99);
+        assertThat(q.snapshot().rejected()).isEqualTo(1);
+    }
+
+    @Test
+    void 예약_대기열이_상한을_넘으면_예약하지_않는다() {
+        Quota q = new Quota("t", Quota.Limits.of(1, 1, 100));
+        assertThat(q.reserve(Duration.ofMillis(2500))).isZero();
+        assertThat(q.reserve(Duration.ofMillis(2500))).isBetween(900L, 1000L);
+        assertThat(q.reserve(Duration.ofMillis(2500))).isBetween(1900L, 2000L);
+        assertThat(q.reserve(Duration.ofMillis(2500))).isEqualTo(-1);
+        assertThat(q.remainingToday()).isEqualTo(97);
+    }
+
+    @Test
+    void 일일_예산이_바닥나면_임박_후_거절한다() {
+        Quota q = new Quota("t", new Quota.Limits(0, 1, 10, 0.2));
+        for (int i = 0; i < 8; i++) assertThat(q.tryAcquire()).isTrue();
+        assertThat(q.isNearlyExhausted()).isFalse();
+        assertThat(q.tryAcquire()).isTrue();
+        assertThat(q.isNearlyExhausted()).isTrue();
+        assertThat(q.tryAcquire()).isTrue();
+        assertThat(q.tryAcquire()).isFalse();
+        assertThat(q.reserve()).isEqualTo(-1);
+    }
+
+    @Test
+    void 저장값은_같은_날에만_복원하고_일일_한도_신호는_예산을_닫는다() {
+        Quota q = new Quota("t", Quota.Limits.of(0, 1, 50));
+        q.tryAcquire();
+        Quota restored = new Quota("t", Quota.Limits.of(0, 1, 50));
+        restored.restore(q.persistedValue());
+        assertThat(restored.remainingToday()).isEqualTo(49);
+
+        Quota stale = new Quota("t", Quota.Limits.of(0, 1, 50));
+        stale.restore("1:40");
+        assertThat(stale.remainingToday()).isEqualTo(50);
+
+        stale.exhaust();
+        assertThat(stale.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void 백오프는_잠깐_막을_뿐_일일_예산을_닫거나_저장하지_않는다() {
+        Quota q = new Quota("t", Quota.Limits.of(0, 1, 50));
+        q.persistedValue();
+        q.backOff(Duration.ofMillis(200));
+        assertThat(q.isDirty()).isFalse();
+
+        assertThat(q.tryAcquire()).isFalse();
+        assertThat(q.remainingToday()).isEqualTo(50);
+
+        long start = System.nanoTime();
+        assertThat(q.acquire(Duration.ofSeconds(1))).isTrue();
+        assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis()).isBetween(100L, 900L);
+        assertThat(q.remainingToday()).isEqualTo(49);
+    }
+}
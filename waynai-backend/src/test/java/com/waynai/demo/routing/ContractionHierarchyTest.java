@@ -0,0 +1,214 @@
+package com.waynai.demo.routing;
+
+import com.waynai.demo.client.RoutingApiClient.RouteDetail;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * 축약 계층 질의는 원 그래프 다익스트라와 같은 최단 시간을 내야 하고, 저장본을 매핑해도 결과가 같아야 한다.
+ */
+class ContractionHierarchyTest {
+
+    private static final int N = 9;
+    private static final double LAT0 = 37.56;
+    private static final double LON0 = 126.97;
+    private static final double STEP = 0.002;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void 모든_노드쌍에서_다익스트라와_같은_최단시간을_낸다() throws Exception {
+        RoadNetwork net = network(grid(42));
+        for (RoadProfile p : RoadProfile.values()) {
+            ContractionHierarchy ch = ContractionHierarchy.build(net, p);
+            Map<Long, Integer> edgeWeight = minWeights(net.edges.get(p));
+            for (int s = 0; s < net.nodeCount(); s++) {
+                long[] expected = dijkstra(net, p, s);
+                for (int t = 0; t < net.nodeCount(); t++) {
+                    ContractionHierarchy.Route r = ch.route(s, t);
+                    if (expected[t] == Long.MAX_VALUE) {
+                        assertThat(r).as("%s %d→%d", p, s, t).isNull();
+                        continue;
+                    }
+                    assertThat(r).as("%s %d→%d", p, s, t).isNotNull();
+                    assertThat(r.weightMs()).as("%s %d→%d", p, s, t).isEqualTo(expected[t]);
+                    // 지름길을 풀어낸 노드열이 실제 간선으로 이어지고 합이 같아야 한다.
+                    int[] nodes = r.nodes();
+                    assertThat(nodes[0]).isEqualTo(s);
+                    assertThat(nodes[nodes.length - 1]).isEqualTo(t);
+                    long sum = 0;
+                    for (int i = 0; i + 1 < nodes.length; i++) {
+                        Integer w = edgeWeight.get(pair(nodes[i], nodes[i + 1]));
+                        assertThat(w).isNotNull();
+                        sum += w;
+                    }
+                    assertThat(sum).isEqualTo(r.weightMs());
+                }
+            }
+        }
+    }
+
+    @Test
+    void 차량은_일방통행을_지키고_도보는_양방향이다() throws Exception {
+        RoadNetwork net = network("""
+                <node id="1" lat="37.5000" lon="127.0000"/>
+                <node id="2" lat="37.5000" lon="127.0010"/>
+                <node id="3" lat="37.5000" lon="127.0020"/>
+                <way id="10"><nd ref="1"/><nd ref="2"/><nd ref="3"/>
+                  <tag k="highway" v="residential"/><tag k="oneway" v="yes"/></way>
+                <way id="11"><nd ref="3"/><nd ref="1"/><tag k="highway" v="motorway"/></way>
+                """);
+        ContractionHierarchy car = ContractionHierarchy.build(net, RoadProfile.CAR);
+        ContractionHierarchy foot = ContractionHierarchy.build(net, RoadProfile.FOOT);
+        int a = car.nearest(37.5, 127.0, 100);
+        int c = car.nearest(37.5, 127.002, 100);
+
+        assertThat(car.route(a, c).nodes()).hasSize(3);
+        // 역방향은 고속도로(3→1 일방)로만 돌아온다.
+        assertThat(car.route(c, a).nodes()).hasSize(2);
+        // 도보는 고속도로를 못 타지만 주택가 일방통행은 거슬러 걸을 수 있다.
+        assertThat(foot.route(foot.nearest(37.5, 127.002, 100), foot.nearest(37.5, 127.0, 100)).nodes()).hasSize(3);
+        assertThat(car.nearest(37.6, 127.0, 100)).isEqualTo(-1);
+    }
+
+    @Test
+    void 저장본을_매핑해도_같은_경로를_낸다() throws Exception {
+        RoadNetwork net = network(grid(7));
+        ContractionHierarchy built = ContractionHierarchy.build(net, RoadProfile.CAR);
+        Path file = dir.resolve("driving-car.ch");
+        built.save(file);
+        ContractionHierarchy mapped = ContractionHierarchy.load(file);
+
+        assertThat(mapped.nodeCount()).isEqualTo(built.nodeCount());
+        assertThat(mapped.edgeCount()).isEqualTo(built.edgeCount());
+        for (int s = 0; s < net.nodeCount(); s += 5) {
+            for (int t = 0; t < net.nodeCount(); t += 3) {
+                ContractionHierarchy.Route a = built.route(s, t);
+                ContractionHierarchy.Route b = mapped.route(s, t);
+                assertThat(b == null).isEqualTo(a == null);
+                if (a != null) assertThat(b.nodes()).containsExactly(a.nodes());
+            }
+        }
+        assertThat(mapped.nearest(LAT0 + STEP * 3.1, LON0 + STEP * 4.9, 500))
+                .isEqualTo(built.nearest(LAT0 + STEP * 3.1, LON0 + STEP * 4.9, 500));
+    }
+
+    @Test
+    void 경로_상세는_RouteDetail_형태로_구간별_요약을_낸다() throws Exception {
+        RoadNetwork net = network(grid(3));
+        EmbeddedRouter router = new EmbeddedRouter();
+        assertThat(router.isReady("driving-car")).isFalse();
+        router.install(RoadProfile.FOOT, ContractionHierarchy.build(net, RoadProfile.FOOT));
+
+        List<double[]> stops = List.of(
+                new double[]{LAT0, LON0},
+                new double[]{LAT0 + STEP * 4, LON0 + STEP * 6},
+                new double[]{LAT0 + STEP * 8, LON0 + STEP * 8});
+        RouteDetail d = router.routeDetail(stops, "foot-walking");
+
+        assertThat(d).isNotNull();
+        assertThat(d.legs()).hasSize(2);
+        double[] first = d.geometry().get(0);
+        double[] last = d.geometry().get(d.geometry().size() - 1);
+        assertThat(first[0]).isCloseTo(LAT0, offset(1e-6));
+        assertThat(first[1]).isCloseTo(LON0, offset(1e-6));
+        assertThat(last[0]).isCloseTo(LAT0 + STEP * 8, offset(1e-6));
+        assertThat(last[1]).isCloseTo(LON0 + STEP * 8, offset(1e-6));
+        // 격자 맨해튼 거리: (4+6) + (4+2) 칸 × 약 200m 안팎, 도보 4.5km/h.
+        assertThat(d.distanceMeters()).isBetween(2_500.0, 3_500.0);
+        assertThat(d.durationSeconds()).isCloseTo(d.distanceMeters() / RoadProfile.FOOT_SPEED_MPS,
+                offset(5.0));
+        assertThat(router.routeDetail(stops, "driving-car")).isNull();
+        assertThat(router.routeDetail(List.of(new double[]{33.0, 126.0}, stops.get(0)), "foot-walking")).isNull();
+    }
+
+    // ------------------------------------------------------------------ 도우미
+
+    /** N×N 격자 도로. 구간마다 속도 제한이 제각각이고 일부는 일방통행, 대각선 산책로가 섞인다. */
+    private static String grid(long seed) {
+        Random rnd = new Random(seed);
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < N; r++) {
+            for (int c = 0; c < N; c++) {
+                sb.append(String.format("<node id=\"%d\" lat=\"%.7f\" lon=\"%.7f\"/>%n",
+                        id(r, c), LAT0 + r * STEP, LON0 + c * STEP));
+            }
+        }
+        int way = 1000;
+        for (int r = 0; r < N; r++) {
+            for (int c = 0; c < N; c++) {
+                if (c + 1 < N) sb.append(way(way++, id(r, c), id(r, c + 1), rnd));
+                if (r + 1 < N) sb.append(way(way++, id(r, c), id(r + 1, c), rnd));
+                if (r + 1 < N && c + 1 < N && rnd.nextInt(4) == 0) {
+                    sb.append(String.format("<way id=\"%d\"><nd ref=\"%d\"/><nd ref=\"%d\"/>"
+                            + "<tag k=\"highway\" v=\"footway\"/></way>%n", way++, id(r, c), id(r + 1, c + 1)));
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String way(int id, long a, long b, Random rnd) {
+        String oneway = rnd.nextInt(6) == 0 ? "<tag k=\"oneway\" v=\"yes\"/>" : "";
+        return String.format("<way id=\"%d\"><nd ref=\"%d\"/><nd ref=\"%d\"/><tag k=\"highway\" v=\"%s\"/>"
+                        + "<tag k=\"maxspeed\" v=\"%d\"/>%s</way>%n",
+                id, a, b, rnd.nextBoolean() ? "residential" : "secondary", 20 + rnd.nextInt(7) * 10, oneway);
+    }
+
+    private static long id(int r, int c) {
+        return 1 + r * N + c;
+    }
+
+    private static RoadNetwork network(String body) throws Exception {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<osm version=\"0.6\">\n" + body + "</osm>\n";
+        return OsmExtractReader.read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static long pair(int a, int b) {
+        return ((long) a << 32) | (b & 0xffffffffL);
+    }
+
+    private static Map<Long, Integer> minWeights(RoadNetwork.Edges e) {
+        Map<Long, Integer> m = new HashMap<>();
+        for (int i = 0; i < e.size(); i++) m.merge(pair(e.from.get(i), e.to.get(i)), e.weight.get(i), Math::min);
+        return m;
+    }
+
+    private static long[] dijkstra(RoadNetwork net, RoadProfile p, int s) {
+        RoadNetwork.Edges e = net.edges.get(p);
+        long[] dist = new long[net.nodeCount()];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        dist[s] = 0;
+        PriorityQueue<long[]> pq = new PriorityQueue<>((x, y) -> Long.compare(x[0], y[0]));
+        pq.add(new long[]{0, s});
+        while (!pq.isEmpty()) {
+            long[] top = pq.poll();
+            int u = (int) top[1];
+            if (top[0] > dist[u]) continue;
+            for (int i = 0; i < e.size(); i++) {
+                if (e.from.get(i) != u) continue;
+                int v = e.to.get(i);
+                long nd = dist[u] + e.weight.get(i);
+                if (nd < dist[v]) {
+                    dist[v] = nd;
+                    pq.add(new long[]{nd, v});
+                }
+            }
+        }
+        return dist;
+    }
+}
@@ -0,0 +1,134 @@
+package com.waynai.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waynai.demo.cache.BoundedCache;
+import com.waynai.demo.dto.FlightOfferDto;
+import com.waynai.demo.dto.IntentAnalysisDto;
+import com.waynai.demo.dto.TravelEvent;
+import com.waynai.demo.dto.TravelPlanDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 요청 정규화 키(일정은 월, 가격은 날짜), 이벤트 기록·재생 범위, 가격 영역의 독립 만료를 확인한다.
+ */
+class PlanCacheTest {
+
+    private BoundedCache<String, List<FlightOfferDto>> flights;
+    private PlanCache cache;
+
+    @BeforeEach
+    void setUp() {
+        flights = new BoundedCache<>("plan-flight", BoundedCache.Spec.of(10, Duration.ofMillis(30)));
+        cache = new PlanCache(new BoundedCache<>("plan", BoundedCache.Spec.of(10, Duration.ofHours(1))),
+                new BoundedCache<>("plan-hotel", BoundedCache.Spec.of(10, Duration.ofHours(1))),
+                flights, new ObjectMapper(), true);
+    }
+
+    @Test
+    void 표기만_다른_요청은_같은_일정_키가_되고_가격_키는_날짜로_나뉜다() {
+        String a = cache.key(intent(" 부산 ", "2025-05-03"), "부산 2박3일 커플여행", null, null, null);
+        String b = cache.key(intent("부산", "2025-05-20"), "부산 2박 3일, 커플 여행!", "서울", null, null);
+
+        assertThat(a).isEqualTo(b);
+        assertThat(cache.priceKey(intent(" 부산 ", "2025-05-03"), "부산 2박3일 커플여행", null, null, null))
+                .isNotEqualTo(cache.priceKey(intent("부산", "2025-05-20"), "부산 2박 3일, 커플 여행!", "서울", null, null))
+                .isEqualTo(cache.priceKey(intent("부산", "2025-05-03"), "부산 2박 3일, 커플 여행!", "서울", null, null));
+        assertThat(cache.key(intent("부산", "2025-06-01"), "부산", null, null, null)).isNotEqualTo(a);
+        assertThat(cache.key(intent("부산", "2025-05-03"), "부산", "대구", null, null)).isNotEqualTo(a);
+        assertThat(cache.key(intent("부산", "2025-05-03"), "부산", null, null, "2025-05-05")).isNotEqualTo(a);
+    }
+
+    @Test
+    void 구조화_계획으로_끝난_요청만_토큰_없이_저장한다() {
+        PlanCache.Transcript failed = cache.transcript();
+        failed.key("k");
+        failed.record(event("token", "generating", "부산"));
+        failed.record(event("done", "completed", null));
+        assertThat(cache.lookup("k", "k")).isNull();
+
+        TravelPlanDto plan = plan();
+        PlanCache.Transcript t = cache.transcript();
+        t.key("k");
+        t.record(event("stage", "analyzing", null));
+        t.record(event("intent", "analyzing", new IntentAnalysisDto()));
+        t.record(event("stage", "searching", null));
+        t.record(event("sources.flight", "searching", List.of(FlightOfferDto.builder().price(90_000).build())));
+        t.record(event("stage", "generating", null));
+        t.record(event("token", "generating", "{\"itinerary\""));
+        t.record(event("partial", "generating", plan));
+        t.record(event("plan", "completed", plan));
+        t.record(event("done", "completed", null));
+        plan.setDestination("변경됨");
+
+        PlanCache.Hit hit = cache.lookup("k", "k");
+        assertThat(hit).isNotNull();
+        assertThat(hit.events()).extracting(TravelEvent::getType)
+                .containsExactly("stage", "plan");
+        assertThat(hit.plan().getDestination()).isEqualTo("부산");
+        assertThat(hit.hotels()).isEmpty();
+        assertThat(hit.flights()).hasSize(1);
+    }
+
+    @Test
+    void 항공_가격만_먼저_만료되고_재생_요청은_다시_저장하지_않는다() throws InterruptedException {
+        PlanCache.Transcript t = cache.transcript();
+        t.key("k");
+        t.record(event("plan", "completed", plan()));
+        t.record(event("done", "completed", null));
+        Thread.sleep(60);
+
+        PlanCache.Hit hit = cache.lookup("k", "k");
+        assertThat(hit.plan()).isNotNull();
+        assertThat(hit.hotels()).isEmpty();
+        assertThat(hit.flights()).isNull();
+
+        PlanCache.Transcript replay = cache.transcript();
+        replay.key("k");
+        replay.replayed();
+        replay.record(event("plan", "completed", TravelPlanDto.builder().destination("다른곳")
+                .itinerary(List.of(TravelPlanDto.DayPlan.builder().day(1).build())).build()));
+        replay.record(event("done", "completed", null));
+        assertThat(cache.lookup("k", "k").plan().getDestination()).isEqualTo("부산");
+    }
+
+    @Test
+    void 같은_달_다른_날짜는_일정만_재생하고_가격은_새로_받는다() {
+        PlanCache.Transcript t = cache.transcript();
+        t.key("k");
+        t.priceKey("k|2025-05-03");
+        t.record(event("sources.flight", "searching", List.of(FlightOfferDto.builder().price(90_000).build())));
+        t.record(event("plan", "completed", plan()));
+        t.record(event("done", "completed", null));
+
+        PlanCache.Hit same = cache.lookup("k", "k|2025-05-03");
+        assertThat(same.sameDates()).isTrue();
+        assertThat(same.flights()).hasSize(1);
+
+        PlanCache.Hit other = cache.lookup("k", "k|2025-05-20");
+        assertThat(other.plan()).isNotNull();
+        assertThat(other.sameDates()).isFalse();
+        assertThat(other.hotels()).isNull();
+        assertThat(other.flights()).isNull();
+    }
+
+    private static IntentAnalysisDto intent(String destination, String departDate) {
+        return IntentAnalysisDto.builder().destination(destination).days(3).partySize(2)
+                .companions("커플").departDate(departDate).build();
+    }
+
+    private static TravelPlanDto plan() {
+        return TravelPlanDto.builder().destination("부산")
+                .itinerary(List.of(TravelPlanDto.DayPlan.builder().day(1).title("해운대").build()))
+                .build();
+    }
+
+    private static TravelEvent event(String type, String stage, Object payload) {
+        return TravelEvent.builder().type(type).stage(stage).payload(payload).build();
+    }
+}
@@ -0,0 +1,100 @@
+package com.waynai.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waynai.demo.cache.NearDuplicateIndex;
+import com.waynai.demo.client.IataResolver;
+import com.waynai.demo.dto.IntentAnalysisDto;
+import com.waynai.demo.util.AreaCodeUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 규칙 추출은 네트워크 없이(정적 도시 사전 + 시군구 CSV) 동작해야 하고,
+ * 애매한 질의는 신뢰도를 낮춰 LLM 으로 넘겨야 한다. 근사 중복 재사용은 핵심 항목(anchor)이 같을 때만 한다.
+ */
+class RuleIntentExtractorTest {
+
+    private static final double THRESHOLD = 0.75;
+    private static RuleIntentExtractor extractor;
+
+    @BeforeAll
+    static void setUp() {
+        AreaCodeUtil areas = new AreaCodeUtil();
+        areas.loadAreaCodes();
+        extractor = new RuleIntentExtractor(areas, new IataResolver(new ObjectMapper()));
+    }
+
+    @Test
+    void 단순_국내_질의는_LLM_없이_채운다() {
+        IntentAnalysisDto r = extractor.extract("부산 2박3일 커플 여행");
+        assertThat(r.getConfidence()).isGreaterThanOrEqualTo(THRESHOLD);
+        assertThat(r.getDestination()).isEqualTo("부산");
+        assertThat(r.getInternational()).isFalse();
+        assertThat(r.getArea().getCode()).isEqualTo("26");
+        assertThat(r.getDays()).isEqualTo(3);
+        assertThat(r.getCompanions()).isEqualTo("커플");
+        assertThat(r.getIntent()).isEqualTo("area");
+    }
+
+    @Test
+    void 시군구와_키워드를_잡는다() {
+        IntentAnalysisDto r = extractor.extract("강릉 1박 카페 투어");
+        assertThat(r.getConfidence()).isGreaterThanOrEqualTo(THRESHOLD);
+        assertThat(r.getDestination()).isEqualTo("강릉");
+        assertThat(r.getArea().getSigungu().getName()).isEqualTo("강릉시");
+        assertThat(r.getDays()).isEqualTo(2);
+        assertThat(r.getKeyword()).isEqualTo("카페");
+        assertThat(r.getIntent()).isEqualTo("area_keyword");
+    }
+
+    @Test
+    void 해외_도시는_정적_사전으로_판정한다() {
+        IntentAnalysisDto r = extractor.extract("오사카 3박4일 친구 2명");
+        assertThat(r.getConfidence()).isGreaterThanOrEqualTo(THRESHOLD);
+        assertThat(r.getInternational()).isTrue();
+        assertThat(r.getDestination()).isEqualTo("오사카");
+        assertThat(r.getArea()).isNull();
+        assertThat(r.getDays()).isEqualTo(4);
+        assertThat(r.getPartySize()).isEqualTo(2);
+    }
+
+    @Test
+    void 출발지는_목적지에서_제외한다() {
+        IntentAnalysisDto r = extractor.extract("서울에서 제주도 2박3일 가족 여행");
+        assertThat(r.getOrigin()).isEqualTo("서울");
+        assertThat(r.getDestination()).isEqualTo("제주");
+        assertThat(r.getConfidence()).isGreaterThanOrEqualTo(THRESHOLD);
+    }
+
+    @Test
+    void 다도시_장기_날짜_질의는_LLM_으로_넘긴다() {
+        assertThat(extractor.extract("경주랑 포항 2박3일").getConfidence()).isLessThan(THRESHOLD);
+        assertThat(extractor.extract("로마 7박8일 여행").getConfidence()).isLessThan(THRESHOLD);
+        assertThat(extractor.extract("부산 3월 5일 출발 2박3일").getConfidence()).isLessThan(THRESHOLD);
+        assertThat(extractor.extract("해운대 근처 조용하고 오션뷰인 숙소랑 브런치").getConfidence()).isLessThan(THRESHOLD);
+    }
+
+    @Test
+    void 목적지나_동반만_다른_긴_질의는_근사_중복으로_재사용하지_않는다() {
+        NearDuplicateIndex<String> index = new NearDuplicateIndex<>(100, 0.8);
+        String stored = "여수 밤바다 야경 보러 가는 2박 3일 가족 여행 코스 추천해줘";
+        index.put(stored, extractor.anchor(extractor.extract(stored)));
+
+        String busan = "부산 밤바다 야경 보러 가는 2박 3일 가족 여행 코스 추천해줘";
+        // 글자 유사도만으로는 0.8 도 넘는다.
+        assertThat(index.find(busan)).isNotNull();
+        assertThat(find(index, busan)).isNull();
+        assertThat(find(index, "여수 밤바다 야경 보러 가는 2박 3일 커플 여행 코스 추천해줘")).isNull();
+
+        NearDuplicateIndex.Match<String> same = find(index, "여수 밤바다 야경 보러 가는 2박3일 가족여행 코스 추천");
+        assertThat(same).isNotNull();
+        assertThat(same.canonical()).isEqualTo(stored);
+    }
+
+    private static NearDuplicateIndex.Match<String> find(NearDuplicateIndex<String> index, String query) {
+        String anchor = extractor.anchor(extractor.extract(query));
+        return index.find(query, anchor::equals);
+    }
+}
@@ -0,0 +1,146 @@
+package com.waynai.demo.transit;
+
+import com.waynai.demo.client.DaeroClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 작은 GTFS(지하철 1개 + 버스 1개 + 주말 급행 + 완행을 추월하는 직행)로 적재·RAPTOR·다출발 일괄 질의를 확인한다.
+ */
+class RaptorTest {
+
+    @TempDir
+    Path feed;
+
+    private EmbeddedTransitPlanner planner;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        write("stops.txt", """
+                stop_id,stop_name,stop_lat,stop_lon
+                A,"에이역, 1번 출구",37.5000,127.0000
+                B,비역,37.5000,127.0100
+                C,씨역,37.5000,127.0200
+                C2,씨역 버스정류장,37.5010,127.0200
+                D,디,37.5200,127.0200
+                E,이,37.5300,127.0200
+                F,에프,37.6000,127.1000
+                G,지,37.6000,127.2000
+                """);
+        write("routes.txt", """
+                route_id,route_short_name,route_long_name,route_type
+                L1,1,,1
+                B100,100,,3
+                X,급행,,3
+                Y,7,,3
+                """);
+        write("calendar.txt", """
+                service_id,monday,tuesday,wednesday,thursday,friday,saturday,sunday,start_date,end_date
+                WK,1,1,1,1,1,0,0,20250101,20301231
+                WE,0,0,0,0,0,1,1,20250101,20301231
+                """);
+        StringBuilder trips = new StringBuilder("route_id,service_id,trip_id\n");
+        StringBuilder times = new StringBuilder("trip_id,arrival_time,departure_time,stop_id,stop_sequence\n");
+        for (int m = 8 * 60; m <= 10 * 60; m += 10) {
+            String id = "L1-" + m;
+            trips.append("L1,WK,").append(id).append('\n');
+            times.append(id).append(',').append(hms(m)).append(',').append(hms(m)).append(",A,1\n");
+            times.append(id).append(",,,B,2\n"); // 비어 있는 시각은 보간
+            times.append(id).append(',').append(hms(m + 4)).append(',').append(hms(m + 4)).append(",C,3\n");
+        }
+        for (int m = 8 * 60; m <= 11 * 60; m += 15) {
+            String id = "B100-" + m;
+            trips.append("B100,WK,").append(id).append('\n');
+            // 정류장 순서가 뒤섞인 stop_times 도 stop_sequence 로 정렬해 읽는다.
+            times.append(id).append(',').append(hms(m + 10)).append(',').append(hms(m + 10)).append(",E,3\n");
+            times.append(id).append(',').append(hms(m)).append(',').append(hms(m)).append(",C2,1\n");
+            times.append(id).append(',').append(hms(m + 5)).append(',').append(hms(m + 5)).append(",D,2\n");
+        }
+        trips.append("X,WE,X-1\n");
+        times.append("X-1,09:05:00,09:05:00,A,1\nX-1,09:08:00,09:08:00,E,2\n");
+        // 같은 노선·정류장 순서에서 늦게 떠난 직행이 완행을 앞지른다.
+        trips.append("Y,WK,Y-slow\nY,WK,Y-fast\n");
+        times.append("Y-slow,09:01:00,09:01:00,F,1\nY-slow,09:41:00,09:41:00,G,2\n");
+        times.append("Y-fast,09:05:00,09:05:00,F,1\nY-fast,09:20:00,09:20:00,G,2\n");
+        write("trips.txt", trips.toString());
+        write("stop_times.txt", times.toString());
+
+        planner = new EmbeddedTransitPlanner();
+        assertThat(planner.isReady()).isFalse();
+        planner.install(GtfsFeedReader.read(List.of(feed)));
+    }
+
+    @Test
+    void 지하철에서_버스로_걸어_갈아타는_경로를_찾는다() {
+        DaeroClient.Transit t = planner.plan(List.of(new DaeroClient.Leg(37.4995, 127.0000, 37.5300, 127.0205)),
+                "09:00").get(0);
+
+        assertThat(t).isNotNull();
+        assertThat(t.firstMode()).isEqualTo("SUBWAY");
+        assertThat(t.firstRoute()).isEqualTo("1");
+        assertThat(t.modeSummary()).isEqualTo("지하철·버스");
+        assertThat(t.transfers()).isEqualTo(1);
+        assertThat(t.fareKrw()).isEqualTo(1_500);
+        // 1분 걸어 09:10 지하철 → 09:14 씨역 → 2분 걸어 09:15 버스는 놓치고 09:30 버스 → 09:40 이 정류장 (+ 도보)
+        assertThat(t.durationMin()).isEqualTo(41);
+        assertThat(t.note()).contains("환승 1회").contains("1,500원");
+    }
+
+    @Test
+    void 주말_운행은_평일_시간표에서_빠진다() {
+        DaeroClient.Transit t = planner.plan(List.of(new DaeroClient.Leg(37.5000, 127.0000, 37.5300, 127.0200)),
+                "09:00").get(0);
+        assertThat(t.firstRoute()).isNotEqualTo("급행");
+    }
+
+    @Test
+    void 하루치_구간을_한번에_풀어도_하나씩_푼_결과와_같다() {
+        List<DaeroClient.Leg> day = List.of(
+                new DaeroClient.Leg(37.5000, 127.0000, 37.5000, 127.0200),
+                new DaeroClient.Leg(37.5000, 127.0200, 37.5300, 127.0200),
+                new DaeroClient.Leg(37.5000, 127.0100, 37.5000, 127.0120),
+                new DaeroClient.Leg(34.0000, 125.0000, 34.0500, 125.0500));
+        List<DaeroClient.Transit> batch = planner.plan(day, "09:00");
+
+        assertThat(batch).hasSize(day.size());
+        for (int i = 0; i < day.size(); i++) {
+            assertThat(batch.get(i)).isEqualTo(planner.plan(List.of(day.get(i)), "09:00").get(0));
+        }
+        assertThat(batch.get(0).modeSummary()).isEqualTo("지하철");
+        assertThat(batch.get(1).firstRoute()).isEqualTo("100");
+        // 180m 는 걷는 게 빠르다.
+        assertThat(batch.get(2).modeSummary()).isEqualTo("도보");
+        assertThat(batch.get(2).fareKrw()).isZero();
+        // 정류장이 없는 바다 한가운데
+        assertThat(batch.get(3)).isNull();
+    }
+
+    @Test
+    void 앞_운행을_추월하는_운행은_따로_타서_먼저_도착한다() {
+        DaeroClient.Leg leg = new DaeroClient.Leg(37.6000, 127.1000, 37.6000, 127.2000);
+
+        // 09:01 완행을 탈 수 있어도 09:05 직행이 09:20 에 먼저 닿는다(+ 정류장 도보 올림 1분).
+        assertThat(planner.plan(List.of(leg), "09:00").get(0).durationMin()).isEqualTo(21);
+        // 완행이 떠난 뒤에는 직행만 남는다.
+        assertThat(planner.plan(List.of(leg), "09:03").get(0).durationMin()).isEqualTo(18);
+        // 직행까지 떠났으면 이미 떠난 운행을 타지 않는다.
+        assertThat(planner.plan(List.of(leg), "09:06").get(0)).satisfiesAnyOf(
+                t -> assertThat(t).isNull(),
+                t -> assertThat(t.firstRoute()).isNotEqualTo("7"));
+    }
+
+    private void write(String name, String body) throws Exception {
+        Files.writeString(feed.resolve(name), body);
+    }
+
+    private static String hms(int minutes) {
+        return String.format("%02d:%02d:00", minutes / 60, minutes % 60);
+    }
+}
@@ -0,0 +1,54 @@
+package com.waynai.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 질의 문장 1회 스캔으로 도시 별칭을 최장 일치로 찾되, 단어 안쪽의 짧은 별칭은 잡지 않아야 한다.
+ */
+class AliasTrieTest {
+
+    private static AliasTrie<String> trie() {
+        AliasTrie<String> t = new AliasTrie<>();
+        t.put("제주", "CJU");
+        t.put("제주도", "CJU");
+        t.put("오사카", "OSA");
+        t.put("니스", "NCE");
+        t.put("LA", "LAX");
+        t.put("los angeles", "LAX");
+        t.put("new york", "NYC");
+        return t;
+    }
+
+    @Test
+    void 겹치지_않는_최장_일치를_등장_순서대로_찾는다() {
+        List<AliasTrie.Hit<String>> hits = trie().scan("제주도랑 오사카 4박5일");
+        assertThat(hits).extracting(AliasTrie.Hit::alias).containsExactly("제주도", "오사카");
+        assertThat(hits).extracting(AliasTrie.Hit::value).containsExactly("CJU", "OSA");
+    }
+
+    @Test
+    void 영문_별칭은_대소문자를_무시하고_단어_경계에서만_잡는다() {
+        assertThat(trie().scan("New York and LA trip")).extracting(AliasTrie.Hit::value)
+                .containsExactly("NYC", "LAX");
+        assertThat(trie().scan("travel plan for Los Angeles")).extracting(AliasTrie.Hit::alias)
+                .containsExactly("los angeles");
+    }
+
+    @Test
+    void 짧은_한글_별칭은_어절_중간에서_잡지_않는다() {
+        assertThat(trie().scan("비즈니스 출장")).isEmpty();
+        assertThat(trie().scan("니스에서 3일")).extracting(AliasTrie.Hit::value).containsExactly("NCE");
+    }
+
+    @Test
+    void 정확_조회는_먼저_등록한_값을_유지한다() {
+        AliasTrie<String> t = trie();
+        t.put("오사카", "KIX");
+        assertThat(t.get("오사카")).isEqualTo("OSA");
+        assertThat(t.get("오사")).isNull();
+    }
+}
@@ -0,0 +1,87 @@
+package com.waynai.demo.util;
+
+import com.waynai.demo.dto.TouristSpotDto;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 관광공사 좌표로 채운 로컬 색인이 표기 흔들림(공백·괄호·오타)을 흡수하되,
+ * 지역 힌트 밖의 동명 장소는 돌려주지 않아야 한다.
+ */
+class KoreanGazetteerTest {
+
+    private static KoreanGazetteer gazetteer;
+
+    @BeforeAll
+    static void setUp() {
+        AreaCodeUtil areas = new AreaCodeUtil();
+        areas.loadAreaCodes();
+        gazetteer = new KoreanGazetteer(areas);
+        gazetteer.index(List.of(
+                spot("해동용궁사", "26", "26710", 35.1884, 129.2233),
+                spot("감천문화마을", "26", "26380", 35.0975, 129.0106),
+                spot("자갈치시장", "26", "26110", 35.0967, 129.0305),
+                spot("중앙시장", "51", "51150", 37.7545, 128.8992),
+                spot("중앙시장", "47", "47130", 35.8427, 129.2105),
+                spot("경포해변", "51", "51150", 37.8055, 128.9085),
+                spot("강릉커피거리", "51", "51150", 37.7714, 128.9479),
+                spot("중앙공원", "26", "26110", 35.1010, 129.0320),
+                spot("중앙공원", "26", "26710", 35.2440, 129.2220),
+                spot("용두산공원", "26", "26110", 35.1007, 129.0321)));
+    }
+
+    @Test
+    void 공백과_괄호를_지우고_찾는다() {
+        double[] p = gazetteer.lookup("해동 용궁사 (기장)", "부산");
+        assertThat(p).containsExactly(35.1884, 129.2233);
+    }
+
+    @Test
+    void 자모_오타를_허용한다() {
+        // 감천문화마을 → 감천문하마을 (ㅘ/ㅏ 한 자모 차이)
+        assertThat(gazetteer.lookup("감천문하마을", "부산광역시")).containsExactly(35.0975, 129.0106);
+    }
+
+    @Test
+    void 지역_힌트로_동명_장소를_가른다() {
+        assertThat(gazetteer.lookup("중앙시장", "강릉")).containsExactly(37.7545, 128.8992);
+        assertThat(gazetteer.lookup("중앙시장", "경주")).containsExactly(35.8427, 129.2105);
+        // 범위를 못 정하면 동명 장소는 모호 → 미해석
+        assertThat(gazetteer.lookup("중앙시장", "대한민국")).isNull();
+        // 다른 지역 힌트면 오타 허용으로도 끌어오지 않는다
+        assertThat(gazetteer.lookup("자갈치시장", "강릉")).isNull();
+    }
+
+    @Test
+    void 같은_시도_안의_동명_장소는_시군구로_가른다() {
+        assertThat(gazetteer.lookup("중앙공원", "기장")).containsExactly(35.2440, 129.2220);
+        assertThat(gazetteer.lookup("중앙공원", "부산 중구")).containsExactly(35.1010, 129.0320);
+        // 시도만 알면 어느 쪽인지 모른다
+        assertThat(gazetteer.lookup("중앙공원", "부산")).isNull();
+        // 범위(기장) 밖의 정확히 같은 이름은 다른 장소 — 오타 허용 후보로도 쓰지 않는다
+        assertThat(gazetteer.lookup("용두산공원", "기장")).isNull();
+        assertThat(gazetteer.lookup("용두산공원", "부산")).containsExactly(35.1007, 129.0321);
+    }
+
+    @Test
+    void 시군구_이름은_색인된_장소의_중심을_준다() {
+        double[] c = gazetteer.lookup("강릉", "대한민국");
+        assertThat(c).isNotNull();
+        assertThat(c[0]).isBetween(37.75, 37.81);
+        assertThat(c[1]).isBetween(128.89, 128.95);
+    }
+
+    private static TouristSpotDto spot(String name, String area, String sigungu, double lat, double lon) {
+        TouristSpotDto s = new TouristSpotDto();
+        s.setHubTatsNm(name);
+        s.setAreaCd(area);
+        s.setSignguCd(sigungu);
+        s.setMapY(String.valueOf(lat));
+        s.setMapX(String.valueOf(lon));
+        return s;
+    }
+}
@@ -0,0 +1,97 @@
+package com.waynai.demo.util;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waynai.demo.dto.TravelPlanDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 델타가 어디서 잘려 들어오든 일차가 닫히는 즉시 순서대로 통지되고,
+ * 최종 스냅샷이 전체 문자열을 한 번에 파싱한 결과와 같아야 한다.
+ */
+class StreamingPlanParserTest {
+
+    private static final String PLAN = "```json\n{\"type\":\"travel_plan\",\"destination\":\"부산 {해운대}\","
+            + "\"days\":2,\"summary\":\"바다와 \\\"시장\\\" 투어\","
+            + "\"itinerary\":[{\"day\":1,\"title\":\"해운대\",\"spots\":[{\"name\":\"동백섬\",\"latitude\":35.15}]},"
+            + "{\"day\":2,\"title\":\"자갈치, 남포\",\"activities\":[\"]}\"]}],"
+            + "\"tips\":[\"교통카드\"]}\n```";
+
+    private final ObjectMapper om = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Test
+    void 청크_크기와_무관하게_일차를_순서대로_방출한다() throws Exception {
+        TravelPlanDto expected = om.readValue(PLAN.substring(PLAN.indexOf('{'), PLAN.lastIndexOf('}') + 1),
+                TravelPlanDto.class);
+        for (int size = 1; size <= 17; size++) {
+            List<String> events = new ArrayList<>();
+            StreamingPlanParser parser = new StreamingPlanParser(om, recorder(events));
+            for (int i = 0; i < PLAN.length(); i += size) {
+                parser.feed(PLAN.substring(i, Math.min(PLAN.length(), i + size)));
+            }
+            assertThat(parser.isComplete()).as("chunk=%d", size).isTrue();
+            assertThat(parser.snapshot()).isEqualTo(expected);
+            assertThat(events).containsExactly("field:type", "field:destination", "field:days", "field:summary",
+                    "day:0:해운대", "day:1:자갈치, 남포", "field:tips");
+        }
+    }
+
+    @Test
+    void 일차가_닫히는_시점에_스냅샷에_반영된다() {
+        List<Integer> sizes = new ArrayList<>();
+        StreamingPlanParser parser = new StreamingPlanParser(om, new StreamingPlanParser.Listener() {
+            @Override
+            public void onDay(int index, TravelPlanDto.DayPlan day, TravelPlanDto snapshot) {
+                sizes.add(snapshot.getItinerary().size());
+            }
+
+            @Override
+            public void onField(String name, TravelPlanDto snapshot) {
+            }
+        });
+        String head = "{\"itinerary\":[{\"day\":1,\"title\":\"a\"},";
+        parser.feed(head);
+        assertThat(sizes).containsExactly(1);
+        assertThat(parser.isComplete()).isFalse();
+        parser.feed("{\"day\":2}");
+        assertThat(sizes).containsExactly(1, 2);
+    }
+
+    @Test
+    void 스마트따옴표를_정규화한다() {
+        StreamingPlanParser parser = new StreamingPlanParser(om, recorder(new ArrayList<>()));
+        parser.feed("{“destination”:“제주”,“itinerary”:[{“day”:1}]}");
+        assertThat(parser.isComplete()).isTrue();
+        assertThat(parser.snapshot().getDestination()).isEqualTo("제주");
+        assertThat(parser.dayCount()).isEqualTo(1);
+    }
+
+    @Test
+    void 잘린_스트림은_완료로_보지_않는다() {
+        StreamingPlanParser parser = new StreamingPlanParser(om, recorder(new ArrayList<>()));
+        parser.feed("{\"summary\":\"x\",\"itinerary\":[{\"day\":1},{\"day\":2,\"title\":\"잘");
+        assertThat(parser.isComplete()).isFalse();
+        assertThat(parser.dayCount()).isEqualTo(1);
+        assertThat(parser.snapshot().getSummary()).isEqualTo("x");
+    }
+
+    private StreamingPlanParser.Listener recorder(List<String> events) {
+        return new StreamingPlanParser.Listener() {
+            @Override
+            public void onDay(int index, TravelPlanDto.DayPlan day, TravelPlanDto snapshot) {
+                events.add("day:" + index + ":" + day.getTitle());
+            }
+
+            @Override
+            public void onField(String name, TravelPlanDto snapshot) {
+                events.add("field:" + name);
+            }
+        };
+    }
+}